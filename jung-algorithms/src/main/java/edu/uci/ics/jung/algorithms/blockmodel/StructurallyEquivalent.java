@@ -10,15 +10,19 @@
  */
 package edu.uci.ics.jung.algorithms.blockmodel;
 
+import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.graph.Graph;
+import edu.uci.ics.jung.algorithms.util.Indexer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -36,9 +40,34 @@ import java.util.function.Function;
  * canPossiblyCompare</code> may return <code>false</code> for nodes in different partitions. This
  * function should be fast.)
  *
+ * <p>If signature hashing is enabled, nodes are first grouped into buckets by a canonical signature
+ * of their neighborhoods, and only nodes in the same bucket are compared. Two nodes that are
+ * structurally equivalent either are not adjacent and have the same (predecessor, successor) sets,
+ * or are adjacent in both directions and have the same sets once each node is added to its own; so
+ * each node is placed in one bucket keyed by the former and one keyed by the latter. This reduces
+ * the running time to O(E log D), where D is the maximum degree, but is only correct for subclasses
+ * whose <code>isStructurallyEquivalent</code> is no more permissive than the one defined here.
+ *
  * @author Danyel Fisher
  */
 public class StructurallyEquivalent<N> implements Function<Graph<N>, NodePartition<N>> {
+  private final boolean useSignatures;
+
+  /** Creates an instance which compares every pair of nodes. */
+  public StructurallyEquivalent() {
+    this(false);
+  }
+
+  /**
+   * Creates an instance which, if <code>useSignatures</code> is {@code true}, compares only nodes
+   * whose neighborhoods have the same signature.
+   *
+   * @param useSignatures if {@code true}, group nodes by neighborhood signature before comparing
+   */
+  public StructurallyEquivalent(boolean useSignatures) {
+    this.useSignatures = useSignatures;
+  }
+
   public NodePartition<N> apply(Graph<N> g) {
     ImmutableSet<ImmutableList<N>> nodePairs = getEquivalentPairs(g);
 
@@ -85,14 +114,30 @@ public class StructurallyEquivalent<N> implements Function<Graph<N>, NodePartiti
     ImmutableSet.Builder<ImmutableList<N>> rv = ImmutableSet.builder();
     Set<N> alreadyEquivalent = new HashSet<N>();
 
-    List<N> l = new ArrayList<N>(g.nodes());
+    if (useSignatures) {
+      for (List<N> bucket : getSignatureBuckets(g)) {
+        addEquivalentPairs(g, bucket, alreadyEquivalent, rv);
+      }
+    } else {
+      addEquivalentPairs(g, new ArrayList<N>(g.nodes()), alreadyEquivalent, rv);
+    }
+
+    return rv.build();
+  }
 
-    for (N v1 : l) {
+  /**
+   * Compares each pair of nodes in <code>l</code> that are not yet known to be equivalent to some
+   * other node, and adds the equivalent pairs to <code>rv</code>.
+   */
+  private void addEquivalentPairs(
+      Graph<N> g, List<N> l, Set<N> alreadyEquivalent, ImmutableSet.Builder<ImmutableList<N>> rv) {
+    for (int i = 0; i < l.size(); i++) {
+      N v1 = l.get(i);
       if (alreadyEquivalent.contains(v1)) {
         continue;
       }
 
-      for (Iterator<N> iterator = l.listIterator(l.indexOf(v1) + 1); iterator.hasNext(); ) {
+      for (Iterator<N> iterator = l.listIterator(i + 1); iterator.hasNext(); ) {
         N v2 = iterator.next();
 
         if (alreadyEquivalent.contains(v2)) {
@@ -110,8 +155,96 @@ public class StructurallyEquivalent<N> implements Function<Graph<N>, NodePartiti
         }
       }
     }
+  }
 
-    return rv.build();
+  /**
+   * Groups the nodes of <code>g</code> by the signatures of their open neighborhoods (sorted
+   * predecessor and successor indices, excluding the node itself) and of their closed neighborhoods
+   * (including the node itself). Each node appears in exactly two buckets; buckets of size 1 are
+   * omitted. Buckets, and the nodes within each bucket, are in the iteration order of <code>
+   * g.nodes()</code>.
+   *
+   * @param g the graph whose nodes are to be grouped
+   * @return the buckets of nodes with identical signatures
+   */
+  protected List<List<N>> getSignatureBuckets(Graph<N> g) {
+    BiMap<N, Integer> indices = Indexer.create(g.nodes());
+    Map<Signature, List<N>> buckets = new LinkedHashMap<Signature, List<N>>();
+    for (N v : g.nodes()) {
+      int index = indices.get(v);
+      int[] predecessors = sortedIndices(g.predecessors(v), indices, index);
+      int[] successors =
+          g.isDirected() ? sortedIndices(g.successors(v), indices, index) : predecessors;
+      buckets
+          .computeIfAbsent(new Signature(predecessors, successors), k -> new ArrayList<N>())
+          .add(v);
+      buckets
+          .computeIfAbsent(
+              new Signature(withIndex(predecessors, index), withIndex(successors, index)),
+              k -> new ArrayList<N>())
+          .add(v);
+    }
+    List<List<N>> rv = new ArrayList<List<N>>();
+    for (List<N> bucket : buckets.values()) {
+      if (bucket.size() > 1) {
+        rv.add(bucket);
+      }
+    }
+    return rv;
+  }
+
+  /** Returns the sorted indices of <code>nodes</code>, excluding <code>exclude</code>. */
+  private static <N> int[] sortedIndices(Set<N> nodes, BiMap<N, Integer> indices, int exclude) {
+    int[] rv = new int[nodes.size()];
+    int size = 0;
+    for (N v : nodes) {
+      int index = indices.get(v);
+      if (index != exclude) {
+        rv[size++] = index;
+      }
+    }
+    rv = Arrays.copyOf(rv, size);
+    Arrays.sort(rv);
+    return rv;
+  }
+
+  /** Returns a sorted copy of <code>sorted</code> (which does not contain index) plus index. */
+  private static int[] withIndex(int[] sorted, int index) {
+    int position = -Arrays.binarySearch(sorted, index) - 1;
+    int[] rv = new int[sorted.length + 1];
+    System.arraycopy(sorted, 0, rv, 0, position);
+    rv[position] = index;
+    System.arraycopy(sorted, position, rv, position + 1, sorted.length - position);
+    return rv;
+  }
+
+  /** A canonical (predecessor, successor) neighborhood signature. */
+  private static final class Signature {
+    private final int[] predecessors;
+    private final int[] successors;
+    private final int hash;
+
+    Signature(int[] predecessors, int[] successors) {
+      this.predecessors = predecessors;
+      this.successors = successors;
+      this.hash = 31 * Arrays.hashCode(predecessors) + Arrays.hashCode(successors);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Signature)) {
+        return false;
+      }
+      Signature other = (Signature) o;
+      return hash == other.hash
+          && Arrays.equals(predecessors, other.predecessors)
+          && Arrays.equals(successors, other.successors);
+    }
   }
 
   /**
@@ -9,11 +9,13 @@
  */
 package edu.uci.ics.jung.algorithms.cluster;
 
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.graph.EndpointPair;
 import com.google.common.graph.Graph;
-import java.util.ArrayDeque;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import java.util.Arrays;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -29,15 +31,34 @@ import java.util.function.Function;
  *
  * <p>Running time: O(|V| + |E|) where |V| is the number of nodes and |E| is the number of edges
  *
+ * <p>The depth-first search is iterative, over an indexed copy of the graph's adjacency lists, so
+ * its depth is not limited by the thread's stack size. {@link #findBicomponents(Graph)} also
+ * identifies the articulation points and provides the block-cut tree.
+ *
  * @see "Depth first search and linear graph algorithms by R. E. Tarjan (1972), SIAM J. Comp."
  * @author Joshua O'Madadhain
  */
 public class BicomponentClusterer<N, E> implements Function<Graph<N>, Set<Set<N>>> {
-  protected Map<N, Number> dfs_num;
-  protected Map<N, Number> high;
-  protected Map<N, N> parents;
-  protected Deque<EndpointPair<N>> stack;
-  protected int converse_depth;
+  /**
+   * @deprecated used only by {@link #findBiconnectedComponents(Graph, Object, Set)}
+   */
+  @Deprecated protected Map<N, Number> dfs_num;
+  /**
+   * @deprecated used only by {@link #findBiconnectedComponents(Graph, Object, Set)}
+   */
+  @Deprecated protected Map<N, Number> high;
+  /**
+   * @deprecated used only by {@link #findBiconnectedComponents(Graph, Object, Set)}
+   */
+  @Deprecated protected Map<N, N> parents;
+  /**
+   * @deprecated used only by {@link #findBiconnectedComponents(Graph, Object, Set)}
+   */
+  @Deprecated protected Deque<EndpointPair<N>> stack;
+  /**
+   * @deprecated used only by {@link #findBiconnectedComponents(Graph, Object, Set)}
+   */
+  @Deprecated protected int converse_depth;
 
   /** Constructs a new bicomponent finder */
   public BicomponentClusterer() {}
@@ -46,69 +67,29 @@ public class BicomponentClusterer<N, E> implements Function<Graph<N>, Set<Set<N>
    * Extracts the bicomponents from the graph.
    *
    * @param graph the graph whose bicomponents are to be extracted
-   * @return the <code>ClusterSet</code> of bicomponents
+   * @return the <code>ClusterSet</code> of bicomponents, as a mutable set of mutable sets
    */
   public Set<Set<N>> apply(Graph<N> graph) {
     Set<Set<N>> bicomponents = new LinkedHashSet<Set<N>>();
-
-    if (graph.nodes().isEmpty()) {
-      return bicomponents;
+    for (Set<N> bicomponent : findBicomponents(graph).getBicomponents()) {
+      bicomponents.add(new HashSet<N>(bicomponent));
     }
-
-    // initialize DFS number for each node to 0
-    dfs_num = new HashMap<N, Number>();
-    for (N v : graph.nodes()) {
-      dfs_num.put(v, 0);
-    }
-
-    for (N v : graph.nodes()) {
-      if (dfs_num.get(v).intValue() == 0) { // if we haven't hit this node yet...
-        high = new HashMap<N, Number>();
-        stack = new ArrayDeque<EndpointPair<N>>();
-        parents = new HashMap<N, N>();
-        converse_depth = graph.nodes().size();
-        // find the biconnected components for this subgraph, starting from v
-        findBiconnectedComponents(graph, v, bicomponents);
-
-        // if we only visited one node, this method won't have
-        // ID'd it as a biconnected component, so mark it as one
-        if (graph.nodes().size() - converse_depth == 1) {
-          Set<N> s = new HashSet<N>();
-          s.add(v);
-          bicomponents.add(s);
-        }
-      }
-    }
-
     return bicomponents;
   }
 
   /**
    * Stores, in <code>bicomponents</code>, all the biconnected components that are reachable from
-   * <code>v</code>.
-   *
-   * <p>The algorithm basically proceeds as follows: do a depth-first traversal starting from <code>
-   * v</code>, marking each node with a value that indicates the order in which it was encountered
-   * (dfs_num), and with a value that indicates the highest point in the DFS tree that is known to
-   * be reachable from this node using non-DFS edges (high). (Since it is measured on non-DFS edges,
-   * "high" tells you how far back in the DFS tree you can reach by two distinct paths, hence
-   * biconnectivity.) Each time a new node w is encountered, push the edge just traversed on a
-   * stack, and call this method recursively. If w.high is no greater than v.dfs_num, then the
-   * contents of the stack down to (v,w) is a biconnected component (and v is an articulation point,
-   * that is, a component boundary). In either case, set v.high to max(v.high, w.high), and
-   * continue. If w has already been encountered but is not v's parent, set v.high max(v.high,
-   * w.dfs_num) and continue.
-   *
-   * <p>(In case anyone cares, the version of this algorithm on p. 224 of Udi Manber's "Introduction
-   * to Algorithms: A Creative Approach" seems to be wrong: the stack should be initialized outside
-   * this method, (v,w) should only be put on the stack if w hasn't been seen already, and there's
-   * no real benefit to putting v on the stack separately: just check for (v,w) on the stack rather
-   * than v. Had I known this, I could have saved myself a few days. JRTOM)
+   * <code>v</code>, by recursive depth-first search. The caller must first initialize <code>
+   * dfs_num</code> (to 0 for every node), <code>high</code>, <code>parents</code>, <code>stack
+   * </code> and <code>converse_depth</code> (to the number of nodes).
    *
    * @param g the graph to check for biconnected components
    * @param v the starting place for searching for biconnected components
    * @param bicomponents storage for the biconnected components found by this algorithm
+   * @deprecated {@link #apply(Graph)} no longer calls this method; its recursion depth is limited
+   *     by the thread's stack size. Use {@link #findBicomponents(Graph)}.
    */
+  @Deprecated
   protected void findBiconnectedComponents(Graph<N> g, N v, Set<Set<N>> bicomponents) {
     int v_dfs_num = converse_depth;
     dfs_num.put(v, v_dfs_num);
@@ -124,10 +105,8 @@ public class BicomponentClusterer<N, E> implements Function<Graph<N>, Set<Set<N>
         findBiconnectedComponents(g, w, bicomponents);
         int w_high = high.get(w).intValue();
         if (w_high <= v_dfs_num) {
-          // v disconnects w from the rest of the graph,
-          // i.e., v is an articulation point
-          // thus, everything between the top of the stack and
-          // v is part of a single biconnected component
+          // v is an articulation point: everything between the top of the stack and (v,w) is part
+          // of a single biconnected component
           Set<N> bicomponent = new HashSet<N>();
           EndpointPair<N> endpoints;
           do {
@@ -143,4 +122,139 @@ public class BicomponentClusterer<N, E> implements Function<Graph<N>, Set<Set<N>
       }
     }
   }
+
+  /**
+   * Finds the biconnected components and articulation points of the graph.
+   *
+   * <p>The algorithm basically proceeds as follows: do a depth-first traversal, marking each node
+   * with the order in which it was encountered (dfs_num), and with the earliest point in the DFS
+   * tree that is known to be reachable from its subtree using non-DFS edges (low). Each node is
+   * pushed on a stack when it is first encountered. When the search finishes with a child w of v,
+   * if w.low is no earlier than v.dfs_num, then v disconnects w's subtree from the rest of the
+   * graph (so v is an articulation point, unless it is the root of the DFS tree and this is its
+   * only child), and the nodes on the stack down to w, together with v, form a biconnected
+   * component. Nodes with no neighbors form biconnected components by themselves.
+   *
+   * @param graph the graph whose bicomponents are to be found
+   * @return the bicomponents and articulation points of <code>graph</code>
+   */
+  public Bicomponents<N> findBicomponents(Graph<N> graph) {
+    ImmutableList<N> nodes = ImmutableList.copyOf(graph.nodes());
+    BiMap<N, Integer> indices = Indexer.create(nodes);
+    int n = nodes.size();
+
+    // adjacency lists, ignoring edge direction and self-loops
+    int[] offsets = new int[n + 1];
+    for (int v = 0; v < n; v++) {
+      offsets[v + 1] = offsets[v] + graph.adjacentNodes(nodes.get(v)).size();
+    }
+    int[] neighbors = new int[offsets[n]];
+    for (int v = 0; v < n; v++) {
+      int k = offsets[v];
+      for (N w : graph.adjacentNodes(nodes.get(v))) {
+        neighbors[k++] = indices.get(w);
+      }
+    }
+
+    int[] dfsNum = new int[n]; // 0 if not yet visited
+    int[] low = new int[n];
+    int[] parent = new int[n];
+    int[] next = new int[n]; // the position of the next neighbor to examine
+    int[] callStack = new int[n];
+    int[] nodeStack = new int[n];
+    boolean[] isArticulationPoint = new boolean[n];
+    int[] blockOffsets = new int[16];
+    int[] blockMembers = new int[Math.max(16, n)];
+    int blocks = 0;
+    int members = 0;
+    int counter = 0;
+
+    for (int root = 0; root < n; root++) {
+      if (dfsNum[root] != 0) {
+        continue;
+      }
+      dfsNum[root] = low[root] = ++counter;
+      parent[root] = -1;
+      next[root] = offsets[root];
+      int depth = 0;
+      callStack[depth++] = root;
+      int nodeTop = 0;
+      nodeStack[nodeTop++] = root;
+      int rootChildren = 0;
+
+      while (depth > 0) {
+        int v = callStack[depth - 1];
+        if (next[v] < offsets[v + 1]) {
+          int w = neighbors[next[v]++];
+          if (w == v || w == parent[v]) {
+            continue;
+          }
+          if (dfsNum[w] == 0) { // w hasn't yet been visited
+            dfsNum[w] = low[w] = ++counter;
+            parent[w] = v;
+            next[w] = offsets[w];
+            callStack[depth++] = w;
+            nodeStack[nodeTop++] = w;
+          } else { // (v,w) is a back edge
+            low[v] = Math.min(low[v], dfsNum[w]);
+          }
+          continue;
+        }
+
+        // v is finished; return to its parent
+        depth--;
+        int p = parent[v];
+        if (p < 0) {
+          continue;
+        }
+        low[p] = Math.min(low[p], low[v]);
+        if (low[v] >= dfsNum[p]) {
+          // p disconnects v's subtree from the rest of the graph: pop that subtree's block
+          if (p == root) {
+            rootChildren++;
+          } else {
+            isArticulationPoint[p] = true;
+          }
+          int size = 1;
+          int top = nodeTop;
+          do {
+            size++;
+          } while (nodeStack[--top] != v);
+          if (members + size > blockMembers.length) {
+            blockMembers =
+                Arrays.copyOf(blockMembers, Math.max(2 * blockMembers.length, members + size));
+          }
+          System.arraycopy(nodeStack, top, blockMembers, members, nodeTop - top);
+          members += nodeTop - top;
+          blockMembers[members++] = p;
+          nodeTop = top;
+          if (blocks + 2 > blockOffsets.length) {
+            blockOffsets = Arrays.copyOf(blockOffsets, 2 * blockOffsets.length);
+          }
+          blockOffsets[++blocks] = members;
+        }
+      }
+      if (rootChildren > 1) {
+        isArticulationPoint[root] = true;
+      }
+      if (rootChildren == 0) {
+        // the root has no neighbors, so it is a bicomponent by itself
+        if (members + 1 > blockMembers.length) {
+          blockMembers = Arrays.copyOf(blockMembers, 2 * blockMembers.length);
+        }
+        blockMembers[members++] = root;
+        if (blocks + 2 > blockOffsets.length) {
+          blockOffsets = Arrays.copyOf(blockOffsets, 2 * blockOffsets.length);
+        }
+        blockOffsets[++blocks] = members;
+      }
+    }
+
+    return new Bicomponents<N>(
+        nodes,
+        indices,
+        Arrays.copyOf(blockOffsets, blocks + 1),
+        Arrays.copyOf(blockMembers, members),
+        isArticulationPoint);
+  }
 }
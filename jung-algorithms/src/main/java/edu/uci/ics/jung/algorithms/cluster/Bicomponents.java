@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.cluster;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.ImmutableGraph;
+import com.google.common.graph.MutableGraph;
+
+/**
+ * The biconnected components (blocks) and articulation points of a graph, as found by {@link
+ * BicomponentClusterer#findBicomponents(com.google.common.graph.Graph)}.
+ *
+ * <p>Blocks are stored compactly, as runs of node indices, and are numbered in the order in which
+ * they were completed by the depth-first search; sets of nodes are only created on request.
+ *
+ * @param <N> the node type
+ */
+public class Bicomponents<N> {
+  private final ImmutableList<N> nodes;
+  private final BiMap<N, Integer> indices;
+  // the members of block b are blockMembers[blockOffsets[b] .. blockOffsets[b + 1])
+  private final int[] blockOffsets;
+  private final int[] blockMembers;
+  private final ImmutableList<N> articulationPoints;
+  private final boolean[] isArticulationPoint;
+
+  Bicomponents(
+      ImmutableList<N> nodes,
+      BiMap<N, Integer> indices,
+      int[] blockOffsets,
+      int[] blockMembers,
+      boolean[] isArticulationPoint) {
+    this.nodes = nodes;
+    this.indices = indices;
+    this.blockOffsets = blockOffsets;
+    this.blockMembers = blockMembers;
+    this.isArticulationPoint = isArticulationPoint;
+    ImmutableList.Builder<N> builder = ImmutableList.builder();
+    for (int v = 0; v < nodes.size(); v++) {
+      if (isArticulationPoint[v]) {
+        builder.add(nodes.get(v));
+      }
+    }
+    this.articulationPoints = builder.build();
+  }
+
+  /**
+   * @return the number of biconnected components
+   */
+  public int getBicomponentCount() {
+    return blockOffsets.length - 1;
+  }
+
+  /**
+   * @param block the index of a biconnected component, in [0, {@link #getBicomponentCount()})
+   * @return the nodes of the specified biconnected component
+   */
+  public ImmutableSet<N> getBicomponent(int block) {
+    Preconditions.checkElementIndex(block, getBicomponentCount());
+    ImmutableSet.Builder<N> builder = ImmutableSet.builder();
+    for (int k = blockOffsets[block]; k < blockOffsets[block + 1]; k++) {
+      builder.add(nodes.get(blockMembers[k]));
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return the biconnected components, in order
+   */
+  public ImmutableList<ImmutableSet<N>> getBicomponents() {
+    ImmutableList.Builder<ImmutableSet<N>> builder = ImmutableList.builder();
+    for (int b = 0; b < getBicomponentCount(); b++) {
+      builder.add(getBicomponent(b));
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return the articulation points (the nodes whose removal would increase the number of connected
+   *     components), in the iteration order of the graph's nodes
+   */
+  public ImmutableList<N> getArticulationPoints() {
+    return articulationPoints;
+  }
+
+  /**
+   * @param v a node of the graph
+   * @return {@code true} if <code>v</code> is an articulation point
+   */
+  public boolean isArticulationPoint(N v) {
+    Integer index = indices.get(v);
+    Preconditions.checkArgument(index != null, "%s is not a node of the graph", v);
+    return isArticulationPoint[index];
+  }
+
+  /**
+   * Returns the block-cut tree (a forest, if the graph is not connected). Nodes <code>0</code>
+   * through <code>getBicomponentCount() - 1</code> represent the biconnected components; node
+   * <code>getBicomponentCount() + i</code> represents <code>getArticulationPoints().get(i)</code>.
+   * Each articulation point is connected to each of the biconnected components that contain it.
+   *
+   * @return the block-cut tree
+   */
+  public ImmutableGraph<Integer> getBlockCutTree() {
+    int blocks = getBicomponentCount();
+    int[] cutIndex = new int[nodes.size()];
+    int count = 0;
+    for (int v = 0; v < nodes.size(); v++) {
+      cutIndex[v] = isArticulationPoint[v] ? blocks + count++ : -1;
+    }
+    MutableGraph<Integer> tree =
+        GraphBuilder.undirected().expectedNodeCount(blocks + count).build();
+    for (int i = 0; i < blocks + count; i++) {
+      tree.addNode(i);
+    }
+    for (int b = 0; b < blocks; b++) {
+      for (int k = blockOffsets[b]; k < blockOffsets[b + 1]; k++) {
+        int v = blockMembers[k];
+        if (cutIndex[v] >= 0) {
+          tree.putEdge(b, cutIndex[v]);
+        }
+      }
+    }
+    return ImmutableGraph.copyOf(tree);
+  }
+}
@@ -0,0 +1,511 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.cluster;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.BiMap;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.Network;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * An incremental version of {@link EdgeBetweennessClusterer}: computes clusters (community
+ * structure) by repeatedly removing the edge with the highest betweenness, without recomputing
+ * betweenness from scratch after each removal.
+ *
+ * <p>Edge betweenness is the sum, over all source nodes <code>s</code>, of the dependency of <code>
+ * s</code> on each edge (Brandes' algorithm). Removing an edge <code>e = (u, v)</code> can only
+ * change the dependencies of those sources whose shortest-path DAG contains <code>e</code>; these
+ * are exactly the sources <code>s</code> for which <code>d(s, v) = d(s, u) + 1</code> (or, for
+ * undirected graphs, <code>d(s, u) != d(s, v)</code>). Both distances are found for every source
+ * with two (reverse) breadth-first searches from <code>u</code> and <code>v</code>. For each
+ * affected source, its contribution is subtracted from the edge scores, the edge is removed, and
+ * its new contribution is added back. All other sources are left untouched.
+ *
+ * <p>Optionally, betweenness may be estimated from a random sample of source nodes (see {@link
+ * #setSampleSize(int)}), and each removal that splits a weak component in two may be reported to a
+ * listener as it happens (see {@link #setSplitListener(Consumer)}), which yields the divisive
+ * dendrogram without waiting for the final clustering.
+ *
+ * <p>Edges are treated as unweighted, as in <code>EdgeBetweennessClusterer</code>; self-loops are
+ * never on a shortest path. The input graph is not modified. Space requirements are O(n + m).
+ *
+ * @see "Community structure in social and biological networks by Michelle Girvan and Mark Newman"
+ * @see "Ulrik Brandes: A Faster Algorithm for Betweenness Centrality. Journal of Mathematical
+ *     Sociology 25(2):163-177, 2001."
+ * @see EdgeBetweennessClusterer
+ */
+public class IncrementalEdgeBetweennessClusterer<N, E>
+    implements Function<Network<N, E>, Set<Set<N>>> {
+  // relative tolerance for comparing edge scores, which accumulate rounding error as
+  // contributions are subtracted and re-added
+  private static final double TOLERANCE = 1e-9;
+
+  private final int mNumEdgesToRemove;
+  private LinkedHashSet<E> edgesRemoved;
+  private int sampleSize;
+  private Random random;
+  private Consumer<? super Split<N, E>> splitListener;
+
+  // indexed snapshot of the graph being clustered
+  private List<N> nodes;
+  private E[] edges;
+  private int[] edgeSource;
+  private int[] edgeTarget;
+  private int[] outOffsets;
+  private int[] outEdges;
+  private int[] outNeighbors;
+  private int[] inOffsets;
+  private int[] inEdges;
+  private int[] inNeighbors;
+  private boolean directed;
+  private boolean[] removed;
+  private boolean[] isSource;
+  private double[] scores;
+
+  // per-traversal workspace; entries are reset after each traversal
+  private int[] order;
+  private int[] distance;
+  private double[] numSPs;
+  private double[] dependency;
+  private int[] distanceToU;
+  private int[] distanceToV;
+
+  /**
+   * Constructs a new clusterer.
+   *
+   * @param numEdgesToRemove the number of edges to be progressively removed from the graph
+   */
+  public IncrementalEdgeBetweennessClusterer(int numEdgesToRemove) {
+    Preconditions.checkArgument(
+        numEdgesToRemove >= 0, "Number of edges to remove must be positive");
+    mNumEdgesToRemove = numEdgesToRemove;
+    edgesRemoved = new LinkedHashSet<>(mNumEdgesToRemove);
+    random = new Random();
+  }
+
+  /**
+   * Specifies the number of randomly chosen source nodes from which betweenness is estimated. A
+   * value of 0 (the default) means that all nodes are sources, i.e., that betweenness is exact.
+   *
+   * @param sampleSize the number of source nodes to sample, or 0 for exact betweenness
+   */
+  public void setSampleSize(int sampleSize) {
+    Preconditions.checkArgument(sampleSize >= 0, "Sample size must be >= 0");
+    this.sampleSize = sampleSize;
+  }
+
+  /**
+   * @param random the random number generator used to choose sampled source nodes
+   */
+  public void setRandom(Random random) {
+    this.random = Preconditions.checkNotNull(random);
+  }
+
+  /**
+   * Specifies a listener that is notified, as the algorithm proceeds, of each edge removal that
+   * splits a weak component into two.
+   *
+   * @param splitListener the listener to notify, or null for none
+   */
+  public void setSplitListener(Consumer<? super Split<N, E>> splitListener) {
+    this.splitListener = splitListener;
+  }
+
+  /**
+   * Finds the set of clusters which have the strongest "community structure". The more edges
+   * removed the smaller and more cohesive the clusters.
+   *
+   * @param graph the graph
+   */
+  public Set<Set<N>> apply(Network<N, E> graph) {
+    Preconditions.checkArgument(
+        mNumEdgesToRemove <= graph.edges().size(),
+        "Number of edges to remove must be <= the number of edges in the graph");
+    edgesRemoved.clear();
+    index(graph);
+
+    List<Integer> sources = new ArrayList<Integer>();
+    for (int s = 0; s < isSource.length; s++) {
+      if (isSource[s]) {
+        sources.add(s);
+      }
+    }
+    for (int s : sources) {
+      accumulate(s, 1);
+    }
+
+    for (int k = 0; k < mNumEdgesToRemove; k++) {
+      int e = highestScoringEdge();
+      int u = edgeSource[e];
+      int v = edgeTarget[e];
+
+      if (u == v) {
+        removed[e] = true;
+      } else {
+        // find the sources whose shortest-path DAG contains e
+        reverseDistances(u, distanceToU);
+        reverseDistances(v, distanceToV);
+        List<Integer> affected = new ArrayList<Integer>();
+        for (int s : sources) {
+          int du = distanceToU[s];
+          int dv = distanceToV[s];
+          if (du >= 0 && (directed ? dv == du + 1 : du != dv)) {
+            affected.add(s);
+          }
+        }
+        resetDistances(u, distanceToU);
+        resetDistances(v, distanceToV);
+
+        for (int s : affected) {
+          accumulate(s, -1);
+        }
+        removed[e] = true;
+        scores[e] = 0;
+        for (int s : affected) {
+          accumulate(s, 1);
+        }
+      }
+      edgesRemoved.add(edges[e]);
+
+      if (splitListener != null && u != v) {
+        reportSplit(k, e);
+      }
+    }
+
+    Set<Set<N>> clusterSet = new HashSet<Set<N>>();
+    boolean[] assigned = new boolean[nodes.size()];
+    for (int root = 0; root < nodes.size(); root++) {
+      if (!assigned[root]) {
+        clusterSet.add(component(root, -1, assigned));
+      }
+    }
+    releaseIndex();
+    return clusterSet;
+  }
+
+  /**
+   * Retrieves the set of all edges that were removed. The edges returned are stored in order in
+   * which they were removed.
+   *
+   * @return the edges removed from the original graph
+   */
+  public Set<E> getEdgesRemoved() {
+    return edgesRemoved;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void index(Network<N, E> graph) {
+    BiMap<N, Integer> nodeIndices = Indexer.create(graph.nodes());
+    int n = nodeIndices.size();
+    int m = graph.edges().size();
+    nodes = new ArrayList<N>(graph.nodes());
+    edges = (E[]) graph.edges().toArray();
+    directed = graph.isDirected();
+    edgeSource = new int[m];
+    edgeTarget = new int[m];
+
+    int[] outDegree = new int[n + 1];
+    int[] inDegree = new int[n + 1];
+    for (int e = 0; e < m; e++) {
+      EndpointPair<N> endpoints = graph.incidentNodes(edges[e]);
+      int u = nodeIndices.get(endpoints.nodeU());
+      int v = nodeIndices.get(endpoints.nodeV());
+      edgeSource[e] = u;
+      edgeTarget[e] = v;
+      outDegree[u + 1]++;
+      inDegree[v + 1]++;
+      if (!directed) {
+        outDegree[v + 1]++;
+        inDegree[u + 1]++;
+      }
+    }
+    outOffsets = prefixSums(outDegree);
+    inOffsets = prefixSums(inDegree);
+    outEdges = new int[outOffsets[n]];
+    outNeighbors = new int[outOffsets[n]];
+    inEdges = new int[inOffsets[n]];
+    inNeighbors = new int[inOffsets[n]];
+    int[] outFill = Arrays.copyOf(outOffsets, n);
+    int[] inFill = Arrays.copyOf(inOffsets, n);
+    for (int e = 0; e < m; e++) {
+      int u = edgeSource[e];
+      int v = edgeTarget[e];
+      outEdges[outFill[u]] = e;
+      outNeighbors[outFill[u]++] = v;
+      inEdges[inFill[v]] = e;
+      inNeighbors[inFill[v]++] = u;
+      if (!directed) {
+        outEdges[outFill[v]] = e;
+        outNeighbors[outFill[v]++] = u;
+        inEdges[inFill[u]] = e;
+        inNeighbors[inFill[u]++] = v;
+      }
+    }
+
+    removed = new boolean[m];
+    scores = new double[m];
+    isSource = new boolean[n];
+    if (sampleSize == 0 || sampleSize >= n) {
+      Arrays.fill(isSource, true);
+    } else {
+      // partial Fisher-Yates shuffle
+      int[] permutation = new int[n];
+      for (int i = 0; i < n; i++) {
+        permutation[i] = i;
+      }
+      for (int i = 0; i < sampleSize; i++) {
+        int j = i + random.nextInt(n - i);
+        int tmp = permutation[i];
+        permutation[i] = permutation[j];
+        permutation[j] = tmp;
+        isSource[permutation[i]] = true;
+      }
+    }
+
+    order = new int[n];
+    distance = new int[n];
+    numSPs = new double[n];
+    dependency = new double[n];
+    distanceToU = new int[n];
+    distanceToV = new int[n];
+    Arrays.fill(distance, -1);
+    Arrays.fill(distanceToU, -1);
+    Arrays.fill(distanceToV, -1);
+  }
+
+  private void releaseIndex() {
+    nodes = null;
+    edges = null;
+    edgeSource = edgeTarget = null;
+    outOffsets = outEdges = outNeighbors = null;
+    inOffsets = inEdges = inNeighbors = null;
+    removed = null;
+    isSource = null;
+    scores = null;
+    order = distance = distanceToU = distanceToV = null;
+    numSPs = dependency = null;
+  }
+
+  private static int[] prefixSums(int[] counts) {
+    for (int i = 1; i < counts.length; i++) {
+      counts[i] += counts[i - 1];
+    }
+    return counts;
+  }
+
+  private int highestScoringEdge() {
+    int best = -1;
+    double bestScore = 0;
+    for (int e = 0; e < edges.length; e++) {
+      if (removed[e]) {
+        continue;
+      }
+      if (best < 0) {
+        best = e;
+      }
+      if (scores[e] > bestScore + TOLERANCE * Math.max(1, bestScore)) {
+        best = e;
+        bestScore = scores[e];
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Runs Brandes' single-source dependency accumulation from <code>s</code> over the edges that
+   * have not been removed, adding <code>sign</code> times each dependency to the edge scores.
+   */
+  private void accumulate(int s, double sign) {
+    int head = 0;
+    int tail = 0;
+    order[tail++] = s;
+    distance[s] = 0;
+    numSPs[s] = 1;
+    while (head < tail) {
+      int w = order[head++];
+      for (int i = outOffsets[w]; i < outOffsets[w + 1]; i++) {
+        int x = outNeighbors[i];
+        if (removed[outEdges[i]] || x == w) {
+          continue;
+        }
+        if (distance[x] < 0) {
+          distance[x] = distance[w] + 1;
+          order[tail++] = x;
+        }
+        if (distance[x] == distance[w] + 1) {
+          numSPs[x] += numSPs[w];
+        }
+      }
+    }
+
+    for (int j = tail - 1; j > 0; j--) {
+      int x = order[j];
+      for (int i = inOffsets[x]; i < inOffsets[x + 1]; i++) {
+        int w = inNeighbors[i];
+        if (removed[inEdges[i]] || distance[w] != distance[x] - 1) {
+          continue;
+        }
+        double partialDependency = numSPs[w] / numSPs[x] * (1.0 + dependency[x]);
+        dependency[w] += partialDependency;
+        scores[inEdges[i]] += sign * partialDependency;
+      }
+    }
+
+    for (int j = 0; j < tail; j++) {
+      int x = order[j];
+      distance[x] = -1;
+      numSPs[x] = 0;
+      dependency[x] = 0;
+    }
+  }
+
+  /** Sets <code>dist[s]</code> to the distance from <code>s</code> to <code>target</code>. */
+  private void reverseDistances(int target, int[] dist) {
+    int head = 0;
+    int tail = 0;
+    order[tail++] = target;
+    dist[target] = 0;
+    while (head < tail) {
+      int x = order[head++];
+      for (int i = inOffsets[x]; i < inOffsets[x + 1]; i++) {
+        int w = inNeighbors[i];
+        if (!removed[inEdges[i]] && dist[w] < 0) {
+          dist[w] = dist[x] + 1;
+          order[tail++] = w;
+        }
+      }
+    }
+  }
+
+  private void resetDistances(int target, int[] dist) {
+    // the nodes visited are exactly those reachable in reverse from target
+    int head = 0;
+    int tail = 0;
+    order[tail++] = target;
+    dist[target] = -1;
+    while (head < tail) {
+      int x = order[head++];
+      for (int i = inOffsets[x]; i < inOffsets[x + 1]; i++) {
+        int w = inNeighbors[i];
+        if (!removed[inEdges[i]] && dist[w] >= 0) {
+          dist[w] = -1;
+          order[tail++] = w;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the weak component containing <code>root</code>, ignoring removed edges, and marks its
+   * members in <code>visited</code>. If <code>stop</code> is reached, returns null immediately.
+   */
+  private Set<N> component(int root, int stop, boolean[] visited) {
+    List<Integer> members = new ArrayList<Integer>();
+    members.add(root);
+    visited[root] = true;
+    for (int head = 0; head < members.size(); head++) {
+      int x = members.get(head);
+      if (x == stop) {
+        for (int member : members) {
+          visited[member] = false;
+        }
+        return null;
+      }
+      for (int i = outOffsets[x]; i < outOffsets[x + 1]; i++) {
+        int y = outNeighbors[i];
+        if (!removed[outEdges[i]] && !visited[y]) {
+          visited[y] = true;
+          members.add(y);
+        }
+      }
+      if (directed) {
+        for (int i = inOffsets[x]; i < inOffsets[x + 1]; i++) {
+          int y = inNeighbors[i];
+          if (!removed[inEdges[i]] && !visited[y]) {
+            visited[y] = true;
+            members.add(y);
+          }
+        }
+      }
+    }
+    Set<N> component = new HashSet<N>();
+    for (int member : members) {
+      component.add(nodes.get(member));
+    }
+    return component;
+  }
+
+  private void reportSplit(int step, int e) {
+    boolean[] visited = new boolean[nodes.size()];
+    Set<N> first = component(edgeSource[e], edgeTarget[e], visited);
+    if (first == null) {
+      return;
+    }
+    Set<N> second = component(edgeTarget[e], -1, visited);
+    splitListener.accept(new Split<N, E>(step, edges[e], first, second));
+  }
+
+  /**
+   * Records that the removal of an edge split a weak component into two. Together, the splits
+   * reported during a run describe the divisive dendrogram of the graph.
+   */
+  public static class Split<N, E> {
+    private final int step;
+    private final E edge;
+    private final Set<N> first;
+    private final Set<N> second;
+
+    Split(int step, E edge, Set<N> first, Set<N> second) {
+      this.step = step;
+      this.edge = edge;
+      this.first = Collections.unmodifiableSet(first);
+      this.second = Collections.unmodifiableSet(second);
+    }
+
+    /**
+     * @return the (0-based) number of the removal step at which the split happened
+     */
+    public int getStep() {
+      return step;
+    }
+
+    /**
+     * @return the edge whose removal caused the split
+     */
+    public E getEdge() {
+      return edge;
+    }
+
+    /**
+     * @return the component containing the removed edge's first endpoint
+     */
+    public Set<N> getFirst() {
+      return first;
+    }
+
+    /**
+     * @return the component containing the removed edge's second endpoint
+     */
+    public Set<N> getSecond() {
+      return second;
+    }
+  }
+}
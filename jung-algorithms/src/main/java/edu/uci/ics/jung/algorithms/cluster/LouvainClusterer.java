@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.cluster;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.BiMap;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.Network;
+import edu.uci.ics.jung.algorithms.blockmodel.NodePartition;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Finds communities in a graph by greedy modularity optimization, using the Louvain method.
+ *
+ * <p>The algorithm repeats two phases until no further improvement is possible:
+ *
+ * <ul>
+ *   <li>local moving: each node is moved to the neighbouring community that yields the largest
+ *       increase in modularity, until no move increases modularity
+ *   <li>aggregation: each community becomes a single node of a new (weighted) graph
+ * </ul>
+ *
+ * <p>As in the Leiden method, each community found by local moving is split into its connected
+ * components before aggregation, so every reported community induces a connected subgraph. (This
+ * split never decreases modularity.)
+ *
+ * <p>Each aggregation produces one level of a hierarchy of increasingly coarse partitions; the
+ * levels are available from {@link #getLevels()} as <code>NodePartition</code>s (which may be
+ * passed to <code>NodePartitionCollapser</code>), and the modularity of each level from {@link
+ * #getModularities()}. <code>apply</code> returns the communities of the last (coarsest) level.
+ *
+ * <p>If parallel local moving is enabled, each sweep first evaluates the best move of every node
+ * concurrently against a snapshot of the current communities, and then applies (after re-evaluating
+ * them against the up-to-date communities) only the moves that were proposed, in node order.
+ * Results are deterministic either way, but may differ between the two modes.
+ *
+ * <p>Edge direction is ignored. Edge weights must be non-negative; by default, every edge has
+ * weight 1.
+ *
+ * @see "Vincent D. Blondel, Jean-Loup Guillaume, Renaud Lambiotte and Etienne Lefebvre: Fast
+ *     unfolding of communities in large networks. J. Stat. Mech. (2008) P10008."
+ * @see "V. A. Traag, L. Waltman and N. J. van Eck: From Louvain to Leiden: guaranteeing
+ *     well-connected communities. Scientific Reports 9, 5233 (2019)."
+ * @see edu.uci.ics.jung.algorithms.transformation.NodePartitionCollapser
+ */
+public class LouvainClusterer<N, E> implements Function<Network<N, E>, Set<Set<N>>> {
+  private static final double EPSILON = 1e-12;
+
+  protected Function<? super E, ? extends Number> edge_weights;
+  protected double resolution;
+  protected boolean parallel;
+  protected List<NodePartition<N>> levels;
+  protected List<Double> modularities;
+
+  /** Creates an instance in which every edge has weight 1. */
+  public LouvainClusterer() {
+    this(e -> 1);
+  }
+
+  /**
+   * Creates an instance which uses the specified edge weights.
+   *
+   * @param edge_weights the (non-negative) weight of each edge
+   */
+  public LouvainClusterer(Function<? super E, ? extends Number> edge_weights) {
+    this.edge_weights = Preconditions.checkNotNull(edge_weights);
+    this.resolution = 1.0;
+    this.levels = new ArrayList<NodePartition<N>>();
+    this.modularities = new ArrayList<Double>();
+  }
+
+  /**
+   * Specifies the resolution parameter of the modularity function; values greater than 1 favour
+   * smaller communities, values less than 1 favour larger ones. The default value is 1.
+   *
+   * @param resolution the resolution parameter
+   */
+  public void setResolution(double resolution) {
+    Preconditions.checkArgument(resolution > 0, "resolution must be > 0");
+    this.resolution = resolution;
+  }
+
+  /**
+   * @param parallel if {@code true}, the best move of each node is evaluated in parallel
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Finds the communities of <code>graph</code>.
+   *
+   * @param graph the graph whose communities are to be found
+   * @return the communities of the coarsest level
+   */
+  public Set<Set<N>> apply(Network<N, E> graph) {
+    levels.clear();
+    modularities.clear();
+
+    List<N> nodes = new ArrayList<N>(graph.nodes());
+    Level level = index(graph);
+    int[] assignment = new int[nodes.size()];
+    for (int i = 0; i < assignment.length; i++) {
+      assignment[i] = i;
+    }
+
+    Set<Set<N>> communities = Collections.emptySet();
+    while (true) {
+      int[] community = moveNodes(level);
+      int count = splitDisconnected(level, community);
+      if (count == level.size && !levels.isEmpty()) {
+        break;
+      }
+      for (int i = 0; i < assignment.length; i++) {
+        assignment[i] = community[assignment[i]];
+      }
+      Level aggregated = aggregate(level, community, count);
+
+      List<Set<N>> sets = new ArrayList<Set<N>>(count);
+      for (int c = 0; c < count; c++) {
+        sets.add(new HashSet<N>());
+      }
+      for (int i = 0; i < assignment.length; i++) {
+        sets.get(assignment[i]).add(nodes.get(i));
+      }
+      communities = new HashSet<Set<N>>(sets);
+      levels.add(new NodePartition<N>(graph.asGraph(), communities));
+      modularities.add(modularity(aggregated));
+
+      if (count == level.size) {
+        break;
+      }
+      level = aggregated;
+    }
+    return communities;
+  }
+
+  /**
+   * Returns the partitions found by the most recent call to <code>apply</code>, from finest to
+   * coarsest. Each partition is defined over the input graph's <code>asGraph()</code> view.
+   *
+   * @return the partitions found at each level
+   */
+  public List<NodePartition<N>> getLevels() {
+    return Collections.unmodifiableList(levels);
+  }
+
+  /**
+   * Returns the modularity of each partition returned by {@link #getLevels()}.
+   *
+   * @return the modularity of the partition found at each level
+   */
+  public List<Double> getModularities() {
+    return Collections.unmodifiableList(modularities);
+  }
+
+  /** A weighted, undirected graph over nodes 0..size-1 in compressed adjacency form. */
+  private static class Level {
+    final int size;
+    final int[] offsets;
+    final int[] neighbors;
+    final double[] weights;
+    // the sum of the weights of the (doubly counted) edges internal to each node
+    final double[] selfLoops;
+    final double[] strengths;
+    final double totalWeight;
+
+    Level(int size, int[] offsets, int[] neighbors, double[] weights, double[] selfLoops) {
+      this.size = size;
+      this.offsets = offsets;
+      this.neighbors = neighbors;
+      this.weights = weights;
+      this.selfLoops = selfLoops;
+      this.strengths = new double[size];
+      double total = 0;
+      for (int i = 0; i < size; i++) {
+        double strength = selfLoops[i];
+        for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+          strength += weights[k];
+        }
+        strengths[i] = strength;
+        total += strength;
+      }
+      this.totalWeight = total;
+    }
+  }
+
+  /** Scratch space for accumulating the weight from one node to each neighbouring community. */
+  private static class Workspace {
+    final double[] weightTo;
+    final int[] seen;
+    final int[] touched;
+    int stamp;
+
+    Workspace(int size) {
+      weightTo = new double[size];
+      seen = new int[size];
+      touched = new int[size];
+    }
+  }
+
+  private Level index(Network<N, E> graph) {
+    BiMap<N, Integer> indices = Indexer.create(graph.nodes());
+    int n = indices.size();
+    int[] degree = new int[n + 1];
+    double[] selfLoops = new double[n];
+    for (E e : graph.edges()) {
+      EndpointPair<N> endpoints = graph.incidentNodes(e);
+      int u = indices.get(endpoints.nodeU());
+      int v = indices.get(endpoints.nodeV());
+      if (u != v) {
+        degree[u + 1]++;
+        degree[v + 1]++;
+      }
+    }
+    for (int i = 1; i <= n; i++) {
+      degree[i] += degree[i - 1];
+    }
+    int[] offsets = degree;
+    int[] fill = Arrays.copyOf(offsets, n);
+    int[] neighbors = new int[offsets[n]];
+    double[] weights = new double[offsets[n]];
+    for (E e : graph.edges()) {
+      double weight = edge_weights.apply(e).doubleValue();
+      Preconditions.checkArgument(weight >= 0, "Weight for edge '%s' is < 0: %s", e, weight);
+      EndpointPair<N> endpoints = graph.incidentNodes(e);
+      int u = indices.get(endpoints.nodeU());
+      int v = indices.get(endpoints.nodeV());
+      if (u == v) {
+        selfLoops[u] += 2 * weight;
+      } else {
+        neighbors[fill[u]] = v;
+        weights[fill[u]++] = weight;
+        neighbors[fill[v]] = u;
+        weights[fill[v]++] = weight;
+      }
+    }
+    return new Level(n, offsets, neighbors, weights, selfLoops);
+  }
+
+  /** Repeatedly moves nodes between communities until no move increases modularity. */
+  private int[] moveNodes(Level level) {
+    int n = level.size;
+    int[] community = new int[n];
+    for (int i = 0; i < n; i++) {
+      community[i] = i;
+    }
+    if (level.totalWeight == 0) {
+      return community;
+    }
+    double[] totals = Arrays.copyOf(level.strengths, n);
+    Workspace workspace = new Workspace(n);
+
+    if (!parallel) {
+      int moves;
+      do {
+        moves = 0;
+        for (int i = 0; i < n; i++) {
+          moves += moveNode(level, i, community, totals, workspace);
+        }
+      } while (moves > 0);
+      return community;
+    }
+
+    ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(() -> new Workspace(n));
+    int[] proposals = new int[n];
+    int moves;
+    do {
+      // propose against a snapshot: nothing is written to community or totals here
+      IntStream.range(0, n)
+          .parallel()
+          .forEach(
+              i -> proposals[i] = bestCommunity(level, i, community, totals, workspaces.get()));
+      moves = 0;
+      for (int i = 0; i < n; i++) {
+        if (proposals[i] != community[i]) {
+          moves += moveNode(level, i, community, totals, workspace);
+        }
+      }
+    } while (moves > 0);
+    return community;
+  }
+
+  /** Moves node i to its best community; returns 1 if it moved and 0 otherwise. */
+  private int moveNode(Level level, int i, int[] community, double[] totals, Workspace workspace) {
+    int best = bestCommunity(level, i, community, totals, workspace);
+    if (best == community[i]) {
+      return 0;
+    }
+    totals[community[i]] -= level.strengths[i];
+    totals[best] += level.strengths[i];
+    community[i] = best;
+    return 1;
+  }
+
+  private int bestCommunity(
+      Level level, int i, int[] community, double[] totals, Workspace workspace) {
+    int stamp = ++workspace.stamp;
+    int touched = 0;
+    for (int k = level.offsets[i]; k < level.offsets[i + 1]; k++) {
+      int c = community[level.neighbors[k]];
+      if (workspace.seen[c] != stamp) {
+        workspace.seen[c] = stamp;
+        workspace.weightTo[c] = 0;
+        workspace.touched[touched++] = c;
+      }
+      workspace.weightTo[c] += level.weights[k];
+    }
+
+    int current = community[i];
+    double strength = level.strengths[i];
+    double scale = resolution * strength / level.totalWeight;
+    double currentWeight = workspace.seen[current] == stamp ? workspace.weightTo[current] : 0;
+    double bestGain = currentWeight - scale * (totals[current] - strength);
+    int best = current;
+    for (int t = 0; t < touched; t++) {
+      int c = workspace.touched[t];
+      if (c == current) {
+        continue;
+      }
+      double gain = workspace.weightTo[c] - scale * totals[c];
+      if (gain > bestGain + EPSILON) {
+        bestGain = gain;
+        best = c;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Splits each community into its connected components and renumbers the resulting communities
+   * consecutively from 0; returns the number of communities.
+   */
+  private static int splitDisconnected(Level level, int[] community) {
+    int n = level.size;
+    int[] label = new int[n];
+    Arrays.fill(label, -1);
+    int[] queue = new int[n];
+    int count = 0;
+    for (int root = 0; root < n; root++) {
+      if (label[root] >= 0) {
+        continue;
+      }
+      int head = 0;
+      int tail = 0;
+      queue[tail++] = root;
+      label[root] = count;
+      while (head < tail) {
+        int i = queue[head++];
+        for (int k = level.offsets[i]; k < level.offsets[i + 1]; k++) {
+          int j = level.neighbors[k];
+          if (label[j] < 0 && community[j] == community[root]) {
+            label[j] = count;
+            queue[tail++] = j;
+          }
+        }
+      }
+      count++;
+    }
+    System.arraycopy(label, 0, community, 0, n);
+    return count;
+  }
+
+  /** Builds the graph whose nodes are the communities of <code>level</code>. */
+  private static Level aggregate(Level level, int[] community, int count) {
+    // group the nodes by community (counting sort)
+    int[] memberOffsets = new int[count + 1];
+    for (int i = 0; i < level.size; i++) {
+      memberOffsets[community[i] + 1]++;
+    }
+    for (int c = 1; c <= count; c++) {
+      memberOffsets[c] += memberOffsets[c - 1];
+    }
+    int[] members = new int[level.size];
+    int[] fill = Arrays.copyOf(memberOffsets, count);
+    for (int i = 0; i < level.size; i++) {
+      members[fill[community[i]]++] = i;
+    }
+
+    int[] offsets = new int[count + 1];
+    int[] neighbors = new int[Math.max(1, level.neighbors.length)];
+    double[] weights = new double[neighbors.length];
+    double[] selfLoops = new double[count];
+    Workspace workspace = new Workspace(count);
+    int size = 0;
+    for (int c = 0; c < count; c++) {
+      int stamp = ++workspace.stamp;
+      int touched = 0;
+      for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+        int i = members[m];
+        selfLoops[c] += level.selfLoops[i];
+        for (int k = level.offsets[i]; k < level.offsets[i + 1]; k++) {
+          int d = community[level.neighbors[k]];
+          if (d == c) {
+            selfLoops[c] += level.weights[k];
+            continue;
+          }
+          if (workspace.seen[d] != stamp) {
+            workspace.seen[d] = stamp;
+            workspace.weightTo[d] = 0;
+            workspace.touched[touched++] = d;
+          }
+          workspace.weightTo[d] += level.weights[k];
+        }
+      }
+      for (int t = 0; t < touched; t++) {
+        int d = workspace.touched[t];
+        neighbors[size] = d;
+        weights[size++] = workspace.weightTo[d];
+      }
+      offsets[c + 1] = size;
+    }
+    return new Level(count, offsets, neighbors, weights, selfLoops);
+  }
+
+  /** Returns the modularity of the partition of the original graph into the nodes of level. */
+  private double modularity(Level level) {
+    if (level.totalWeight == 0) {
+      return 0;
+    }
+    double q = 0;
+    for (int c = 0; c < level.size; c++) {
+      double fraction = level.strengths[c] / level.totalWeight;
+      q += level.selfLoops[c] / level.totalWeight - resolution * fraction * fraction;
+    }
+    return q;
+  }
+}
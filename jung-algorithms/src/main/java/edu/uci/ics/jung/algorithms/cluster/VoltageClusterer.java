@@ -15,6 +15,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.graph.Network;
 import com.google.common.math.Stats;
 import edu.uci.ics.jung.algorithms.scoring.VoltageScorer;
+import edu.uci.ics.jung.algorithms.util.ArrayKMeansClusterer;
 import edu.uci.ics.jung.algorithms.util.KMeansClusterer;
 import edu.uci.ics.jung.algorithms.util.KMeansClusterer.NotEnoughClustersException;
 import java.util.ArrayList;
@@ -29,6 +30,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Clusters nodes of a <code>Network</code> based on their ranks as calculated by <code>
@@ -72,6 +75,7 @@ public class VoltageClusterer<N, E> {
   protected KMeansClusterer<N> kmc;
   protected Random rand;
   protected Network<N, E> g;
+  protected Executor executor;
 
   /**
    * Creates an instance of a VoltageCluster with the specified parameters. These are mostly
@@ -91,6 +95,20 @@ public class VoltageClusterer<N, E> {
 
   protected void setRandomSeed(int random_seed) {
     rand = new Random(random_seed);
+    kmc.setRandom(new Random(random_seed));
+  }
+
+  /**
+   * Specifies the executor on which the random candidate samples are evaluated. If <code>executor
+   * </code> is null (the default), the samples are evaluated sequentially on the calling thread.
+   * Each sample uses its own <code>Random</code>, seeded from this instance's random number
+   * generator, and the candidates are merged in sample order; the resulting clusters therefore do
+   * not depend on whether or how the samples are evaluated concurrently.
+   *
+   * @param executor the executor to use, or null for sequential evaluation
+   */
+  public void setExecutor(Executor executor) {
+    this.executor = executor;
   }
 
   /**
@@ -125,27 +143,38 @@ public class VoltageClusterer<N, E> {
     // * pick (widely separated) node pair, run VoltageScorer
     // * use k-means to identify 2 communities in ranked graph
     // * store resulting candidate communities
-    ArrayList<N> v_array = new ArrayList<N>(g.nodes());
-
-    LinkedList<Set<N>> candidates = new LinkedList<Set<N>>();
+    List<N> v_array = new ArrayList<N>(g.nodes());
 
+    // draw one seed per sample up front, so that the candidates depend only on 'rand'
+    // and not on whether (or in what order) the samples are evaluated concurrently
+    long[] seeds = new long[random_sample_count];
     for (int j = 0; j < random_sample_count; j++) {
-      N source =
-          (origin == null) ? v_array.get((int) (rand.nextDouble() * v_array.size())) : origin;
-      N target = null;
-      do {
-        target = v_array.get((int) (rand.nextDouble() * v_array.size()));
-      } while (source == target);
-      VoltageScorer<N, E> vs = new VoltageScorer<N, E>(g, source, target);
-      vs.evaluate();
-
-      Map<N, double[]> voltage_ranks = new HashMap<N, double[]>();
-      for (N v : g.nodes()) {
-        voltage_ranks.put(v, new double[] {vs.getNodeScore(v)});
+      seeds[j] = rand.nextLong();
+    }
+
+    List<List<Set<N>>> sample_candidates = new ArrayList<List<Set<N>>>(random_sample_count);
+    if (executor == null) {
+      for (int j = 0; j < random_sample_count; j++) {
+        sample_candidates.add(sampleCandidateClusters(v_array, origin, new Random(seeds[j])));
+      }
+    } else {
+      List<CompletableFuture<List<Set<N>>>> futures =
+          new ArrayList<CompletableFuture<List<Set<N>>>>(random_sample_count);
+      for (int j = 0; j < random_sample_count; j++) {
+        Random sample_rand = new Random(seeds[j]);
+        futures.add(
+            CompletableFuture.supplyAsync(
+                () -> sampleCandidateClusters(v_array, origin, sample_rand), executor));
       }
+      for (CompletableFuture<List<Set<N>>> future : futures) {
+        sample_candidates.add(future.join());
+      }
+    }
 
-      //            addOneCandidateCluster(candidates, voltage_ranks);
-      addTwoCandidateClusters(candidates, voltage_ranks);
+    // merge in sample order
+    LinkedList<Set<N>> candidates = new LinkedList<Set<N>>();
+    for (List<Set<N>> sample : sample_candidates) {
+      candidates.addAll(sample);
     }
 
     // repeat the following k-1 times:
@@ -218,6 +247,84 @@ public class VoltageClusterer<N, E> {
     return clusters;
   }
 
+  /**
+   * Generates the candidate clusters for a single random sample: picks a (source, target) node
+   * pair, runs <code>VoltageScorer</code>, and uses k-means with three intervals to pick the
+   * smaller two clusters. This method uses only its arguments and read-only state, so it may be
+   * invoked concurrently for different samples.
+   *
+   * @param v_array the nodes of the graph
+   * @param origin the node around which clustering is to be done, or null
+   * @param sample_rand the source of randomness for this sample
+   * @return the candidate clusters for this sample (possibly empty)
+   */
+  protected List<Set<N>> sampleCandidateClusters(List<N> v_array, N origin, Random sample_rand) {
+    int n = v_array.size();
+    N source = (origin == null) ? v_array.get(sample_rand.nextInt(n)) : origin;
+    N target = null;
+    do {
+      target = v_array.get(sample_rand.nextInt(n));
+    } while (source == target);
+    VoltageScorer<N, E> vs = new VoltageScorer<N, E>(g, source, target);
+    vs.evaluate();
+
+    double[] voltages = new double[n];
+    for (int i = 0; i < n; i++) {
+      voltages[i] = vs.getNodeScore(v_array.get(i));
+    }
+
+    ArrayKMeansClusterer sample_kmc =
+        new ArrayKMeansClusterer(kmc.getMaxIterations(), kmc.getConvergenceThreshold());
+    sample_kmc.setRandom(sample_rand);
+    // parallelism comes from evaluating samples concurrently, not from within each sample
+    sample_kmc.setParallel(false);
+    ArrayKMeansClusterer.Clustering clustering;
+    try {
+      clustering = sample_kmc.cluster(voltages, 1, 3);
+    } catch (NotEnoughClustersException e) {
+      // no valid candidates, continue
+      return Collections.emptyList();
+    }
+
+    // keep the two smallest of the three clusters (presumed to be on the ends)
+    int largest =
+        largestOfThree(
+            clustering.getClusterSize(0),
+            clustering.getClusterSize(1),
+            clustering.getClusterSize(2));
+    List<Set<N>> sample_candidates = new ArrayList<Set<N>>(2);
+    int[] cluster_index = new int[3];
+    for (int c = 0; c < 3; c++) {
+      if (c != largest) {
+        cluster_index[c] = sample_candidates.size();
+        sample_candidates.add(new HashSet<N>());
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      int c = clustering.getCluster(i);
+      if (c != largest) {
+        sample_candidates.get(cluster_index[c]).add(v_array.get(i));
+      }
+    }
+    return sample_candidates;
+  }
+
+  /**
+   * Returns the index of the cluster that is dropped from the three voltage clusters of a sample.
+   * Ties are broken as in the original implementation: the first cluster is dropped only if it is
+   * strictly larger than both others, the second only if it is at least as large as the first and
+   * strictly larger than the third, and the third otherwise.
+   */
+  private static int largestOfThree(int size0, int size1, int size2) {
+    if (size0 > size1 && size0 > size2) {
+      return 0;
+    } else if (size0 <= size1 && size1 > size2) {
+      return 1;
+    } else {
+      return 2;
+    }
+  }
+
   private static double[] meansOf(Collection<double[]> collectionOfDoubleArrays) {
     double[] result = new double[collectionOfDoubleArrays.size()];
     int index = 0;
@@ -233,24 +340,22 @@ public class VoltageClusterer<N, E> {
    *
    * @param candidates the list of clusters to populate
    * @param voltage_ranks the voltage values for each node
+   * @deprecated no longer called by {@link #cluster_internal(Object, int)}, which generates each
+   *     sample's candidates with {@link #sampleCandidateClusters(List, Object, Random)}; overriding
+   *     this method has no effect on clustering
    */
+  @Deprecated
   protected void addTwoCandidateClusters(
       LinkedList<Set<N>> candidates, Map<N, double[]> voltage_ranks) {
     try {
       List<Map<N, double[]>> clusters =
           new ArrayList<Map<N, double[]>>(kmc.cluster(voltage_ranks, 3));
-      boolean b01 = clusters.get(0).size() > clusters.get(1).size();
-      boolean b02 = clusters.get(0).size() > clusters.get(2).size();
-      boolean b12 = clusters.get(1).size() > clusters.get(2).size();
-      if (b01 && b02) {
-        candidates.add(clusters.get(1).keySet());
-        candidates.add(clusters.get(2).keySet());
-      } else if (!b01 && b12) {
-        candidates.add(clusters.get(0).keySet());
-        candidates.add(clusters.get(2).keySet());
-      } else if (!b02 && !b12) {
-        candidates.add(clusters.get(0).keySet());
-        candidates.add(clusters.get(1).keySet());
+      int largest =
+          largestOfThree(clusters.get(0).size(), clusters.get(1).size(), clusters.get(2).size());
+      for (int c = 0; c < 3; c++) {
+        if (c != largest) {
+          candidates.add(clusters.get(c).keySet());
+        }
       }
     } catch (NotEnoughClustersException e) {
       // no valid candidates, continue
@@ -264,7 +369,10 @@ public class VoltageClusterer<N, E> {
    *
    * @param candidates the list of clusters to populate
    * @param voltage_ranks the voltage values for each node
+   * @deprecated never called by {@link #cluster_internal(Object, int)}; overriding this method has
+   *     no effect on clustering
    */
+  @Deprecated
   protected void addOneCandidateCluster(
       LinkedList<Set<N>> candidates, Map<N, double[]> voltage_ranks) {
     try {
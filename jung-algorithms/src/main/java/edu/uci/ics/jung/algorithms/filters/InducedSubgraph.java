@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.filters;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.Sets;
+import com.google.common.graph.AbstractGraph;
+import com.google.common.graph.ElementOrder;
+import com.google.common.graph.Graph;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * An unmodifiable view of the subgraph of a graph induced by a set of its nodes. Adjacency sets are
+ * filtered lazily from those of the underlying graph.
+ *
+ * @param <N> the node type
+ */
+class InducedSubgraph<N> extends AbstractGraph<N> {
+  private final Graph<N> graph;
+  private final Set<N> nodes;
+
+  InducedSubgraph(Graph<N> graph, Set<N> nodes) {
+    this.graph = graph;
+    this.nodes = Collections.unmodifiableSet(nodes);
+  }
+
+  @Override
+  public Set<N> nodes() {
+    return nodes;
+  }
+
+  @Override
+  public boolean isDirected() {
+    return graph.isDirected();
+  }
+
+  @Override
+  public boolean allowsSelfLoops() {
+    return graph.allowsSelfLoops();
+  }
+
+  @Override
+  public ElementOrder<N> nodeOrder() {
+    return ElementOrder.insertion();
+  }
+
+  @Override
+  public Set<N> adjacentNodes(N node) {
+    return Sets.filter(graph.adjacentNodes(checkNode(node)), nodes::contains);
+  }
+
+  @Override
+  public Set<N> predecessors(N node) {
+    return Sets.filter(graph.predecessors(checkNode(node)), nodes::contains);
+  }
+
+  @Override
+  public Set<N> successors(N node) {
+    return Sets.filter(graph.successors(checkNode(node)), nodes::contains);
+  }
+
+  private N checkNode(N node) {
+    checkArgument(nodes.contains(node), "Node %s is not an element of this graph.", node);
+    return node;
+  }
+}
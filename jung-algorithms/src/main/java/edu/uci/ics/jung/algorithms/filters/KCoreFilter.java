@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.filters;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.Graph;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * A filter used to extract the k-core of a graph: the largest subgraph in which every node has at
+ * least k neighbors. The core number of a node is the largest k for which it belongs to the k-core.
+ * Edge direction and self-loops are ignored.
+ *
+ * <p>Pruning a graph down to its k-core is a cheap way to discard its low-degree periphery before
+ * running more expensive algorithms: <code>coreView</code> returns an unmodifiable view of the
+ * k-core, whose adjacency sets are filtered lazily from the original graph's.
+ *
+ * <p>Core numbers are computed over an indexed copy of the graph's adjacency lists. The sequential
+ * version uses the bucket-based algorithm of Batagelj and Zaversnik, which runs in time O(|V| +
+ * |E|). The parallel version peels the graph level by level: all nodes whose remaining degree is at
+ * most k are removed together, and the degrees of their neighbors are decremented atomically, until
+ * no node of degree at most k remains. It takes time O(|V| + |E|) per level, divided among the
+ * available threads; the core numbers are the same either way.
+ *
+ * @see "V. Batagelj and M. Zaversnik: An O(m) Algorithm for Cores Decomposition of Networks, 2003."
+ * @see "H. Kabir and K. Madduri: Parallel k-Core Decomposition on Multicore Platforms, 2017."
+ */
+public class KCoreFilter {
+
+  /**
+   * Returns the core number of each node of <code>graph</code>.
+   *
+   * @param graph the graph whose core numbers are to be computed
+   * @param <N> the node type
+   * @return a map from each node (in the iteration order of the graph's nodes) to its core number
+   */
+  public static <N> ImmutableMap<N, Integer> coreNumbers(Graph<N> graph) {
+    return coreNumbers(graph, false);
+  }
+
+  /**
+   * Returns the core number of each node of <code>graph</code>.
+   *
+   * @param graph the graph whose core numbers are to be computed
+   * @param parallel if {@code true}, the graph is indexed and peeled in parallel
+   * @param <N> the node type
+   * @return a map from each node (in the iteration order of the graph's nodes) to its core number
+   */
+  public static <N> ImmutableMap<N, Integer> coreNumbers(Graph<N> graph, boolean parallel) {
+    checkNotNull(graph);
+    ImmutableList<N> nodes = ImmutableList.copyOf(graph.nodes());
+    BiMap<N, Integer> indices = Indexer.create(nodes);
+    int n = nodes.size();
+
+    // adjacency lists, ignoring edge direction and self-loops
+    int[] offsets = new int[n + 1];
+    int[] degrees = new int[n];
+    indices(n, parallel)
+        .forEach(
+            v -> {
+              N node = nodes.get(v);
+              int degree = graph.adjacentNodes(node).size();
+              degrees[v] = graph.adjacentNodes(node).contains(node) ? degree - 1 : degree;
+            });
+    for (int v = 0; v < n; v++) {
+      offsets[v + 1] = offsets[v] + degrees[v];
+    }
+    int[] neighbors = new int[offsets[n]];
+    indices(n, parallel)
+        .forEach(
+            v -> {
+              int k = offsets[v];
+              for (N w : graph.adjacentNodes(nodes.get(v))) {
+                int u = indices.get(w);
+                if (u != v) {
+                  neighbors[k++] = u;
+                }
+              }
+            });
+
+    int[] cores =
+        parallel ? peel(offsets, neighbors, degrees) : bucketSort(offsets, neighbors, degrees);
+    ImmutableMap.Builder<N, Integer> builder = ImmutableMap.builderWithExpectedSize(n);
+    for (int v = 0; v < n; v++) {
+      builder.put(nodes.get(v), cores[v]);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns a view of the k-core of <code>graph</code>: the subgraph induced by the nodes whose
+   * core number is at least <code>k</code>.
+   *
+   * @param graph the graph whose k-core is to be returned
+   * @param k the minimum core number of the nodes of the view
+   * @param <N> the node type
+   * @return a view of the k-core of <code>graph</code>
+   */
+  public static <N> Graph<N> coreView(Graph<N> graph, int k) {
+    return coreView(graph, coreNumbers(graph), k);
+  }
+
+  /**
+   * Returns a view of the k-core of <code>graph</code>, given core numbers previously computed by
+   * {@link #coreNumbers(Graph, boolean)}; this allows several cores to be extracted from a single
+   * decomposition. The view reflects subsequent changes to the edges of <code>graph</code> (but not
+   * to the set of nodes in the core).
+   *
+   * @param graph the graph whose k-core is to be returned
+   * @param coreNumbers the core number of each node of <code>graph</code>
+   * @param k the minimum core number of the nodes of the view
+   * @param <N> the node type
+   * @return a view of the k-core of <code>graph</code>
+   */
+  public static <N> Graph<N> coreView(Graph<N> graph, Map<N, Integer> coreNumbers, int k) {
+    checkNotNull(graph);
+    checkNotNull(coreNumbers);
+    checkArgument(k >= 0, "k must be >= 0");
+    ImmutableSet.Builder<N> core = ImmutableSet.builder();
+    for (N node : graph.nodes()) {
+      Integer coreNumber = coreNumbers.get(node);
+      checkArgument(coreNumber != null, "no core number is specified for %s", node);
+      if (coreNumber >= k) {
+        core.add(node);
+      }
+    }
+    return new InducedSubgraph<>(graph, core.build());
+  }
+
+  /**
+   * Computes core numbers by the algorithm of Batagelj and Zaversnik: nodes are kept sorted by
+   * remaining degree in an array of buckets, and repeatedly the node of least degree is removed.
+   */
+  private static int[] bucketSort(int[] offsets, int[] neighbors, int[] degrees) {
+    int n = degrees.length;
+    int[] degree = degrees.clone();
+    int maxDegree = 0;
+    for (int v = 0; v < n; v++) {
+      maxDegree = Math.max(maxDegree, degree[v]);
+    }
+
+    // bin[d] is the start of the bucket of nodes of degree d within vert; pos is vert's inverse
+    int[] bin = new int[maxDegree + 1];
+    for (int v = 0; v < n; v++) {
+      bin[degree[v]]++;
+    }
+    int start = 0;
+    for (int d = 0; d <= maxDegree; d++) {
+      int size = bin[d];
+      bin[d] = start;
+      start += size;
+    }
+    int[] vert = new int[n];
+    int[] pos = new int[n];
+    for (int v = 0; v < n; v++) {
+      pos[v] = bin[degree[v]]++;
+      vert[pos[v]] = v;
+    }
+    for (int d = maxDegree; d > 0; d--) {
+      bin[d] = bin[d - 1];
+    }
+    bin[0] = 0;
+
+    for (int i = 0; i < n; i++) {
+      int v = vert[i];
+      for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+        int u = neighbors[k];
+        if (degree[u] > degree[v]) {
+          // move u to the front of its bucket, and then into the bucket below
+          int du = degree[u];
+          int pu = pos[u];
+          int pw = bin[du];
+          int w = vert[pw];
+          if (u != w) {
+            pos[u] = pw;
+            vert[pu] = w;
+            pos[w] = pu;
+            vert[pw] = u;
+          }
+          bin[du]++;
+          degree[u]--;
+        }
+      }
+    }
+    return degree;
+  }
+
+  /**
+   * Computes core numbers by peeling the graph in parallel, one level at a time. At level k, every
+   * remaining node of degree at most k is removed; each removal decrements the degrees of the
+   * removed node's remaining neighbors, and the single decrement that brings a neighbor's degree
+   * down to k adds it to the next batch of nodes to be removed at this level.
+   */
+  private static int[] peel(int[] offsets, int[] neighbors, int[] degrees) {
+    int n = degrees.length;
+    AtomicIntegerArray degree = new AtomicIntegerArray(degrees);
+    int[] cores = new int[n];
+    boolean[] removed = new boolean[n];
+    int[] remaining = IntStream.range(0, n).toArray();
+
+    while (remaining.length > 0) {
+      final int[] current = remaining;
+      int k = IntStream.of(current).parallel().map(degree::get).min().getAsInt();
+      int[] batch = IntStream.of(current).parallel().filter(v -> degree.get(v) <= k).toArray();
+      while (batch.length > 0) {
+        for (int v : batch) {
+          removed[v] = true;
+          cores[v] = k;
+        }
+        batch =
+            IntStream.of(batch)
+                .parallel()
+                .flatMap(
+                    v -> {
+                      IntStream.Builder next = IntStream.builder();
+                      for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                        int u = neighbors[i];
+                        if (!removed[u] && decrementAbove(degree, u, k) == k) {
+                          next.add(u);
+                        }
+                      }
+                      return next.build();
+                    })
+                .toArray();
+      }
+      remaining = IntStream.of(current).parallel().filter(v -> !removed[v]).toArray();
+    }
+    return cores;
+  }
+
+  /**
+   * Decrements the degree of <code>u</code> if it is greater than <code>k</code>, and returns the
+   * new degree (or -1 if it was not decremented).
+   */
+  private static int decrementAbove(AtomicIntegerArray degree, int u, int k) {
+    while (true) {
+      int d = degree.get(u);
+      if (d <= k) {
+        return -1;
+      }
+      if (degree.compareAndSet(u, d, d - 1)) {
+        return d - 1;
+      }
+    }
+  }
+
+  private static IntStream indices(int n, boolean parallel) {
+    IntStream stream = IntStream.range(0, n);
+    return parallel ? stream.parallel() : stream;
+  }
+}
@@ -16,11 +16,17 @@ package edu.uci.ics.jung.algorithms.filters;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.graph.Graph;
-import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.Graphs;
 import com.google.common.graph.MutableGraph;
-import java.util.ArrayDeque;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -28,6 +34,14 @@ import java.util.Set;
  * defined as the subgraph induced by the set of nodes that are k or fewer hops away from the root
  * node.
  *
+ * <p><code>filterGraph</code> returns a copy of the k-neighborhood. <code>neighborhoodView</code>
+ * and <code>neighborhoodViews</code> instead return unmodifiable views of the subgraph of the
+ * original graph induced by the nodes found; only that set of nodes is stored, and the views'
+ * adjacency sets are filtered lazily from the original graph's. These methods also accept a node
+ * budget, which stops the search once that many nodes have been found, so that the time and memory
+ * used are bounded regardless of the degrees of the nodes reached. The views reflect subsequent
+ * changes to the edges of the original graph (but not to the set of nodes found).
+ *
  * @author Danyel Fisher
  * @author Joshua O'Madadhain
  */
@@ -40,40 +54,133 @@ public class KNeighborhoodFilter {
     checkArgument(graph.nodes().containsAll(rootNodes), "graph must contain all of rootNodes");
     checkArgument(radius > 0, "radius must be > 0");
 
-    MutableGraph<N> filtered = GraphBuilder.from(graph).build();
-    for (N root : rootNodes) {
-      filtered.addNode(root);
+    // the nodes found, in the order found, with the edges among them
+    return Graphs.inducedSubgraph(
+        graph, search(graph, ImmutableList.of(rootNodes), radius, Integer.MAX_VALUE).get(0));
+  }
+
+  /**
+   * Returns a view of the subgraph of <code>graph</code> induced by the nodes at most <code>radius
+   * </code> hops (following edges from source to target) from any of <code>rootNodes</code>.
+   *
+   * @param graph the graph whose subgraph is to be returned
+   * @param rootNodes the nodes from which the search starts
+   * @param radius the maximum number of hops from a root node
+   * @param <N> the node type
+   * @return a view of the k-neighborhood of <code>rootNodes</code>
+   */
+  public static <N> Graph<N> neighborhoodView(Graph<N> graph, Set<N> rootNodes, int radius) {
+    return neighborhoodView(graph, rootNodes, radius, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns a view of the subgraph of <code>graph</code> induced by the nodes at most <code>radius
+   * </code> hops (following edges from source to target) from any of <code>rootNodes</code>, found
+   * by breadth-first search; the search stops once <code>nodeBudget</code> nodes (including the
+   * root nodes) have been found.
+   *
+   * @param graph the graph whose subgraph is to be returned
+   * @param rootNodes the nodes from which the search starts
+   * @param radius the maximum number of hops from a root node
+   * @param nodeBudget the maximum number of nodes to find (the root nodes are always included)
+   * @param <N> the node type
+   * @return a view of (at most <code>nodeBudget</code> nodes of) the k-neighborhood of <code>
+   *     rootNodes</code>
+   */
+  public static <N> Graph<N> neighborhoodView(
+      Graph<N> graph, Set<N> rootNodes, int radius, int nodeBudget) {
+    return neighborhoodViews(graph, ImmutableList.of(rootNodes), radius, nodeBudget).get(0);
+  }
+
+  /**
+   * Returns a view of the k-neighborhood of each of the specified sets of root nodes, as for {@link
+   * #neighborhoodView(Graph, Set, int, int)}. The searches share a single frontier, so each node's
+   * successors are traversed at most once per hop, however many of the searches reach it.
+   *
+   * <p>The nodes of each view are in the order in which its search found them; when a search is
+   * stopped by the node budget, the nodes it keeps at the last hop are those that come first in the
+   * shared frontier.
+   *
+   * @param graph the graph whose subgraphs are to be returned
+   * @param rootSets the sets of nodes from which the searches start
+   * @param radius the maximum number of hops from a root node
+   * @param nodeBudget the maximum number of nodes for each search to find (the root nodes are
+   *     always included)
+   * @param <N> the node type
+   * @return a list of views, one for each set in <code>rootSets</code>
+   */
+  public static <N> List<Graph<N>> neighborhoodViews(
+      Graph<N> graph, List<? extends Set<N>> rootSets, int radius, int nodeBudget) {
+    checkNotNull(graph);
+    checkNotNull(rootSets);
+    for (Set<N> rootNodes : rootSets) {
+      checkArgument(graph.nodes().containsAll(rootNodes), "graph must contain all of rootNodes");
     }
-    Queue<N> currentNodes = new ArrayDeque<>(rootNodes);
-    Queue<N> nextNodes = new ArrayDeque<>();
+    checkArgument(radius > 0, "radius must be > 0");
+    checkArgument(nodeBudget > 0, "nodeBudget must be > 0");
 
-    for (int depth = 1; depth <= radius && !currentNodes.isEmpty(); depth++) {
-      while (!currentNodes.isEmpty()) {
-        N currentNode = currentNodes.remove();
-        for (N nextNode : graph.successors(currentNode)) {
-          // the addNode needs to happen before putEdge() because we need to know whether
-          // the node was present in the graph
-          // (and putEdge() will always add the node if not present)
-          if (filtered.addNode(nextNode)) {
-            nextNodes.add(nextNode);
-          }
-          filtered.putEdge(currentNode, nextNode);
-        }
+    List<Graph<N>> views = new ArrayList<>(rootSets.size());
+    for (Set<N> nodes : search(graph, rootSets, radius, nodeBudget)) {
+      views.add(new InducedSubgraph<>(graph, nodes));
+    }
+    return views;
+  }
+
+  /**
+   * Returns, for each set of root nodes, the nodes within <code>radius</code> hops of it in the
+   * order found (up to <code>nodeBudget</code> nodes). Each node in the shared frontier is tagged
+   * with the searches that reached it for the first time at the previous hop.
+   */
+  private static <N> List<Set<N>> search(
+      Graph<N> graph, List<? extends Set<N>> rootSets, int radius, int nodeBudget) {
+    int count = rootSets.size();
+    List<Set<N>> found = new ArrayList<>(count);
+    // the searches that have reached each node
+    Map<N, BitSet> reached = new HashMap<>();
+    Map<N, BitSet> currentNodes = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      found.add(new LinkedHashSet<>(rootSets.get(i)));
+      for (N root : rootSets.get(i)) {
+        reached.computeIfAbsent(root, n -> new BitSet(count)).set(i);
+        currentNodes.computeIfAbsent(root, n -> new BitSet(count)).set(i);
       }
-      Queue<N> emptyQueue = currentNodes;
-      currentNodes = nextNodes;
-      nextNodes = emptyQueue;
+    }
+    BitSet open = new BitSet(count); // the searches still within their budgets
+    for (int i = 0; i < count; i++) {
+      open.set(i, found.get(i).size() < nodeBudget);
     }
 
-    // put in in-edges from nodes in the filtered graph
-    for (N node : filtered.nodes()) {
-      for (N predecessor : graph.predecessors(node)) {
-        if (filtered.nodes().contains(predecessor)) {
-          filtered.putEdge(predecessor, node);
+    for (int depth = 1; depth <= radius && !currentNodes.isEmpty(); depth++) {
+      Map<N, BitSet> nextNodes = new LinkedHashMap<>();
+      for (Map.Entry<N, BitSet> entry : currentNodes.entrySet()) {
+        BitSet searches = entry.getValue();
+        searches.and(open);
+        if (searches.isEmpty()) {
+          continue;
+        }
+        for (N nextNode : graph.successors(entry.getKey())) {
+          BitSet nodeReached = reached.computeIfAbsent(nextNode, n -> new BitSet(count));
+          BitSet newSearches = (BitSet) searches.clone();
+          newSearches.andNot(nodeReached);
+          newSearches.and(open);
+          for (int i = newSearches.nextSetBit(0); i >= 0; i = newSearches.nextSetBit(i + 1)) {
+            Set<N> nodes = found.get(i);
+            nodes.add(nextNode);
+            if (nodes.size() >= nodeBudget) {
+              open.clear(i);
+            }
+          }
+          if (!newSearches.isEmpty()) {
+            nodeReached.or(newSearches);
+            nextNodes.computeIfAbsent(nextNode, n -> new BitSet(count)).or(newSearches);
+          }
+        }
+        if (open.isEmpty()) {
+          break;
         }
       }
+      currentNodes = nextNodes;
     }
-
-    return filtered;
+    return found;
   }
 }
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2005, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.metrics;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.graph.Graph;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Calculates the measures of {@link StructuralHoles} (effective size, efficiency, constraint,
+ * aggregate constraint, and hierarchy) for every node of a graph at once.
+ *
+ * <p>The mutual edge weight of each node with each of its neighbors, and each node's sum and
+ * maximum of those weights, are computed once, up front; the normalized and maximum-scaled mutual
+ * edge weights are then simple array lookups rather than repeated set membership tests and edge
+ * weight function calls. The measures for each node are then evaluated independently (in parallel,
+ * if requested), using two-hop accumulation over these tables.
+ *
+ * <p>All measures are calculated when an instance is created; the results are those that the
+ * corresponding methods of <code>StructuralHoles</code> return for the same graph and edge weights,
+ * with an organizational measure of 1 for every node.
+ *
+ * @see StructuralHoles
+ * @see Metrics#bulkStructuralHoles(Graph, BiFunction, boolean)
+ */
+public class BulkStructuralHoles<N> {
+  private final ImmutableList<N> nodes;
+  private final BiMap<N, Integer> indices;
+
+  // adjacency (adjacentNodes(), including v itself if v has a self-loop) in compressed form
+  private final int[] offsets;
+  private final int[] neighbors;
+  // per adjacency entry (v, u): mutualWeight(v, u), normalized and max-scaled
+  private final double[] normalized;
+  private final double[] maxScaled;
+  // per adjacency entry (v, u): true iff u is both a predecessor and a successor of v
+  private final boolean[] mutual;
+
+  private final double[] effectiveSize;
+  private final double[] efficiency;
+  private final double[] constraint;
+  private final double[] aggregateConstraint;
+  private final double[] hierarchy;
+
+  /**
+   * Calculates the structural holes measures for every node of <code>graph</code>.
+   *
+   * @param graph the graph for which the measures are to be calculated
+   * @param edgeWeights the edge weights
+   * @param parallel if {@code true}, nodes are processed in parallel (in which case <code>
+   *     edgeWeights</code> may be called concurrently)
+   */
+  public BulkStructuralHoles(
+      Graph<N> graph, BiFunction<N, N, ? extends Number> edgeWeights, boolean parallel) {
+    this.nodes = ImmutableList.copyOf(graph.nodes());
+    this.indices = Indexer.create(nodes);
+    int n = nodes.size();
+
+    offsets = new int[n + 1];
+    for (int v = 0; v < n; v++) {
+      offsets[v + 1] = offsets[v] + graph.adjacentNodes(nodes.get(v)).size();
+    }
+    neighbors = new int[offsets[n]];
+    double[] mutualWeight = new double[offsets[n]];
+    mutual = new boolean[offsets[n]];
+    double[] weightSum = new double[n];
+    double[] weightMax = new double[n];
+
+    indices(n, parallel)
+        .forEach(
+            v -> {
+              N node = nodes.get(v);
+              Set<N> successors = graph.successors(node);
+              Set<N> predecessors = graph.predecessors(node);
+              int k = offsets[v];
+              double sum = 0;
+              double max = 0;
+              for (N other : graph.adjacentNodes(node)) {
+                boolean out = successors.contains(other);
+                boolean in = predecessors.contains(other);
+                double weight = 0;
+                if (out) {
+                  weight += edgeWeights.apply(node, other).doubleValue();
+                }
+                if (in) {
+                  weight += edgeWeights.apply(other, node).doubleValue();
+                }
+                neighbors[k] = indices.get(other);
+                mutualWeight[k] = weight;
+                mutual[k] = out && in;
+                sum += weight;
+                max = Math.max(max, weight);
+                k++;
+              }
+              weightSum[v] = sum;
+              weightMax[v] = max;
+            });
+
+    normalized = new double[offsets[n]];
+    maxScaled = new double[offsets[n]];
+    for (int v = 0; v < n; v++) {
+      for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+        double weight = mutualWeight[k];
+        if (neighbors[k] == v || weight == 0) {
+          continue;
+        }
+        normalized[k] = weightSum[v] == 0 ? 0 : weight / weightSum[v];
+        maxScaled[k] = weight / weightMax[v];
+      }
+    }
+
+    effectiveSize = new double[n];
+    efficiency = new double[n];
+    constraint = new double[n];
+    aggregateConstraint = new double[n];
+    hierarchy = new double[n];
+
+    ThreadLocal<double[][]> workspaces =
+        ThreadLocal.withInitial(() -> new double[][] {new double[n], new double[n]});
+    indices(n, parallel)
+        .forEach(
+            v -> {
+              double[][] workspace = workspaces.get();
+              evaluate(graph.degree(nodes.get(v)), v, workspace[0], workspace[1]);
+            });
+  }
+
+  private static IntStream indices(int n, boolean parallel) {
+    IntStream stream = IntStream.range(0, n);
+    return parallel ? stream.parallel() : stream;
+  }
+
+  /**
+   * Evaluates all measures for node v. <code>p</code> and <code>twoHop</code> are scratch arrays
+   * which must be all zeroes on entry, and are restored to all zeroes on exit.
+   */
+  private void evaluate(int degree, int v, double[] p, double[] twoHop) {
+    // p[w] = normalizedMutualEdgeWeight(v, w)
+    for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+      p[neighbors[k]] = normalized[k];
+    }
+
+    // effectiveSize(v) = degree(v) - sum_{u in N(v)} sum_{w in N(u), w != u, v} p(v,w) * m(u,w)
+    double size = degree;
+    for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+      int u = neighbors[k];
+      for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+        int w = neighbors[j];
+        if (w != u && w != v) {
+          size -= p[w] * maxScaled[j];
+        }
+      }
+    }
+    effectiveSize[v] = size;
+    efficiency[v] = degree == 0 ? 0 : size / degree;
+
+    // twoHop[x] = sum_{w in N(v)} p(v,w) * p(w,x)
+    for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+      int w = neighbors[k];
+      double pvw = normalized[k];
+      if (pvw == 0) {
+        continue;
+      }
+      for (int j = offsets[w]; j < offsets[w + 1]; j++) {
+        twoHop[neighbors[j]] += pvw * normalized[j];
+      }
+    }
+
+    double constraintSum = 0;
+    double aggregate = 0;
+    for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+      double local = localConstraint(k, twoHop);
+      aggregate += local;
+      if (mutual[k] && neighbors[k] != v) {
+        constraintSum += local;
+      }
+    }
+    constraint[v] = constraintSum;
+    aggregateConstraint[v] = aggregate;
+
+    if (degree == 0) {
+      hierarchy[v] = Double.NaN;
+    } else if (degree == 1) {
+      hierarchy[v] = 1;
+    } else {
+      double numerator = 0;
+      for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+        if (neighbors[k] == v) {
+          continue;
+        }
+        double slConstraint = localConstraint(k, twoHop) / (aggregate / degree);
+        numerator += slConstraint * Math.log(slConstraint);
+      }
+      hierarchy[v] = numerator / (degree * Math.log(degree));
+    }
+
+    // restore the scratch arrays
+    for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+      int w = neighbors[k];
+      p[w] = 0;
+      for (int j = offsets[w]; j < offsets[w + 1]; j++) {
+        twoHop[neighbors[j]] = 0;
+      }
+    }
+  }
+
+  /** localConstraint(v, w) for the adjacency entry k = (v, w). */
+  private double localConstraint(int k, double[] twoHop) {
+    double value = normalized[k] + twoHop[neighbors[k]];
+    return value * value;
+  }
+
+  /**
+   * @return the nodes of the graph, in the order used by the array-valued accessors
+   */
+  public ImmutableList<N> nodes() {
+    return nodes;
+  }
+
+  /**
+   * @param v a node of the graph
+   * @return the position of <code>v</code> in {@link #nodes()}
+   */
+  public int indexOf(N v) {
+    return indices.get(v);
+  }
+
+  /**
+   * @return the effective size of each node, in the order of {@link #nodes()}
+   * @see StructuralHoles#effectiveSize(Object)
+   */
+  public double[] effectiveSizeArray() {
+    return effectiveSize.clone();
+  }
+
+  /**
+   * @return the efficiency of each node, in the order of {@link #nodes()}
+   * @see StructuralHoles#efficiency(Object)
+   */
+  public double[] efficiencyArray() {
+    return efficiency.clone();
+  }
+
+  /**
+   * @return the constraint of each node, in the order of {@link #nodes()}
+   * @see StructuralHoles#constraint(Object)
+   */
+  public double[] constraintArray() {
+    return constraint.clone();
+  }
+
+  /**
+   * @return the aggregate constraint of each node, in the order of {@link #nodes()}
+   * @see StructuralHoles#aggregateConstraint(Object)
+   */
+  public double[] aggregateConstraintArray() {
+    return aggregateConstraint.clone();
+  }
+
+  /**
+   * @return the hierarchy value of each node, in the order of {@link #nodes()}
+   * @see StructuralHoles#hierarchy(Object)
+   */
+  public double[] hierarchyArray() {
+    return hierarchy.clone();
+  }
+
+  /**
+   * @return a map from each node to its effective size
+   * @see StructuralHoles#effectiveSize(Object)
+   */
+  public ImmutableMap<N, Double> effectiveSizes() {
+    return toMap(effectiveSize);
+  }
+
+  /**
+   * @return a map from each node to its efficiency
+   * @see StructuralHoles#efficiency(Object)
+   */
+  public ImmutableMap<N, Double> efficiencies() {
+    return toMap(efficiency);
+  }
+
+  /**
+   * @return a map from each node to its constraint
+   * @see StructuralHoles#constraint(Object)
+   */
+  public ImmutableMap<N, Double> constraints() {
+    return toMap(constraint);
+  }
+
+  /**
+   * @return a map from each node to its aggregate constraint
+   * @see StructuralHoles#aggregateConstraint(Object)
+   */
+  public ImmutableMap<N, Double> aggregateConstraints() {
+    return toMap(aggregateConstraint);
+  }
+
+  /**
+   * @return a map from each node to its hierarchy value
+   * @see StructuralHoles#hierarchy(Object)
+   */
+  public ImmutableMap<N, Double> hierarchies() {
+    return toMap(hierarchy);
+  }
+
+  private ImmutableMap<N, Double> toMap(double[] values) {
+    ImmutableMap.Builder<N, Double> builder = ImmutableMap.builder();
+    for (int i = 0; i < values.length; i++) {
+      builder.put(nodes.get(i), values[i]);
+    }
+    return builder.build();
+  }
+}
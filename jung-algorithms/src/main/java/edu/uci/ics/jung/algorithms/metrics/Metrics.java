@@ -75,6 +75,21 @@ public class Metrics {
     return new StructuralHoles<N>(graph, edgeWeights);
   }
 
+  /**
+   * Returns an instance of {@code BulkStructuralHoles}, which calculates the structural holes
+   * measures for every node of {@code graph} at once.
+   *
+   * @param graph the graph whose properties are being measured
+   * @param edgeWeights the edge weights
+   * @param parallel if {@code true}, nodes are processed in parallel
+   * @param <N> the node type
+   * @return the structural holes measures for every node of {@code graph}
+   */
+  public static <N> BulkStructuralHoles<N> bulkStructuralHoles(
+      Graph<N> graph, BiFunction<N, N, ? extends Number> edgeWeights, boolean parallel) {
+    return new BulkStructuralHoles<N>(graph, edgeWeights, parallel);
+  }
+
   /**
    * Returns an array whose ith element (for i in [1,16]) is the number of occurrences of the
    * corresponding triad type in {@code graph}. (The 0th element is not meaningful; this array is
@@ -13,6 +13,7 @@ package edu.uci.ics.jung.algorithms.metrics;
 
 import static com.google.common.collect.Sets.difference;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.graph.Graph;
 import java.util.Set;
 import java.util.function.BiFunction;
@@ -37,6 +38,7 @@ import java.util.function.BiFunction;
  * @author Jasper Voskuilen
  * @see "Ronald Burt, Structural Holes: The Social Structure of Competition"
  * @author Tom Nelson - converted to jung2
+ * @see BulkStructuralHoles
  */
 public class StructuralHoles<N> {
 
@@ -78,7 +80,7 @@ public class StructuralHoles<N> {
   public double effectiveSize(N v) {
     double result = g.degree(v);
     for (N u : g.adjacentNodes(v)) {
-      for (N w : difference(g.adjacentNodes(u), Set.of(u, v))) {
+      for (N w : difference(g.adjacentNodes(u), ImmutableSet.of(u, v))) {
         result -= normalizedMutualEdgeWeight(v, w) * maxScaledMutualEdgeWeight(u, w);
       }
     }
@@ -328,9 +330,9 @@ public class StructuralHoles<N> {
       return 0;
     }
 
-    double denominator = 0;
+    double denominator = numerator;
     for (N w : difference(g.adjacentNodes(v1), Set.of(v2))) {
-      denominator = Math.max(numerator, mutualWeight(v1, w));
+      denominator = Math.max(denominator, mutualWeight(v1, w));
     }
 
     if (denominator == 0) {
@@ -0,0 +1,459 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.scoring;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.graph.Network;
+import edu.uci.ics.jung.algorithms.scoring.util.ScoringUtils;
+import edu.uci.ics.jung.algorithms.scoring.util.UniformDegreeWeight;
+import edu.uci.ics.jung.algorithms.scoring.util.VEPair;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Calculates {@link PageRankWithPriors} scores for many sets of node priors (for example, one per
+ * user's seed set) over the same graph.
+ *
+ * <p>The graph and its edge weights are indexed once, when an instance is created. {@link
+ * #evaluate(List)} then iterates the prior vectors together, in batches of {@link #getBatchSize()}
+ * columns of a dense (nodes &times; priors) block: each sweep traverses the in-edges of each node
+ * once, updating the scores for every prior vector in the batch, and rows are processed in parallel
+ * if requested. Iteration stops when the scores for every prior vector in the batch change by less
+ * than the tolerance, or after the maximum number of iterations.
+ *
+ * <p>{@link #approximate(List, double)} instead uses forward push (local updates from the nodes
+ * with the most residual probability) for each prior vector independently; this is much faster when
+ * the priors are concentrated on a few nodes and only the larger scores are of interest.
+ *
+ * <p>The scores for each prior vector are those that <code>PageRankWithPriors</code> would
+ * calculate (to within the tolerance) for the same graph, edge weights, priors, and alpha: at each
+ * step, the potential of nodes with no outgoing edges is redistributed according to the priors.
+ *
+ * @see PageRankWithPriors
+ * @see "Reid Andersen, Fan Chung, and Kevin Lang, Local Graph Partitioning using PageRank Vectors,
+ *     FOCS 2006"
+ */
+public class BatchPageRankWithPriors<N, E> {
+  private final ImmutableList<N> nodes;
+  private final BiMap<N, Integer> indices;
+  private final double alpha;
+
+  // in-edges of each node in compressed form: (source, transition weight)
+  private final int[] inOffsets;
+  private final int[] inSources;
+  private final double[] inWeights;
+  // out-edges of each node in compressed form: (target, transition weight)
+  private final int[] outOffsets;
+  private final int[] outTargets;
+  private final double[] outWeights;
+  private final int[] danglingNodes;
+
+  private int max_iterations = 100;
+  private double tolerance = 0.001;
+  private int batch_size = 64;
+  private boolean parallel = true;
+  private boolean accept_disconnected_graph = true;
+
+  /**
+   * Creates an instance with the specified graph, edge weights, and 'random jump' probability
+   * (alpha).
+   *
+   * @param graph the input graph
+   * @param edge_weights the edge weights, denoting transition probabilities from source to
+   *     destination
+   * @param alpha the probability of executing a 'random jump' at each step
+   */
+  public BatchPageRankWithPriors(
+      Network<N, E> graph, Function<? super E, ? extends Number> edge_weights, double alpha) {
+    this(graph, (u, e) -> edge_weights.apply(e), alpha);
+  }
+
+  /**
+   * Creates an instance with the specified graph and 'random jump' probability (alpha). The
+   * outgoing edge weights for each node will be equal and sum to 1.
+   *
+   * @param graph the input graph
+   * @param alpha the probability of executing a 'random jump' at each step
+   */
+  public BatchPageRankWithPriors(Network<N, E> graph, double alpha) {
+    this(graph, uniformWeights(graph), alpha);
+  }
+
+  private static <N, E> BiFunction<N, E, Double> uniformWeights(Network<N, E> graph) {
+    UniformDegreeWeight<N, E> weights = new UniformDegreeWeight<N, E>(graph);
+    return (u, e) -> weights.apply(new VEPair<N, E>(u, e));
+  }
+
+  private BatchPageRankWithPriors(
+      Network<N, E> graph, BiFunction<N, E, ? extends Number> edge_weights, double alpha) {
+    this.nodes = ImmutableList.copyOf(graph.nodes());
+    this.indices = Indexer.create(nodes);
+    this.alpha = alpha;
+    int n = nodes.size();
+
+    // mirrors the traversal in PageRankWithPriors.update(); the first pass counts the edges so
+    // that the second can fill the arrays directly
+    inOffsets = new int[n + 1];
+    int[] outCounts = new int[n + 1];
+    for (int v = 0; v < n; v++) {
+      N node = nodes.get(v);
+      int count = 0;
+      for (N u : graph.predecessors(node)) {
+        int edges = graph.edgesConnecting(u, node).size();
+        count += edges;
+        outCounts[indices.get(u) + 1] += edges;
+      }
+      inOffsets[v + 1] = inOffsets[v] + count;
+    }
+    inSources = new int[inOffsets[n]];
+    inWeights = new double[inOffsets[n]];
+    for (int v = 0; v < n; v++) {
+      N node = nodes.get(v);
+      int k = inOffsets[v];
+      for (N u : graph.predecessors(node)) {
+        int source = indices.get(u);
+        for (E e : graph.edgesConnecting(u, node)) {
+          inSources[k] = source;
+          inWeights[k] = edge_weights.apply(u, e).doubleValue();
+          k++;
+        }
+      }
+    }
+
+    outOffsets = new int[n + 1];
+    for (int u = 0; u < n; u++) {
+      outOffsets[u + 1] = outOffsets[u] + outCounts[u + 1];
+    }
+    outTargets = new int[inSources.length];
+    outWeights = new double[inSources.length];
+    int[] next = outOffsets.clone();
+    for (int v = 0; v < n; v++) {
+      for (int k = inOffsets[v]; k < inOffsets[v + 1]; k++) {
+        int slot = next[inSources[k]]++;
+        outTargets[slot] = v;
+        outWeights[slot] = inWeights[k];
+      }
+    }
+
+    danglingNodes = IntStream.range(0, n).filter(v -> graph.outDegree(nodes.get(v)) == 0).toArray();
+  }
+
+  /**
+   * Calculates the scores for each of the specified prior vectors by iterating them together.
+   *
+   * @param priors the prior probability functions, one per set of scores to calculate
+   * @return an array whose <code>i</code>th element holds the scores for <code>priors.get(i)</code>
+   *     , in the order of {@link #nodes()}
+   */
+  public double[][] evaluate(List<? extends Function<? super N, ? extends Number>> priors) {
+    int n = nodes.size();
+    double[][] scores = new double[priors.size()][];
+    for (int start = 0; start < priors.size(); start += batch_size) {
+      int b = Math.min(batch_size, priors.size() - start);
+      double[] prior = new double[n * b];
+      for (int s = 0; s < b; s++) {
+        Function<? super N, ? extends Number> p = priors.get(start + s);
+        for (int v = 0; v < n; v++) {
+          prior[v * b + s] = p.apply(nodes.get(v)).doubleValue();
+        }
+      }
+      double[] x = iterate(prior, b);
+      for (int s = 0; s < b; s++) {
+        double[] column = new double[n];
+        for (int v = 0; v < n; v++) {
+          column[v] = x[v * b + s];
+        }
+        scores[start + s] = column;
+      }
+    }
+    return scores;
+  }
+
+  /**
+   * Calculates the scores for each of the specified root sets, using a prior that is uniform over
+   * each root set.
+   *
+   * @param roots the root sets, one per set of scores to calculate
+   * @return an array whose <code>i</code>th element holds the scores for <code>roots.get(i)</code>,
+   *     in the order of {@link #nodes()}
+   * @see ScoringUtils#getUniformRootPrior(java.util.Collection)
+   */
+  public double[][] evaluateRootSets(List<? extends Set<N>> roots) {
+    List<Function<N, Double>> priors = new ArrayList<Function<N, Double>>();
+    for (Set<N> root_set : roots) {
+      priors.add(ScoringUtils.getUniformRootPrior(root_set));
+    }
+    return evaluate(priors);
+  }
+
+  /**
+   * Iterates the <code>b</code> prior vectors in <code>prior</code> (stored row-major, one row per
+   * node) to convergence, and returns the scores in the same layout.
+   */
+  private double[] iterate(double[] prior, int b) {
+    int n = nodes.size();
+    Preconditions.checkState(
+        accept_disconnected_graph || danglingNodes.length == 0,
+        "Outdegree of %s must be > 0",
+        danglingNodes.length == 0 ? null : nodes.get(danglingNodes[0]));
+    double[] current = prior.clone();
+    double[] next = new double[n * b];
+    for (int iteration = 0; iteration < max_iterations; iteration++) {
+      // the potential of nodes with no out-edges, to be distributed according to the priors
+      double[] disappearing = new double[b];
+      for (int u : danglingNodes) {
+        for (int s = 0; s < b; s++) {
+          disappearing[s] += current[u * b + s];
+        }
+      }
+      final double[] x = current;
+      final double[] y = next;
+      IntStream rows = IntStream.range(0, n);
+      double max_delta =
+          (parallel ? rows.parallel() : rows)
+              .mapToDouble(
+                  v -> {
+                    int base = v * b;
+                    for (int s = 0; s < b; s++) {
+                      y[base + s] = 0;
+                    }
+                    for (int k = inOffsets[v]; k < inOffsets[v + 1]; k++) {
+                      int source = inSources[k] * b;
+                      double weight = inWeights[k];
+                      for (int s = 0; s < b; s++) {
+                        y[base + s] += x[source + s] * weight;
+                      }
+                    }
+                    double delta = 0;
+                    for (int s = 0; s < b; s++) {
+                      double p = prior[base + s];
+                      double value = y[base + s] * (1 - alpha) + p * alpha;
+                      value += (1 - alpha) * disappearing[s] * p;
+                      y[base + s] = value;
+                      delta = Math.max(delta, Math.abs(value - x[base + s]));
+                    }
+                    return delta;
+                  })
+              .max()
+              .orElse(0);
+      current = y;
+      next = x;
+      if (max_delta < tolerance) {
+        break;
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Approximates the scores for each of the specified prior vectors by forward push. For each prior
+   * vector, residual probability is pushed from each node whose residual is at least <code>
+   * epsilon</code> times its out-degree, until there are no such nodes. The approximate scores
+   * never exceed the exact ones; if the edge weights out of each node sum to 1, the total shortfall
+   * is the remaining residual, which is less than <code>epsilon</code> times the number of edges
+   * (plus the number of nodes with no out-edges). The prior vectors are processed in parallel if
+   * requested.
+   *
+   * @param priors the prior probability functions, one per set of scores to approximate
+   * @param epsilon the residual threshold per unit of out-degree
+   * @return an array whose <code>i</code>th element holds the scores for <code>priors.get(i)</code>
+   *     , in the order of {@link #nodes()}
+   */
+  public double[][] approximate(
+      List<? extends Function<? super N, ? extends Number>> priors, double epsilon) {
+    Preconditions.checkArgument(epsilon > 0, "epsilon must be positive; was %s", epsilon);
+    Preconditions.checkArgument(alpha > 0, "forward push requires alpha > 0");
+    Preconditions.checkState(
+        accept_disconnected_graph || danglingNodes.length == 0,
+        "Outdegree of %s must be > 0",
+        danglingNodes.length == 0 ? null : nodes.get(danglingNodes[0]));
+    int n = nodes.size();
+    IntStream seeds = IntStream.range(0, priors.size());
+    return (parallel ? seeds.parallel() : seeds)
+        .mapToObj(
+            s -> {
+              Function<? super N, ? extends Number> p = priors.get(s);
+              double[] prior = new double[n];
+              for (int v = 0; v < n; v++) {
+                prior[v] = p.apply(nodes.get(v)).doubleValue();
+              }
+              return push(prior, epsilon);
+            })
+        .toArray(double[][]::new);
+  }
+
+  /** Forward push for a single prior vector. */
+  private double[] push(double[] prior, double epsilon) {
+    int n = nodes.size();
+    double[] scores = new double[n];
+    double[] residual = prior.clone();
+    int[] priorSupport = IntStream.range(0, n).filter(v -> prior[v] != 0).toArray();
+    boolean[] queued = new boolean[n];
+    int[] queue = new int[n];
+    int head = 0;
+    int size = 0;
+    for (int v : priorSupport) {
+      if (residual[v] >= epsilon * threshold(v)) {
+        queue[(head + size++) % n] = v;
+        queued[v] = true;
+      }
+    }
+    while (size > 0) {
+      int u = queue[head];
+      head = (head + 1) % n;
+      size--;
+      queued[u] = false;
+      double r = residual[u];
+      residual[u] = 0;
+      scores[u] += alpha * r;
+      double spread = (1 - alpha) * r;
+      if (outOffsets[u] == outOffsets[u + 1]) {
+        // the potential of a node with no out-edges is distributed according to the priors
+        for (int v : priorSupport) {
+          size = addResidual(v, spread * prior[v], epsilon, residual, queued, queue, head, size);
+        }
+      } else {
+        for (int k = outOffsets[u]; k < outOffsets[u + 1]; k++) {
+          size =
+              addResidual(
+                  outTargets[k],
+                  spread * outWeights[k],
+                  epsilon,
+                  residual,
+                  queued,
+                  queue,
+                  head,
+                  size);
+        }
+      }
+    }
+    return scores;
+  }
+
+  private int addResidual(
+      int v,
+      double amount,
+      double epsilon,
+      double[] residual,
+      boolean[] queued,
+      int[] queue,
+      int head,
+      int size) {
+    residual[v] += amount;
+    if (!queued[v] && residual[v] >= epsilon * threshold(v)) {
+      queue[(head + size++) % queue.length] = v;
+      queued[v] = true;
+    }
+    return size;
+  }
+
+  private int threshold(int v) {
+    return Math.max(1, outOffsets[v + 1] - outOffsets[v]);
+  }
+
+  /**
+   * @return the nodes of the graph, in the order used by the score arrays
+   */
+  public ImmutableList<N> nodes() {
+    return nodes;
+  }
+
+  /**
+   * @param v a node of the graph
+   * @return the position of <code>v</code> in {@link #nodes()}
+   */
+  public int indexOf(N v) {
+    return indices.get(v);
+  }
+
+  /**
+   * @param scores one of the score arrays returned by this instance
+   * @return a map from each node to its score
+   */
+  public ImmutableMap<N, Double> toMap(double[] scores) {
+    ImmutableMap.Builder<N, Double> builder = ImmutableMap.builder();
+    for (int i = 0; i < scores.length; i++) {
+      builder.put(nodes.get(i), scores[i]);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the probability of making a 'jump' (non-link-following step).
+   *
+   * @return the probability of making a 'jump' (non-link-following step)
+   */
+  public double getAlpha() {
+    return alpha;
+  }
+
+  public int getMaxIterations() {
+    return max_iterations;
+  }
+
+  public void setMaxIterations(int max_iterations) {
+    this.max_iterations = max_iterations;
+  }
+
+  public double getTolerance() {
+    return tolerance;
+  }
+
+  public void setTolerance(double tolerance) {
+    this.tolerance = tolerance;
+  }
+
+  /**
+   * @return the number of prior vectors iterated together by {@link #evaluate(List)}
+   */
+  public int getBatchSize() {
+    return batch_size;
+  }
+
+  /**
+   * Sets the number of prior vectors iterated together by {@link #evaluate(List)}. Larger batches
+   * share each traversal of the graph among more prior vectors, but use more memory (three arrays
+   * of <code>nodes &times; batch_size</code> doubles).
+   *
+   * @param batch_size the number of prior vectors per batch
+   */
+  public void setBatchSize(int batch_size) {
+    Preconditions.checkArgument(batch_size > 0, "batch size must be positive: %s", batch_size);
+    this.batch_size = batch_size;
+  }
+
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * @param parallel if {@code true}, nodes (for {@link #evaluate(List)}) or prior vectors (for
+   *     {@link #approximate(List, double)}) are processed in parallel
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  public void acceptDisconnectedGraph(boolean accept) {
+    this.accept_disconnected_graph = accept;
+  }
+
+  public boolean isDisconnectedGraphOK() {
+    return this.accept_disconnected_graph;
+  }
+}
@@ -10,16 +10,18 @@
 package edu.uci.ics.jung.algorithms.scoring;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.graph.MutableNetwork;
-import java.util.ArrayList;
+import com.google.common.graph.Network;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * This algorithm measures the importance of nodes based upon both the number and length of disjoint
@@ -31,7 +33,12 @@ import java.util.function.Supplier;
  * <p>This algorithm uses heuristic breadth-first search to try and find the maximum-sized set of
  * node-disjoint paths between two nodes. As such, it is not guaranteed to give exact answers.
  *
- * <p>
+ * <p>The graph is not modified. The search from each root starts at an implicit virtual source
+ * whose only edge leads to the root; the searches from different roots are independent, so they are
+ * run in parallel (if requested with the {@code parallel} constructor argument) over a bounded
+ * number of chunks of the root set, each chunk keeping its own path-index state and score array.
+ * The chunk scores are merged in the order of the root set, so the results do not depend on thread
+ * scheduling.
  *
  * @author Scott White
  * @see "Algorithms for Estimating Relative Importance in Graphs by Scott White and Padhraic Smyth,
@@ -40,32 +47,33 @@ import java.util.function.Supplier;
 // TODO: versions for Graph/ValueGraph
 // TODO: extend AbstractIterativeScorer and provide for iterating one step (depth) at a time?
 // TODO: review this and make sure it's correctly implementing the algorithm
-// TODO: this takes in a MutableNetwork and factories as a hack; there's got to be a better way;
-// options include:
-// (1) create a delegate class that pretends that the extra node/edge are there
-// (2) refactor the internal logic so that we can emulate the presence of that node/edge
 public class WeightedNIPaths<N, E> implements NodeScorer<N, Double> {
-  private final MutableNetwork<N, E> graph;
+  private static final int BLOCK_SIZE = 64;
+  private static final int MAX_CHUNKS = 16;
+
   private final double alpha;
   private final int maxDepth;
-  private final Set<N> priors;
-  private final Map<E, Number> pathIndices = new HashMap<E, Number>();
-  private final Map<Object, N> roots = new HashMap<Object, N>();
-  private final Map<N, Set<Number>> pathsSeenMap = new HashMap<N, Set<Number>>();
   private final Map<N, Double> nodeScores = new LinkedHashMap<>();
-  private final Supplier<N> nodeFactory;
-  private final Supplier<E> edgeFactory;
+
+  // out-edges of each node in compressed form, and the endpoints of each edge
+  private final int[] offsets;
+  private final int[] outEdges;
+  private final int[] edgeSources;
+  private final int[] edgeTargets;
 
   /**
    * Constructs and initializes the algorithm.
    *
    * @param graph the graph whose nodes are being measured for their importance
-   * @param nodeFactory used to generate instances of V
-   * @param edgeFactory used to generate instances of E
+   * @param nodeFactory no longer used
+   * @param edgeFactory no longer used
    * @param alpha the path decay coefficient (&ge;1); 2 is recommended
    * @param maxDepth the maximal depth to search out from the root set
    * @param priors the root set (starting nodes)
+   * @deprecated the graph is no longer modified; use {@link #WeightedNIPaths(Network, double, int,
+   *     Set)}
    */
+  @Deprecated
   public WeightedNIPaths(
       MutableNetwork<N, E> graph,
       Supplier<N> nodeFactory,
@@ -73,125 +81,268 @@ public class WeightedNIPaths<N, E> implements NodeScorer<N, Double> {
       double alpha,
       int maxDepth,
       Set<N> priors) {
+    this(graph, alpha, maxDepth, priors);
+  }
+
+  /**
+   * Constructs and initializes the algorithm, searching from the roots sequentially.
+   *
+   * @param graph the graph whose nodes are being measured for their importance
+   * @param alpha the path decay coefficient (&ge;1); 2 is recommended
+   * @param maxDepth the maximal depth to search out from the root set
+   * @param priors the root set (starting nodes)
+   */
+  public WeightedNIPaths(Network<N, E> graph, double alpha, int maxDepth, Set<N> priors) {
+    this(graph, alpha, maxDepth, priors, false);
+  }
+
+  /**
+   * Constructs and initializes the algorithm.
+   *
+   * @param graph the graph whose nodes are being measured for their importance
+   * @param alpha the path decay coefficient (&ge;1); 2 is recommended
+   * @param maxDepth the maximal depth to search out from the root set
+   * @param priors the root set (starting nodes)
+   * @param parallel if {@code true}, the searches from the roots are run in parallel
+   */
+  public WeightedNIPaths(
+      Network<N, E> graph, double alpha, int maxDepth, Set<N> priors, boolean parallel) {
     // TODO: is this actually restricted to only work on directed graphs?
     Preconditions.checkArgument(graph.isDirected(), "Input graph must be directed");
-    this.graph = graph;
-    this.nodeFactory = nodeFactory;
-    this.edgeFactory = edgeFactory;
+    for (N v : priors) {
+      Preconditions.checkArgument(graph.nodes().contains(v), "Root %s is not in the graph", v);
+    }
     this.alpha = alpha;
     this.maxDepth = maxDepth;
-    this.priors = priors;
-    evaluate();
+
+    ImmutableList<N> nodes = ImmutableList.copyOf(graph.nodes());
+    BiMap<N, Integer> nodeIndices = Indexer.create(nodes);
+    BiMap<E, Integer> edgeIndices = Indexer.create(graph.edges());
+    int n = nodes.size();
+    int m = edgeIndices.size();
+    offsets = new int[n + 1];
+    outEdges = new int[m];
+    edgeSources = new int[m];
+    edgeTargets = new int[m];
+    for (int v = 0; v < n; v++) {
+      int k = offsets[v];
+      for (E e : graph.outEdges(nodes.get(v))) {
+        int edge = edgeIndices.get(e);
+        outEdges[k++] = edge;
+        edgeSources[edge] = v;
+        edgeTargets[edge] = nodeIndices.get(graph.incidentNodes(e).target());
+      }
+      offsets[v + 1] = k;
+    }
+
+    int[] roots = new int[priors.size()];
+    int r = 0;
+    for (N v : priors) {
+      roots[r++] = nodeIndices.get(v);
+    }
+    double[] scores = evaluate(roots, n, m, parallel);
+
+    double total = 0.0;
+    for (int v = 0; v < n; v++) {
+      total += scores[v];
+    }
+    for (int v = 0; v < n; v++) {
+      nodeScores.put(nodes.get(v), scores[v] / total);
+    }
   }
 
-  protected void incrementRankScore(N node, double rankValue) {
-    nodeScores.computeIfPresent(node, (v, value) -> value + rankValue);
+  /**
+   * Returns the unnormalized score of each node: the sum, over the roots in order, of the scores
+   * from the search from each root. The roots are split into at most {@code MAX_CHUNKS} contiguous
+   * chunks of at least {@code BLOCK_SIZE} roots; each chunk accumulates into its own array, and the
+   * arrays are summed in chunk order.
+   */
+  private double[] evaluate(int[] roots, int n, int m, boolean parallel) {
+    int numChunks = Math.max(1, Math.min(MAX_CHUNKS, (roots.length + BLOCK_SIZE - 1) / BLOCK_SIZE));
+    int chunkSize = (roots.length + numChunks - 1) / numChunks;
+    double[][] chunkScores = new double[numChunks][];
+    IntStream chunks = IntStream.range(0, numChunks);
+    (parallel ? chunks.parallel() : chunks)
+        .forEach(
+            c -> {
+              double[] scores = new double[n];
+              Workspace workspace = new Workspace(n, m);
+              int end = Math.min(roots.length, (c + 1) * chunkSize);
+              for (int i = c * chunkSize; i < end; i++) {
+                computeWeightedPathsFromSource(roots[i], maxDepth, workspace, scores);
+              }
+              chunkScores[c] = scores;
+            });
+    double[] scores = chunkScores[0];
+    for (int c = 1; c < numChunks; c++) {
+      double[] chunk = chunkScores[c];
+      for (int v = 0; v < n; v++) {
+        scores[v] += chunk[v];
+      }
+    }
+    return scores;
   }
 
-  protected void computeWeightedPathsFromSource(N root, int depth) {
+  /**
+   * Adds to <code>scores</code> the weighted number of node-disjoint paths from <code>root</code>
+   * to each node, searching to the specified depth.
+   */
+  private void computeWeightedPathsFromSource(
+      int root, int depth, Workspace workspace, double[] scores) {
+    int stamp = workspace.nextStamp();
+    int[] edgeStamps = workspace.edgeStamps;
+    int[] pathIndices = workspace.pathIndices;
 
     int pathIdx = 1;
-
-    for (E e : graph.outEdges(root)) {
-      this.pathIndices.put(e, pathIdx);
-      this.roots.put(e, root);
-      newNodeEncountered(pathIdx, graph.incidentNodes(e).target(), root);
+    for (int k = offsets[root]; k < offsets[root + 1]; k++) {
+      int e = outEdges[k];
+      pathIndices[e] = pathIdx;
+      edgeStamps[e] = stamp;
+      workspace.newNodeEncountered(pathIdx, edgeTargets[e], stamp);
       pathIdx++;
     }
 
-    List<E> edges = new ArrayList<E>();
-
-    N virtualNode = nodeFactory.get();
-    graph.addNode(virtualNode);
-    E virtualSinkEdge = edgeFactory.get();
-
-    graph.addEdge(virtualNode, root, virtualSinkEdge);
-    edges.add(virtualSinkEdge);
+    // depth 0: the (virtual) edge from the virtual source to the root
+    scores[root] += 1.0;
+    if (depth == 0) {
+      return;
+    }
+    // expanding the virtual edge yields all of the root's out-edges
+    int[] edges = workspace.frontier;
+    int size = offsets[root + 1] - offsets[root];
+    System.arraycopy(outEdges, offsets[root], edges, 0, size);
+    int[] newEdges = workspace.nextFrontier;
 
-    int currentDepth = 0;
-    while (currentDepth <= depth) {
+    int currentDepth = 1;
+    while (true) {
       double currentWeight = Math.pow(alpha, -1.0 * currentDepth);
-      for (E currentEdge : edges) {
-        incrementRankScore(graph.incidentNodes(currentEdge).target(), currentWeight);
+      for (int i = 0; i < size; i++) {
+        scores[edgeTargets[edges[i]]] += currentWeight;
       }
 
-      if ((currentDepth == depth) || (edges.size() == 0)) {
+      if ((currentDepth == depth) || (size == 0)) {
         break;
       }
 
-      List<E> newEdges = new ArrayList<E>();
-
-      for (E currentSourceEdge : edges) {
-        Number sourcePathIndex = this.pathIndices.get(currentSourceEdge);
+      int newSize = 0;
+      for (int i = 0; i < size; i++) {
+        int currentSourceEdge = edges[i];
+        int sourcePathIndex = pathIndices[currentSourceEdge];
 
         // from the currentSourceEdge, get its opposite end
         // then iterate over the out edges of that opposite end
-        N newDestNode = graph.incidentNodes(currentSourceEdge).target();
-        for (E currentDestEdge : graph.outEdges(newDestNode)) {
-          N destEdgeRoot = this.roots.get(currentDestEdge);
-          N destEdgeDest = graph.incidentNodes(currentDestEdge).target();
-
-          if (currentSourceEdge == virtualSinkEdge) {
-            newEdges.add(currentDestEdge);
-            continue;
-          }
-          if (destEdgeRoot == root) {
+        int newDestNode = edgeTargets[currentSourceEdge];
+        for (int k = offsets[newDestNode]; k < offsets[newDestNode + 1]; k++) {
+          int currentDestEdge = outEdges[k];
+          if (edgeStamps[currentDestEdge] == stamp) {
             continue;
           }
-          if (destEdgeDest == graph.incidentNodes(currentSourceEdge).source()) {
+          int destEdgeDest = edgeTargets[currentDestEdge];
+          if (destEdgeDest == edgeSources[currentSourceEdge]) {
             continue;
           }
-          Set<Number> pathsSeen = this.pathsSeenMap.get(destEdgeDest);
-
-          if (pathsSeen == null) {
-            newNodeEncountered(sourcePathIndex.intValue(), destEdgeDest, root);
-          } else if (roots.get(destEdgeDest) != root) {
-            roots.put(destEdgeDest, root);
-            pathsSeen.clear();
-            pathsSeen.add(sourcePathIndex);
-          } else if (!pathsSeen.contains(sourcePathIndex)) {
-            pathsSeen.add(sourcePathIndex);
-          } else {
+          if (!workspace.addPathSeen(destEdgeDest, sourcePathIndex, stamp)) {
             continue;
           }
 
-          this.pathIndices.put(currentDestEdge, sourcePathIndex);
-          this.roots.put(currentDestEdge, root);
-          newEdges.add(currentDestEdge);
+          pathIndices[currentDestEdge] = sourcePathIndex;
+          edgeStamps[currentDestEdge] = stamp;
+          newEdges[newSize++] = currentDestEdge;
         }
       }
 
+      int[] swap = edges;
       edges = newEdges;
+      newEdges = swap;
+      size = newSize;
       currentDepth++;
     }
-
-    graph.removeNode(virtualNode);
   }
 
-  private void newNodeEncountered(int sourcePathIndex, N dest, N root) {
-    Set<Number> pathsSeen = new HashSet<Number>();
-    pathsSeen.add(sourcePathIndex);
-    this.pathsSeenMap.put(dest, pathsSeen);
-    roots.put(dest, root);
-  }
+  /**
+   * Per-thread path-index state. Entries for edges and nodes are valid only if their stamp matches
+   * the stamp of the current root, so no state needs to be cleared between roots.
+   */
+  private static final class Workspace {
+    final int[] edgeStamps;
+    final int[] pathIndices;
+    final int[] frontier;
+    final int[] nextFrontier;
+    // the paths seen at each node, as a set of (generation, path index) pairs; a node's generation
+    // changes whenever its set of paths seen is reset
+    final int[] nodeStamps;
+    final long[] nodeGenerations;
+    long generation;
+    long[] pathsSeen = new long[16];
+    int pathsSeenSize;
+    int stamp;
 
-  private void evaluate() {
-    for (N node : graph.nodes()) {
-      nodeScores.put(node, 0.0);
+    Workspace(int n, int m) {
+      edgeStamps = new int[m];
+      pathIndices = new int[m];
+      frontier = new int[m];
+      nextFrontier = new int[m];
+      nodeStamps = new int[n];
+      nodeGenerations = new long[n];
     }
 
-    for (N v : priors) {
-      computeWeightedPathsFromSource(v, maxDepth);
+    int nextStamp() {
+      if (pathsSeenSize > 0) {
+        Arrays.fill(pathsSeen, 0);
+        pathsSeenSize = 0;
+      }
+      return ++stamp;
+    }
+
+    void newNodeEncountered(int sourcePathIndex, int dest, int stamp) {
+      nodeStamps[dest] = stamp;
+      nodeGenerations[dest] = ++generation;
+      add((generation << 32) | sourcePathIndex);
+    }
+
+    /**
+     * Records that path <code>sourcePathIndex</code> has reached <code>dest</code>; returns {@code
+     * false} if it already had.
+     */
+    boolean addPathSeen(int dest, int sourcePathIndex, int stamp) {
+      if (nodeStamps[dest] != stamp) {
+        newNodeEncountered(sourcePathIndex, dest, stamp);
+        return true;
+      }
+      return add((nodeGenerations[dest] << 32) | sourcePathIndex);
     }
 
-    double runningTotal = 0.0;
-    for (N node : graph.nodes()) {
-      runningTotal += nodeScores.get(node);
+    /**
+     * Adds a (nonzero) key to the open-addressing set; returns {@code false} if already present.
+     */
+    private boolean add(long key) {
+      if (2 * (pathsSeenSize + 1) > pathsSeen.length) {
+        long[] old = pathsSeen;
+        pathsSeen = new long[old.length * 2];
+        for (long k : old) {
+          if (k != 0) {
+            insert(k);
+          }
+        }
+      }
+      if (insert(key)) {
+        pathsSeenSize++;
+        return true;
+      }
+      return false;
     }
 
-    final double total = runningTotal;
-    for (N node : graph.nodes()) {
-      nodeScores.computeIfPresent(node, (n, value) -> value / total);
+    private boolean insert(long key) {
+      int mask = pathsSeen.length - 1;
+      int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+      while (pathsSeen[slot] != 0) {
+        if (pathsSeen[slot] == key) {
+          return false;
+        }
+        slot = (slot + 1) & mask;
+      }
+      pathsSeen[slot] = key;
+      return true;
     }
   }
 
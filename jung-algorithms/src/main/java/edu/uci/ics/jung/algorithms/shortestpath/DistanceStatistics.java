@@ -132,6 +132,23 @@ public class DistanceStatistics {
     return diameter(g, distance, false);
   }
 
+  /**
+   * Returns approximate distance statistics for <code>g</code> (ignoring edge weights), computed in
+   * parallel by HyperANF. This is much faster than the exact methods of this class for large
+   * graphs, which require a shortest-path search from every node.
+   *
+   * @param g the graph for which distances are to be approximated
+   * @param log2m the base-2 logarithm of the number of registers per counter, in [4, 16]; the
+   *     relative standard deviation of the estimates is about <code>1.04 / sqrt(2^log2m)</code>
+   * @param <N> the node type
+   * @return the approximate neighbourhood function, distance distribution, average distance,
+   *     effective diameter, and harmonic centralities of <code>g</code>
+   * @see HyperANF
+   */
+  public static <N> HyperANF<N> approximate(Graph<N> g, int log2m) {
+    return new HyperANF<N>(g, log2m, true);
+  }
+
   /**
    * Returns the diameter of <code>g</code>, ignoring edge weights.
    *
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.shortestpath;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.graph.Graph;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Approximates node-node distance statistics for a graph using HyperANF, in time proportional to
+ * the number of edges times the diameter rather than to the number of node pairs.
+ *
+ * <p>Each node <code>v</code> has a HyperLogLog counter that, after iteration <code>t</code>,
+ * estimates the size of the ball of radius <code>t</code> around <code>v</code> (the number of
+ * nodes reachable from <code>v</code> along a path of at most <code>t</code> edges). Iteration
+ * <code>t+1</code> sets each node's counter to the union of its own counter and those of its
+ * successors; the iteration stops when no counter changes. Only successors whose counters changed
+ * in the previous iteration are merged, and the nodes are processed in parallel if requested.
+ * Counters are unions of registers, so the results do not depend on the processing order.
+ *
+ * <p>Each counter has <code>2^log2m</code> one-byte registers; two generations of counters are
+ * kept, so the memory used is about <code>2 * 2^log2m</code> bytes per node. The relative standard
+ * deviation of each estimate is about <code>1.04 / sqrt(2^log2m)</code> (see {@link
+ * #getRelativeStandardDeviation()}).
+ *
+ * <p>Edge weights are ignored; distances are measured in edges, from each node to the nodes it can
+ * reach.
+ *
+ * @see "Paolo Boldi, Marco Rosa, and Sebastiano Vigna, HyperANF: Approximating the Neighbourhood
+ *     Function of Very Large Graphs on a Budget, WWW 2011"
+ * @see "Philippe Flajolet et al., HyperLogLog: the analysis of a near-optimal cardinality
+ *     estimation algorithm, AofA 2007"
+ * @see DistanceStatistics#approximate(Graph, int)
+ */
+public class HyperANF<N> {
+  private static final long SEED = 0x9E3779B97F4A7C15L;
+
+  private final ImmutableList<N> nodes;
+  private final BiMap<N, Integer> indices;
+  private final int log2m;
+  private final int m;
+
+  private final double[] neighbourhoodFunction;
+  private final double[] harmonicCentrality;
+
+  /**
+   * Computes the approximate neighbourhood function of <code>graph</code>.
+   *
+   * @param graph the graph whose distances are to be approximated
+   * @param log2m the base-2 logarithm of the number of registers per counter, in [4, 16]
+   * @param parallel if {@code true}, each iteration processes the nodes in parallel
+   */
+  public HyperANF(Graph<N> graph, int log2m, boolean parallel) {
+    Preconditions.checkArgument(
+        log2m >= 4 && log2m <= 16, "log2m must be in [4, 16]; was %s", log2m);
+    this.nodes = ImmutableList.copyOf(graph.nodes());
+    this.indices = Indexer.create(nodes);
+    this.log2m = log2m;
+    this.m = 1 << log2m;
+    int n = nodes.size();
+    Preconditions.checkArgument(
+        (long) n * m <= Integer.MAX_VALUE,
+        "%s nodes with %s registers each exceed the maximum array size; use a smaller log2m",
+        n,
+        m);
+
+    int[] offsets = new int[n + 1];
+    for (int v = 0; v < n; v++) {
+      offsets[v + 1] = offsets[v] + graph.successors(nodes.get(v)).size();
+    }
+    int[] successors = new int[offsets[n]];
+    for (int v = 0; v < n; v++) {
+      int k = offsets[v];
+      for (N w : graph.successors(nodes.get(v))) {
+        successors[k++] = indices.get(w);
+      }
+    }
+
+    byte[] current = new byte[n * m];
+    byte[] next = new byte[n * m];
+    for (int v = 0; v < n; v++) {
+      add(current, v, v);
+    }
+    double[] estimate = new double[n];
+    boolean[] changed = new boolean[n];
+    boolean[] nextChanged = new boolean[n];
+    indices(n, parallel).forEach(v -> estimate[v] = estimate(current, v));
+    Arrays.fill(changed, true);
+    harmonicCentrality = new double[n];
+
+    double[] function = new double[8];
+    function[0] = sum(estimate);
+    int t = 0;
+    boolean any = n > 0;
+    byte[] source = current;
+    byte[] target = next;
+    while (any) {
+      t++;
+      final byte[] from = source;
+      final byte[] to = target;
+      final int distance = t;
+      indices(n, parallel)
+          .forEach(
+              v -> {
+                int base = v * m;
+                System.arraycopy(from, base, to, base, m);
+                boolean modified = false;
+                for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                  int w = successors[k];
+                  if (changed[w] && w != v) {
+                    modified |= union(to, base, from, w * m);
+                  }
+                }
+                nextChanged[v] = modified;
+                if (modified) {
+                  double previous = estimate[v];
+                  // HyperLogLog estimates may dip slightly as registers grow; keep them monotone
+                  estimate[v] = Math.max(previous, estimate(to, v));
+                  harmonicCentrality[v] += (estimate[v] - previous) / distance;
+                }
+              });
+      any = false;
+      for (int v = 0; v < n; v++) {
+        changed[v] = nextChanged[v];
+        any |= changed[v];
+      }
+      if (t >= function.length) {
+        function = Arrays.copyOf(function, function.length * 2);
+      }
+      function[t] = sum(estimate);
+      source = to;
+      target = from;
+    }
+    // the last iteration changed nothing, so its value duplicates the previous one
+    this.neighbourhoodFunction = Arrays.copyOf(function, Math.max(1, t));
+  }
+
+  private static IntStream indices(int n, boolean parallel) {
+    IntStream stream = IntStream.range(0, n);
+    return parallel ? stream.parallel() : stream;
+  }
+
+  private static double sum(double[] values) {
+    double sum = 0;
+    for (double value : values) {
+      sum += value;
+    }
+    return sum;
+  }
+
+  /** Adds the element with index <code>element</code> to the counter of node <code>v</code>. */
+  private void add(byte[] registers, int v, int element) {
+    long hash = mix(element + SEED);
+    int register = (int) (hash >>> (Long.SIZE - log2m));
+    long rest = hash << log2m;
+    int rank = rest == 0 ? Long.SIZE - log2m + 1 : Long.numberOfLeadingZeros(rest) + 1;
+    int index = v * m + register;
+    registers[index] = (byte) Math.max(registers[index], rank);
+  }
+
+  /** The finalizer of SplitMix64. */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Sets each register of the counter at <code>to</code> to the maximum of its value and that of
+   * the corresponding register at <code>from</code>; returns {@code true} if any register changed.
+   */
+  private boolean union(byte[] registers, int to, byte[] source, int from) {
+    boolean modified = false;
+    for (int j = 0; j < m; j++) {
+      if (source[from + j] > registers[to + j]) {
+        registers[to + j] = source[from + j];
+        modified = true;
+      }
+    }
+    return modified;
+  }
+
+  /** Returns the HyperLogLog estimate of the size of the counter of node <code>v</code>. */
+  private double estimate(byte[] registers, int v) {
+    int base = v * m;
+    double sum = 0;
+    int zeroes = 0;
+    for (int j = 0; j < m; j++) {
+      byte register = registers[base + j];
+      sum += Math.scalb(1.0, -register);
+      if (register == 0) {
+        zeroes++;
+      }
+    }
+    double alpha;
+    switch (m) {
+      case 16:
+        alpha = 0.673;
+        break;
+      case 32:
+        alpha = 0.697;
+        break;
+      case 64:
+        alpha = 0.709;
+        break;
+      default:
+        alpha = 0.7213 / (1 + 1.079 / m);
+    }
+    double estimate = alpha * m * m / sum;
+    if (estimate <= 2.5 * m && zeroes > 0) {
+      // small range correction (linear counting)
+      estimate = m * Math.log((double) m / zeroes);
+    }
+    return estimate;
+  }
+
+  /**
+   * Returns the estimated neighbourhood function: element <code>t</code> is the number of ordered
+   * pairs of nodes <code>&lt;u,v&gt;</code> such that <code>v</code> is reachable from <code>u
+   * </code> along a path of at most <code>t</code> edges. Element 0 is (approximately) the number
+   * of nodes; the last element is (approximately) the number of reachable pairs.
+   *
+   * @return the estimated neighbourhood function
+   */
+  public double[] getNeighbourhoodFunction() {
+    return neighbourhoodFunction.clone();
+  }
+
+  /**
+   * Returns the estimated distance distribution: element <code>t</code> (for <code>t &gt;= 1</code>
+   * ) is the number of ordered pairs of nodes at distance exactly <code>t</code>. Element 0 is 0.
+   *
+   * @return the estimated distance distribution
+   */
+  public double[] getDistanceDistribution() {
+    double[] distribution = new double[neighbourhoodFunction.length];
+    for (int t = 1; t < distribution.length; t++) {
+      distribution[t] = neighbourhoodFunction[t] - neighbourhoodFunction[t - 1];
+    }
+    return distribution;
+  }
+
+  /**
+   * Returns the estimated mean distance over all ordered pairs of distinct nodes <code>&lt;u,v&gt;
+   * </code> such that <code>v</code> is reachable from <code>u</code>, or 0 if there are no such
+   * pairs.
+   *
+   * @return the estimated average distance
+   */
+  public double getAverageDistance() {
+    double pairs = 0;
+    double total = 0;
+    for (int t = 1; t < neighbourhoodFunction.length; t++) {
+      double count = neighbourhoodFunction[t] - neighbourhoodFunction[t - 1];
+      pairs += count;
+      total += t * count;
+    }
+    return pairs == 0 ? 0 : total / pairs;
+  }
+
+  /**
+   * Returns the estimated effective diameter: the (interpolated) smallest distance <code>d</code>
+   * such that at least a fraction <code>alpha</code> of the reachable pairs of nodes are within
+   * distance <code>d</code> of one another.
+   *
+   * @param alpha the fraction of reachable pairs, in (0, 1]
+   * @return the estimated effective diameter
+   */
+  public double getEffectiveDiameter(double alpha) {
+    Preconditions.checkArgument(alpha > 0 && alpha <= 1, "alpha must be in (0, 1]; was %s", alpha);
+    double threshold = alpha * neighbourhoodFunction[neighbourhoodFunction.length - 1];
+    int t = 0;
+    while (t < neighbourhoodFunction.length - 1 && neighbourhoodFunction[t] < threshold) {
+      t++;
+    }
+    if (t == 0) {
+      return 0;
+    }
+    double below = neighbourhoodFunction[t - 1];
+    double above = neighbourhoodFunction[t];
+    return above == below ? t : t - 1 + (threshold - below) / (above - below);
+  }
+
+  /**
+   * Returns the estimated effective diameter at the customary fraction of 0.9.
+   *
+   * @return the estimated effective diameter
+   * @see #getEffectiveDiameter(double)
+   */
+  public double getEffectiveDiameter() {
+    return getEffectiveDiameter(0.9);
+  }
+
+  /**
+   * Returns the number of iterations after which the last counter changed; this is a lower bound on
+   * the diameter of the graph's reachable pairs (and is equal to it, barring hash collisions).
+   *
+   * @return the number of iterations that changed some counter
+   */
+  public int getIterations() {
+    return neighbourhoodFunction.length - 1;
+  }
+
+  /**
+   * Returns the estimated harmonic centrality of each node <code>v</code>: the sum, over all nodes
+   * <code>w</code> reachable from <code>v</code>, of <code>1 / d(v,w)</code>.
+   *
+   * @return a map from each node to its estimated harmonic centrality
+   */
+  public ImmutableMap<N, Double> getHarmonicCentralities() {
+    ImmutableMap.Builder<N, Double> builder = ImmutableMap.builder();
+    for (int i = 0; i < harmonicCentrality.length; i++) {
+      builder.put(nodes.get(i), harmonicCentrality[i]);
+    }
+    return builder.build();
+  }
+
+  /**
+   * @param v a node of the graph
+   * @return the estimated harmonic centrality of <code>v</code>
+   * @see #getHarmonicCentralities()
+   */
+  public double getHarmonicCentrality(N v) {
+    return harmonicCentrality[indices.get(v)];
+  }
+
+  /**
+   * Returns the relative standard deviation of each counter's estimate, <code>1.04 / sqrt(m)</code>
+   * for <code>m</code> registers per counter. The neighbourhood function, being a sum of such
+   * estimates, has at most this relative standard deviation; the derived statistics (average
+   * distance, effective diameter, harmonic centrality) are generally more accurate, since the
+   * errors in their numerators and denominators are correlated.
+   *
+   * @return the relative standard deviation of the counter estimates
+   */
+  public double getRelativeStandardDeviation() {
+    return 1.04 / Math.sqrt(m);
+  }
+}
@@ -1,25 +1,35 @@
 package edu.uci.ics.jung.algorithms.shortestpath;
 
-import com.google.common.collect.Sets;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.graph.EndpointPair;
 import com.google.common.graph.MutableNetwork;
 import com.google.common.graph.MutableValueGraph;
 import com.google.common.graph.Network;
 import com.google.common.graph.NetworkBuilder;
 import com.google.common.graph.ValueGraph;
 import com.google.common.graph.ValueGraphBuilder;
-import edu.uci.ics.jung.algorithms.util.MapBinaryHeap;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
-import java.util.Map;
-import java.util.Set;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
- * Creates a minimum spanning tree of a specified graph using a variation of Prim's algorithm.
+ * Creates a minimum spanning tree of a specified graph using Borůvka's algorithm.
  *
  * <p>The input graph is treated as though it were undirected, and the generated spanning tree is
  * undirected.
  *
+ * <p>The edges are copied into arrays of endpoint indices and weights. Each round of Borůvka's
+ * algorithm finds, in parallel, the lightest edge leaving each component, and then merges the
+ * components joined by these edges using a concurrent union-find structure; edges within a single
+ * component are then discarded. Each round at least halves the number of components, so there are
+ * at most log2(|V|) rounds, each taking time O(|E|). Ties between equal weights are broken by the
+ * iteration order of the input graph's edges, so the forest returned does not depend on thread
+ * scheduling.
+ *
  * @author Tom Nelson - tomnelson@dev.java.net
  * @author Joshua O'Madadhain
  * @param <N> the node type
@@ -29,62 +39,49 @@ public class MinimumSpanningTree<N, E> {
   // TODO: consider providing a separate mechanism for extracting a spanning tree from an unweighted
   // graph.
 
+  /** Graphs with fewer edges than this are processed sequentially. */
+  private static final int PARALLEL_THRESHOLD = 1 << 12;
+
   /**
    * Extracts a minimum spanning forest from {@code graph} based on the specified edge weights. (If
    * {@code graph} is connected, then the graph returned will be a tree.)
    *
-   * <p>Uses Prim's algorithm with a binary heap, for a run time of O(|E| log |V|).
+   * <p>Uses Borůvka's algorithm, for a run time of O(|E| log |V|).
    *
    * @param graph the graph from which to extract the minimum spanning forest
    * @param edgeWeights a mapping from edges to weights
    */
   public static <N, E> Network<N, E> extractFrom(
       Network<N, E> graph, Function<? super E, Double> edgeWeights) {
-    Set<N> remainingNodes = new LinkedHashSet<>(graph.nodes());
-    Map<N, NodeData<E>> nodeData = new LinkedHashMap<>();
-    // initialize node data
-    for (N node : remainingNodes) {
-      nodeData.put(node, new NodeData<>());
+    ImmutableList<N> nodes = ImmutableList.copyOf(graph.nodes());
+    BiMap<N, Integer> indices = Indexer.create(nodes);
+    List<E> edges = new ArrayList<>(graph.edges().size());
+    EdgeArrays arrays = new EdgeArrays(graph.edges().size());
+    for (E edge : graph.edges()) {
+      EndpointPair<N> endpoints = graph.incidentNodes(edge);
+      if (arrays.add(
+          indices.get(endpoints.nodeU()),
+          indices.get(endpoints.nodeV()),
+          edgeWeights.apply(edge))) {
+        edges.add(edge);
+      }
     }
-    MapBinaryHeap<N> heap =
-        new MapBinaryHeap<>((a, b) -> Double.compare(nodeData.get(a).cost, nodeData.get(b).cost));
-    heap.addAll(remainingNodes);
+    int[] forest = arrays.minimumSpanningForest(nodes.size());
 
     // TODO: it seems unfortunate that this is a directed graph, but our libraries
     // (e.g. TreeLayout) assume that it is one.  Consider other options:
     // * let the user specify whether to create a directed or undirected graph
     // * let TreeLayout (etc.) handle undirected graphs (given a root set)
     MutableNetwork<N, E> tree =
-        NetworkBuilder.undirected().build(); // no self-loops or parallel edges
-
-    while (!remainingNodes.isEmpty()) {
-      N node = heap.poll(); // remove the node with the minimum incident edge cost
-      remainingNodes.remove(node);
-      E edge = nodeData.get(node).connection;
-      if (edge == null) {
-        tree.addNode(node);
-      } else {
-        tree.addEdge(graph.incidentNodes(edge).adjacentNode(node), node, edge);
-      }
-      for (N adjacentNode : graph.adjacentNodes(node)) {
-        if (!remainingNodes.contains(adjacentNode)) {
-          continue;
-        }
-        NodeData<E> adjacentNodeData = nodeData.get(adjacentNode);
-        // edgesConnecting() respects direction, so since the input graph may be directed
-        // (and we want to treat it as undirected), get all connecting edges in both
-        // directions.
-        for (E connectingEdge :
-            Sets.union(
-                graph.edgesConnecting(node, adjacentNode),
-                graph.edgesConnecting(adjacentNode, node))) {
-          double connectingEdgeWeight = edgeWeights.apply(connectingEdge);
-          if (connectingEdgeWeight < adjacentNodeData.cost) {
-            adjacentNodeData.update(connectingEdgeWeight, connectingEdge);
-            heap.update(adjacentNode);
-          }
-        }
-      }
+        NetworkBuilder.undirected()
+            .expectedNodeCount(nodes.size())
+            .expectedEdgeCount(forest.length)
+            .build(); // no self-loops or parallel edges
+    for (N node : nodes) {
+      tree.addNode(node);
+    }
+    for (int e : forest) {
+      tree.addEdge(nodes.get(arrays.source[e]), nodes.get(arrays.target[e]), edges.get(e));
     }
     return tree;
   }
@@ -94,77 +91,217 @@ public class MinimumSpanningTree<N, E> {
    * doubles). If {@code graph} is connected, then the graph returned will be a tree; otherwise it
    * will be a forest of trees.
    *
-   * <p>Uses Prim's algorithm with a binary heap, for a run time of {@code O(|E| log |V|)}.
+   * <p>Uses Borůvka's algorithm, for a run time of {@code O(|E| log |V|)}. The edges of the
+   * returned graph are directed from each node towards the root of its tree, where the root of each
+   * tree is the first of its nodes in the iteration order of {@code graph}.
    *
    * @param graph the graph from which to extract the minimum spanning forest
    */
   public static <N, V extends Number> ValueGraph<N, V> extractFrom(ValueGraph<N, V> graph) {
-    Set<N> remainingNodes = new LinkedHashSet<>(graph.nodes());
-    Map<N, NodeData<N>> nodeData = new LinkedHashMap<>();
-    // initialize node data
-    for (N node : remainingNodes) {
-      nodeData.put(node, new NodeData<>());
+    ImmutableList<N> nodes = ImmutableList.copyOf(graph.nodes());
+    BiMap<N, Integer> indices = Indexer.create(nodes);
+    List<V> values = new ArrayList<>(graph.edges().size());
+    EdgeArrays arrays = new EdgeArrays(graph.edges().size());
+    for (EndpointPair<N> endpoints : graph.edges()) {
+      V value =
+          graph
+              .edgeValue(endpoints.nodeU(), endpoints.nodeV())
+              .orElseThrow(
+                  () ->
+                      new IllegalStateException(
+                          "unexpected exception caused by bug in graph data structures"));
+      if (arrays.add(
+          indices.get(endpoints.nodeU()), indices.get(endpoints.nodeV()), value.doubleValue())) {
+        values.add(value);
+      }
+    }
+    int n = nodes.size();
+    int[] forest = arrays.minimumSpanningForest(n);
+
+    // orient each edge from child to parent by a breadth-first search from each root
+    int[] offsets = new int[n + 1];
+    for (int e : forest) {
+      offsets[arrays.source[e] + 1]++;
+      offsets[arrays.target[e] + 1]++;
+    }
+    for (int v = 0; v < n; v++) {
+      offsets[v + 1] += offsets[v];
+    }
+    int[] incident = new int[2 * forest.length];
+    int[] next = offsets.clone();
+    for (int e : forest) {
+      incident[next[arrays.source[e]]++] = e;
+      incident[next[arrays.target[e]]++] = e;
     }
-    MapBinaryHeap<N> heap =
-        new MapBinaryHeap<>((a, b) -> Double.compare(nodeData.get(a).cost, nodeData.get(b).cost));
-    heap.addAll(remainingNodes);
 
     MutableValueGraph<N, V> tree =
-        ValueGraphBuilder.directed().build(); // no self-loops or parallel edges
-
-    while (!remainingNodes.isEmpty()) {
-      N node = heap.peek(); // get the node with the minimum incident edge cost
-      remainingNodes.remove(node);
-      N connectedNode = nodeData.get(node).connection;
-      if (connectedNode == null) {
-        tree.addNode(node);
-      } else {
-        tree.putEdgeValue(
-            node,
-            connectedNode,
-            graph
-                .edgeValue(node, connectedNode)
-                .orElseThrow(
-                    () ->
-                        new IllegalStateException(
-                            "unexpected exception caused by bug in graph data structures")));
+        ValueGraphBuilder.directed()
+            .expectedNodeCount(n)
+            .build(); // no self-loops or parallel edges
+    boolean[] visited = new boolean[n];
+    int[] queue = new int[n];
+    for (int root = 0; root < n; root++) {
+      if (visited[root]) {
+        continue;
       }
-      for (N adjacentNode : graph.adjacentNodes(node)) {
-        if (!remainingNodes.contains(adjacentNode)) {
-          continue;
-        }
-        NodeData<N> adjacentNodeData = nodeData.get(adjacentNode);
-        double connectingEdgeWeight =
-            graph
-                .edgeValue(node, adjacentNode)
-                .orElseThrow(
-                    () ->
-                        new IllegalStateException(
-                            "unexpected exception caused by bug in graph data structures"))
-                .doubleValue();
-        if (connectingEdgeWeight < adjacentNodeData.cost) {
-          adjacentNodeData.update(connectingEdgeWeight, node);
-          heap.update(adjacentNode);
+      tree.addNode(nodes.get(root));
+      visited[root] = true;
+      int head = 0;
+      int tail = 0;
+      queue[tail++] = root;
+      while (head < tail) {
+        int parent = queue[head++];
+        for (int k = offsets[parent]; k < offsets[parent + 1]; k++) {
+          int e = incident[k];
+          int child = arrays.source[e] == parent ? arrays.target[e] : arrays.source[e];
+          if (!visited[child]) {
+            visited[child] = true;
+            queue[tail++] = child;
+            tree.putEdgeValue(nodes.get(child), nodes.get(parent), values.get(e));
+          }
         }
       }
     }
     return tree;
   }
 
-  // TODO: make this an AutoValue?
-  private static class NodeData<T> {
-    private double cost = Double.POSITIVE_INFINITY;
-    private T connection = null;
+  /**
+   * The edges of a graph, as arrays of endpoint indices and weights, from which a minimum spanning
+   * forest can be computed. Self-loops are omitted.
+   */
+  private static class EdgeArrays {
+    private int size;
+    private final int[] source;
+    private final int[] target;
+    private final double[] weight;
+
+    private EdgeArrays(int capacity) {
+      source = new int[capacity];
+      target = new int[capacity];
+      weight = new double[capacity];
+    }
+
+    /** Adds the edge if it is not a self-loop, and returns {@code true} if it was added. */
+    private boolean add(int u, int v, double w) {
+      if (u == v) {
+        return false;
+      }
+      source[size] = u;
+      target[size] = v;
+      weight[size] = w;
+      size++;
+      return true;
+    }
+
+    /** Returns {@code true} if edge a is lighter than edge b (ties broken by index). */
+    private boolean lighter(int a, int b) {
+      int comparison = Double.compare(weight[a], weight[b]);
+      return comparison < 0 || (comparison == 0 && a < b);
+    }
+
+    /**
+     * Returns the indices of the edges of the minimum spanning forest of the graph with nodes
+     * <code>0, ..., n-1</code>, in increasing order.
+     */
+    private int[] minimumSpanningForest(int n) {
+      boolean parallel = size >= PARALLEL_THRESHOLD;
+      AtomicIntegerArray parent = new AtomicIntegerArray(n);
+      AtomicIntegerArray lightest = new AtomicIntegerArray(n);
+      for (int v = 0; v < n; v++) {
+        parent.set(v, v);
+        lightest.set(v, -1);
+      }
+      boolean[] inForest = new boolean[size];
+      int[] candidates = IntStream.range(0, size).toArray();
+
+      while (candidates.length > 0) {
+        // find the lightest edge leaving each component
+        final int[] current = candidates;
+        indices(current.length, parallel)
+            .forEach(
+                i -> {
+                  int e = current[i];
+                  int ru = find(parent, source[e]);
+                  int rv = find(parent, target[e]);
+                  if (ru != rv) {
+                    offer(lightest, ru, e);
+                    offer(lightest, rv, e);
+                  }
+                });
+
+        // merge the components joined by those edges
+        indices(n, parallel)
+            .forEach(
+                v -> {
+                  int e = lightest.get(v);
+                  if (e >= 0) {
+                    lightest.set(v, -1);
+                    if (union(parent, source[e], target[e])) {
+                      inForest[e] = true;
+                    }
+                  }
+                });
 
-    private NodeData() {}
+        // discard the edges that now lie within a single component
+        candidates =
+            indices(current.length, parallel)
+                .map(i -> current[i])
+                .filter(e -> find(parent, source[e]) != find(parent, target[e]))
+                .toArray();
+      }
+      return IntStream.range(0, size).filter(e -> inForest[e]).toArray();
+    }
 
-    private void update(double cost, T connection) {
-      this.cost = cost;
-      this.connection = connection;
+    /** Sets the lightest edge of component <code>root</code> to <code>e</code> if it is lighter. */
+    private void offer(AtomicIntegerArray lightest, int root, int e) {
+      while (true) {
+        int current = lightest.get(root);
+        if (current >= 0 && !lighter(e, current)) {
+          return;
+        }
+        if (lightest.compareAndSet(root, current, e)) {
+          return;
+        }
+      }
     }
+  }
 
-    public String toString() {
-      return String.format("cost: %s, connection: %s", cost, connection);
+  private static IntStream indices(int n, boolean parallel) {
+    IntStream stream = IntStream.range(0, n);
+    return parallel ? stream.parallel() : stream;
+  }
+
+  /** Returns the root of the set containing <code>v</code>, halving the path to it. */
+  private static int find(AtomicIntegerArray parent, int v) {
+    while (true) {
+      int p = parent.get(v);
+      if (p == v) {
+        return v;
+      }
+      int grandparent = parent.get(p);
+      if (grandparent != p) {
+        parent.compareAndSet(v, p, grandparent);
+      }
+      v = p;
+    }
+  }
+
+  /**
+   * Merges the sets containing <code>u</code> and <code>v</code>, always linking the root with the
+   * larger index below the other; returns {@code false} if they were already the same set.
+   */
+  private static boolean union(AtomicIntegerArray parent, int u, int v) {
+    while (true) {
+      int ru = find(parent, u);
+      int rv = find(parent, v);
+      if (ru == rv) {
+        return false;
+      }
+      int low = Math.min(ru, rv);
+      int high = Math.max(ru, rv);
+      if (parent.compareAndSet(high, high, low)) {
+        return true;
+      }
     }
   }
 }
@@ -13,13 +13,19 @@
 package edu.uci.ics.jung.algorithms.transformation;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.graph.Graph;
 import com.google.common.graph.GraphBuilder;
 import com.google.common.graph.MutableGraph;
 import com.google.common.graph.MutableValueGraph;
 import com.google.common.graph.ValueGraphBuilder;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * Methods for creating a "folded" graph based on an input graph.
@@ -40,6 +46,8 @@ import java.util.Set;
 // (a) variants that define the input nodes via a Predicate
 // (b) a utility method that identifies partitions of a k-partite graph
 public class FoldingTransformer<N, E> {
+  private static final int BLOCK_SIZE = 256;
+
   /**
    * Converts {@code graph} into a graph <i>T</i> by "folding" {@code graph} "around" the node set
    * {@code nodes}. <i>T</i>'s nodes will be {@code nodes}; for any two nodes {@code a} and {@code
@@ -127,4 +135,206 @@ public class FoldingTransformer<N, E> {
     }
     return newGraph;
   }
+
+  /**
+   * Converts {@code graph} into a weighted graph <i>T</i> by "folding" {@code graph} "around" the
+   * node set {@code nodes}, as for {@link #foldToValueGraph(Graph, Set)}, except that <i>T</i>'s
+   * edge values are the sums of {@code intermediateWeights} over the nodes that connected the
+   * edge's endpoints in {@code graph} (so if every intermediate node has weight 1, each edge's
+   * value is the number of such nodes). The source nodes are processed in parallel.
+   *
+   * @param <N> node type
+   * @param graph input graph
+   * @param nodes input node set
+   * @param intermediateWeights the weight contributed by each intermediate node
+   * @throws IllegalArgumentException if {@code graph} does not contain all of {@code nodes}
+   * @see #foldToWeightedGraph(Graph, Set, Function, double, int, boolean)
+   */
+  public static <N> MutableValueGraph<N, Double> foldToWeightedGraph(
+      Graph<N> graph, Set<N> nodes, Function<? super N, ? extends Number> intermediateWeights) {
+    return foldToWeightedGraph(
+        graph, nodes, intermediateWeights, Double.NEGATIVE_INFINITY, Integer.MAX_VALUE, true);
+  }
+
+  /**
+   * Converts {@code graph} into a weighted graph <i>T</i> by "folding" {@code graph} "around" the
+   * node set {@code nodes}, as for {@link #foldToWeightedGraph(Graph, Set, Function)}, keeping only
+   * the strongest edges.
+   *
+   * <p>The edges from each node {@code a} of {@code nodes} are accumulated in a dense per-thread
+   * array over the two-hop paths from {@code a}, and pruned before anything is added to <i>T</i>:
+   * only the edges whose values are at least {@code threshold} are kept, and of those, only the
+   * {@code topK} with the largest values (ties are broken by the iteration order of {@code graph}'s
+   * nodes). If <i>T</i> is undirected, an edge is kept if it is kept for either of its endpoints.
+   * Nodes are partitioned into blocks, which are processed in parallel if requested; the results do
+   * not depend on thread scheduling.
+   *
+   * @param <N> node type
+   * @param graph input graph
+   * @param nodes input node set
+   * @param intermediateWeights the weight contributed by each intermediate node
+   * @param threshold the minimum value of an edge in <i>T</i>
+   * @param topK the maximum number of edges kept for each node of <i>T</i>
+   * @param parallel if {@code true}, blocks of source nodes are processed in parallel
+   * @throws IllegalArgumentException if {@code graph} does not contain all of {@code nodes}
+   */
+  public static <N> MutableValueGraph<N, Double> foldToWeightedGraph(
+      Graph<N> graph,
+      Set<N> nodes,
+      Function<? super N, ? extends Number> intermediateWeights,
+      double threshold,
+      int topK,
+      boolean parallel) {
+    Preconditions.checkArgument(
+        graph.nodes().containsAll(nodes), "Input graph must contain all specified nodes");
+    Preconditions.checkArgument(topK > 0, "topK must be positive: %s", topK);
+
+    // index the input graph
+    ImmutableList<N> graphNodes = ImmutableList.copyOf(graph.nodes());
+    BiMap<N, Integer> indices = Indexer.create(graphNodes);
+    int n = graphNodes.size();
+    int[] offsets = new int[n + 1];
+    for (int v = 0; v < n; v++) {
+      offsets[v + 1] = offsets[v] + graph.successors(graphNodes.get(v)).size();
+    }
+    int[] successors = new int[offsets[n]];
+    double[] weights = new double[n];
+    for (int v = 0; v < n; v++) {
+      N node = graphNodes.get(v);
+      int k = offsets[v];
+      for (N s : graph.successors(node)) {
+        successors[k++] = indices.get(s);
+      }
+      if (offsets[v + 1] > offsets[v]) {
+        weights[v] = intermediateWeights.apply(node).doubleValue();
+      }
+    }
+    boolean[] isTarget = new boolean[n];
+    int[] sources = new int[nodes.size()];
+    int count = 0;
+    for (N node : nodes) {
+      int v = indices.get(node);
+      isTarget[v] = true;
+      sources[count++] = v;
+    }
+
+    // compute the pruned edges from each source node
+    int[][] rowTargets = new int[sources.length][];
+    double[][] rowValues = new double[sources.length][];
+    ThreadLocal<FoldWorkspace> workspaces = ThreadLocal.withInitial(() -> new FoldWorkspace(n));
+    IntStream blocks = IntStream.range(0, (sources.length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+    (parallel ? blocks.parallel() : blocks)
+        .forEach(
+            b -> {
+              FoldWorkspace workspace = workspaces.get();
+              int end = Math.min(sources.length, (b + 1) * BLOCK_SIZE);
+              for (int i = b * BLOCK_SIZE; i < end; i++) {
+                int a = sources[i];
+                for (int k = offsets[a]; k < offsets[a + 1]; k++) {
+                  int c = successors[k];
+                  for (int j = offsets[c]; j < offsets[c + 1]; j++) {
+                    int t = successors[j];
+                    if (isTarget[t] && t != a) {
+                      workspace.add(t, weights[c]);
+                    }
+                  }
+                }
+                workspace.prune(threshold, topK);
+                rowTargets[i] = Arrays.copyOf(workspace.touched, workspace.size);
+                rowValues[i] = new double[workspace.size];
+                for (int k = 0; k < workspace.size; k++) {
+                  rowValues[i][k] = workspace.values[workspace.touched[k]];
+                }
+                workspace.clear();
+              }
+            });
+
+    ValueGraphBuilder<Object, Object> builder =
+        graph.isDirected() ? ValueGraphBuilder.directed() : ValueGraphBuilder.undirected();
+    MutableValueGraph<N, Double> newGraph =
+        builder.expectedNodeCount(nodes.size()).nodeOrder(graph.nodeOrder()).build();
+    for (N node : nodes) {
+      newGraph.addNode(node);
+    }
+    for (int i = 0; i < sources.length; i++) {
+      N a = graphNodes.get(sources[i]);
+      for (int k = 0; k < rowTargets[i].length; k++) {
+        newGraph.putEdgeValue(a, graphNodes.get(rowTargets[i][k]), rowValues[i][k]);
+      }
+    }
+    return newGraph;
+  }
+
+  /** Per-thread accumulator for the edges from a single source node. */
+  private static class FoldWorkspace {
+    private final double[] values;
+    private final boolean[] seen;
+    private int[] touched = new int[16];
+    private int size;
+
+    private FoldWorkspace(int n) {
+      values = new double[n];
+      seen = new boolean[n];
+    }
+
+    private void add(int t, double weight) {
+      if (!seen[t]) {
+        seen[t] = true;
+        if (size == touched.length) {
+          touched = Arrays.copyOf(touched, size * 2);
+        }
+        touched[size++] = t;
+      }
+      values[t] += weight;
+    }
+
+    /**
+     * Removes the targets whose values are below {@code threshold}, then keeps only the {@code
+     * topK} largest; the targets kept are left in {@code touched[0..size)} in index order.
+     */
+    private void prune(double threshold, int topK) {
+      int kept = 0;
+      for (int k = 0; k < size; k++) {
+        int t = touched[k];
+        if (values[t] >= threshold) {
+          touched[kept++] = t;
+        } else {
+          reset(t);
+        }
+      }
+      if (kept > topK) {
+        Integer[] order = new Integer[kept];
+        for (int k = 0; k < kept; k++) {
+          order[k] = touched[k];
+        }
+        Arrays.sort(
+            order,
+            (x, y) -> {
+              int comparison = Double.compare(values[y], values[x]);
+              return comparison != 0 ? comparison : Integer.compare(x, y);
+            });
+        for (int k = topK; k < kept; k++) {
+          reset(order[k]);
+        }
+        for (int k = 0; k < topK; k++) {
+          touched[k] = order[k];
+        }
+        kept = topK;
+      }
+      Arrays.sort(touched, 0, kept);
+      size = kept;
+    }
+
+    private void reset(int t) {
+      values[t] = 0;
+      seen[t] = false;
+    }
+
+    private void clear() {
+      for (int k = 0; k < size; k++) {
+        reset(touched[k]);
+      }
+      size = 0;
+    }
+  }
 }
@@ -9,22 +9,34 @@
  */
 package edu.uci.ics.jung.algorithms.transformation;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.graph.EndpointPair;
 import com.google.common.graph.Graph;
 import com.google.common.graph.MutableValueGraph;
 import com.google.common.graph.ValueGraph;
 import com.google.common.graph.ValueGraphBuilder;
 import edu.uci.ics.jung.algorithms.blockmodel.NodePartition;
-import java.util.Map;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import java.util.Arrays;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * This class transforms a graph with a known node partitioning into a graph whose nodes correspond
  * to the input graph's partitions
  *
+ * <p><code>collapseToQuotientGraph</code> identifies each partition by an integer, and aggregates
+ * the edges between each pair of partitions over arrays of partition ids rather than by looking up
+ * node sets; it can do so in parallel. The result is a compact {@link QuotientGraph}, from which
+ * the member set of each partition can be recovered.
+ *
  * <p>Concept based on Danyel Fisher's <code>GraphCollapser</code> in JUNG 1.x.
  */
-// TODO: add tests
 public class NodePartitionCollapser {
   /**
    * Creates a new graph whose nodes correspond to the partitions of the supplied graph. Two nodes u
@@ -37,33 +49,180 @@ public class NodePartitionCollapser {
    */
   public static <N> ValueGraph<Set<N>, Integer> collapseNodePartitions(
       NodePartition<N> partitioning) {
-    Graph<N> original = partitioning.getGraph();
+    QuotientGraph<N> quotient = collapseToQuotientGraph(partitioning, endpoints -> 1, false);
+    ValueGraph<Integer, Double> counts = quotient.getGraph();
     ValueGraphBuilder<Object, Object> builder =
-        original.isDirected() ? ValueGraphBuilder.directed() : ValueGraphBuilder.undirected();
-    MutableValueGraph<Set<N>, Integer> collapsed = builder.build();
+        counts.isDirected() ? ValueGraphBuilder.directed() : ValueGraphBuilder.undirected();
+    MutableValueGraph<Set<N>, Integer> collapsed =
+        builder.expectedNodeCount(quotient.getPartitionCount()).build();
 
     // create nodes in new graph corresponding to equivalence sets in the original graph
-    for (Set<N> set : partitioning.getNodePartitions()) {
+    for (Set<N> set : quotient.getPartitions()) {
       collapsed.addNode(set);
     }
+    for (EndpointPair<Integer> endpoints : counts.edges()) {
+      collapsed.putEdgeValue(
+          quotient.getPartition(endpoints.nodeU()),
+          quotient.getPartition(endpoints.nodeV()),
+          counts.edgeValueOrDefault(endpoints, 0.0).intValue());
+    }
+    return collapsed;
+  }
+
+  /**
+   * Creates the quotient of the partitioned graph, in which partitions are identified by their
+   * indices in the iteration order of <code>partitioning.getNodePartitions()</code>. Two partitions
+   * are connected if there is an edge (in the same direction, if the graph is directed) between any
+   * of their nodes, and they are distinct; the value of the edge is the sum of the weights of all
+   * such edges.
+   *
+   * <p>Each node's partition id is found once; the edges are then grouped by the id of their source
+   * partition, and the edges leaving each partition are aggregated (in parallel, if specified) into
+   * a sorted row of the quotient graph's adjacency arrays. The sums are accumulated in the
+   * iteration order of the graph's edges, so the result does not depend on thread scheduling.
+   *
+   * @param partitioning a node partition of a graph; every node must be in exactly one partition
+   * @param edgeWeights the weight of each edge of the partitioned graph; if <code>parallel</code>
+   *     is {@code true}, this may be called concurrently
+   * @param parallel if {@code true}, the weights are computed and aggregated in parallel
+   * @return the quotient graph
+   */
+  public static <N> QuotientGraph<N> collapseToQuotientGraph(
+      NodePartition<N> partitioning,
+      Function<? super EndpointPair<N>, ? extends Number> edgeWeights,
+      boolean parallel) {
+    checkNotNull(edgeWeights);
+    Graph<N> original = partitioning.getGraph();
+    ImmutableList<N> nodes = ImmutableList.copyOf(original.nodes());
+    BiMap<N, Integer> indices = Indexer.create(nodes);
+    ImmutableList<Set<N>> partitions = ImmutableList.copyOf(partitioning.getNodePartitions());
+    int n = nodes.size();
+    int count = partitions.size();
+
+    int[] partitionOf = new int[n];
+    Arrays.fill(partitionOf, -1);
+    for (int p = 0; p < count; p++) {
+      for (N node : partitions.get(p)) {
+        Integer index = indices.get(node);
+        checkArgument(
+            index != null, "partition %s contains %s, which is not in the graph", p, node);
+        checkArgument(partitionOf[index] < 0, "%s is in more than one partition", node);
+        partitionOf[index] = p;
+      }
+    }
+    for (int v = 0; v < n; v++) {
+      checkArgument(partitionOf[v] >= 0, "%s is not in any partition", nodes.get(v));
+    }
 
-    // for each pair of endpoints in the original graph, connect the corresponding nodes
-    // (representing partitions) in the collapsed graph if the partitions are different
-    Map<N, Set<N>> nodeToPartition = partitioning.getNodeToPartitionMap();
-    for (EndpointPair<N> endpoints : original.edges()) {
-      N nodeU = endpoints.nodeU();
-      N nodeV = endpoints.nodeV();
-      Set<N> partitionU = nodeToPartition.get(nodeU);
-      Set<N> partitionV = nodeToPartition.get(nodeV);
-      if (nodeU.equals(nodeV) || partitionU.equals(partitionV)) {
-        // we only connect partitions if the partitions are different;
-        // check the nodes first as an optimization
-        continue;
+    // the partitions and weight of each edge; edges within a partition are marked with -1
+    ImmutableList<EndpointPair<N>> edges = ImmutableList.copyOf(original.edges());
+    int m = edges.size();
+    int[] from = new int[m];
+    int[] to = new int[m];
+    double[] weight = new double[m];
+    indices(m, parallel)
+        .forEach(
+            e -> {
+              EndpointPair<N> endpoints = edges.get(e);
+              int pu = partitionOf[indices.get(endpoints.nodeU())];
+              int pv = partitionOf[indices.get(endpoints.nodeV())];
+              if (pu == pv) {
+                from[e] = -1;
+              } else {
+                from[e] = pu;
+                to[e] = pv;
+                weight[e] = edgeWeights.apply(endpoints).doubleValue();
+              }
+            });
+
+    // group the edges by source partition (and, if undirected, also by target partition)
+    boolean directed = original.isDirected();
+    int[] edgeOffsets = new int[count + 1];
+    for (int e = 0; e < m; e++) {
+      if (from[e] >= 0) {
+        edgeOffsets[from[e] + 1]++;
+        if (!directed) {
+          edgeOffsets[to[e] + 1]++;
+        }
+      }
+    }
+    for (int p = 0; p < count; p++) {
+      edgeOffsets[p + 1] += edgeOffsets[p];
+    }
+    int[] edgeTargets = new int[edgeOffsets[count]];
+    double[] edgeWeightsByRow = new double[edgeOffsets[count]];
+    int[] next = Arrays.copyOf(edgeOffsets, count);
+    for (int e = 0; e < m; e++) {
+      if (from[e] >= 0) {
+        edgeTargets[next[from[e]]] = to[e];
+        edgeWeightsByRow[next[from[e]]++] = weight[e];
+        if (!directed) {
+          edgeTargets[next[to[e]]] = from[e];
+          edgeWeightsByRow[next[to[e]]++] = weight[e];
+        }
       }
+    }
+
+    // aggregate each partition's row
+    int[][] rowTargets = new int[count][];
+    double[][] rowValues = new double[count][];
+    ThreadLocal<RowWorkspace> workspaces = ThreadLocal.withInitial(() -> new RowWorkspace(count));
+    indices(count, parallel)
+        .forEach(
+            p -> {
+              RowWorkspace workspace = workspaces.get();
+              int size = 0;
+              for (int k = edgeOffsets[p]; k < edgeOffsets[p + 1]; k++) {
+                int q = edgeTargets[k];
+                if (workspace.stamp[q] != p + 1) {
+                  workspace.stamp[q] = p + 1;
+                  workspace.sum[q] = 0;
+                  workspace.targets[size++] = q;
+                }
+                workspace.sum[q] += edgeWeightsByRow[k];
+              }
+              int[] targets = Arrays.copyOf(workspace.targets, size);
+              Arrays.sort(targets);
+              double[] values = new double[size];
+              for (int i = 0; i < size; i++) {
+                values[i] = workspace.sum[targets[i]];
+              }
+              rowTargets[p] = targets;
+              rowValues[p] = values;
+            });
 
-      int edgeCount = collapsed.edgeValueOrDefault(partitionU, partitionV, 0);
-      collapsed.putEdgeValue(partitionU, partitionV, edgeCount + 1);
+    int[] offsets = new int[count + 1];
+    for (int p = 0; p < count; p++) {
+      offsets[p + 1] = offsets[p] + rowTargets[p].length;
     }
-    return collapsed;
+    int[] targets = new int[offsets[count]];
+    double[] values = new double[offsets[count]];
+    for (int p = 0; p < count; p++) {
+      System.arraycopy(rowTargets[p], 0, targets, offsets[p], rowTargets[p].length);
+      System.arraycopy(rowValues[p], 0, values, offsets[p], rowValues[p].length);
+    }
+    return new QuotientGraph<N>(
+        nodes, indices, partitionOf, partitions, directed, offsets, targets, values);
+  }
+
+  /**
+   * Per-thread scratch space for aggregating a row: the running sums, indexed by target partition,
+   * are valid only where the stamp matches the current row.
+   */
+  private static class RowWorkspace {
+    private final double[] sum;
+    private final int[] stamp;
+    private final int[] targets;
+
+    private RowWorkspace(int count) {
+      sum = new double[count];
+      stamp = new int[count];
+      targets = new int[count];
+    }
+  }
+
+  private static IntStream indices(int n, boolean parallel) {
+    IntStream stream = IntStream.range(0, n);
+    return parallel ? stream.parallel() : stream;
   }
 }
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.transformation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Range;
+import com.google.common.collect.Sets;
+import com.google.common.collect.UnmodifiableIterator;
+import com.google.common.graph.AbstractValueGraph;
+import com.google.common.graph.ElementOrder;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.ValueGraph;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The quotient of a graph by a node partition, as created by {@link
+ * NodePartitionCollapser#collapseToQuotientGraph(edu.uci.ics.jung.algorithms.blockmodel.NodePartition,
+ * java.util.function.Function, boolean)}.
+ *
+ * <p>Partitions are identified by integers <code>0, ..., getPartitionCount() - 1</code>. The
+ * quotient graph returned by {@link #getGraph()} has these integers as its nodes, and is stored as
+ * sorted adjacency arrays rather than as a graph of node sets.
+ *
+ * @param <N> the node type of the original graph
+ */
+public class QuotientGraph<N> {
+  private final ImmutableList<N> nodes;
+  private final BiMap<N, Integer> indices;
+  private final int[] partitionOf;
+  private final ImmutableList<Set<N>> partitions;
+  private final Adjacency graph;
+
+  QuotientGraph(
+      ImmutableList<N> nodes,
+      BiMap<N, Integer> indices,
+      int[] partitionOf,
+      ImmutableList<Set<N>> partitions,
+      boolean directed,
+      int[] offsets,
+      int[] targets,
+      double[] values) {
+    this.nodes = nodes;
+    this.indices = indices;
+    this.partitionOf = partitionOf;
+    this.partitions = partitions;
+    this.graph = new Adjacency(directed, partitions.size(), offsets, targets, values);
+  }
+
+  /**
+   * @return the number of partitions (the number of nodes of the quotient graph)
+   */
+  public int getPartitionCount() {
+    return partitions.size();
+  }
+
+  /**
+   * @param id the id of a partition
+   * @return the members of the specified partition
+   */
+  public Set<N> getPartition(int id) {
+    return partitions.get(id);
+  }
+
+  /**
+   * @return the partitions, indexed by id
+   */
+  public ImmutableList<Set<N>> getPartitions() {
+    return partitions;
+  }
+
+  /**
+   * @param node a node of the original graph
+   * @return the id of the partition that contains <code>node</code>
+   */
+  public int getPartitionId(N node) {
+    Integer index = indices.get(node);
+    checkArgument(index != null, "%s is not a node of the graph", node);
+    return partitionOf[index];
+  }
+
+  /**
+   * @return the nodes of the original graph, in the order in which their partition ids are stored
+   *     by {@link #getPartitionIds()}
+   */
+  public ImmutableList<N> getNodes() {
+    return nodes;
+  }
+
+  /**
+   * @return a copy of the partition id of each node of the original graph, indexed as in {@link
+   *     #getNodes()}
+   */
+  public int[] getPartitionIds() {
+    return partitionOf.clone();
+  }
+
+  /**
+   * Returns the quotient graph. Its nodes are the partition ids; two partitions are connected if
+   * any edge of the original graph connects them (in the same direction, if the original graph is
+   * directed), and the value of that edge is the total weight of such edges. Edges within a single
+   * partition are ignored, so the graph has no self-loops.
+   *
+   * @return an unmodifiable graph whose nodes are the partition ids
+   */
+  public ValueGraph<Integer, Double> getGraph() {
+    return graph;
+  }
+
+  /** An unmodifiable value graph over the integers 0..n-1, stored as sorted adjacency arrays. */
+  private static class Adjacency extends AbstractValueGraph<Integer, Double> {
+    private final boolean directed;
+    private final Set<Integer> nodes;
+    // the successors of p are targets[offsets[p] .. offsets[p + 1]), in increasing order
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] values;
+    // the predecessors of p, for a directed graph (the same as the successors otherwise)
+    private final int[] inOffsets;
+    private final int[] sources;
+
+    private Adjacency(boolean directed, int n, int[] offsets, int[] targets, double[] values) {
+      this.directed = directed;
+      this.nodes = ContiguousSet.create(Range.closedOpen(0, n), DiscreteDomain.integers());
+      this.offsets = offsets;
+      this.targets = targets;
+      this.values = values;
+      if (directed) {
+        inOffsets = new int[n + 1];
+        for (int t : targets) {
+          inOffsets[t + 1]++;
+        }
+        for (int p = 0; p < n; p++) {
+          inOffsets[p + 1] += inOffsets[p];
+        }
+        sources = new int[targets.length];
+        int[] next = Arrays.copyOf(inOffsets, n);
+        // rows are visited in increasing order, so each list of sources is sorted
+        for (int p = 0; p < n; p++) {
+          for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+            sources[next[targets[k]]++] = p;
+          }
+        }
+      } else {
+        inOffsets = offsets;
+        sources = targets;
+      }
+    }
+
+    @Override
+    public Set<Integer> nodes() {
+      return nodes;
+    }
+
+    @Override
+    public boolean isDirected() {
+      return directed;
+    }
+
+    @Override
+    public boolean allowsSelfLoops() {
+      return false;
+    }
+
+    @Override
+    public ElementOrder<Integer> nodeOrder() {
+      return ElementOrder.natural();
+    }
+
+    @Override
+    public Set<Integer> adjacentNodes(Integer node) {
+      if (!directed) {
+        return successors(node);
+      }
+      return Sets.union(successors(node), predecessors(node));
+    }
+
+    @Override
+    public Set<Integer> predecessors(Integer node) {
+      int p = checkNode(node);
+      return new IndexSet(sources, inOffsets[p], inOffsets[p + 1]);
+    }
+
+    @Override
+    public Set<Integer> successors(Integer node) {
+      int p = checkNode(node);
+      return new IndexSet(targets, offsets[p], offsets[p + 1]);
+    }
+
+    @Override
+    public Double edgeValueOrDefault(Integer nodeU, Integer nodeV, Double defaultValue) {
+      int u = checkNode(nodeU);
+      int v = checkNode(nodeV);
+      int k = Arrays.binarySearch(targets, offsets[u], offsets[u + 1], v);
+      return k >= 0 ? values[k] : defaultValue;
+    }
+
+    @Override
+    public Double edgeValueOrDefault(EndpointPair<Integer> endpoints, Double defaultValue) {
+      checkArgument(
+          endpoints.isOrdered() || !directed,
+          "Mismatch: unordered endpoints cannot be used with directed graphs");
+      return edgeValueOrDefault(endpoints.nodeU(), endpoints.nodeV(), defaultValue);
+    }
+
+    private int checkNode(Integer node) {
+      checkArgument(nodes.contains(node), "Node %s is not an element of this graph.", node);
+      return node;
+    }
+  }
+
+  /** An unmodifiable set view of the sorted integers array[from .. to). */
+  private static class IndexSet extends AbstractSet<Integer> {
+    private final int[] array;
+    private final int from;
+    private final int to;
+
+    private IndexSet(int[] array, int from, int to) {
+      this.array = array;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return o instanceof Integer && Arrays.binarySearch(array, from, to, (Integer) o) >= 0;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+      return new UnmodifiableIterator<Integer>() {
+        private int k = from;
+
+        @Override
+        public boolean hasNext() {
+          return k < to;
+        }
+
+        @Override
+        public Integer next() {
+          if (k >= to) {
+            throw new NoSuchElementException();
+          }
+          return array[k++];
+        }
+      };
+    }
+  }
+}
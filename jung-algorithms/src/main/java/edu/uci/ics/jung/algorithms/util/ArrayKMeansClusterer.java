@@ -0,0 +1,486 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.util;
+
+import com.google.common.base.Preconditions;
+import edu.uci.ics.jung.algorithms.util.KMeansClusterer.NotEnoughClustersException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Groups points into a specified number of clusters using the k-means algorithm, operating on a
+ * flat <code>double</code> array of coordinates rather than on a map of objects to locations. Point
+ * <code>i</code> occupies the entries <code>[i * dimension, (i + 1) * dimension)</code> of the
+ * array.
+ *
+ * <p>Initial centroids are chosen by k-means++ seeding. Each iteration assigns every point to its
+ * nearest centroid (in parallel, if enabled) and then recomputes the centroids. Calls to <code>
+ * cluster</code> will terminate when any of the following conditions is true:
+ *
+ * <ul>
+ *   <li>the number of iterations is &gt;= <code>max_iterations</code>
+ *   <li>no point changed its cluster membership in the previous iteration
+ *   <li>none of the centroids has moved as much as <code>convergence_threshold</code> since the
+ *       previous iteration
+ * </ul>
+ *
+ * <p>If a mini-batch size is set, each iteration instead updates the centroids from a random sample
+ * of that many points, using per-centroid learning rates; a single full assignment pass is made
+ * once the centroids have settled.
+ *
+ * <p>Results are deterministic for a given <code>Random</code> seed, whether or not parallel
+ * assignment is enabled: partial sums are computed over fixed-size blocks of points and combined in
+ * block order.
+ *
+ * @see "David Arthur and Sergei Vassilvitskii: k-means++: The Advantages of Careful Seeding. SODA
+ *     2007."
+ * @see "D. Sculley: Web-Scale K-Means Clustering. WWW 2010."
+ * @see KMeansClusterer
+ */
+public class ArrayKMeansClusterer {
+  private static final int BLOCK_SIZE = 4096;
+
+  protected int max_iterations;
+  protected double convergence_threshold;
+  protected Random rand;
+  protected boolean parallel;
+  protected int mini_batch_size;
+
+  /**
+   * Creates an instance which will terminate when either the maximum number of iterations has been
+   * reached, membership is stable, or all centroid movements are smaller than the convergence
+   * threshold.
+   *
+   * @param max_iterations the maximum number of iterations to employ
+   * @param convergence_threshold the smallest centroid movement we want to track
+   */
+  public ArrayKMeansClusterer(int max_iterations, double convergence_threshold) {
+    Preconditions.checkArgument(max_iterations >= 0, "max iterations must be >= 0");
+    Preconditions.checkArgument(convergence_threshold >= 0, "convergence threshold must be >= 0");
+    this.max_iterations = max_iterations;
+    this.convergence_threshold = convergence_threshold;
+    this.rand = new Random();
+  }
+
+  /** Creates an instance with max iterations of 100 and convergence threshold of 0.001. */
+  public ArrayKMeansClusterer() {
+    this(100, 0.001);
+  }
+
+  /**
+   * @return the maximum number of iterations
+   */
+  public int getMaxIterations() {
+    return max_iterations;
+  }
+
+  /**
+   * @param max_iterations the maximum number of iterations
+   */
+  public void setMaxIterations(int max_iterations) {
+    Preconditions.checkArgument(max_iterations >= 0, "max iterations must be >= 0");
+    this.max_iterations = max_iterations;
+  }
+
+  /**
+   * @return the convergence threshold
+   */
+  public double getConvergenceThreshold() {
+    return convergence_threshold;
+  }
+
+  /**
+   * @param convergence_threshold the convergence threshold
+   */
+  public void setConvergenceThreshold(double convergence_threshold) {
+    Preconditions.checkArgument(convergence_threshold >= 0, "convergence threshold must be >= 0");
+    this.convergence_threshold = convergence_threshold;
+  }
+
+  /**
+   * @return {@code true} if point assignment is done in parallel
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * @param parallel if {@code true}, point assignment is done in parallel on the common {@code
+   *     ForkJoinPool}; the default is {@code false}, since callers may already be running several
+   *     clusterings concurrently
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * @return the mini-batch size, or 0 if every iteration uses all points
+   */
+  public int getMiniBatchSize() {
+    return mini_batch_size;
+  }
+
+  /**
+   * @param mini_batch_size the number of points sampled per iteration; 0 means that every iteration
+   *     uses all points
+   */
+  public void setMiniBatchSize(int mini_batch_size) {
+    Preconditions.checkArgument(mini_batch_size >= 0, "mini-batch size must be >= 0");
+    this.mini_batch_size = mini_batch_size;
+  }
+
+  /** Replaces the internal random number generator by a new instance. */
+  public void setRandom(Random random) {
+    this.rand = Preconditions.checkNotNull(random);
+  }
+
+  /**
+   * Clusters the specified points into <code>num_clusters</code> clusters.
+   *
+   * @param points the point coordinates, <code>dimension</code> entries per point
+   * @param dimension the number of coordinates per point
+   * @param num_clusters the number of clusters to create
+   * @return the cluster assignments and centroids
+   * @throws NotEnoughClustersException if {@code num_clusters} is larger than the number of
+   *     distinct points
+   */
+  public Clustering cluster(double[] points, int dimension, int num_clusters) {
+    Preconditions.checkNotNull(points);
+    Preconditions.checkArgument(dimension >= 1, "dimension must be >= 1");
+    Preconditions.checkArgument(
+        points.length % dimension == 0, "points.length must be a multiple of dimension");
+    int n = points.length / dimension;
+    Preconditions.checkArgument(n > 0, "'points' must be non-empty");
+    Preconditions.checkArgument(
+        num_clusters >= 1 && num_clusters <= n,
+        "number of clusters must be >= 1 and <= number of points");
+
+    double[] centroids = seed(points, dimension, n, num_clusters);
+    int[] assignments = new int[n];
+    Arrays.fill(assignments, -1);
+
+    int iterations =
+        mini_batch_size > 0 && mini_batch_size < n
+            ? miniBatch(points, dimension, n, num_clusters, centroids)
+            : lloyd(points, dimension, n, num_clusters, centroids, assignments);
+
+    if (assignments[0] < 0) {
+      assign(points, dimension, n, num_clusters, centroids, assignments, null, null);
+    }
+    int[] sizes = new int[num_clusters];
+    for (int a : assignments) {
+      sizes[a]++;
+    }
+    return new Clustering(dimension, num_clusters, assignments, centroids, sizes, iterations);
+  }
+
+  /** Chooses the initial centroids by k-means++ (D^2-weighted) sampling. */
+  private double[] seed(double[] points, int dimension, int n, int num_clusters) {
+    double[] centroids = new double[num_clusters * dimension];
+    double[] min_dist = new double[n];
+    Arrays.fill(min_dist, Double.POSITIVE_INFINITY);
+
+    int first = rand.nextInt(n);
+    System.arraycopy(points, first * dimension, centroids, 0, dimension);
+    double[] block_totals = new double[(n + BLOCK_SIZE - 1) / BLOCK_SIZE];
+    for (int c = 1; c < num_clusters; c++) {
+      final int latest = c - 1;
+      // fold the most recently chosen centroid into the per-point minimum distances
+      blocks(n)
+          .forEach(
+              b -> {
+                double sum = 0;
+                int end = Math.min(n, (b + 1) * BLOCK_SIZE);
+                for (int i = b * BLOCK_SIZE; i < end; i++) {
+                  double d = squaredDistance(points, i, centroids, latest, dimension);
+                  if (d < min_dist[i]) {
+                    min_dist[i] = d;
+                  }
+                  sum += min_dist[i];
+                }
+                block_totals[b] = sum;
+              });
+      double total = 0;
+      for (double block_total : block_totals) {
+        total += block_total;
+      }
+      if (total <= 0) {
+        throw new NotEnoughClustersException();
+      }
+      double target = rand.nextDouble() * total;
+      int chosen = -1;
+      for (int i = 0; i < n; i++) {
+        if (min_dist[i] > 0) {
+          chosen = i;
+          target -= min_dist[i];
+          if (target < 0) {
+            break;
+          }
+        }
+      }
+      System.arraycopy(points, chosen * dimension, centroids, c * dimension, dimension);
+    }
+    return centroids;
+  }
+
+  /** Runs Lloyd iterations; returns the number of iterations performed. */
+  private int lloyd(
+      double[] points,
+      int dimension,
+      int n,
+      int num_clusters,
+      double[] centroids,
+      int[] assignments) {
+    int num_blocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    double[][] block_sums = new double[num_blocks][num_clusters * dimension];
+    int[][] block_counts = new int[num_blocks][num_clusters];
+    double[] sums = new double[num_clusters * dimension];
+    int[] counts = new int[num_clusters];
+
+    int iterations = 0;
+    while (iterations < max_iterations) {
+      iterations++;
+      int changed =
+          assign(
+              points, dimension, n, num_clusters, centroids, assignments, block_sums, block_counts);
+      if (changed == 0) {
+        break;
+      }
+
+      Arrays.fill(sums, 0);
+      Arrays.fill(counts, 0);
+      for (int b = 0; b < num_blocks; b++) {
+        double[] bs = block_sums[b];
+        int[] bc = block_counts[b];
+        for (int j = 0; j < sums.length; j++) {
+          sums[j] += bs[j];
+        }
+        for (int c = 0; c < num_clusters; c++) {
+          counts[c] += bc[c];
+        }
+      }
+
+      double max_movement = 0;
+      for (int c = 0; c < num_clusters; c++) {
+        // an empty cluster keeps its previous centroid
+        if (counts[c] == 0) {
+          continue;
+        }
+        double movement = 0;
+        int offset = c * dimension;
+        for (int d = 0; d < dimension; d++) {
+          double mean = sums[offset + d] / counts[c];
+          double delta = mean - centroids[offset + d];
+          movement += delta * delta;
+          centroids[offset + d] = mean;
+        }
+        max_movement = Math.max(max_movement, movement);
+      }
+      if (Math.sqrt(max_movement) <= convergence_threshold) {
+        // centroids have moved; bring membership up to date before stopping
+        assign(points, dimension, n, num_clusters, centroids, assignments, null, null);
+        break;
+      }
+    }
+    return iterations;
+  }
+
+  /** Runs mini-batch iterations; returns the number of iterations performed. */
+  private int miniBatch(
+      double[] points, int dimension, int n, int num_clusters, double[] centroids) {
+    int[] sample = new int[mini_batch_size];
+    int[] nearest = new int[mini_batch_size];
+    int[] counts = new int[num_clusters];
+
+    int iterations = 0;
+    while (iterations < max_iterations) {
+      iterations++;
+      for (int i = 0; i < sample.length; i++) {
+        sample[i] = rand.nextInt(n);
+      }
+      indices(sample.length)
+          .forEach(
+              i -> nearest[i] = nearest(points, sample[i], centroids, num_clusters, dimension));
+
+      double max_movement = 0;
+      for (int i = 0; i < sample.length; i++) {
+        int c = nearest[i];
+        double eta = 1.0 / ++counts[c];
+        int p_offset = sample[i] * dimension;
+        int c_offset = c * dimension;
+        double movement = 0;
+        for (int d = 0; d < dimension; d++) {
+          double delta = eta * (points[p_offset + d] - centroids[c_offset + d]);
+          centroids[c_offset + d] += delta;
+          movement += delta * delta;
+        }
+        max_movement = Math.max(max_movement, movement);
+      }
+      if (Math.sqrt(max_movement) <= convergence_threshold) {
+        break;
+      }
+    }
+    return iterations;
+  }
+
+  /**
+   * Assigns each point to its nearest centroid. If <code>block_sums</code> is non-null, per-block
+   * coordinate sums and counts for each cluster are accumulated as well.
+   *
+   * @return the number of points whose assignment changed
+   */
+  private int assign(
+      double[] points,
+      int dimension,
+      int n,
+      int num_clusters,
+      double[] centroids,
+      int[] assignments,
+      double[][] block_sums,
+      int[][] block_counts) {
+    return blocks(n)
+        .map(
+            b -> {
+              double[] bs = null;
+              int[] bc = null;
+              if (block_sums != null) {
+                bs = block_sums[b];
+                bc = block_counts[b];
+                Arrays.fill(bs, 0);
+                Arrays.fill(bc, 0);
+              }
+              int changed = 0;
+              int end = Math.min(n, (b + 1) * BLOCK_SIZE);
+              for (int i = b * BLOCK_SIZE; i < end; i++) {
+                int c = nearest(points, i, centroids, num_clusters, dimension);
+                if (assignments[i] != c) {
+                  assignments[i] = c;
+                  changed++;
+                }
+                if (bs != null) {
+                  bc[c]++;
+                  int p_offset = i * dimension;
+                  int c_offset = c * dimension;
+                  for (int d = 0; d < dimension; d++) {
+                    bs[c_offset + d] += points[p_offset + d];
+                  }
+                }
+              }
+              return changed;
+            })
+        .sum();
+  }
+
+  private IntStream blocks(int n) {
+    return indices((n + BLOCK_SIZE - 1) / BLOCK_SIZE);
+  }
+
+  private IntStream indices(int count) {
+    IntStream stream = IntStream.range(0, count);
+    return parallel ? stream.parallel() : stream;
+  }
+
+  private static int nearest(
+      double[] points, int point, double[] centroids, int num_clusters, int dimension) {
+    int closest = 0;
+    double distance = squaredDistance(points, point, centroids, 0, dimension);
+    for (int c = 1; c < num_clusters; c++) {
+      double dist_cur = squaredDistance(points, point, centroids, c, dimension);
+      if (dist_cur < distance) {
+        distance = dist_cur;
+        closest = c;
+      }
+    }
+    return closest;
+  }
+
+  private static double squaredDistance(
+      double[] points, int point, double[] centroids, int centroid, int dimension) {
+    int p_offset = point * dimension;
+    int c_offset = centroid * dimension;
+    double error = 0;
+    for (int d = 0; d < dimension; d++) {
+      double difference = points[p_offset + d] - centroids[c_offset + d];
+      error += difference * difference;
+    }
+    return error;
+  }
+
+  /** The result of a call to {@link ArrayKMeansClusterer#cluster(double[], int, int)}. */
+  public static class Clustering {
+    private final int dimension;
+    private final int num_clusters;
+    private final int[] assignments;
+    private final double[] centroids;
+    private final int[] sizes;
+    private final int iterations;
+
+    Clustering(
+        int dimension,
+        int num_clusters,
+        int[] assignments,
+        double[] centroids,
+        int[] sizes,
+        int iterations) {
+      this.dimension = dimension;
+      this.num_clusters = num_clusters;
+      this.assignments = assignments;
+      this.centroids = centroids;
+      this.sizes = sizes;
+      this.iterations = iterations;
+    }
+
+    /**
+     * @return the number of clusters
+     */
+    public int getClusterCount() {
+      return num_clusters;
+    }
+
+    /**
+     * @param point the index of a point
+     * @return the index of the cluster to which <code>point</code> was assigned
+     */
+    public int getCluster(int point) {
+      return assignments[point];
+    }
+
+    /**
+     * @return the cluster index of each point; the returned array is not copied
+     */
+    public int[] getAssignments() {
+      return assignments;
+    }
+
+    /**
+     * @param cluster the index of a cluster
+     * @return a copy of the centroid of <code>cluster</code>
+     */
+    public double[] getCentroid(int cluster) {
+      return Arrays.copyOfRange(centroids, cluster * dimension, (cluster + 1) * dimension);
+    }
+
+    /**
+     * @param cluster the index of a cluster
+     * @return the number of points assigned to <code>cluster</code>
+     */
+    public int getClusterSize(int cluster) {
+      return sizes[cluster];
+    }
+
+    /**
+     * @return the number of iterations performed
+     */
+    public int getIterations() {
+      return iterations;
+    }
+  }
+}
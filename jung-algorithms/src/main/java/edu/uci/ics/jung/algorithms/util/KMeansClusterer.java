@@ -14,34 +14,37 @@
 package edu.uci.ics.jung.algorithms.util;
 
 import com.google.common.base.Preconditions;
-import com.google.common.math.Stats;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 
 /**
  * Groups items into a specified number of clusters, based on their proximity in d-dimensional
- * space, using the k-means algorithm. Calls to <code>cluster</code> will terminate when either of
- * the two following conditions is true:
+ * space, using the k-means algorithm. Calls to <code>cluster</code> will terminate when any of the
+ * following conditions is true:
  *
  * <ul>
- *   <li>the number of iterations is &gt; <code>max_iterations</code>
+ *   <li>the number of iterations is &gt;= <code>max_iterations</code>
+ *   <li>cluster membership did not change in the previous iteration
  *   <li>none of the centroids has moved as much as <code>convergence_threshold</code> since the
  *       previous iteration
  * </ul>
  *
+ * <p>This class adapts a map of objects to locations to {@link ArrayKMeansClusterer}, which does
+ * the actual clustering (with k-means++ seeding and optionally parallel assignment).
+ *
  * @author Joshua O'Madadhain
  */
 public class KMeansClusterer<T> {
   protected int max_iterations;
   protected double convergence_threshold;
   protected Random rand;
+  protected boolean parallel;
 
   /**
    * Creates an instance which will terminate when either the maximum number of iterations has been
@@ -93,6 +96,21 @@ public class KMeansClusterer<T> {
     this.convergence_threshold = convergence_threshold;
   }
 
+  /**
+   * @return {@code true} if point assignment is done in parallel
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * @param parallel if {@code true}, point assignment is done in parallel; the default is {@code
+   *     false}
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
   /**
    * Returns a <code>Collection</code> of clusters, where each cluster is represented as a <code>Map
    * </code> of <code>Objects</code> to locations in d-dimensional space.
@@ -104,7 +122,6 @@ public class KMeansClusterer<T> {
    * @throws NotEnoughClustersException if {@code num_clusters} is larger than the number of
    *     distinct points in object_locations
    */
-  @SuppressWarnings("unchecked")
   public Collection<Map<T, double[]>> cluster(Map<T, double[]> object_locations, int num_clusters) {
     Preconditions.checkNotNull(object_locations);
     Preconditions.checkArgument(!object_locations.isEmpty(), "'objects' must be non-empty");
@@ -113,64 +130,35 @@ public class KMeansClusterer<T> {
         num_clusters >= 2 && num_clusters <= object_locations.size(),
         "number of clusters must be >= 2 and <= number of objects");
 
-    Set<double[]> centroids = new HashSet<double[]>();
-
-    Object[] obj_array = object_locations.keySet().toArray();
-    Set<T> tried = new HashSet<T>();
-
-    // create the specified number of clusters
-    while (centroids.size() < num_clusters && tried.size() < object_locations.size()) {
-      T o = (T) obj_array[(int) (rand.nextDouble() * obj_array.length)];
-      tried.add(o);
-      double[] mean_value = object_locations.get(o);
-      boolean duplicate = false;
-      for (double[] cur : centroids) {
-        if (Arrays.equals(mean_value, cur)) {
-          duplicate = true;
-        }
-      }
-      if (!duplicate) {
-        centroids.add(mean_value);
-      }
+    // flatten the locations into a single array for the underlying engine
+    List<T> objects = new ArrayList<T>(object_locations.size());
+    List<double[]> locations = new ArrayList<double[]>(object_locations.size());
+    for (Map.Entry<T, double[]> entry : object_locations.entrySet()) {
+      objects.add(entry.getKey());
+      locations.add(entry.getValue());
     }
-
-    if (tried.size() >= object_locations.size()) {
-      throw new NotEnoughClustersException();
+    int dimension = locations.get(0).length;
+    double[] points = new double[locations.size() * dimension];
+    for (int i = 0; i < locations.size(); i++) {
+      double[] location = locations.get(i);
+      Preconditions.checkArgument(
+          location.length == dimension, "all locations must have the same dimension");
+      System.arraycopy(location, 0, points, i * dimension, dimension);
     }
 
-    // put items in their initial clusters
-    Map<double[], Map<T, double[]>> clusterMap = assignToClusters(object_locations, centroids);
-
-    // keep reconstituting clusters until either
-    // (a) membership is stable, or
-    // (b) number of iterations passes max_iterations, or
-    // (c) max movement of any centroid is <= convergence_threshold
-    int iterations = 0;
-    double max_movement = Double.POSITIVE_INFINITY;
-    while (iterations++ < max_iterations && max_movement > convergence_threshold) {
-      max_movement = 0;
-      Set<double[]> new_centroids = new HashSet<double[]>();
-      // calculate new mean for each cluster
-      for (Map.Entry<double[], Map<T, double[]>> entry : clusterMap.entrySet()) {
-        double[] centroid = entry.getKey();
-        Map<T, double[]> elements = entry.getValue();
-        ArrayList<double[]> locations = new ArrayList<double[]>(elements.values());
+    ArrayKMeansClusterer engine = new ArrayKMeansClusterer(max_iterations, convergence_threshold);
+    engine.setRandom(rand);
+    engine.setParallel(parallel);
+    ArrayKMeansClusterer.Clustering clustering = engine.cluster(points, dimension, num_clusters);
 
-        double[] means = new double[locations.size()];
-        int index = 0;
-        for (double[] location : locations) {
-          means[index++] = Stats.meanOf(location);
-        }
-        max_movement = Math.max(max_movement, Math.sqrt(squaredError(centroid, means)));
-        new_centroids.add(means);
-      }
-
-      // TODO: check membership of clusters: have they changed?
-
-      // regenerate cluster membership based on means
-      clusterMap = assignToClusters(object_locations, new_centroids);
+    List<Map<T, double[]>> clusters = new ArrayList<Map<T, double[]>>(num_clusters);
+    for (int c = 0; c < num_clusters; c++) {
+      clusters.add(new HashMap<T, double[]>());
+    }
+    for (int i = 0; i < objects.size(); i++) {
+      clusters.get(clustering.getCluster(i)).put(objects.get(i), locations.get(i));
     }
-    return clusterMap.values();
+    return clusters;
   }
 
   /**
@@ -1,6 +1,11 @@
 package edu.uci.ics.jung.layout.algorithms;
 
+import com.google.common.collect.ImmutableList;
 import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.layout.model.Point;
+import edu.uci.ics.jung.layout.util.RandomLocationTransformer;
+import edu.uci.ics.jung.layout.util.StepMetrics;
+import java.util.ConcurrentModificationException;
 import java.util.Random;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,7 +17,8 @@ import org.slf4j.LoggerFactory;
  *
  * @author Tom Nelson
  */
-public abstract class AbstractIterativeLayoutAlgorithm<N> implements IterativeLayoutAlgorithm<N> {
+public abstract class AbstractIterativeLayoutAlgorithm<N>
+    implements IterativeLayoutAlgorithm<N>, InstrumentedLayoutAlgorithm {
 
   private static final Logger log = LoggerFactory.getLogger(AbstractIterativeLayoutAlgorithm.class);
   /**
@@ -27,6 +33,90 @@ public abstract class AbstractIterativeLayoutAlgorithm<N> implements IterativeLa
 
   protected Random random = new Random();
 
+  /**
+   * whether the layout starts from the locations the nodes already have, rather than from random
+   * ones; false by default
+   */
+  protected boolean keepLocations;
+
+  /** the metrics that the current step reports to, if it is being measured */
+  protected StepMetrics stepMetrics;
+
+  @Override
+  public void setStepMetrics(StepMetrics stepMetrics) {
+    this.stepMetrics = stepMetrics;
+  }
+
+  /**
+   * reports the time since {@code start} as spent in {@code phase}, if the step is being measured
+   *
+   * @return the current time, which starts the next phase
+   */
+  protected long endPhase(StepMetrics.Phase phase, long start) {
+    long now = System.nanoTime();
+    if (stepMetrics != null) {
+      stepMetrics.addPhaseNanos(phase, now - start);
+    }
+    return now;
+  }
+
+  /**
+   * if {@code keepLocations} is true, a layout that randomizes its starting locations (such as
+   * {@code KKLayoutAlgorithm} or {@code ISOMLayoutAlgorithm}) starts instead from the locations the
+   * nodes already have, for example from an initializer such as {@code PivotMDSLocationTransformer}
+   * or from an earlier layout, as long as they do not all share one location. By default, such a
+   * layout gives the nodes random locations when it is visited.
+   *
+   * @param keepLocations whether to start from the nodes' current locations
+   */
+  public void setKeepLocations(boolean keepLocations) {
+    this.keepLocations = keepLocations;
+  }
+
+  /**
+   * @return whether the layout starts from the nodes' current locations
+   */
+  public boolean isKeepLocations() {
+    return keepLocations;
+  }
+
+  /**
+   * gives the nodes random locations, unless {@code keepLocations} is set and the nodes do not all
+   * share one location (as they do before any initializer has been set)
+   *
+   * @param seed the seed for the random locations
+   */
+  protected void randomizeLocations(long seed) {
+    if (keepLocations && hasDistinctLocations()) {
+      return;
+    }
+    layoutModel.setInitializer(
+        new RandomLocationTransformer<N>(layoutModel.getWidth(), layoutModel.getHeight(), seed));
+  }
+
+  /**
+   * @return true if the graph has more than one node and the nodes do not all share one location
+   */
+  protected boolean hasDistinctLocations() {
+    ImmutableList<N> nodes;
+    while (true) {
+      try {
+        nodes = ImmutableList.copyOf(layoutModel.getGraph().nodes());
+        break;
+      } catch (ConcurrentModificationException cme) {
+      }
+    }
+    if (nodes.size() > 1) {
+      Point first = layoutModel.apply(nodes.get(0));
+      for (N node : nodes) {
+        if (!layoutModel.apply(node).equals(first)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   public void setRandomSeed(long randomSeed) {
     this.random = new Random(randomSeed);
   }
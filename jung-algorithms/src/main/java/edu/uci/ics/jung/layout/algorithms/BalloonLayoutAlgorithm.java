@@ -15,7 +15,6 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Iterables;
 import com.google.common.graph.Graph;
-import edu.uci.ics.jung.graph.util.TreeUtils;
 import edu.uci.ics.jung.layout.model.LayoutModel;
 import edu.uci.ics.jung.layout.model.Point;
 import edu.uci.ics.jung.layout.model.PolarPoint;
@@ -30,12 +29,22 @@ import org.slf4j.LoggerFactory;
  * using associations with nested circles ("balloons"). A balloon is nested inside another balloon
  * if the first balloon's subtree is a subtree of the second balloon's subtree.
  *
+ * <p>The children of each node are spaced evenly around it, at random rotation, on a circle whose
+ * radius is chosen so that their balloons fit inside the node's balloon. The tree is indexed into
+ * arrays and traversed in pre-order without recursion, so that the layout takes time and space
+ * linear in the size of the tree, however deep it is.
+ *
  * @author Tom Nelson
  */
 public class BalloonLayoutAlgorithm<N> extends TreeLayoutAlgorithm<N> {
 
   private static final Logger log = LoggerFactory.getLogger(BalloonLayoutAlgorithm.class);
 
+  /**
+   * @deprecated no longer used to place the nodes; holds the location of each node in the last
+   *     layout, relative to its parent (or, for a root, to the center of the layout area)
+   */
+  @Deprecated
   protected LoadingCache<N, PolarPoint> polarLocations =
       CacheBuilder.newBuilder()
           .build(
@@ -45,40 +54,77 @@ public class BalloonLayoutAlgorithm<N> extends TreeLayoutAlgorithm<N> {
                 }
               });
 
+  /** The radius of the balloon of each node (other than a single root) in the last layout. */
   protected Map<N, Double> radii = new HashMap<N, Double>();
 
   @Override
   public void visit(LayoutModel<N> layoutModel) {
-    super.visit(layoutModel);
     if (log.isTraceEnabled()) {
       log.trace("visit {}", layoutModel);
     }
-    super.visit(layoutModel);
     setRootPolars(layoutModel);
   }
 
-  private void putRadialPointsInModel(LayoutModel<N> layoutModel) {
-    for (Map.Entry<N, PolarPoint> entry : polarLocations.asMap().entrySet()) {
-      PolarPoint polar = entry.getValue();
-      layoutModel.set(entry.getKey(), getCartesian(layoutModel, entry.getKey()));
+  /**
+   * Places the nodes of the graph: a single root at the center of the layout area, with the
+   * balloons of its children nested in a balloon spanning the area's width; or, if there are
+   * several roots, their balloons nested in that balloon in the same way.
+   */
+  protected void setRootPolars(LayoutModel<N> layoutModel) {
+    TreeIndex<N> tree = TreeIndex.create(layoutModel.getGraph());
+    int n = tree.root + 1;
+    double[] x = new double[n];
+    double[] y = new double[n];
+    double[] radius = new double[n];
+
+    // a single root is placed at the center; several are placed around it
+    int first = tree.childCount(tree.root) == 1 ? 1 : 0;
+    int start = tree.preorder[first];
+    Point center = getCenter(layoutModel);
+    x[start] = center.x;
+    y[start] = center.y;
+    double startRadius = layoutModel.getWidth() / 2;
+    radii.clear();
+    polarLocations.invalidateAll();
+    if (start != tree.root) {
+      polarLocations.put(tree.nodes.get(start), PolarPoint.ORIGIN);
     }
-  }
 
-  protected void setRootPolars(LayoutModel<N> layoutModel) {
-    Graph<N> graph = layoutModel.getGraph();
-    Set<N> roots = TreeUtils.roots(graph);
-    int width = layoutModel.getWidth();
-    if (roots.size() == 1) {
-      // its a Tree
-      N root = Iterables.getOnlyElement(roots);
-      setRootPolar(layoutModel, root);
-      setPolars(layoutModel, graph.successors(root), getCenter(layoutModel), width / 2);
-    } else if (roots.size() > 1) {
-      // its a Network
-      setPolars(layoutModel, roots, getCenter(layoutModel), width / 2);
+    for (int i = first; i < tree.size; i++) {
+      int v = tree.preorder[i];
+      int childCount = tree.childCount(v);
+      if (childCount == 0) {
+        continue;
+      }
+      double parentRadius = v == start ? startRadius : radius[v];
+      // handle the 1-child case with 0 limit on angle.
+      double angle = Math.max(0, Math.PI / 2 * (1 - 2.0 / childCount));
+      double childRadius = parentRadius * Math.cos(angle) / (1 + Math.cos(angle));
+      double distance = parentRadius - childRadius;
+      double rand = Math.random();
+      for (int j = 0; j < childCount; j++) {
+        int child = tree.children[tree.childOffsets[v] + j];
+        double theta = j * 2 * Math.PI / childCount + rand;
+        radius[child] = childRadius;
+        x[child] = x[v] + distance * Math.cos(theta);
+        y[child] = y[v] + distance * Math.sin(theta);
+        radii.put(tree.nodes.get(child), childRadius);
+        polarLocations.put(tree.nodes.get(child), PolarPoint.of(theta, distance));
+      }
+    }
+
+    for (int i = 1; i < tree.size; i++) {
+      int v = tree.preorder[i];
+      layoutModel.set(tree.nodes.get(v), x[v], y[v]);
     }
   }
 
+  /**
+   * Places <code>root</code> at the center of the layout area.
+   *
+   * @deprecated the roots are placed by {@link #setRootPolars(LayoutModel)}
+   */
+  @Deprecated
   protected void setRootPolar(LayoutModel<N> layoutModel, N root) {
     PolarPoint pp = PolarPoint.ORIGIN;
     Point p = getCenter(layoutModel);
@@ -86,6 +132,14 @@ public class BalloonLayoutAlgorithm<N> extends TreeLayoutAlgorithm<N> {
     layoutModel.set(root, p);
   }
 
+  /**
+   * Places <code>kids</code> and their subtrees in the balloon of radius <code>parentRadius</code>
+   * centered at <code>parentLocation</code>.
+   *
+   * @deprecated the layout no longer recurses through the tree; see {@link
+   *     #setRootPolars(LayoutModel)}
+   */
+  @Deprecated
   protected void setPolars(
       LayoutModel<N> layoutModel, Set<N> kids, Point parentLocation, double parentRadius) {
 
@@ -129,28 +183,24 @@ public class BalloonLayoutAlgorithm<N> extends TreeLayoutAlgorithm<N> {
     return layoutModel.get(parent);
   }
 
-  private Point getCartesian(LayoutModel<N> layoutModel, N node) {
-    PolarPoint pp = polarLocations.getUnchecked(node);
-    double centerX = layoutModel.getWidth() / 2;
-    double centerY = layoutModel.getHeight() / 2;
-    Point cartesian = PolarPoint.polarToCartesian(pp);
-    cartesian = cartesian.add(centerX, centerY);
-    return cartesian;
-  }
-
+  /**
+   * Places <code>node</code> at <code>location</code>, recording its location relative to its
+   * parent in <code>polarLocations</code>.
+   *
+   * @deprecated the nodes are placed by {@link #setRootPolars(LayoutModel)}, which does not call
+   *     this method
+   */
+  @Deprecated
+  @Override
   protected void setLocation(LayoutModel<N> layoutModel, N node, Point location) {
     Point c = getCenter(layoutModel, node);
     Point pv = location.add(-c.x, -c.y);
-    PolarPoint newLocation = PolarPoint.cartesianToPolar(pv.x, pv.y);
-    polarLocations.put(node, newLocation);
-
-    Point center = getCenter(layoutModel, node);
-    center = pv.add(center.x, center.y);
-    layoutModel.set(node, pv);
+    polarLocations.put(node, PolarPoint.cartesianToPolar(pv.x, pv.y));
+    layoutModel.set(node, location);
   }
 
   /**
-   * @return the radii
+   * @return the radii of the nodes' balloons
    */
   public Map<N, Double> getRadii() {
     return radii;
@@ -15,6 +15,8 @@ import com.google.common.graph.EndpointPair;
 import com.google.common.graph.Graph;
 import edu.uci.ics.jung.layout.model.LayoutModel;
 import edu.uci.ics.jung.layout.model.Point;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.Logger;
@@ -27,6 +29,9 @@ import org.slf4j.LoggerFactory;
  * towards the top of the layout. Any node has a level one greater than the maximum level of all its
  * successors.
  *
+ * <p>For a layered layout of large DAGs, with crossing reduction, see {@link
+ * SugiyamaLayoutAlgorithm}.
+ *
  * @author John Yesberg
  */
 public class DAGLayoutAlgorithm<N> extends SpringLayoutAlgorithm<N> {
@@ -74,17 +79,49 @@ public class DAGLayoutAlgorithm<N> extends SpringLayoutAlgorithm<N> {
   /**
    * Calculates the level of each node in the graph. Level 0 is allocated to each node with no
    * successors. Level n+1 is allocated to any node whose successors' maximum level is n.
+   *
+   * <p>The nodes are visited in reverse topological order, each once all of its successors have
+   * been, so that this takes time linear in the size of the graph. Nodes on a cycle (which have no
+   * well-defined level) keep the level propagated to them from outside the cycle, or 0.
    */
   public void setRoot() {
     Graph<N> graph = layoutModel.getGraph();
     numRoots = 0;
-    //    Network<N, E> g = network;
+    minLevels.clear();
+    Map<N, Integer> remaining = new HashMap<N, Integer>();
+    Deque<N> ready = new ArrayDeque<N>();
     for (N node : graph.nodes()) {
-      if (graph.successors(node).isEmpty()) {
-        setRoot(node);
+      int successors = graph.successors(node).size();
+      if (graph.successors(node).contains(node)) {
+        successors--;
+      }
+      if (successors == 0) {
+        minLevels.put(node, Integer.valueOf(0));
+        ready.add(node);
         numRoots++;
+      } else {
+        remaining.put(node, successors);
       }
     }
+    while (!ready.isEmpty()) {
+      N node = ready.poll();
+      int level = minLevels.get(node).intValue();
+      for (N parent : graph.predecessors(node)) {
+        if (parent.equals(node)) {
+          continue;
+        }
+        Number o = minLevels.get(parent);
+        int newLevel = Math.max(o == null ? 0 : o.intValue(), level + 1);
+        minLevels.put(parent, Integer.valueOf(newLevel));
+        graphHeight = Math.max(graphHeight, newLevel);
+        if (remaining.merge(parent, -1, Integer::sum) == 0) {
+          ready.add(parent);
+        }
+      }
+    }
+    for (N node : graph.nodes()) {
+      minLevels.putIfAbsent(node, Integer.valueOf(0));
+    }
   }
 
   /**
@@ -99,29 +136,33 @@ public class DAGLayoutAlgorithm<N> extends SpringLayoutAlgorithm<N> {
   }
 
   /**
-   * A recursive method for allocating the level for each node. Ensures that all predecessors of v
-   * have a level which is at least one greater than the level of v.
+   * Allocates the level for each ancestor of a node. Ensures that all predecessors of v have a
+   * level which is at least one greater than the level of v. A node's level is propagated further
+   * only when it is raised, using an explicit stack rather than recursion. No path in a DAG is
+   * longer than the number of nodes, so levels are capped there; this ensures that propagation
+   * around a cycle terminates.
    *
    * @param node the node whose minimum level is to be calculated
    */
   public void propagateMinimumLevel(N node) {
     Graph<N> graph = layoutModel.getGraph();
-    int level = minLevels.get(node).intValue();
-    for (N child : graph.predecessors(node)) {
-      int oldLevel, newLevel;
-      Number o = minLevels.get(child);
-      if (o != null) {
-        oldLevel = o.intValue();
-      } else {
-        oldLevel = 0;
+    int maxLevel = graph.nodes().size() - 1;
+    Deque<N> stack = new ArrayDeque<N>();
+    stack.push(node);
+    while (!stack.isEmpty()) {
+      N current = stack.pop();
+      int level = minLevels.get(current).intValue();
+      if (level >= maxLevel) {
+        continue;
       }
-      newLevel = Math.max(oldLevel, level + 1);
-      minLevels.put(child, Integer.valueOf(newLevel));
-
-      if (newLevel > graphHeight) {
-        graphHeight = newLevel;
+      for (N child : graph.predecessors(current)) {
+        Number o = minLevels.get(child);
+        if (o == null || o.intValue() < level + 1) {
+          minLevels.put(child, Integer.valueOf(level + 1));
+          graphHeight = Math.max(graphHeight, level + 1);
+          stack.push(child);
+        }
       }
-      propagateMinimumLevel(child);
     }
   }
 
@@ -12,6 +12,7 @@ import edu.uci.ics.jung.layout.model.LayoutModel;
 import edu.uci.ics.jung.layout.model.Point;
 import edu.uci.ics.jung.layout.spatial.BarnesHutQuadTree;
 import edu.uci.ics.jung.layout.spatial.ForceObject;
+import edu.uci.ics.jung.layout.util.StepMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,7 +48,9 @@ public class FRBHVisitorLayoutAlgorithm<N> extends FRLayoutAlgorithm<N>
    */
   @Override
   public synchronized void step() {
+    long start = System.nanoTime();
     tree.rebuild(layoutModel.getLocations());
+    endPhase(StepMetrics.Phase.REPULSION, start);
     super.step();
   }
 
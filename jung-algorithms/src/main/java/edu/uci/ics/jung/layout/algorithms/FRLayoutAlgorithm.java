@@ -11,12 +11,23 @@ import com.google.common.base.Preconditions;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.graph.EndpointPair;
 import com.google.common.graph.Graph;
 import edu.uci.ics.jung.algorithms.util.IterativeContext;
 import edu.uci.ics.jung.layout.model.LayoutModel;
 import edu.uci.ics.jung.layout.model.Point;
+import edu.uci.ics.jung.layout.util.StepMetrics;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,13 +44,24 @@ import org.slf4j.LoggerFactory;
  *
  * Each of the first two defaults to 0.75; the maximum number of iterations defaults to 700.
  *
+ * <p>If {@code setKeepLocations(true)} has been called and the nodes already have distinct
+ * locations (for example from {@code PivotMDSLocationTransformer}, or from an earlier layout), the
+ * placement is taken to be close to a good one: the initial temperature and the number of
+ * iterations are both scaled by {@link #setSeededScale(double) the seeded scale}, so that the
+ * layout refines the placement rather than scrambling it, and finishes sooner.
+ *
+ * <p>When the graph changes, {@link #update(Collection, Collection, Collection)} places the added
+ * nodes near their neighbors and re-heats only the nodes within a few hops of the change; the
+ * following steps move only those nodes, for a fixed number of iterations, while the rest of the
+ * layout stays where it is.
+ *
  * @see "Fruchterman and Reingold, 'Graph Drawing by Force-directed Placement'"
  * @see
  *     "http://i11www.ilkd.uni-karlsruhe.de/teaching/SS_04/visualisierung/papers/fruchterman91graph.pdf"
  * @author Scott White, Yan-Biao Boey, Danyel Fisher, Tom Nelson
  */
 public class FRLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
-    implements IterativeContext {
+    implements IncrementalLayoutAlgorithm<N>, IterativeContext {
 
   private static final Logger log = LoggerFactory.getLogger(FRLayoutAlgorithm.class);
 
@@ -51,6 +73,11 @@ public class FRLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
 
   private int mMaxIterations = 700;
 
+  // whether the current layout started from an existing placement
+  private boolean seeded;
+
+  private double seededScale = 0.1;
+
   protected LoadingCache<N, Point> frNodeData;
 
   private double attraction_multiplier = 0.75;
@@ -65,6 +92,20 @@ public class FRLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
 
   private boolean initialized = false;
 
+  // the nodes that are relaxed after an update, or null when the whole graph is relaxed
+  private Set<N> region;
+
+  private int regionIteration;
+
+  private double regionTemperature;
+
+  private int updateIterations = 50;
+
+  private int updateRadius = 2;
+
+  // added nodes that have not yet had a neighbor to be placed near
+  private final Set<N> unplaced = new HashSet<>();
+
   public FRLayoutAlgorithm() {
     this.frNodeData =
         CacheBuilder.newBuilder()
@@ -98,18 +139,163 @@ public class FRLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
     doInit();
   }
 
+  /**
+   * @param seededScale the fraction, in (0, 1], of the initial temperature and of the maximum
+   *     number of iterations that is used when the layout starts from an existing placement;
+   *     defaults to 0.1
+   */
+  public void setSeededScale(double seededScale) {
+    Preconditions.checkArgument(
+        seededScale > 0 && seededScale <= 1, "seededScale must be in (0, 1]");
+    this.seededScale = seededScale;
+  }
+
+  /**
+   * @param updateIterations the number of iterations that relax the region around a change
+   */
+  public void setUpdateIterations(int updateIterations) {
+    Preconditions.checkArgument(updateIterations > 0, "updateIterations must be > 0");
+    this.updateIterations = updateIterations;
+  }
+
+  /**
+   * @param updateRadius the number of hops from the changed nodes that are relaxed after a change
+   */
+  public void setUpdateRadius(int updateRadius) {
+    Preconditions.checkArgument(updateRadius >= 0, "updateRadius must be >= 0");
+    this.updateRadius = updateRadius;
+  }
+
   private void doInit() {
     Graph<N> graph = layoutModel.getGraph();
+    region = null;
+    unplaced.clear();
     if (graph != null && graph.nodes().size() > 0) {
       currentIteration = 0;
       temperature = layoutModel.getWidth() / 10;
+      seeded = keepLocations && hasDistinctLocations();
+      if (seeded) {
+        temperature *= seededScale;
+      }
+      setConstants(graph);
+      initialized = true;
+    }
+  }
 
-      forceConstant =
-          Math.sqrt(layoutModel.getHeight() * layoutModel.getWidth() / graph.nodes().size());
+  private void setConstants(Graph<N> graph) {
+    forceConstant =
+        Math.sqrt(layoutModel.getHeight() * layoutModel.getWidth() / graph.nodes().size());
 
-      attraction_constant = attraction_multiplier * forceConstant;
-      repulsion_constant = repulsion_multiplier * forceConstant;
-      initialized = true;
+    attraction_constant = attraction_multiplier * forceConstant;
+    repulsion_constant = repulsion_multiplier * forceConstant;
+  }
+
+  /**
+   * Places the added nodes near their neighbors, and re-heats the nodes within {@code updateRadius}
+   * hops of the added and changed nodes, so that the next {@code updateIterations} steps move only
+   * them. If the whole graph is being relaxed, it continues to be; an update directly after a visit
+   * replaces the relaxation of the whole graph with that of the region.
+   */
+  @Override
+  public synchronized void update(
+      Collection<N> added, Collection<N> changed, Collection<N> removed) {
+    Preconditions.checkState(layoutModel != null, "update before visit");
+    Graph<N> graph = layoutModel.getGraph();
+    frNodeData.invalidateAll(removed);
+    unplaced.removeAll(removed);
+    if (graph.nodes().isEmpty()) {
+      return;
+    }
+    if (!initialized) {
+      doInit();
+    }
+    setConstants(graph);
+
+    Set<N> seeds = new LinkedHashSet<>();
+    for (N node : Iterables.concat(added, changed)) {
+      if (graph.nodes().contains(node)) {
+        seeds.add(node);
+      }
+    }
+    for (N node : added) {
+      if (seeds.contains(node) && !layoutModel.isLocked(node)) {
+        unplaced.add(node);
+      }
+    }
+    placeNearNeighbors(graph, seeds);
+
+    if (region == null && currentIteration > 0 && !done()) {
+      return;
+    }
+    Set<N> newRegion = new LinkedHashSet<>(seeds);
+    List<N> frontier = new ArrayList<>(seeds);
+    for (int hop = 0; hop < updateRadius && !frontier.isEmpty(); hop++) {
+      List<N> next = new ArrayList<>();
+      for (N node : frontier) {
+        for (N neighbor : graph.adjacentNodes(node)) {
+          if (newRegion.add(neighbor)) {
+            next.add(neighbor);
+          }
+        }
+      }
+      frontier = next;
+    }
+    // keep relaxing the region of an earlier update that has not finished
+    if (region != null && !done()) {
+      newRegion.addAll(region);
+    }
+    newRegion.removeAll(removed);
+    region = newRegion;
+    regionIteration = 0;
+    regionTemperature = Math.min(layoutModel.getWidth() / 10, forceConstant);
+    temperature = regionTemperature;
+  }
+
+  /**
+   * Places each unplaced node among the candidates, and then each unplaced node next to one that
+   * has just been placed, near the centroid of its placed neighbors.
+   */
+  private void placeNearNeighbors(Graph<N> graph, Collection<N> candidates) {
+    Deque<N> queue = new ArrayDeque<>();
+    for (N node : candidates) {
+      if (unplaced.contains(node)) {
+        queue.add(node);
+      }
+    }
+    while (!queue.isEmpty()) {
+      N node = queue.poll();
+      if (!unplaced.contains(node)) {
+        continue;
+      }
+      double x = 0;
+      double y = 0;
+      int count = 0;
+      for (N neighbor : graph.adjacentNodes(node)) {
+        if (!unplaced.contains(neighbor)) {
+          Point p = layoutModel.apply(neighbor);
+          x += p.x;
+          y += p.y;
+          count++;
+        }
+      }
+      if (count == 0) {
+        continue;
+      }
+      // offset from the centroid, so that a node with one neighbor is not placed on top of it
+      double angle = random.nextDouble() * 2 * Math.PI;
+      double distance = forceConstant / (2 * count);
+      x = x / count + distance * Math.cos(angle);
+      y = y / count + distance * Math.sin(angle);
+      layoutModel.set(
+          node,
+          Math.max(0, Math.min(layoutModel.getWidth(), x)),
+          Math.max(0, Math.min(layoutModel.getHeight(), y)));
+      unplaced.remove(node);
+      for (N neighbor : graph.adjacentNodes(node)) {
+        if (unplaced.contains(neighbor)) {
+          queue.add(neighbor);
+        }
+      }
     }
   }
 
@@ -125,7 +311,12 @@ public class FRLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
       doInit();
     }
     Graph<N> graph = layoutModel.getGraph();
+    if (region != null) {
+      stepRegion(graph);
+      return;
+    }
     currentIteration++;
+    long start = System.nanoTime();
 
     /** Calculate repulsion */
     while (true) {
@@ -138,6 +329,7 @@ public class FRLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
       } catch (ConcurrentModificationException cme) {
       }
     }
+    start = endPhase(StepMetrics.Phase.REPULSION, start);
 
     /** Calculate attraction */
     while (true) {
@@ -149,6 +341,7 @@ public class FRLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
       } catch (ConcurrentModificationException cme) {
       }
     }
+    start = endPhase(StepMetrics.Phase.ATTRACTION, start);
 
     while (true) {
       try {
@@ -162,9 +355,62 @@ public class FRLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
       } catch (ConcurrentModificationException cme) {
       }
     }
+    endPhase(StepMetrics.Phase.MOVE, start);
     cool();
   }
 
+  /** Moves the nodes of the region, under the forces from every node, and cools the region. */
+  private void stepRegion(Graph<N> graph) {
+    regionIteration++;
+    long start = System.nanoTime();
+    for (N node : region) {
+      if (graph.nodes().contains(node)) {
+        calcRepulsion(node);
+      }
+    }
+    start = endPhase(StepMetrics.Phase.REPULSION, start);
+
+    // visit each edge with an endpoint in the region once, from its first endpoint in the region;
+    // the neighbors are copied first, so that a concurrent change to the graph cannot interrupt
+    // the attraction of a node part way through
+    Set<N> visited = new HashSet<>();
+    for (N node : region) {
+      if (!graph.nodes().contains(node)) {
+        continue;
+      }
+      for (N neighbor : adjacentNodes(graph, node)) {
+        if (!visited.contains(neighbor)) {
+          calcAttraction(EndpointPair.unordered(node, neighbor));
+        }
+      }
+      visited.add(node);
+    }
+    start = endPhase(StepMetrics.Phase.ATTRACTION, start);
+
+    for (N node : region) {
+      if (graph.nodes().contains(node) && !layoutModel.isLocked(node)) {
+        calcPositions(node);
+      }
+    }
+    endPhase(StepMetrics.Phase.MOVE, start);
+    cool();
+  }
+
+  /**
+   * Returns a copy of the neighbors of {@code node}, retrying the copy if the graph changes, or no
+   * neighbors if {@code node} has been removed.
+   */
+  private static <N> ImmutableList<N> adjacentNodes(Graph<N> graph, N node) {
+    while (true) {
+      try {
+        return ImmutableList.copyOf(graph.adjacentNodes(node));
+      } catch (ConcurrentModificationException cme) {
+      } catch (IllegalArgumentException e) {
+        return ImmutableList.of();
+      }
+    }
+  }
+
   protected synchronized void calcPositions(N node) {
 
     Point fvd = getFRData(node);
@@ -173,6 +419,10 @@ public class FRLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
     }
     Point xyd = layoutModel.apply(node);
     double deltaLength = Math.max(EPSILON, fvd.length());
+    if (stepMetrics != null) {
+      // the energy of the layout is the sum of the squared net forces on the nodes
+      stepMetrics.addEnergy(fvd.x * fvd.x + fvd.y * fvd.y);
+    }
 
     double positionX = xyd.x;
     double positionY = xyd.y;
@@ -273,7 +523,18 @@ public class FRLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
   }
 
   private void cool() {
-    temperature *= (1.0 - currentIteration / (double) mMaxIterations);
+    if (region != null) {
+      temperature = regionTemperature * (1.0 - regionIteration / (double) updateIterations);
+      return;
+    }
+    temperature *= (1.0 - currentIteration / (double) iterations());
+  }
+
+  /**
+   * @return the length of the cooling schedule of the current layout
+   */
+  private int iterations() {
+    return seeded ? Math.max(1, (int) Math.round(mMaxIterations * seededScale)) : mMaxIterations;
   }
 
   public void setMaxIterations(int maxIterations) {
@@ -288,7 +549,10 @@ public class FRLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
    * @return true once the current iteration has passed the maximum count.
    */
   public boolean done() {
-    if (currentIteration > mMaxIterations || temperature < 1.0 / max_dimension) {
+    if (region != null) {
+      return regionIteration >= updateIterations || region.isEmpty();
+    }
+    if (currentIteration > iterations() || temperature < 1.0 / max_dimension) {
       return true;
     }
     return false;
@@ -12,17 +12,17 @@ package edu.uci.ics.jung.layout.algorithms;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.graph.Graph;
+import edu.uci.ics.jung.algorithms.util.Indexer;
 import edu.uci.ics.jung.algorithms.util.IterativeContext;
 import edu.uci.ics.jung.layout.model.LayoutModel;
 import edu.uci.ics.jung.layout.model.Point;
-import edu.uci.ics.jung.layout.util.NetworkNodeAccessor;
-import edu.uci.ics.jung.layout.util.RadiusNetworkNodeAccessor;
-import edu.uci.ics.jung.layout.util.RandomLocationTransformer;
-import java.util.ArrayList;
-import java.util.Collection;
+import edu.uci.ics.jung.layout.spatial.GridIndex;
+import edu.uci.ics.jung.layout.spatial.Rectangle;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
-import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,6 +30,14 @@ import org.slf4j.LoggerFactory;
  * Implements a self-organizing map layout algorithm, based on Meyer's self-organizing graph
  * methods.
  *
+ * <p>Each epoch moves the node nearest to a random point, and the nodes within the current radius
+ * of it, towards that point. The nearest node is found using a {@link GridIndex} of the node
+ * locations, which is updated as nodes are moved (and rebuilt from the layout model periodically,
+ * in case nodes have been moved by other means or the graph has changed). The neighborhood is found
+ * by breadth-first search using an array queue, and nodes are marked as visited with a stamp that
+ * changes every epoch, so no per-node state needs to be reset. The cost of an epoch is thus
+ * proportional to the size of the neighborhood, rather than to the size of the graph.
+ *
  * @author Yan Biao Boey
  */
 public class ISOMLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
@@ -37,6 +45,10 @@ public class ISOMLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
 
   private static final Logger log = LoggerFactory.getLogger(ISOMLayoutAlgorithm.class);
 
+  /**
+   * @deprecated no longer used; the breadth-first search keeps its state in arrays indexed by node
+   */
+  @Deprecated
   protected LoadingCache<N, ISOMNodeData> isomNodeData =
       CacheBuilder.newBuilder()
           .build(
@@ -57,11 +69,19 @@ public class ISOMLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
   private double initialAdaption;
   private double minAdaption;
 
-  private NetworkNodeAccessor<N> elementAccessor;
-
   private double coolingFactor;
 
-  private List<N> queue = new ArrayList<N>();
+  // the indexed nodes, and the spatial index of their locations
+  private ImmutableList<N> nodes;
+  private BiMap<N, Integer> indices;
+  private GridIndex grid;
+
+  // breadth-first search state: a node is visited in this epoch iff its stamp is current
+  private int[] stamp;
+  private int[] distance;
+  private int[] queue;
+  private int currentStamp;
+
   private String status = null;
 
   /**
@@ -78,13 +98,12 @@ public class ISOMLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
     }
 
     super.visit(layoutModel);
-    this.elementAccessor = new RadiusNetworkNodeAccessor<>();
+    this.nodes = null;
     initialize();
   }
 
   public void initialize() {
-    layoutModel.setInitializer(
-        new RandomLocationTransformer<N>(layoutModel.getWidth(), layoutModel.getHeight()));
+    randomizeLocations(random.nextLong());
 
     maxEpoch = 2000;
     epoch = 1;
@@ -123,27 +142,46 @@ public class ISOMLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
   }
 
   private synchronized void adjust() {
+    Graph<N> graph = layoutModel.getGraph();
+    if (nodes == null || graph.nodes().size() != nodes.size() || epoch % radiusConstantTime == 0) {
+      index();
+    }
+    if (nodes.isEmpty()) {
+      return;
+    }
     double width = layoutModel.getWidth();
     double height = layoutModel.getHeight();
     // Generate random position in graph space
-    // creates a new XY data location
-    Point tempXYD = Point.of(10 + Math.random() * width, 10 + Math.random() * height);
+    double x = 10 + random.nextDouble() * width;
+    double y = 10 + random.nextDouble() * height;
 
     // Get closest node to random position
-    N winner = elementAccessor.getNode(layoutModel, tempXYD.x, tempXYD.y);
+    int winner = grid.nearest(x, y);
+    adjustNode(winner, x, y);
+  }
 
+  /** Indexes the nodes of the graph, and builds the spatial index of their locations. */
+  private void index() {
     while (true) {
       try {
-        for (N node : layoutModel.getGraph().nodes()) {
-          ISOMNodeData ivd = getISOMNodeData(node);
-          ivd.distance = 0;
-          ivd.visited = false;
-        }
+        nodes = ImmutableList.copyOf(layoutModel.getGraph().nodes());
         break;
       } catch (ConcurrentModificationException cme) {
       }
     }
-    adjustNode(winner, tempXYD);
+    indices = Indexer.create(nodes);
+    int n = nodes.size();
+    grid =
+        GridIndex.withCapacity(
+            new Rectangle(0, 0, layoutModel.getWidth(), layoutModel.getHeight()), n);
+    stamp = new int[n];
+    distance = new int[n];
+    queue = new int[n];
+    currentStamp = 0;
+    for (int v = 0; v < nodes.size(); v++) {
+      Point p = layoutModel.apply(nodes.get(v));
+      grid.put(v, p.x, p.y);
+    }
   }
 
   private synchronized void updateParameters() {
@@ -157,36 +195,43 @@ public class ISOMLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
     }
   }
 
-  private synchronized void adjustNode(N node, Point tempXYD) {
+  private synchronized void adjustNode(int winner, double x, double y) {
     Graph<N> graph = layoutModel.getGraph();
-    queue.clear();
-    ISOMNodeData ivd = getISOMNodeData(node);
-    ivd.distance = 0;
-    ivd.visited = true;
-    queue.add(node);
-    N current;
-
-    while (!queue.isEmpty()) {
-      current = queue.remove(0);
-      ISOMNodeData currData = getISOMNodeData(current);
-      Point currXYData = layoutModel.apply(current);
-
-      double dx = tempXYD.x - currXYData.x;
-      double dy = tempXYD.y - currXYData.y;
-      double factor = adaption / Math.pow(2, currData.distance);
-
-      layoutModel.set(current, currXYData.x + (factor * dx), currXYData.y + (factor * dy));
-
-      if (currData.distance < radius) {
-        Collection<N> s = graph.adjacentNodes(current);
+    if (++currentStamp == 0) {
+      // the stamps have wrapped around; no node may appear to be visited already
+      Arrays.fill(stamp, 0);
+      currentStamp = 1;
+    }
+    stamp[winner] = currentStamp;
+    distance[winner] = 0;
+    queue[0] = winner;
+    int head = 0;
+    int tail = 1;
+
+    while (head < tail) {
+      int current = queue[head++];
+      N node = nodes.get(current);
+      Point currXYData = layoutModel.apply(node);
+
+      double dx = x - currXYData.x;
+      double dy = y - currXYData.y;
+      double factor = adaption / Math.pow(2, distance[current]);
+
+      layoutModel.set(node, currXYData.x + (factor * dx), currXYData.y + (factor * dy));
+      // the node may be locked, so index the location that was actually set
+      Point location = layoutModel.apply(node);
+      grid.put(current, location.x, location.y);
+
+      if (distance[current] < radius) {
         while (true) {
           try {
-            for (N child : s) {
-              ISOMNodeData childData = getISOMNodeData(child);
-              if (childData != null && !childData.visited) {
-                childData.visited = true;
-                childData.distance = currData.distance + 1;
-                queue.add(child);
+            for (N child : graph.adjacentNodes(node)) {
+              Integer c = indices.get(child);
+              // nodes added since the graph was indexed are skipped until it is re-indexed
+              if (c != null && stamp[c] != currentStamp) {
+                stamp[c] = currentStamp;
+                distance[c] = distance[current] + 1;
+                queue[tail++] = c;
               }
             }
             break;
@@ -197,6 +242,10 @@ public class ISOMLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
     }
   }
 
+  /**
+   * @deprecated no longer used; the breadth-first search keeps its state in arrays indexed by node
+   */
+  @Deprecated
   protected ISOMNodeData getISOMNodeData(N node) {
     return isomNodeData.getUnchecked(node);
   }
@@ -213,6 +262,10 @@ public class ISOMLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
     return epoch >= maxEpoch;
   }
 
+  /**
+   * @deprecated no longer used; the breadth-first search keeps its state in arrays indexed by node
+   */
+  @Deprecated
   protected static class ISOMNodeData {
     int distance;
     boolean visited;
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.layout.algorithms;
+
+import java.util.Collection;
+
+/**
+ * An IterativeLayoutAlgorithm that can adjust an existing layout to changes in the graph, instead
+ * of starting over. After an update, the next calls to <code>step</code> relax only the region of
+ * the graph around the change, until <code>done</code> returns true again; the LayoutModel's
+ * relaxer is restarted with {@link
+ * edu.uci.ics.jung.layout.model.LayoutModel#resumeRelaxer(IterativeLayoutAlgorithm)}.
+ *
+ * @param <N> the Node type
+ */
+public interface IncrementalLayoutAlgorithm<N> extends IterativeLayoutAlgorithm<N> {
+
+  /**
+   * Adjusts the layout to changes in the graph of the LayoutModel that this algorithm has visited.
+   *
+   * @param added the nodes that have been added to the graph, which are placed near their neighbors
+   * @param changed the nodes whose incident edges have changed
+   * @param removed the nodes that have been removed from the graph
+   */
+  void update(Collection<N> added, Collection<N> changed, Collection<N> removed);
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.layout.algorithms;
+
+import edu.uci.ics.jung.layout.util.StepMetrics;
+
+/**
+ * A layout algorithm that reports the work of each of its steps, such as the time spent in each
+ * phase and the energy of the layout, to a {@link StepMetrics}.
+ */
+public interface InstrumentedLayoutAlgorithm {
+
+  /**
+   * @param stepMetrics the metrics that each step reports to, or null for none
+   */
+  void setStepMetrics(StepMetrics stepMetrics);
+}
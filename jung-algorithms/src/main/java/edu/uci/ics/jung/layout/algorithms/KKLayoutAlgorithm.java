@@ -16,7 +16,6 @@ import edu.uci.ics.jung.algorithms.shortestpath.UnweightedShortestPath;
 import edu.uci.ics.jung.algorithms.util.IterativeContext;
 import edu.uci.ics.jung.layout.model.LayoutModel;
 import edu.uci.ics.jung.layout.model.Point;
-import edu.uci.ics.jung.layout.util.RandomLocationTransformer;
 import java.util.ConcurrentModificationException;
 import java.util.function.BiFunction;
 import org.slf4j.Logger;
@@ -132,9 +131,7 @@ public class KKLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
     currentIteration = 0;
     Graph<N> graph = layoutModel.getGraph();
     // KKLayoutAlgorithm will fail if all nodes start at the same location
-    layoutModel.setInitializer(
-        new RandomLocationTransformer<N>(
-            layoutModel.getWidth(), layoutModel.getHeight(), graph.nodes().size()));
+    randomizeLocations(graph.nodes().size());
     if (graph != null && layoutModel != null) {
 
       double height = layoutModel.getHeight();
@@ -193,6 +190,9 @@ public class KKLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
     Graph<N> graph = layoutModel.getGraph();
     currentIteration++;
     double energy = calcEnergy();
+    if (stepMetrics != null) {
+      stepMetrics.setEnergy(energy);
+    }
     status =
         "Kamada-Kawai N="
             + graph.nodes().size()
@@ -14,6 +14,7 @@ import edu.uci.ics.jung.layout.model.LayoutModel;
 import edu.uci.ics.jung.layout.model.Point;
 import edu.uci.ics.jung.layout.spatial.BarnesHutQuadTree;
 import edu.uci.ics.jung.layout.spatial.ForceObject;
+import edu.uci.ics.jung.layout.util.StepMetrics;
 import java.util.ConcurrentModificationException;
 import java.util.function.Function;
 import org.slf4j.Logger;
@@ -58,7 +59,9 @@ public class SpringBHVisitorLayoutAlgorithm<N> extends SpringLayoutAlgorithm<N>
    */
   @Override
   public void step() {
+    long start = System.nanoTime();
     tree.rebuild(layoutModel.getLocations());
+    endPhase(StepMetrics.Phase.REPULSION, start);
     super.step();
   }
 
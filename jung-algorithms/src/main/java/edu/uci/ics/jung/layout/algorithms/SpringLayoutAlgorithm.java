@@ -10,10 +10,13 @@ package edu.uci.ics.jung.layout.algorithms;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
 import com.google.common.graph.EndpointPair;
 import com.google.common.graph.Graph;
 import edu.uci.ics.jung.algorithms.util.IterativeContext;
 import edu.uci.ics.jung.layout.model.Point;
+import edu.uci.ics.jung.layout.util.StepMetrics;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.function.Function;
 import org.slf4j.Logger;
@@ -24,6 +27,11 @@ import org.slf4j.LoggerFactory;
  * initialized with a Graph, assigns X/Y locations to each node. When called <code>step()</code>,
  * the SpringLayout moves the visualization forward one step.
  *
+ * <p>Nodes repel each other only within the repulsion range, so repulsion is calculated using a
+ * cell list: on each step, the nodes are sorted into a grid of square cells at least as wide as the
+ * repulsion range, and each node is compared only with the nodes in its own and the 8 adjacent
+ * cells. For nodes of bounded density, each step thus takes time O(|V| + |E|).
+ *
  * @author Danyel Fisher
  * @author Joshua O'Madadhain
  * @author Tom Nelson
@@ -40,6 +48,13 @@ public class SpringLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N
   protected LoadingCache<N, SpringNodeData> springNodeData =
       CacheBuilder.newBuilder().build(CacheLoader.from(() -> new SpringNodeData()));
 
+  // the cell list used by calculateRepulsion; the arrays are reused from step to step
+  private double[] xs = new double[0];
+  private double[] ys = new double[0];
+  private int[] cellOf = new int[0];
+  private int[] cellStart = new int[1];
+  private int[] cellNodes = new int[0];
+
   public SpringLayoutAlgorithm() {
     this(n -> 30);
   }
@@ -78,158 +93,214 @@ public class SpringLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N
   public void initialize() {}
 
   public void step() {
-    Graph<N> graph = layoutModel.getGraph();
-    try {
-      for (N node : graph.nodes()) {
-        SpringNodeData svd = springNodeData.getUnchecked(node);
-        if (svd == null) {
-          continue;
-        }
-        svd.dx /= 4;
-        svd.dy /= 4;
-        svd.edgedx = svd.edgedy = 0;
-        svd.repulsiondx = svd.repulsiondy = 0;
-      }
-    } catch (ConcurrentModificationException cme) {
-      step();
+    for (N node : nodes()) {
+      SpringNodeData svd = springNodeData.getUnchecked(node);
+      svd.dx /= 4;
+      svd.dy /= 4;
+      svd.edgedx = svd.edgedy = 0;
+      svd.repulsiondx = svd.repulsiondy = 0;
     }
 
+    long start = System.nanoTime();
     relaxEdges();
+    start = endPhase(StepMetrics.Phase.ATTRACTION, start);
     calculateRepulsion();
+    start = endPhase(StepMetrics.Phase.REPULSION, start);
     moveNodes();
+    endPhase(StepMetrics.Phase.MOVE, start);
+  }
+
+  /**
+   * Returns a copy of the graph's current nodes, retrying if the graph is modified while it is
+   * being copied.
+   */
+  private ImmutableList<N> nodes() {
+    while (true) {
+      try {
+        return ImmutableList.copyOf(layoutModel.getGraph().nodes());
+      } catch (ConcurrentModificationException cme) {
+      }
+    }
   }
 
   protected void relaxEdges() {
     Graph<N> graph = layoutModel.getGraph();
-    try {
-      for (EndpointPair<N> endpoints : layoutModel.getGraph().edges()) {
-        N node1 = endpoints.nodeU();
-        N node2 = endpoints.nodeV();
-
-        Point p1 = this.layoutModel.get(node1);
-        Point p2 = this.layoutModel.get(node2);
-        if (p1 == null || p2 == null) {
-          continue;
-        }
-        double vx = p1.x - p2.x;
-        double vy = p1.y - p2.y;
-        double len = Math.sqrt(vx * vx + vy * vy);
-
-        double desiredLen = lengthFunction.apply(endpoints);
-
-        // round from zero, if needed [zero would be Bad.].
-        len = (len == 0) ? .0001 : len;
-
-        double f = force_multiplier * (desiredLen - len) / len;
-        f = f * Math.pow(stretch, (graph.degree(node1) + graph.degree(node2) - 2));
-
-        // the actual movement distance 'dx' is the force multiplied by the
-        // distance to go.
-        double dx = f * vx;
-        double dy = f * vy;
-        SpringNodeData v1D, v2D;
-        v1D = springNodeData.getUnchecked(node1);
-        v2D = springNodeData.getUnchecked(node2);
-        v1D.edgedx += dx;
-        v1D.edgedy += dy;
-        v2D.edgedx += -dx;
-        v2D.edgedy += -dy;
+    ImmutableList<EndpointPair<N>> edges;
+    while (true) {
+      try {
+        edges = ImmutableList.copyOf(graph.edges());
+        break;
+      } catch (ConcurrentModificationException cme) {
       }
-    } catch (ConcurrentModificationException cme) {
-      relaxEdges();
+    }
+    for (EndpointPair<N> endpoints : edges) {
+      N node1 = endpoints.nodeU();
+      N node2 = endpoints.nodeV();
+
+      Point p1 = this.layoutModel.get(node1);
+      Point p2 = this.layoutModel.get(node2);
+      if (p1 == null || p2 == null) {
+        continue;
+      }
+      double vx = p1.x - p2.x;
+      double vy = p1.y - p2.y;
+      double len = Math.sqrt(vx * vx + vy * vy);
+
+      double desiredLen = lengthFunction.apply(endpoints);
+
+      // round from zero, if needed [zero would be Bad.].
+      len = (len == 0) ? .0001 : len;
+
+      double f = force_multiplier * (desiredLen - len) / len;
+      f = f * Math.pow(stretch, (graph.degree(node1) + graph.degree(node2) - 2));
+
+      // the actual movement distance 'dx' is the force multiplied by the
+      // distance to go.
+      double dx = f * vx;
+      double dy = f * vy;
+      SpringNodeData v1D, v2D;
+      v1D = springNodeData.getUnchecked(node1);
+      v2D = springNodeData.getUnchecked(node2);
+      v1D.edgedx += dx;
+      v1D.edgedy += dy;
+      v2D.edgedx += -dx;
+      v2D.edgedy += -dy;
     }
   }
 
   protected void calculateRepulsion() {
-    Graph<N> graph = layoutModel.getGraph();
-
-    try {
-      for (N node : graph.nodes()) {
-        if (layoutModel.isLocked(node)) {
-          continue;
-        }
+    ImmutableList<N> nodes = nodes();
+    int n = nodes.size();
+    if (n == 0) {
+      return;
+    }
+    if (xs.length < n) {
+      xs = new double[n];
+      ys = new double[n];
+      cellOf = new int[n];
+      cellNodes = new int[n];
+    }
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < n; i++) {
+      Point p = layoutModel.apply(nodes.get(i));
+      xs[i] = p.x;
+      ys[i] = p.y;
+      minX = Math.min(minX, p.x);
+      minY = Math.min(minY, p.y);
+      maxX = Math.max(maxX, p.x);
+      maxY = Math.max(maxY, p.y);
+    }
 
-        SpringNodeData svd = springNodeData.getUnchecked(node);
-        if (svd == null) {
-          continue;
-        }
-        double dx = 0, dy = 0;
+    // cells must be at least as wide as the repulsion range, and are widened if there would
+    // otherwise be many more cells than nodes
+    double cellSize = Math.max(1, Math.sqrt(repulsion_range_sq));
+    long columns;
+    long rows;
+    while (true) {
+      columns = (long) ((maxX - minX) / cellSize) + 1;
+      rows = (long) ((maxY - minY) / cellSize) + 1;
+      if (columns * rows <= 4L * n + 16) {
+        break;
+      }
+      cellSize *= 2;
+    }
+    int cells = (int) (columns * rows);
+    if (cellStart.length < cells + 1) {
+      cellStart = new int[cells + 1];
+    } else {
+      Arrays.fill(cellStart, 0, cells + 1, 0);
+    }
+    for (int i = 0; i < n; i++) {
+      int column = (int) ((xs[i] - minX) / cellSize);
+      int row = (int) ((ys[i] - minY) / cellSize);
+      cellOf[i] = row * (int) columns + column;
+      cellStart[cellOf[i] + 1]++;
+    }
+    for (int c = 0; c < cells; c++) {
+      cellStart[c + 1] += cellStart[c];
+    }
+    int[] next = Arrays.copyOf(cellStart, cells);
+    for (int i = 0; i < n; i++) {
+      cellNodes[next[cellOf[i]]++] = i;
+    }
 
-        for (N node2 : graph.nodes()) {
-          if (node == node2) {
-            continue;
-          }
-          Point p = layoutModel.apply(node);
-          Point p2 = layoutModel.apply(node2);
-          if (p == null || p2 == null) {
-            continue;
-          }
-          double vx = p.x - p2.x;
-          double vy = p.y - p2.y;
-          double distanceSq = p.distanceSquared(p2);
-          if (distanceSq == 0) {
-            dx += random.nextDouble();
-            dy += random.nextDouble();
-          } else if (distanceSq < repulsion_range_sq) {
-            double factor = 1;
-            dx += factor * vx / distanceSq;
-            dy += factor * vy / distanceSq;
+    for (int i = 0; i < n; i++) {
+      N node = nodes.get(i);
+      if (layoutModel.isLocked(node)) {
+        continue;
+      }
+      SpringNodeData svd = springNodeData.getUnchecked(node);
+      double dx = 0, dy = 0;
+
+      int column = cellOf[i] % (int) columns;
+      int row = cellOf[i] / (int) columns;
+      for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+        for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+          int cell = r * (int) columns + c;
+          for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+            int j = cellNodes[k];
+            if (j == i) {
+              continue;
+            }
+            double vx = xs[i] - xs[j];
+            double vy = ys[i] - ys[j];
+            double distanceSq = vx * vx + vy * vy;
+            if (distanceSq == 0) {
+              dx += random.nextDouble();
+              dy += random.nextDouble();
+            } else if (distanceSq < repulsion_range_sq) {
+              double factor = 1;
+              dx += factor * vx / distanceSq;
+              dy += factor * vy / distanceSq;
+            }
           }
         }
-        double dlen = dx * dx + dy * dy;
-        if (dlen > 0) {
-          dlen = Math.sqrt(dlen) / 2;
-          svd.repulsiondx += dx / dlen;
-          svd.repulsiondy += dy / dlen;
-        }
       }
-    } catch (ConcurrentModificationException cme) {
-      calculateRepulsion();
+      double dlen = dx * dx + dy * dy;
+      if (dlen > 0) {
+        dlen = Math.sqrt(dlen) / 2;
+        svd.repulsiondx += dx / dlen;
+        svd.repulsiondy += dy / dlen;
+      }
     }
   }
 
   protected void moveNodes() {
-    Graph<N> graph = layoutModel.getGraph();
-
     synchronized (layoutModel) {
-      try {
-        for (N node : graph.nodes()) {
-          if (layoutModel.isLocked(node)) {
-            continue;
-          }
-          SpringNodeData vd = springNodeData.getUnchecked(node);
-          if (vd == null) {
-            continue;
-          }
-          Point xyd = layoutModel.apply(node);
-          double posX = xyd.x;
-          double posY = xyd.y;
-
-          vd.dx += vd.repulsiondx + vd.edgedx;
-          vd.dy += vd.repulsiondy + vd.edgedy;
-          // keeps nodes from moving any faster than 5 per time unit
-          posX = posX + Math.max(-5, Math.min(5, vd.dx));
-          posY = posY + Math.max(-5, Math.min(5, vd.dy));
-
-          int width = layoutModel.getWidth();
-          int height = layoutModel.getHeight();
-
-          if (posX < 0) {
-            posX = 0;
-          } else if (posX > width) {
-            posX = width;
-          }
-          if (posY < 0) {
-            posY = 0;
-          } else if (posY > height) {
-            posY = height;
-          }
-          // after the bounds have been honored above, really set the location
-          // in the layout model
-          layoutModel.set(node, posX, posY);
+      for (N node : nodes()) {
+        if (layoutModel.isLocked(node)) {
+          continue;
         }
-      } catch (ConcurrentModificationException cme) {
-        moveNodes();
+        SpringNodeData vd = springNodeData.getUnchecked(node);
+        Point xyd = layoutModel.apply(node);
+        double posX = xyd.x;
+        double posY = xyd.y;
+
+        vd.dx += vd.repulsiondx + vd.edgedx;
+        vd.dy += vd.repulsiondy + vd.edgedy;
+        // keeps nodes from moving any faster than 5 per time unit
+        posX = posX + Math.max(-5, Math.min(5, vd.dx));
+        posY = posY + Math.max(-5, Math.min(5, vd.dy));
+
+        int width = layoutModel.getWidth();
+        int height = layoutModel.getHeight();
+
+        if (posX < 0) {
+          posX = 0;
+        } else if (posX > width) {
+          posX = width;
+        }
+        if (posY < 0) {
+          posY = 0;
+        } else if (posY > height) {
+          posY = height;
+        }
+        // after the bounds have been honored above, really set the location
+        // in the layout model
+        layoutModel.set(node, posX, posY);
       }
     }
   }
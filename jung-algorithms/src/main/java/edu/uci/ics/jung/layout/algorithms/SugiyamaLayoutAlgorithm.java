@@ -0,0 +1,730 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.layout.algorithms;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.Graph;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A layered ("Sugiyama-style") layout for directed graphs, intended for DAGs such as dependency
+ * graphs. Edges point downwards: each node is placed in a row (layer) below all of its
+ * predecessors. The layout is computed in four phases, each in time roughly linear in the size of
+ * the graph:
+ *
+ * <ol>
+ *   <li>Cycles are broken by reversing the edges that close them in a depth-first search.
+ *   <li>Nodes are assigned to layers by the longest path from the sources; each source is then
+ *       moved down to just above the highest of its successors. Edges spanning several layers are
+ *       split into chains of dummy nodes, one per layer crossed.
+ *   <li>Crossings are reduced by sweeps that sort each layer by the barycenters of its neighbors in
+ *       the adjacent layers, keeping the ordering with the fewest crossings, which are counted with
+ *       the accumulator tree of Barth, Jünger and Mutzel. In parallel mode, all odd layers and then
+ *       all even layers are sorted concurrently against both of their (fixed) neighboring layers.
+ *   <li>x coordinates are assigned by the method of Brandes and Köpf: nodes are aligned with their
+ *       median neighbors into vertical blocks, in each of four directions, preferring the straight
+ *       dummy chains of long edges; the blocks are compacted, and the four results are balanced.
+ * </ol>
+ *
+ * Dummy nodes are not placed in the layout model; they only make room for the edges they stand for.
+ * Undirected graphs are laid out as if each edge were directed from its first endpoint to its
+ * second; self-loops are ignored.
+ *
+ * @see "K. Sugiyama, S. Tagawa and M. Toda: Methods for Visual Understanding of Hierarchical System
+ *     Structures, 1981."
+ * @see "W. Barth, M. Jünger and P. Mutzel: Simple and Efficient Bilayer Cross Counting, 2002."
+ * @see "U. Brandes and B. Köpf: Fast and Simple Horizontal Coordinate Assignment, 2001."
+ */
+public class SugiyamaLayoutAlgorithm<N> implements LayoutAlgorithm<N> {
+
+  private static final Logger log = LoggerFactory.getLogger(SugiyamaLayoutAlgorithm.class);
+
+  /** The default horizontal node spacing. Initialized to 50. */
+  public static int DEFAULT_DISTX = 50;
+
+  /** The default vertical node spacing. Initialized to 50. */
+  public static int DEFAULT_DISTY = 50;
+
+  /** The default maximum number of crossing reduction sweeps. Initialized to 24. */
+  public static int DEFAULT_MAX_ITERATIONS = 24;
+
+  /** The horizontal node spacing. Defaults to {@code DEFAULT_DISTX}. */
+  protected int distX;
+
+  /** The vertical node spacing. Defaults to {@code DEFAULT_DISTY}. */
+  protected int distY;
+
+  private int maxIterations = DEFAULT_MAX_ITERATIONS;
+  private boolean parallel;
+  private long crossings;
+
+  /** Creates an instance with default X and Y distances. */
+  public SugiyamaLayoutAlgorithm() {
+    this(DEFAULT_DISTX, DEFAULT_DISTY);
+  }
+
+  /**
+   * Creates an instance with the specified X and Y distances.
+   *
+   * @param distx the horizontal spacing between adjacent nodes in a layer
+   * @param disty the vertical spacing between adjacent layers
+   */
+  public SugiyamaLayoutAlgorithm(int distx, int disty) {
+    Preconditions.checkArgument(distx >= 1, "X distance must be positive");
+    Preconditions.checkArgument(disty >= 1, "Y distance must be positive");
+    this.distX = distx;
+    this.distY = disty;
+  }
+
+  /**
+   * Sets the maximum number of crossing reduction sweeps; the sweeps also stop when two in a row
+   * fail to reduce the number of crossings.
+   *
+   * @param maxIterations the maximum number of sweeps
+   */
+  public void setMaxIterations(int maxIterations) {
+    Preconditions.checkArgument(maxIterations >= 0, "maxIterations must be >= 0");
+    this.maxIterations = maxIterations;
+  }
+
+  /**
+   * @param parallel if {@code true}, crossing reduction and coordinate assignment use the parallel
+   *     layer sweep, and are spread among the available threads
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * @return the number of edge crossings (between the segments of edges split by dummy nodes) in
+   *     the last layout
+   */
+  public long getCrossingCount() {
+    return crossings;
+  }
+
+  @Override
+  public void visit(LayoutModel<N> layoutModel) {
+    Graph<N> graph = layoutModel.getGraph();
+    ImmutableList<N> nodes = ImmutableList.copyOf(graph.nodes());
+    if (nodes.isEmpty()) {
+      return;
+    }
+    BiMap<N, Integer> indices = Indexer.create(nodes);
+    int n = nodes.size();
+    int edgeCount = 0;
+    int[] from = new int[graph.edges().size()];
+    int[] to = new int[from.length];
+    for (EndpointPair<N> endpoints : graph.edges()) {
+      int u = indices.get(endpoints.nodeU());
+      int v = indices.get(endpoints.nodeV());
+      if (u != v) {
+        from[edgeCount] = u;
+        to[edgeCount] = v;
+        edgeCount++;
+      }
+    }
+    from = Arrays.copyOf(from, edgeCount);
+    to = Arrays.copyOf(to, edgeCount);
+
+    boolean[] reversed = feedbackEdges(n, from, to);
+    for (int e = 0; e < edgeCount; e++) {
+      if (reversed[e]) {
+        int u = from[e];
+        from[e] = to[e];
+        to[e] = u;
+      }
+    }
+    LayeredGraph layered = new LayeredGraph(n, from, to, layers(n, from, to));
+    crossings = layered.minimizeCrossings(maxIterations, parallel);
+    double[] x = layered.assignCoordinates(distX, parallel);
+    if (log.isTraceEnabled()) {
+      log.trace(
+          "{} layers, {} dummy nodes, {} crossings",
+          layered.layers.length,
+          layered.size - n,
+          crossings);
+    }
+
+    // put the leftmost node at distX, and grow the layout area to hold the graph
+    double minX = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    for (int v = 0; v < n; v++) {
+      minX = Math.min(minX, x[v]);
+      maxX = Math.max(maxX, x[v]);
+    }
+    int width = Math.max(layoutModel.getWidth(), (int) (maxX - minX) + 2 * distX + 1);
+    int height = Math.max(layoutModel.getHeight(), y(layered.layers.length - 1) + distY + 1);
+    if (layoutModel.getWidth() < width || layoutModel.getHeight() < height) {
+      layoutModel.setSize(width, height);
+    }
+    for (int v = 0; v < n; v++) {
+      layoutModel.set(nodes.get(v), x[v] - minX + distX, y(layered.layer[v]));
+    }
+  }
+
+  private int y(int layer) {
+    return 20 + (layer + 1) * distY;
+  }
+
+  /**
+   * Returns, for each edge, whether it closes a cycle in a depth-first search of the graph; the
+   * graph is acyclic once these edges are reversed.
+   */
+  private static boolean[] feedbackEdges(int n, int[] from, int[] to) {
+    int[] offsets = new int[n + 1];
+    int[] out = outEdges(n, from, offsets);
+    boolean[] reversed = new boolean[from.length];
+    byte[] state = new byte[n]; // 0: unvisited, 1: on the search path, 2: finished
+    int[] path = new int[n];
+    int[] cursor = new int[n];
+    for (int s = 0; s < n; s++) {
+      if (state[s] != 0) {
+        continue;
+      }
+      int top = 0;
+      path[0] = s;
+      state[s] = 1;
+      cursor[s] = offsets[s];
+      while (top >= 0) {
+        int v = path[top];
+        if (cursor[v] < offsets[v + 1]) {
+          int e = out[cursor[v]++];
+          int w = to[e];
+          if (state[w] == 1) {
+            reversed[e] = true;
+          } else if (state[w] == 0) {
+            state[w] = 1;
+            cursor[w] = offsets[w];
+            path[++top] = w;
+          }
+        } else {
+          state[v] = 2;
+          top--;
+        }
+      }
+    }
+    return reversed;
+  }
+
+  /**
+   * Assigns each node of an acyclic graph to a layer: first the length of the longest path to it
+   * from a source, and then, for each source with successors, one less than the least layer of its
+   * successors.
+   */
+  private static int[] layers(int n, int[] from, int[] to) {
+    int[] offsets = new int[n + 1];
+    int[] out = outEdges(n, from, offsets);
+    int[] indegree = new int[n];
+    for (int v : to) {
+      indegree[v]++;
+    }
+    int[] order = new int[n];
+    int head = 0;
+    int tail = 0;
+    for (int v = 0; v < n; v++) {
+      if (indegree[v] == 0) {
+        order[tail++] = v;
+      }
+    }
+    int[] layer = new int[n];
+    int[] remaining = indegree.clone();
+    while (head < tail) {
+      int v = order[head++];
+      for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+        int w = to[out[k]];
+        layer[w] = Math.max(layer[w], layer[v] + 1);
+        if (--remaining[w] == 0) {
+          order[tail++] = w;
+        }
+      }
+    }
+    for (int v = 0; v < n; v++) {
+      if (indegree[v] == 0 && offsets[v + 1] > offsets[v]) {
+        int least = Integer.MAX_VALUE;
+        for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+          least = Math.min(least, layer[to[out[k]]]);
+        }
+        layer[v] = least - 1;
+      }
+    }
+    return layer;
+  }
+
+  /** Returns the edges leaving each node, as an array indexed by <code>offsets</code>. */
+  private static int[] outEdges(int n, int[] from, int[] offsets) {
+    for (int u : from) {
+      offsets[u + 1]++;
+    }
+    for (int v = 0; v < n; v++) {
+      offsets[v + 1] += offsets[v];
+    }
+    int[] next = Arrays.copyOf(offsets, n);
+    int[] out = new int[from.length];
+    for (int e = 0; e < from.length; e++) {
+      out[next[from[e]]++] = e;
+    }
+    return out;
+  }
+
+  /**
+   * A proper layered graph: every segment joins adjacent layers. Vertices <code>[0, n)</code> are
+   * the nodes of the graph, and the rest are dummy vertices on the edges spanning several layers.
+   */
+  private static class LayeredGraph {
+    final int n;
+    final int size;
+    final int[] layer;
+    /** The vertices of each layer, in order. */
+    final int[][] layers;
+    /** The position of each vertex in its layer. */
+    final int[] pos;
+    /** The endpoints of each segment, in adjacent layers. */
+    final int[] upper;
+
+    final int[] lower;
+    /**
+     * The segments entering each vertex from the layer above, indexed by <code>upOffsets</code>.
+     */
+    final int[] up;
+
+    final int[] upOffsets;
+    /**
+     * The segments leaving each vertex for the layer below, indexed by <code>downOffsets</code>.
+     */
+    final int[] down;
+
+    final int[] downOffsets;
+
+    LayeredGraph(int n, int[] from, int[] to, int[] nodeLayers) {
+      this.n = n;
+      int dummies = 0;
+      for (int e = 0; e < from.length; e++) {
+        dummies += nodeLayers[to[e]] - nodeLayers[from[e]] - 1;
+      }
+      this.size = n + dummies;
+      this.layer = Arrays.copyOf(nodeLayers, size);
+      int segmentCount = from.length + dummies;
+      this.upper = new int[segmentCount];
+      this.lower = new int[segmentCount];
+      int s = 0;
+      int d = n;
+      for (int e = 0; e < from.length; e++) {
+        int u = from[e];
+        for (int l = nodeLayers[from[e]] + 1; l < nodeLayers[to[e]]; l++) {
+          layer[d] = l;
+          upper[s] = u;
+          lower[s++] = d;
+          u = d++;
+        }
+        upper[s] = u;
+        lower[s++] = to[e];
+      }
+
+      this.upOffsets = new int[size + 1];
+      this.downOffsets = new int[size + 1];
+      this.up = index(lower, upOffsets);
+      this.down = index(upper, downOffsets);
+
+      // initially, the vertices of each layer are in the order of their ids
+      int layerCount = 0;
+      for (int v = 0; v < size; v++) {
+        layerCount = Math.max(layerCount, layer[v] + 1);
+      }
+      int[] layerSizes = new int[layerCount];
+      for (int v = 0; v < size; v++) {
+        layerSizes[layer[v]]++;
+      }
+      this.layers = new int[layerCount][];
+      for (int l = 0; l < layerCount; l++) {
+        layers[l] = new int[layerSizes[l]];
+      }
+      this.pos = new int[size];
+      Arrays.fill(layerSizes, 0);
+      for (int v = 0; v < size; v++) {
+        pos[v] = layerSizes[layer[v]]++;
+        layers[layer[v]][pos[v]] = v;
+      }
+    }
+
+    /** Returns the segments incident to each vertex as the specified endpoint. */
+    private int[] index(int[] endpoint, int[] offsets) {
+      for (int v : endpoint) {
+        offsets[v + 1]++;
+      }
+      for (int v = 0; v < size; v++) {
+        offsets[v + 1] += offsets[v];
+      }
+      int[] next = Arrays.copyOf(offsets, size);
+      int[] segments = new int[endpoint.length];
+      for (int s = 0; s < endpoint.length; s++) {
+        segments[next[endpoint[s]]++] = s;
+      }
+      return segments;
+    }
+
+    /**
+     * Reorders the layers to reduce the number of crossings, and returns the number of crossings of
+     * the best ordering found.
+     */
+    long minimizeCrossings(int maxIterations, boolean parallel) {
+      long best = crossings(parallel);
+      int[] bestPos = pos.clone();
+      int failures = 0;
+      for (int i = 0; i < maxIterations && best > 0 && failures < 2; i++) {
+        if (parallel) {
+          for (int parity = 1; parity >= 0; parity--) {
+            int first = parity;
+            IntStream.range(0, (layers.length - first + 1) / 2)
+                .parallel()
+                .forEach(k -> reorder(first + 2 * k, true, true));
+          }
+        } else {
+          for (int l = 1; l < layers.length; l++) {
+            reorder(l, true, false);
+          }
+          for (int l = layers.length - 2; l >= 0; l--) {
+            reorder(l, false, true);
+          }
+        }
+        long count = crossings(parallel);
+        if (count < best) {
+          best = count;
+          System.arraycopy(pos, 0, bestPos, 0, size);
+          failures = 0;
+        } else {
+          failures++;
+        }
+      }
+      System.arraycopy(bestPos, 0, pos, 0, size);
+      for (int v = 0; v < size; v++) {
+        layers[layer[v]][pos[v]] = v;
+      }
+      return best;
+    }
+
+    /**
+     * Sorts layer <code>l</code> by the barycenter of the positions of each vertex's neighbors in
+     * the layer above and/or below; vertices without such neighbors keep their positions as keys.
+     */
+    private void reorder(int l, boolean above, boolean below) {
+      int[] vertices = layers[l];
+      double[] keys = new double[vertices.length];
+      for (int i = 0; i < vertices.length; i++) {
+        int v = vertices[i];
+        double sum = 0;
+        int count = 0;
+        if (above) {
+          for (int k = upOffsets[v]; k < upOffsets[v + 1]; k++) {
+            sum += pos[upper[up[k]]];
+            count++;
+          }
+        }
+        if (below) {
+          for (int k = downOffsets[v]; k < downOffsets[v + 1]; k++) {
+            sum += pos[lower[down[k]]];
+            count++;
+          }
+        }
+        keys[i] = count > 0 ? sum / count : i;
+      }
+      sort(vertices, keys);
+      for (int i = 0; i < vertices.length; i++) {
+        pos[vertices[i]] = i;
+      }
+    }
+
+    /** Sorts <code>items</code> stably by <code>keys</code>, permuting both. */
+    private static void sort(int[] items, double[] keys) {
+      int length = items.length;
+      int[] a = items;
+      double[] ak = keys;
+      int[] b = new int[length];
+      double[] bk = new double[length];
+      for (int width = 1; width < length; width *= 2) {
+        for (int lo = 0; lo < length; lo += 2 * width) {
+          int mid = Math.min(lo + width, length);
+          int hi = Math.min(lo + 2 * width, length);
+          int i = lo;
+          int j = mid;
+          for (int k = lo; k < hi; k++) {
+            if (i < mid && (j >= hi || ak[i] <= ak[j])) {
+              b[k] = a[i];
+              bk[k] = ak[i++];
+            } else {
+              b[k] = a[j];
+              bk[k] = ak[j++];
+            }
+          }
+        }
+        int[] t = a;
+        a = b;
+        b = t;
+        double[] tk = ak;
+        ak = bk;
+        bk = tk;
+      }
+      if (a != items) {
+        System.arraycopy(a, 0, items, 0, length);
+      }
+    }
+
+    private long crossings(boolean parallel) {
+      IntStream stream = IntStream.range(0, layers.length - 1);
+      return (parallel ? stream.parallel() : stream).mapToLong(this::crossings).sum();
+    }
+
+    /**
+     * Counts the crossings between the segments joining layer <code>l</code> to the layer below:
+     * the number of inversions among the lower positions of the segments, in the order of their
+     * upper positions, counted with an accumulator tree.
+     */
+    private long crossings(int l) {
+      int[] vertices = layers[l];
+      int count = 0;
+      for (int v : vertices) {
+        count += downOffsets[v + 1] - downOffsets[v];
+      }
+      int[] south = new int[count];
+      int k = 0;
+      for (int v : vertices) {
+        int start = k;
+        for (int i = downOffsets[v]; i < downOffsets[v + 1]; i++) {
+          south[k++] = pos[lower[down[i]]];
+        }
+        Arrays.sort(south, start, k);
+      }
+      int first = 1;
+      while (first < layers[l + 1].length) {
+        first *= 2;
+      }
+      int[] tree = new int[2 * first - 1];
+      first--;
+      long crossings = 0;
+      for (int position : south) {
+        int index = position + first;
+        tree[index]++;
+        while (index > 0) {
+          if (index % 2 == 1) {
+            crossings += tree[index + 1];
+          }
+          index = (index - 1) / 2;
+          tree[index]++;
+        }
+      }
+      return crossings;
+    }
+
+    /**
+     * Assigns x coordinates to the vertices by the method of Brandes and Köpf, with vertices in the
+     * same layer at least <code>separation</code> apart.
+     */
+    double[] assignCoordinates(double separation, boolean parallel) {
+      boolean[] marked = markType1Conflicts();
+      double[][] candidates = new double[4][];
+      IntStream variants = IntStream.range(0, 4);
+      (parallel ? variants.parallel() : variants)
+          .forEach(i -> candidates[i] = align(i < 2, i % 2 == 0, marked, separation));
+
+      // align the candidates to the narrowest one, and take the average median of each vertex
+      double[] min = new double[4];
+      double[] max = new double[4];
+      int narrowest = 0;
+      for (int i = 0; i < 4; i++) {
+        min[i] = Double.POSITIVE_INFINITY;
+        max[i] = Double.NEGATIVE_INFINITY;
+        for (double x : candidates[i]) {
+          min[i] = Math.min(min[i], x);
+          max[i] = Math.max(max[i], x);
+        }
+        if (max[i] - min[i] < max[narrowest] - min[narrowest]) {
+          narrowest = i;
+        }
+      }
+      double[] x = new double[size];
+      double[] values = new double[4];
+      for (int v = 0; v < size; v++) {
+        for (int i = 0; i < 4; i++) {
+          double shift = i % 2 == 0 ? min[narrowest] - min[i] : max[narrowest] - max[i];
+          values[i] = candidates[i][v] + shift;
+        }
+        Arrays.sort(values);
+        x[v] = (values[1] + values[2]) / 2;
+      }
+      return x;
+    }
+
+    /**
+     * Marks the type 1 conflicts: the segments that cross an inner segment (one between two dummy
+     * vertices), so that the alignments keep long edges straight.
+     */
+    private boolean[] markType1Conflicts() {
+      boolean[] marked = new boolean[upper.length];
+      for (int l = 0; l + 1 < layers.length; l++) {
+        int[] below = layers[l + 1];
+        int k0 = 0;
+        int start = 0;
+        for (int l1 = 0; l1 < below.length; l1++) {
+          int inner = innerUpperNeighbor(below[l1]);
+          if (l1 == below.length - 1 || inner >= 0) {
+            int k1 = inner >= 0 ? pos[inner] : layers[l].length - 1;
+            for (; start <= l1; start++) {
+              int v = below[start];
+              for (int k = upOffsets[v]; k < upOffsets[v + 1]; k++) {
+                int p = pos[upper[up[k]]];
+                if (p < k0 || p > k1) {
+                  marked[up[k]] = true;
+                }
+              }
+            }
+            k0 = k1;
+          }
+        }
+      }
+      return marked;
+    }
+
+    /**
+     * @return the upper endpoint of the inner segment entering v, or -1 if there is none
+     */
+    private int innerUpperNeighbor(int v) {
+      if (v >= n) {
+        int u = upper[up[upOffsets[v]]];
+        if (u >= n) {
+          return u;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Computes one of the four candidate coordinate assignments: vertices are aligned into blocks
+     * with their median neighbors in the layer above (or below), taking the layers top-down (or
+     * bottom-up) and each layer left to right (or right to left); then each block is placed as far
+     * left (or right) as the blocks beside it allow.
+     */
+    private double[] align(boolean upward, boolean leftward, boolean[] marked, double separation) {
+      int[] root = new int[size];
+      int[] align = new int[size];
+      for (int v = 0; v < size; v++) {
+        root[v] = v;
+        align[v] = v;
+      }
+      int[] offsets = upward ? upOffsets : downOffsets;
+      int[] segments = upward ? up : down;
+      int[] other = upward ? upper : lower;
+      long[] neighbors = new long[0];
+
+      for (int i = 1; i < layers.length; i++) {
+        int[] vertices = layers[upward ? i : layers.length - 1 - i];
+        int r = -1;
+        for (int j = 0; j < vertices.length; j++) {
+          int v = vertices[leftward ? j : vertices.length - 1 - j];
+          int d = offsets[v + 1] - offsets[v];
+          if (d == 0) {
+            continue;
+          }
+          // the neighbors' (mirrored) positions and segments, sorted by position
+          if (neighbors.length < d) {
+            neighbors = new long[Math.max(d, 2 * neighbors.length)];
+          }
+          for (int k = 0; k < d; k++) {
+            int s = segments[offsets[v] + k];
+            neighbors[k] = ((long) position(other[s], leftward) << 32) | s;
+          }
+          Arrays.sort(neighbors, 0, d);
+          for (int m = (d - 1) / 2; m <= d / 2; m++) {
+            if (align[v] == v) {
+              int s = (int) neighbors[m];
+              int u = other[s];
+              int p = position(u, leftward);
+              if (!marked[s] && r < p) {
+                align[u] = v;
+                root[v] = root[u];
+                align[v] = root[v];
+                r = p;
+              }
+            }
+          }
+        }
+      }
+      return compact(root, leftward, separation);
+    }
+
+    private int position(int v, boolean leftward) {
+      return leftward ? pos[v] : layers[layer[v]].length - 1 - pos[v];
+    }
+
+    /**
+     * Places each block at the least coordinate (in the direction of the alignment) that keeps it
+     * <code>separation</code> from the blocks before it in every layer, by a longest path
+     * computation over the graph of blocks.
+     */
+    private double[] compact(int[] root, boolean leftward, double separation) {
+      // block constraints: the root of each vertex's predecessor in its layer, to its own root
+      int[] offsets = new int[size + 1];
+      int[] before = new int[size];
+      Arrays.fill(before, -1);
+      for (int[] vertices : layers) {
+        for (int j = 1; j < vertices.length; j++) {
+          int v = leftward ? vertices[j] : vertices[vertices.length - 1 - j];
+          int w = leftward ? vertices[j - 1] : vertices[vertices.length - j];
+          before[v] = root[w];
+          offsets[before[v] + 1]++;
+        }
+      }
+      for (int v = 0; v < size; v++) {
+        offsets[v + 1] += offsets[v];
+      }
+      int[] next = Arrays.copyOf(offsets, size);
+      int[] after = new int[offsets[size]];
+      int[] indegree = new int[size];
+      for (int v = 0; v < size; v++) {
+        if (before[v] >= 0) {
+          after[next[before[v]]++] = root[v];
+          indegree[root[v]]++;
+        }
+      }
+
+      double[] blockX = new double[size];
+      int[] queue = new int[size];
+      int head = 0;
+      int tail = 0;
+      for (int v = 0; v < size; v++) {
+        if (root[v] == v && indegree[v] == 0) {
+          queue[tail++] = v;
+        }
+      }
+      while (head < tail) {
+        int b = queue[head++];
+        for (int k = offsets[b]; k < offsets[b + 1]; k++) {
+          int c = after[k];
+          blockX[c] = Math.max(blockX[c], blockX[b] + separation);
+          if (--indegree[c] == 0) {
+            queue[tail++] = c;
+          }
+        }
+      }
+      double[] x = new double[size];
+      for (int v = 0; v < size; v++) {
+        x[v] = leftward ? blockX[root[v]] : -blockX[root[v]];
+      }
+      return x;
+    }
+  }
+}
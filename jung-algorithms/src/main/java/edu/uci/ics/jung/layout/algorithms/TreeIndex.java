@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2005, The JUNG Authors
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either "license.txt"
+ * or https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+
+package edu.uci.ics.jung.layout.algorithms;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.graph.Graph;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import edu.uci.ics.jung.graph.util.TreeUtils;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * The spanning forest of a graph that the tree layouts place, stored in int arrays. Nodes are
+ * identified by their index in <code>nodes</code>; index <code>nodes.size()</code> is a virtual
+ * root whose children are the roots of the graph (the nodes without predecessors).
+ *
+ * <p>The forest is found by a depth-first search from the roots, made without recursion so that
+ * arbitrarily deep trees can be indexed. Each node reached is the child of the node from which it
+ * was first reached, and the children of each node are in the iteration order of its successors. A
+ * node reachable from several others (in a graph that is not a forest) is placed once, below the
+ * first of them; nodes that cannot be reached from any root are not placed.
+ */
+final class TreeIndex<N> {
+
+  final ImmutableList<N> nodes;
+  final BiMap<N, Integer> indices;
+  /** The index of the virtual root. */
+  final int root;
+  /** The parent of each node, or -1 for the virtual root and the nodes that are not reached. */
+  final int[] parent;
+  /** The depth of each node; the roots of the graph have depth 0, and the virtual root -1. */
+  final int[] depth;
+  /** The offset in <code>children</code> of the first child of each node. */
+  final int[] childOffsets;
+  /**
+   * The children of each node v, at <code>childOffsets[v]</code> to <code>childOffsets[v+1]</code>.
+   */
+  final int[] children;
+  /** The reached nodes (beginning with the virtual root) in depth-first pre-order. */
+  final int[] preorder;
+  /** The reached nodes (ending with the virtual root) in depth-first post-order. */
+  final int[] postorder;
+  /** The number of reached nodes, including the virtual root. */
+  final int size;
+
+  private TreeIndex(
+      ImmutableList<N> nodes,
+      BiMap<N, Integer> indices,
+      int[] parent,
+      int[] depth,
+      int[] childOffsets,
+      int[] children,
+      int[] preorder,
+      int[] postorder,
+      int size) {
+    this.nodes = nodes;
+    this.indices = indices;
+    this.root = nodes.size();
+    this.parent = parent;
+    this.depth = depth;
+    this.childOffsets = childOffsets;
+    this.children = children;
+    this.preorder = preorder;
+    this.postorder = postorder;
+    this.size = size;
+  }
+
+  static <N> TreeIndex<N> create(Graph<N> graph) {
+    Set<N> roots = TreeUtils.roots(graph);
+    Preconditions.checkArgument(roots.size() > 0, "graph has no roots");
+    ImmutableList<N> nodes = ImmutableList.copyOf(graph.nodes());
+    BiMap<N, Integer> indices = Indexer.create(nodes);
+    int root = nodes.size();
+
+    int[] parent = new int[root + 1];
+    int[] depth = new int[root + 1];
+    int[] preorder = new int[root + 1];
+    int[] postorder = new int[root + 1];
+    Arrays.fill(parent, -1);
+    depth[root] = -1;
+    int pre = 0;
+    int post = 0;
+
+    // the search path, and an iterator over the successors of each node on it
+    int[] path = new int[root + 1];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Iterator<N>[] successors = new Iterator[root + 1];
+    int top = 0;
+    path[0] = root;
+    successors[0] = roots.iterator();
+    preorder[pre++] = root;
+    while (top >= 0) {
+      int v = path[top];
+      if (successors[top].hasNext()) {
+        int w = indices.get(successors[top].next());
+        if (parent[w] < 0 && w != root) {
+          parent[w] = v;
+          depth[w] = depth[v] + 1;
+          preorder[pre++] = w;
+          top++;
+          path[top] = w;
+          successors[top] = graph.successors(nodes.get(w)).iterator();
+        }
+      } else {
+        postorder[post++] = v;
+        successors[top--] = null;
+      }
+    }
+
+    // the children of each node, in the order in which they were reached
+    int[] childOffsets = new int[root + 2];
+    for (int i = 1; i < pre; i++) {
+      childOffsets[parent[preorder[i]] + 1]++;
+    }
+    for (int v = 0; v <= root; v++) {
+      childOffsets[v + 1] += childOffsets[v];
+    }
+    int[] next = Arrays.copyOf(childOffsets, root + 1);
+    int[] children = new int[pre - 1];
+    for (int i = 1; i < pre; i++) {
+      int v = preorder[i];
+      children[next[parent[v]]++] = v;
+    }
+    return new TreeIndex<>(
+        nodes, indices, parent, depth, childOffsets, children, preorder, postorder, pre);
+  }
+
+  int childCount(int v) {
+    return childOffsets[v + 1] - childOffsets[v];
+  }
+}
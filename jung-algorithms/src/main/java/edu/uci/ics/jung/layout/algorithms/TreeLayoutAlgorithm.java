@@ -11,11 +11,9 @@
 package edu.uci.ics.jung.layout.algorithms;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Sets;
-import edu.uci.ics.jung.graph.util.TreeUtils;
 import edu.uci.ics.jung.layout.model.LayoutModel;
 import edu.uci.ics.jung.layout.model.Point;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -25,6 +23,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Lays out a tree, or a forest, top-down: each node is placed one row below its parent, and the
+ * children of each node are placed left to right in the iteration order of its successors. If the
+ * graph is not a forest, each node is placed under the first of its predecessors from which the
+ * layout reaches it.
+ *
+ * <p>The tree is indexed into arrays and traversed without recursion, so that the layout takes time
+ * and space linear in the size of the tree, however deep it is. See {@link #setTidy(boolean)} for
+ * the compact (tidy) mode.
+ *
  * @author Karlheinz Toni
  * @author Tom Nelson - converted to jung2, refactored into Algorithm/Visitor
  */
@@ -32,10 +39,6 @@ public class TreeLayoutAlgorithm<N> implements LayoutAlgorithm<N> {
 
   private static final Logger log = LoggerFactory.getLogger(TreeLayoutAlgorithm.class);
 
-  protected Map<N, Integer> basePositions = new HashMap<N, Integer>();
-
-  protected transient Set<N> alreadyDone = new HashSet<N>();
-
   /** The default horizontal node spacing. Initialized to 50. */
   public static int DEFAULT_DISTX = 50;
 
@@ -48,8 +51,30 @@ public class TreeLayoutAlgorithm<N> implements LayoutAlgorithm<N> {
   /** The vertical node spacing. Defaults to {@code DEFAULT_YDIST}. */
   protected int distY = 50;
 
-  protected double currentX;
-  protected double currentY;
+  /**
+   * @deprecated no longer used to place the nodes; holds the width allotted to each node's subtree
+   *     in the last layout, for subclasses that call {@link #buildTree(LayoutModel, Object, int)}
+   */
+  @Deprecated protected Map<N, Integer> basePositions = new HashMap<>();
+
+  /**
+   * @deprecated no longer used to place the nodes; holds the nodes placed by the last layout
+   */
+  @Deprecated protected transient Set<N> alreadyDone = new HashSet<>();
+
+  /**
+   * @deprecated set to the location of each node just before {@link
+   *     #setCurrentPositionFor(LayoutModel, Object)} places it
+   */
+  @Deprecated protected double currentX;
+
+  /**
+   * @deprecated set to the location of each node just before {@link
+   *     #setCurrentPositionFor(LayoutModel, Object)} places it
+   */
+  @Deprecated protected double currentY;
+
+  private boolean tidy;
 
   /** Creates an instance for the specified graph with default X and Y distances. */
   public TreeLayoutAlgorithm() {
@@ -76,7 +101,25 @@ public class TreeLayoutAlgorithm<N> implements LayoutAlgorithm<N> {
     Preconditions.checkArgument(disty >= 1, "Y distance must be positive");
     this.distX = distx;
     this.distY = disty;
-    this.currentX = this.currentY = 0;
+  }
+
+  /**
+   * If {@code tidy} is true, the tree is laid out compactly, as by the algorithm of Reingold and
+   * Tilford: each subtree is pushed as close to its left sibling as the contours of the two allow,
+   * rather than being allotted the full width of its widest level. Otherwise (the default), each
+   * subtree is allotted as much width as its leaves require.
+   *
+   * @param tidy whether the tree is to be laid out compactly
+   */
+  public void setTidy(boolean tidy) {
+    this.tidy = tidy;
+  }
+
+  /**
+   * @return whether the tree is laid out compactly
+   */
+  public boolean isTidy() {
+    return tidy;
   }
 
   @Override
@@ -85,21 +128,56 @@ public class TreeLayoutAlgorithm<N> implements LayoutAlgorithm<N> {
   }
 
   protected void buildTree(LayoutModel<N> layoutModel) {
-    alreadyDone = Sets.newHashSet();
-    this.currentX = 0;
-    this.currentY = 20;
-    Set<N> roots = TreeUtils.roots(layoutModel.getGraph());
-    Preconditions.checkArgument(roots.size() > 0);
-    calculateDimensionX(layoutModel, roots);
-    for (N node : roots) {
-      calculateDimensionX(layoutModel, node);
-      double posX = this.basePositions.get(node) / 2 + this.distX;
-      buildTree(layoutModel, node, (int) posX);
+    TreeIndex<N> tree = TreeIndex.create(layoutModel.getGraph());
+    int[] widths = widths(tree);
+    double[] x = tidy ? tidyPositions(tree) : positions(tree, widths);
+
+    basePositions.clear();
+    alreadyDone.clear();
+    for (int i = 1; i < tree.size; i++) {
+      int v = tree.preorder[i];
+      basePositions.put(tree.nodes.get(v), widths[v]);
+      alreadyDone.add(tree.nodes.get(v));
     }
+
+    // grow the layout area to hold the tree, leaving a margin beyond the last row and column
+    double maxX = 0;
+    double maxY = 0;
+    for (int i = 1; i < tree.size; i++) {
+      int v = tree.preorder[i];
+      maxX = Math.max(maxX, x[v]);
+      maxY = Math.max(maxY, y(tree, v));
+    }
+    int width = layoutModel.getWidth();
+    int height = layoutModel.getHeight();
+    if ((int) maxX >= width - distX) {
+      width = (int) maxX + distX;
+    }
+    if ((int) maxY >= height - distY) {
+      height = (int) maxY + distY;
+    }
+    if (layoutModel.getWidth() < width || layoutModel.getHeight() < height) {
+      layoutModel.setSize(width, height);
+    }
+
+    for (int i = 1; i < tree.size; i++) {
+      int v = tree.preorder[i];
+      currentX = x[v];
+      currentY = y(tree, v);
+      setCurrentPositionFor(layoutModel, tree.nodes.get(v));
+    }
+    currentX = 0;
+    currentY = 20;
   }
 
+  /**
+   * Places <code>node</code> at <code>x</code> and its subtree below it, allotting each subtree the
+   * width recorded for it in <code>basePositions</code> by the last layout.
+   *
+   * @deprecated the layout no longer recurses through the tree; see {@link #buildTree(LayoutModel)}
+   */
+  @Deprecated
   protected void buildTree(LayoutModel<N> layoutModel, N node, int x) {
-
     if (alreadyDone.add(node)) {
       // go one level further down
       double newY = this.currentY + this.distY;
@@ -126,32 +204,14 @@ public class TreeLayoutAlgorithm<N> implements LayoutAlgorithm<N> {
     }
   }
 
-  private int calculateDimensionX(LayoutModel<N> layoutModel, N node) {
-
-    int size = 0;
-    int childrenNum = layoutModel.getGraph().successors(node).size();
-
-    if (childrenNum != 0) {
-      for (N element : layoutModel.getGraph().successors(node)) {
-        size += calculateDimensionX(layoutModel, element) + distX;
-      }
-    }
-    size = Math.max(0, size - distX);
-    basePositions.put(node, size);
-
-    return size;
-  }
-
-  private int calculateDimensionX(LayoutModel<N> layoutModel, Collection<N> roots) {
-
-    int size = 0;
-    for (N node : roots) {
-      size += calculateDimensionX(layoutModel, node);
-    }
-
-    return size;
-  }
-
+  /**
+   * Places <code>node</code> at (<code>currentX</code>, <code>currentY</code>), growing the layout
+   * area if it does not hold that location.
+   *
+   * @deprecated the layout area is grown once, before the nodes are placed; override {@link
+   *     #setLocation(LayoutModel, Object, double, double)} instead
+   */
+  @Deprecated
   protected void setCurrentPositionFor(LayoutModel<N> layoutModel, N node) {
     int width = layoutModel.getWidth();
     int height = layoutModel.getHeight();
@@ -175,10 +235,247 @@ public class TreeLayoutAlgorithm<N> implements LayoutAlgorithm<N> {
       layoutModel.setSize(width, height);
     }
 
-    //    Point location = layoutModel.get(node);
     setLocation(layoutModel, node, this.currentX, this.currentY);
   }
 
+  private double y(TreeIndex<N> tree, int v) {
+    return 20 + (tree.depth[v] + 1) * distY;
+  }
+
+  /**
+   * Returns the width allotted to each subtree: a leaf takes no width, and the children of a node
+   * are separated by <code>distX</code>.
+   */
+  private int[] widths(TreeIndex<N> tree) {
+    int[] widths = new int[tree.root + 1];
+    for (int i = 0; i < tree.size; i++) {
+      int v = tree.postorder[i];
+      int width = 0;
+      for (int k = tree.childOffsets[v]; k < tree.childOffsets[v + 1]; k++) {
+        width += widths[tree.children[k]] + distX;
+      }
+      widths[v] = Math.max(0, width - distX);
+    }
+    return widths;
+  }
+
+  /**
+   * Returns the x coordinate of each node when each subtree is allotted the width given by {@link
+   * #widths}, with each node centered over its subtree. The roots of the graph are placed side by
+   * side as the children of the virtual root.
+   */
+  private double[] positions(TreeIndex<N> tree, int[] widths) {
+    int[] x = new int[tree.root + 1];
+    x[tree.root] = widths[tree.root] / 2 + distX;
+    for (int i = 0; i < tree.size; i++) {
+      int v = tree.preorder[i];
+      int lastX = x[v] - widths[v] / 2;
+      for (int k = tree.childOffsets[v]; k < tree.childOffsets[v + 1]; k++) {
+        int child = tree.children[k];
+        x[child] = lastX + widths[child] / 2;
+        lastX += widths[child] + distX;
+      }
+    }
+    double[] positions = new double[tree.root + 1];
+    for (int v = 0; v <= tree.root; v++) {
+      positions[v] = x[v];
+    }
+    return positions;
+  }
+
+  /**
+   * Returns the x coordinate of each node in a tidy layout, computed by Walker's algorithm in the
+   * linear-time form of Buchheim, Jünger and Leipert. The first walk visits the nodes in
+   * post-order, placing each node relative to its parent and moving each subtree right as far as
+   * needed to separate it by <code>distX</code> from the subtrees to its left at every level; the
+   * contours of the subtrees are followed through threads, and the moves are recorded as modifiers
+   * to be summed by the second walk, in pre-order. Neither walk recurses.
+   *
+   * @see "C. Buchheim, M. Jünger and S. Leipert: Improving Walker's Algorithm to Run in Linear
+   *     Time, 2002."
+   */
+  private double[] tidyPositions(TreeIndex<N> tree) {
+    int n = tree.root + 1;
+    Walker walker = new Walker(tree, distX);
+    for (int i = 0; i < tree.size; i++) {
+      walker.firstWalk(tree.postorder[i]);
+    }
+
+    double[] x = new double[n];
+    double minX = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < tree.size; i++) {
+      int v = tree.preorder[i];
+      // after this, mod[v] is the sum of the modifiers of v and its ancestors
+      double offset = v == tree.root ? 0 : walker.mod[tree.parent[v]];
+      x[v] = walker.prelim[v] + offset;
+      walker.mod[v] += offset;
+      if (v != tree.root) {
+        minX = Math.min(minX, x[v]);
+      }
+    }
+    // put the leftmost node at distX, as the non-tidy layout does
+    for (int v = 0; v < n; v++) {
+      x[v] += distX - minX;
+    }
+    return x;
+  }
+
+  /** The state of the first walk of a tidy layout; see {@link #tidyPositions}. */
+  private static class Walker {
+    final TreeIndex<?> tree;
+    final double distance;
+    final double[] prelim;
+    final double[] mod;
+    final double[] shift;
+    final double[] change;
+    final int[] thread;
+    final int[] ancestor;
+    /** The default ancestor used while the children of each node are apportioned. */
+    final int[] defaultAncestor;
+    /** The offset of each node in <code>tree.children</code>. */
+    final int[] slot;
+
+    Walker(TreeIndex<?> tree, double distance) {
+      int n = tree.root + 1;
+      this.tree = tree;
+      this.distance = distance;
+      this.prelim = new double[n];
+      this.mod = new double[n];
+      this.shift = new double[n];
+      this.change = new double[n];
+      this.thread = new int[n];
+      this.ancestor = new int[n];
+      this.defaultAncestor = new int[n];
+      this.slot = new int[n];
+      Arrays.fill(thread, -1);
+      for (int k = 0; k < tree.children.length; k++) {
+        slot[tree.children[k]] = k;
+      }
+      for (int v = 0; v < n; v++) {
+        ancestor[v] = v;
+        defaultAncestor[v] = tree.childCount(v) > 0 ? tree.children[tree.childOffsets[v]] : -1;
+      }
+    }
+
+    /**
+     * Places <code>v</code>, all of whose children have been placed, and then apportions it against
+     * its left siblings.
+     */
+    void firstWalk(int v) {
+      int left = leftSibling(v);
+      if (tree.childCount(v) == 0) {
+        prelim[v] = left >= 0 ? prelim[left] + distance : 0;
+      } else {
+        executeShifts(v);
+        int first = tree.children[tree.childOffsets[v]];
+        int last = tree.children[tree.childOffsets[v + 1] - 1];
+        double midpoint = (prelim[first] + prelim[last]) / 2;
+        if (left >= 0) {
+          prelim[v] = prelim[left] + distance;
+          mod[v] = prelim[v] - midpoint;
+        } else {
+          prelim[v] = midpoint;
+        }
+      }
+      int parent = tree.parent[v];
+      if (parent >= 0) {
+        defaultAncestor[parent] = apportion(v, defaultAncestor[parent]);
+      }
+    }
+
+    private int apportion(int v, int defaultAncestor) {
+      int w = leftSibling(v);
+      if (w < 0) {
+        return defaultAncestor;
+      }
+      // the inner and outer contours of v's subtree (p) and of its left siblings' subtrees (m)
+      int vip = v;
+      int vop = v;
+      int vim = w;
+      int vom = tree.children[tree.childOffsets[tree.parent[v]]];
+      double sip = mod[vip];
+      double sop = mod[vop];
+      double sim = mod[vim];
+      double som = mod[vom];
+      while (nextRight(vim) >= 0 && nextLeft(vip) >= 0) {
+        vim = nextRight(vim);
+        vip = nextLeft(vip);
+        vom = nextLeft(vom);
+        vop = nextRight(vop);
+        ancestor[vop] = v;
+        double s = (prelim[vim] + sim) - (prelim[vip] + sip) + distance;
+        if (s > 0) {
+          int a = tree.parent[ancestor[vim]] == tree.parent[v] ? ancestor[vim] : defaultAncestor;
+          moveSubtree(a, v, s);
+          sip += s;
+          sop += s;
+        }
+        sim += mod[vim];
+        sip += mod[vip];
+        som += mod[vom];
+        sop += mod[vop];
+      }
+      if (nextRight(vim) >= 0 && nextRight(vop) < 0) {
+        thread[vop] = nextRight(vim);
+        mod[vop] += sim - sop;
+      }
+      if (nextLeft(vip) >= 0 && nextLeft(vom) < 0) {
+        thread[vom] = nextLeft(vip);
+        mod[vom] += sip - som;
+        defaultAncestor = v;
+      }
+      return defaultAncestor;
+    }
+
+    /** Moves the subtree of <code>wp</code>, spreading the move among the subtrees between. */
+    private void moveSubtree(int wm, int wp, double s) {
+      double subtrees = number(wp) - number(wm);
+      change[wp] -= s / subtrees;
+      shift[wp] += s;
+      change[wm] += s / subtrees;
+      prelim[wp] += s;
+      mod[wp] += s;
+    }
+
+    /** Applies the moves recorded by moveSubtree to the children of <code>v</code>. */
+    private void executeShifts(int v) {
+      double s = 0;
+      double c = 0;
+      for (int k = tree.childOffsets[v + 1] - 1; k >= tree.childOffsets[v]; k--) {
+        int w = tree.children[k];
+        prelim[w] += s;
+        mod[w] += s;
+        c += change[w];
+        s += shift[w] + c;
+      }
+    }
+
+    private int nextLeft(int v) {
+      return tree.childCount(v) > 0 ? tree.children[tree.childOffsets[v]] : thread[v];
+    }
+
+    private int nextRight(int v) {
+      return tree.childCount(v) > 0 ? tree.children[tree.childOffsets[v + 1] - 1] : thread[v];
+    }
+
+    /**
+     * @return the position of <code>v</code> among its siblings
+     */
+    private int number(int v) {
+      int parent = tree.parent[v];
+      return slot[v] - tree.childOffsets[parent];
+    }
+
+    private int leftSibling(int v) {
+      int parent = tree.parent[v];
+      if (parent < 0) {
+        return -1;
+      }
+      int k = slot[v];
+      return k > tree.childOffsets[parent] ? tree.children[k - 1] : -1;
+    }
+  }
+
   /**
    * can be overridden to add behavior
    *
@@ -10,6 +10,7 @@ import edu.uci.ics.jung.layout.algorithms.LayoutAlgorithm;
 import edu.uci.ics.jung.layout.util.LayoutChangeListener;
 import edu.uci.ics.jung.layout.util.LayoutEvent;
 import edu.uci.ics.jung.layout.util.LayoutEventSupport;
+import edu.uci.ics.jung.layout.util.LayoutMetrics;
 import edu.uci.ics.jung.layout.util.VisRunnable;
 import java.util.ConcurrentModificationException;
 import java.util.List;
@@ -42,6 +43,7 @@ public abstract class AbstractLayoutModel<N>
   protected boolean relaxing;
 
   protected CompletableFuture theFuture;
+  protected LayoutMetrics<N> layoutMetrics;
   protected LayoutModel.ChangeSupport changeSupport = new DefaultLayoutModelChangeSupport();
   private List<LayoutChangeListener<N>> layoutChangeListeners = Lists.newArrayList();
   protected LayoutModel.LayoutStateChangeSupport layoutStateChangeSupport =
@@ -118,6 +120,7 @@ public abstract class AbstractLayoutModel<N>
    *
    * @param iterativeContext
    */
+  @SuppressWarnings("unchecked")
   protected void setupVisRunner(IterativeLayoutAlgorithm iterativeContext) {
     log.trace("this {} is setting up a visRunnable with {}", this, iterativeContext);
     if (visRunnable != null) {
@@ -134,8 +137,39 @@ public abstract class AbstractLayoutModel<N>
     iterativeContext.preRelax();
     changeSupport.setFireEvents(true);
     log.trace("prerelax is done");
+    startVisRunner(iterativeContext);
+  }
+
+  /**
+   * start a new VisRunner for the passed IterativeLayoutAlgorithm, which has already visited this
+   * LayoutModel, with no prerelax phase. If there is a current VisRunner, stop it first.
+   *
+   * @param layoutAlgorithm
+   */
+  @Override
+  public void resumeRelaxer(IterativeLayoutAlgorithm<N> layoutAlgorithm) {
+    log.trace("resuming {}", layoutAlgorithm);
+    if (visRunnable != null) {
+      visRunnable.stop();
+    }
+    if (theFuture != null) {
+      theFuture.cancel(true);
+    }
+    layoutStateChangeSupport.fireLayoutStateChanged(this, true);
+    changeSupport.setFireEvents(true);
+    setRelaxing(true);
+    startVisRunner(layoutAlgorithm);
+  }
+
+  @Override
+  public void setLayoutMetrics(LayoutMetrics<N> layoutMetrics) {
+    this.layoutMetrics = layoutMetrics;
+  }
 
-    visRunnable = new VisRunnable(iterativeContext);
+  private void startVisRunner(IterativeLayoutAlgorithm<N> iterativeContext) {
+    visRunnable =
+        new VisRunnable(
+            layoutMetrics != null ? layoutMetrics.instrument(iterativeContext) : iterativeContext);
     theFuture =
         CompletableFuture.runAsync(visRunnable)
             .thenRun(
@@ -11,7 +11,9 @@ package edu.uci.ics.jung.layout.model;
 
 import com.google.common.collect.Maps;
 import com.google.common.graph.Graph;
+import edu.uci.ics.jung.layout.algorithms.IterativeLayoutAlgorithm;
 import edu.uci.ics.jung.layout.algorithms.LayoutAlgorithm;
+import edu.uci.ics.jung.layout.util.LayoutMetrics;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -55,6 +57,25 @@ public interface LayoutModel<N> extends Function<N, Point> {
   /** stop a relaxer Thread from continuing to operate */
   void stopRelaxer();
 
+  /**
+   * start a relaxer Thread for a LayoutAlgorithm that has already visited this LayoutModel, without
+   * visiting it again, replacing any relaxer that is operating. The default implementation accepts
+   * the algorithm again, which re-initializes it.
+   *
+   * @param layoutAlgorithm the algorithm to relax
+   */
+  default void resumeRelaxer(IterativeLayoutAlgorithm<N> layoutAlgorithm) {
+    accept(layoutAlgorithm);
+  }
+
+  /**
+   * measure each step of the relaxer Threads started after this call. The default implementation
+   * does not measure.
+   *
+   * @param layoutMetrics the metrics to record the steps in, or null to stop measuring
+   */
+  default void setLayoutMetrics(LayoutMetrics<N> layoutMetrics) {}
+
   /**
    * indicates that there is a relaxer thread operating on this LayoutModel
    *
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.layout.spatial;
+
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+
+/**
+ * A uniform grid of cells over a rectangular area, indexing the locations of elements identified by
+ * integers in <code>[0, capacity)</code>. Each cell holds a doubly-linked list (stored in arrays)
+ * of the elements located in it, so elements may be added, moved and removed in constant time.
+ * Locations outside the grid's bounds are assigned to the nearest cell on its border.
+ *
+ * <p>{@link #nearest(double, double)} searches the cells in rings of increasing distance around the
+ * query location, and stops as soon as no closer element can lie in the remaining cells; when the
+ * elements are roughly evenly spread, and there are about as many cells as elements, it examines a
+ * constant number of elements.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class GridIndex {
+
+  private final Rectangle bounds;
+  private final int columns;
+  private final int rows;
+  private final double cellWidth;
+  private final double cellHeight;
+  private final int[] head; // the first element of each cell's list, or -1
+  private final int[] next;
+  private final int[] previous;
+  private final int[] cell; // the cell of each element, or -1 if it is absent
+  private final double[] xs;
+  private final double[] ys;
+  private int size;
+  // the state of the current nearest-element search
+  private int nearest;
+  private double nearestDistance;
+
+  /**
+   * Creates an empty grid over <code>bounds</code> with the specified number of cells.
+   *
+   * @param bounds the area covered by the grid
+   * @param columns the number of columns of cells
+   * @param rows the number of rows of cells
+   * @param capacity the number of elements that can be indexed
+   */
+  public GridIndex(Rectangle bounds, int columns, int rows, int capacity) {
+    Preconditions.checkArgument(columns > 0 && rows > 0, "columns and rows must be > 0");
+    Preconditions.checkArgument(capacity >= 0, "capacity must be >= 0");
+    this.bounds = bounds;
+    this.columns = columns;
+    this.rows = rows;
+    this.cellWidth = bounds.width > 0 ? bounds.width / columns : 1;
+    this.cellHeight = bounds.height > 0 ? bounds.height / rows : 1;
+    this.head = new int[columns * rows];
+    this.next = new int[capacity];
+    this.previous = new int[capacity];
+    this.cell = new int[capacity];
+    this.xs = new double[capacity];
+    this.ys = new double[capacity];
+    Arrays.fill(head, -1);
+    Arrays.fill(cell, -1);
+  }
+
+  /**
+   * Creates an empty grid over <code>bounds</code>, with about one cell per element and cells whose
+   * shape follows the aspect ratio of <code>bounds</code>.
+   *
+   * @param bounds the area covered by the grid
+   * @param capacity the number of elements that can be indexed
+   * @return the grid
+   */
+  public static GridIndex withCapacity(Rectangle bounds, int capacity) {
+    double aspect = bounds.width > 0 && bounds.height > 0 ? bounds.width / bounds.height : 1.0;
+    int cells = Math.max(1, capacity);
+    int columns = (int) Math.max(1, Math.min(cells, Math.round(Math.sqrt(cells * aspect))));
+    int rows = Math.max(1, (int) Math.ceil((double) cells / columns));
+    return new GridIndex(bounds, columns, rows, capacity);
+  }
+
+  /**
+   * @return the number of elements in the grid
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param element an element id
+   * @return {@code true} if the element is in the grid
+   */
+  public boolean contains(int element) {
+    return cell[Preconditions.checkElementIndex(element, cell.length)] >= 0;
+  }
+
+  /**
+   * @param element an element in the grid
+   * @return the x coordinate at which the element was last placed
+   */
+  public double getX(int element) {
+    return xs[element];
+  }
+
+  /**
+   * @param element an element in the grid
+   * @return the y coordinate at which the element was last placed
+   */
+  public double getY(int element) {
+    return ys[element];
+  }
+
+  /**
+   * Places <code>element</code> at <code>(x, y)</code>, adding it to the grid or moving it if it is
+   * already present.
+   *
+   * @param element the element id
+   * @param x the x coordinate of the element's location
+   * @param y the y coordinate of the element's location
+   */
+  public void put(int element, double x, double y) {
+    Preconditions.checkElementIndex(element, cell.length);
+    xs[element] = x;
+    ys[element] = y;
+    int c = cellOf(x, y);
+    if (cell[element] == c) {
+      return;
+    }
+    if (cell[element] >= 0) {
+      unlink(element);
+    } else {
+      size++;
+    }
+    cell[element] = c;
+    previous[element] = -1;
+    next[element] = head[c];
+    if (head[c] >= 0) {
+      previous[head[c]] = element;
+    }
+    head[c] = element;
+  }
+
+  /**
+   * Removes <code>element</code> from the grid, if it is present.
+   *
+   * @param element the element id
+   */
+  public void remove(int element) {
+    if (contains(element)) {
+      unlink(element);
+      cell[element] = -1;
+      size--;
+    }
+  }
+
+  /** Removes all elements from the grid. */
+  public void clear() {
+    Arrays.fill(head, -1);
+    Arrays.fill(cell, -1);
+    size = 0;
+  }
+
+  /**
+   * Returns the element nearest to <code>(x, y)</code>; ties are broken in favor of the element
+   * found first.
+   *
+   * @param x the x coordinate of the query location
+   * @param y the y coordinate of the query location
+   * @return the nearest element, or -1 if the grid is empty
+   */
+  public int nearest(double x, double y) {
+    if (size == 0) {
+      return -1;
+    }
+    int column = column(x);
+    int row = row(y);
+    double step = Math.min(cellWidth, cellHeight);
+    nearest = -1;
+    nearestDistance = Double.POSITIVE_INFINITY;
+    int maxRing = Math.max(Math.max(column, columns - 1 - column), Math.max(row, rows - 1 - row));
+    for (int ring = 0; ring <= maxRing; ring++) {
+      int left = Math.max(0, column - ring);
+      int right = Math.min(columns - 1, column + ring);
+      if (row - ring >= 0) {
+        for (int c = left; c <= right; c++) {
+          scan(row - ring, c, x, y);
+        }
+      }
+      if (ring > 0 && row + ring < rows) {
+        for (int c = left; c <= right; c++) {
+          scan(row + ring, c, x, y);
+        }
+      }
+      for (int r = Math.max(0, row - ring + 1); r <= Math.min(rows - 1, row + ring - 1); r++) {
+        if (ring > 0 && column - ring >= 0) {
+          scan(r, column - ring, x, y);
+        }
+        if (ring > 0 && column + ring < columns) {
+          scan(r, column + ring, x, y);
+        }
+      }
+      // every element in a later ring is at least ring * step away
+      double reach = ring * step;
+      if (nearest >= 0 && nearestDistance <= reach * reach) {
+        break;
+      }
+    }
+    return nearest;
+  }
+
+  /** Updates the nearest element found so far with the elements of the specified cell. */
+  private void scan(int row, int column, double x, double y) {
+    for (int e = head[row * columns + column]; e >= 0; e = next[e]) {
+      double dx = xs[e] - x;
+      double dy = ys[e] - y;
+      double d = dx * dx + dy * dy;
+      if (d < nearestDistance) {
+        nearestDistance = d;
+        nearest = e;
+      }
+    }
+  }
+
+  private void unlink(int element) {
+    int c = cell[element];
+    if (previous[element] >= 0) {
+      next[previous[element]] = next[element];
+    } else {
+      head[c] = next[element];
+    }
+    if (next[element] >= 0) {
+      previous[next[element]] = previous[element];
+    }
+  }
+
+  private int cellOf(double x, double y) {
+    return row(y) * columns + column(x);
+  }
+
+  private int column(double x) {
+    int column = (int) Math.floor((x - bounds.x) / cellWidth);
+    return Math.max(0, Math.min(columns - 1, column));
+  }
+
+  private int row(double y) {
+    int row = (int) Math.floor((y - bounds.y) / cellHeight);
+    return Math.max(0, Math.min(rows - 1, row));
+  }
+
+  @Override
+  public String toString() {
+    return "GridIndex{" + columns + "x" + rows + ", size=" + size + "}";
+  }
+}
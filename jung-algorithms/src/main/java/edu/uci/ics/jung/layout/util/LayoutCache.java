@@ -0,0 +1,481 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.layout.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.Graph;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import edu.uci.ics.jung.layout.algorithms.AbstractIterativeLayoutAlgorithm;
+import edu.uci.ics.jung.layout.algorithms.IncrementalLayoutAlgorithm;
+import edu.uci.ics.jung.layout.algorithms.LayoutAlgorithm;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.layout.model.Point;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the node locations of LayoutModels in a directory, one file per graph, named for a
+ * structural fingerprint of the graph, so that a graph that is opened again can start from the
+ * locations that it had before instead of relaxing from random ones.
+ *
+ * <p>Nodes are identified across runs by a key function, which must give each node of a graph a
+ * distinct string. The fingerprint depends only on the keys of the nodes and of the endpoints of
+ * the edges, not on the order in which they were added. When there is no file for a graph's
+ * fingerprint, the file of the most similar cached graph is used instead, if the estimated Jaccard
+ * similarity of their node sets (from a MinHash sketch stored in each file) is at least {@code
+ * minSimilarity}; the nodes that it does not hold, and the nodes whose neighbors have changed, are
+ * then the only ones that need to be relaxed.
+ *
+ * <p>Each file holds, gzipped, a short header followed by the key, neighborhood hash and location
+ * (as floats) of each node.
+ *
+ * @param <N> the node type
+ */
+public class LayoutCache<N> {
+
+  private static final Logger log = LoggerFactory.getLogger(LayoutCache.class);
+
+  private static final int MAGIC = 0x4a4c4331; // "JLC1"
+  private static final int VERSION = 1;
+  private static final String SUFFIX = ".layout";
+  private static final int SKETCH_SIZE = 64;
+  private static final HashFunction HASH = Hashing.murmur3_128();
+
+  /** How a LayoutModel was started by {@link #warmStart}. */
+  public enum Start {
+    /** the graph was unchanged; its cached locations were restored and nothing was relaxed */
+    EXACT,
+    /** the graph was similar to a cached one; only the difference was relaxed, if possible */
+    WARM,
+    /** no similar graph was cached; the layout algorithm was run from the start */
+    COLD
+  }
+
+  private final Path directory;
+  private final Function<? super N, String> keyFunction;
+  private double minSimilarity = 0.8;
+
+  /**
+   * @param directory the directory that holds the cached layouts
+   * @param keyFunction gives each node a string that identifies it across runs
+   */
+  public LayoutCache(Path directory, Function<? super N, String> keyFunction) {
+    this.directory = checkNotNull(directory);
+    this.keyFunction = checkNotNull(keyFunction);
+  }
+
+  /**
+   * @param minSimilarity the least estimated similarity of node sets for which a cached layout of a
+   *     different graph is used
+   */
+  public void setMinSimilarity(double minSimilarity) {
+    checkArgument(minSimilarity > 0 && minSimilarity <= 1, "minSimilarity must be in (0, 1]");
+    this.minSimilarity = minSimilarity;
+  }
+
+  /** The hashes of a graph's node keys and neighborhoods, in the graph's node order. */
+  private static final class Hashes {
+    final String[] keys;
+    final long[] nodeHashes;
+    final long[] neighborhoodHashes;
+    final long fingerprint;
+
+    Hashes(String[] keys, long[] nodeHashes, long[] neighborhoodHashes, long fingerprint) {
+      this.keys = keys;
+      this.nodeHashes = nodeHashes;
+      this.neighborhoodHashes = neighborhoodHashes;
+      this.fingerprint = fingerprint;
+    }
+  }
+
+  private Hashes hash(Graph<N> graph) {
+    int n = graph.nodes().size();
+    String[] keys = new String[n];
+    long[] nodeHashes = new long[n];
+    Map<N, Integer> indices = new HashMap<>();
+    int i = 0;
+    for (N node : graph.nodes()) {
+      keys[i] = checkNotNull(keyFunction.apply(node), "key of %s", node);
+      nodeHashes[i] = HASH.hashString(keys[i], StandardCharsets.UTF_8).asLong();
+      indices.put(node, i++);
+    }
+    // each neighborhood is a sum of mixed hashes, so that it does not depend on iteration order
+    long[] neighborhoodHashes = new long[n];
+    long fingerprint = mix(n) + (graph.isDirected() ? 1 : 0);
+    i = 0;
+    for (N node : graph.nodes()) {
+      long h = 0;
+      for (N successor : graph.successors(node)) {
+        h += mix(nodeHashes[indices.get(successor)]);
+      }
+      if (graph.isDirected()) {
+        for (N predecessor : graph.predecessors(node)) {
+          h += mix(~nodeHashes[indices.get(predecessor)]);
+        }
+      }
+      neighborhoodHashes[i] = h;
+      fingerprint += mix(nodeHashes[i] ^ mix(h));
+      i++;
+    }
+    return new Hashes(keys, nodeHashes, neighborhoodHashes, fingerprint);
+  }
+
+  /** The finalizer of MurmurHash3, which spreads the bits of a 64-bit hash. */
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private static long[] sketch(long[] nodeHashes) {
+    long[] sketch = new long[SKETCH_SIZE];
+    Arrays.fill(sketch, Long.MAX_VALUE);
+    for (long h : nodeHashes) {
+      for (int k = 0; k < SKETCH_SIZE; k++) {
+        sketch[k] = Math.min(sketch[k], mix(h + k * 0x9e3779b97f4a7c15L));
+      }
+    }
+    return sketch;
+  }
+
+  private static double similarity(long[] a, long[] b) {
+    int same = 0;
+    for (int k = 0; k < SKETCH_SIZE; k++) {
+      if (a[k] == b[k]) {
+        same++;
+      }
+    }
+    return same / (double) SKETCH_SIZE;
+  }
+
+  /**
+   * @param graph the graph to fingerprint
+   * @return the structural fingerprint of {@code graph}, which names its cache file
+   */
+  public long fingerprint(Graph<N> graph) {
+    return hash(graph).fingerprint;
+  }
+
+  private Path path(long fingerprint) {
+    return directory.resolve(String.format("%016x%s", fingerprint, SUFFIX));
+  }
+
+  /**
+   * Saves the locations of the nodes of {@code layoutModel}'s graph, replacing any saved for the
+   * same graph.
+   *
+   * @param layoutModel the LayoutModel whose locations are saved
+   * @throws IOException if the file cannot be written
+   */
+  public void save(LayoutModel<N> layoutModel) throws IOException {
+    Graph<N> graph = layoutModel.getGraph();
+    Hashes hashes = hash(graph);
+    Files.createDirectories(directory);
+    Path path = path(hashes.fingerprint);
+    Path temp = Files.createTempFile(directory, "layout", ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(
+            new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp))))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(hashes.fingerprint);
+      out.writeInt(layoutModel.getWidth());
+      out.writeInt(layoutModel.getHeight());
+      for (long s : sketch(hashes.nodeHashes)) {
+        out.writeLong(s);
+      }
+      out.writeInt(hashes.keys.length);
+      int i = 0;
+      for (N node : graph.nodes()) {
+        Point p = layoutModel.apply(node);
+        out.writeUTF(hashes.keys[i]);
+        out.writeLong(hashes.neighborhoodHashes[i]);
+        out.writeFloat((float) p.x);
+        out.writeFloat((float) p.y);
+        i++;
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    // replace the file in one step, so that a concurrent load never sees a partial file
+    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    log.debug("saved {} node locations to {}", hashes.keys.length, path);
+  }
+
+  /** The header of a cache file. */
+  private static final class Header {
+    final long fingerprint;
+    final int width;
+    final int height;
+    final long[] sketch;
+
+    Header(long fingerprint, int width, int height, long[] sketch) {
+      this.fingerprint = fingerprint;
+      this.width = width;
+      this.height = height;
+      this.sketch = sketch;
+    }
+  }
+
+  private static DataInputStream open(Path path) throws IOException {
+    return new DataInputStream(
+        new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))));
+  }
+
+  private static Header readHeader(DataInputStream in, Path path) throws IOException {
+    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+      throw new IOException(path + " is not a cached layout");
+    }
+    long fingerprint = in.readLong();
+    int width = in.readInt();
+    int height = in.readInt();
+    long[] sketch = new long[SKETCH_SIZE];
+    for (int k = 0; k < SKETCH_SIZE; k++) {
+      sketch[k] = in.readLong();
+    }
+    return new Header(fingerprint, width, height, sketch);
+  }
+
+  /**
+   * Loads the cached layout of {@code graph}, or else of the most similar cached graph.
+   *
+   * @param graph the graph whose layout is wanted
+   * @return the cached layout, or empty if no similar graph is cached
+   * @throws IOException if a cache file cannot be read
+   */
+  public Optional<CachedLayout<N>> load(Graph<N> graph) throws IOException {
+    Hashes hashes = hash(graph);
+    Path path = path(hashes.fingerprint);
+    if (!Files.exists(path)) {
+      path = findSimilar(sketch(hashes.nodeHashes));
+      if (path == null) {
+        return Optional.empty();
+      }
+    }
+    Map<String, Integer> indices = new HashMap<>();
+    for (int i = 0; i < hashes.keys.length; i++) {
+      indices.put(hashes.keys[i], i);
+    }
+    List<N> nodes = ImmutableList.copyOf(graph.nodes());
+    ImmutableMap.Builder<N, Point> locations = ImmutableMap.builder();
+    ImmutableSet.Builder<N> changed = ImmutableSet.builder();
+    boolean[] cached = new boolean[nodes.size()];
+    Header header;
+    try (DataInputStream in = open(path)) {
+      header = readHeader(in, path);
+      int count = in.readInt();
+      for (int j = 0; j < count; j++) {
+        String key = in.readUTF();
+        long neighborhoodHash = in.readLong();
+        float x = in.readFloat();
+        float y = in.readFloat();
+        Integer i = indices.get(key);
+        if (i != null) {
+          cached[i] = true;
+          locations.put(nodes.get(i), Point.of(x, y));
+          if (neighborhoodHash != hashes.neighborhoodHashes[i]) {
+            changed.add(nodes.get(i));
+          }
+        }
+      }
+    }
+    ImmutableSet.Builder<N> added = ImmutableSet.builder();
+    for (int i = 0; i < nodes.size(); i++) {
+      if (!cached[i]) {
+        added.add(nodes.get(i));
+      }
+    }
+    return Optional.of(
+        new CachedLayout<>(
+            header.fingerprint == hashes.fingerprint,
+            header.width,
+            header.height,
+            locations.build(),
+            added.build(),
+            changed.build()));
+  }
+
+  private Path findSimilar(long[] sketch) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return null;
+    }
+    Path best = null;
+    double bestSimilarity = minSimilarity;
+    try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      for (Path path : paths) {
+        try (DataInputStream in = open(path)) {
+          double similarity = similarity(sketch, readHeader(in, path).sketch);
+          if (similarity >= bestSimilarity) {
+            best = path;
+            bestSimilarity = similarity;
+          }
+        } catch (IOException e) {
+          log.warn("skipping unreadable cached layout {}", path, e);
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Starts {@code layoutModel} from the cached layout of its graph, if there is one. An unchanged
+   * graph gets its cached locations and no relaxation. A similar graph gets the cached locations of
+   * the nodes that it shares; if {@code layoutAlgorithm} is an {@link IncrementalLayoutAlgorithm},
+   * only the added and changed nodes and their neighbors are then relaxed, and otherwise the
+   * algorithm is run from the warm locations (with {@code setKeepLocations(true)} for the duration
+   * of its visit, if it is an {@link AbstractIterativeLayoutAlgorithm}). Otherwise, the algorithm
+   * is run as usual.
+   *
+   * @param layoutModel the LayoutModel to start
+   * @param layoutAlgorithm the algorithm that lays out the graph when it is not in the cache
+   * @return how the LayoutModel was started
+   * @throws IOException if a cache file cannot be read
+   */
+  public Start warmStart(LayoutModel<N> layoutModel, LayoutAlgorithm<N> layoutAlgorithm)
+      throws IOException {
+    Optional<CachedLayout<N>> cachedLayout = load(layoutModel.getGraph());
+    if (!cachedLayout.isPresent()) {
+      layoutModel.accept(layoutAlgorithm);
+      return Start.COLD;
+    }
+    CachedLayout<N> cached = cachedLayout.get();
+    layoutModel.stopRelaxer();
+    layoutModel.setInitializer(
+        cached.initializer(
+            layoutModel.getWidth(),
+            layoutModel.getHeight(),
+            new RandomLocationTransformer<>(layoutModel.getWidth(), layoutModel.getHeight())));
+    if (cached.isExact()) {
+      layoutModel.getChangeSupport().fireChanged();
+      return Start.EXACT;
+    }
+    if (layoutAlgorithm instanceof IncrementalLayoutAlgorithm) {
+      IncrementalLayoutAlgorithm<N> incremental = (IncrementalLayoutAlgorithm<N>) layoutAlgorithm;
+      incremental.visit(layoutModel);
+      incremental.update(cached.getAdded(), cached.getChanged(), ImmutableSet.of());
+      layoutModel.resumeRelaxer(incremental);
+    } else if (layoutAlgorithm instanceof AbstractIterativeLayoutAlgorithm) {
+      // start from the warm locations rather than random ones
+      AbstractIterativeLayoutAlgorithm<N> iterative =
+          (AbstractIterativeLayoutAlgorithm<N>) layoutAlgorithm;
+      boolean keepLocations = iterative.isKeepLocations();
+      iterative.setKeepLocations(true);
+      try {
+        layoutModel.accept(iterative);
+      } finally {
+        iterative.setKeepLocations(keepLocations);
+      }
+    } else {
+      layoutModel.accept(layoutAlgorithm);
+    }
+    return Start.WARM;
+  }
+
+  /**
+   * The locations that were cached for the nodes of a graph.
+   *
+   * @param <N> the node type
+   */
+  public static class CachedLayout<N> {
+    private final boolean exact;
+    private final int width;
+    private final int height;
+    private final Map<N, Point> locations;
+    private final Set<N> added;
+    private final Set<N> changed;
+
+    CachedLayout(
+        boolean exact,
+        int width,
+        int height,
+        Map<N, Point> locations,
+        Set<N> added,
+        Set<N> changed) {
+      this.exact = exact;
+      this.width = width;
+      this.height = height;
+      this.locations = locations;
+      this.added = added;
+      this.changed = changed;
+    }
+
+    /**
+     * @return whether the layout was cached for this very graph
+     */
+    public boolean isExact() {
+      return exact;
+    }
+
+    /**
+     * @return the cached locations of the nodes of the graph that were cached
+     */
+    public Map<N, Point> getLocations() {
+      return locations;
+    }
+
+    /**
+     * @return the nodes of the graph that were not cached
+     */
+    public Set<N> getAdded() {
+      return added;
+    }
+
+    /**
+     * @return the cached nodes whose neighbors are not those that were cached
+     */
+    public Set<N> getChanged() {
+      return changed;
+    }
+
+    /**
+     * @param width the width of the layout area to place the nodes in
+     * @param height the height of the layout area to place the nodes in
+     * @param fallback places the nodes that were not cached
+     * @return the cached locations, scaled from the cached layout area to the passed one
+     */
+    public Function<N, Point> initializer(int width, int height, Function<N, Point> fallback) {
+      double sx = this.width == 0 ? 1 : width / (double) this.width;
+      double sy = this.height == 0 ? 1 : height / (double) this.height;
+      return node -> {
+        Point p = locations.get(node);
+        return p == null ? fallback.apply(node) : Point.of(p.x * sx, p.y * sy);
+      };
+    }
+  }
+}
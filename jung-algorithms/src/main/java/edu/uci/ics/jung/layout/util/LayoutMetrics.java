@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.layout.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import edu.uci.ics.jung.algorithms.util.IterativeContext;
+import edu.uci.ics.jung.layout.algorithms.InstrumentedLayoutAlgorithm;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.layout.model.Point;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongUnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures each step that the relaxer of a LayoutModel takes, once it is set with {@link
+ * LayoutModel#setLayoutMetrics(LayoutMetrics)}. For each step, it records the wall time, the number
+ * of nodes moved and the total and largest distance moved, and the bytes allocated by the relaxer
+ * thread where the JVM measures them; an {@link InstrumentedLayoutAlgorithm} adds the time spent in
+ * each phase and the energy of the layout. The {@link StepMetrics} of each step are passed to the
+ * listeners, and a summary of the most recent steps is kept.
+ *
+ * <p>Measuring displacement takes a pass over the nodes before and after each step; it can be
+ * turned off with {@link #setTrackDisplacement(boolean)}. The steps of the pre-relax phase are not
+ * measured.
+ *
+ * @param <N> the node type
+ */
+public class LayoutMetrics<N> {
+
+  private static final Logger log = LoggerFactory.getLogger(LayoutMetrics.class);
+
+  // the bytes allocated by the thread with a given id, or null if they cannot be measured
+  private static final LongUnaryOperator ALLOCATED_BYTES = allocatedBytes();
+
+  /** Listens for the metrics of each step. */
+  public interface Listener {
+    /**
+     * @param stepMetrics the metrics of the step, which are reused for the next step
+     */
+    void stepped(StepMetrics stepMetrics);
+  }
+
+  private final LayoutModel<N> layoutModel;
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private final StepMetrics current = new StepMetrics();
+  private boolean trackDisplacement = true;
+  private long steps;
+
+  // the locations of the nodes before the step
+  private ImmutableList<N> nodes = ImmutableList.of();
+  private double[] xs = new double[0];
+  private double[] ys = new double[0];
+
+  // the metrics of the most recent steps, in a ring
+  private final int window;
+  private int size;
+  private int next;
+  private final long[] wallNanos;
+  private final long[][] phaseNanos;
+  private final int[] nodesMoved;
+  private final double[] totalDisplacement;
+  private final double[] maxDisplacement;
+  private final long[] allocatedBytes;
+  private double lastEnergy = Double.NaN;
+
+  /**
+   * Creates an instance that summarizes the latest 100 steps.
+   *
+   * @param layoutModel the LayoutModel whose relaxer is measured
+   */
+  public LayoutMetrics(LayoutModel<N> layoutModel) {
+    this(layoutModel, 100);
+  }
+
+  /**
+   * @param layoutModel the LayoutModel whose relaxer is measured
+   * @param window the number of most recent steps that the summary covers
+   */
+  public LayoutMetrics(LayoutModel<N> layoutModel, int window) {
+    checkArgument(window > 0, "window must be > 0");
+    this.layoutModel = checkNotNull(layoutModel);
+    this.window = window;
+    this.wallNanos = new long[window];
+    this.phaseNanos = new long[StepMetrics.Phase.values().length][window];
+    this.nodesMoved = new int[window];
+    this.totalDisplacement = new double[window];
+    this.maxDisplacement = new double[window];
+    this.allocatedBytes = new long[window];
+  }
+
+  private static LongUnaryOperator allocatedBytes() {
+    try {
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (threads instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        if (sunThreads.isThreadAllocatedMemorySupported()
+            && sunThreads.isThreadAllocatedMemoryEnabled()) {
+          return sunThreads::getThreadAllocatedBytes;
+        }
+      }
+    } catch (LinkageError | RuntimeException e) {
+      log.debug("thread allocation is not measured", e);
+    }
+    return null;
+  }
+
+  public void addListener(Listener listener) {
+    listeners.add(checkNotNull(listener));
+  }
+
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * @param trackDisplacement whether to measure how far each step moves the nodes
+   */
+  public void setTrackDisplacement(boolean trackDisplacement) {
+    this.trackDisplacement = trackDisplacement;
+  }
+
+  /**
+   * @param context the IterativeContext that the relaxer steps
+   * @return an IterativeContext that steps {@code context}, measuring each step
+   */
+  public IterativeContext instrument(IterativeContext context) {
+    checkNotNull(context);
+    return new IterativeContext() {
+      @Override
+      public void step() {
+        measure(context);
+      }
+
+      @Override
+      public boolean done() {
+        return context.done();
+      }
+    };
+  }
+
+  private void measure(IterativeContext context) {
+    current.reset(steps++);
+    if (trackDisplacement) {
+      capture();
+    }
+    InstrumentedLayoutAlgorithm instrumented =
+        context instanceof InstrumentedLayoutAlgorithm
+            ? (InstrumentedLayoutAlgorithm) context
+            : null;
+    if (instrumented != null) {
+      instrumented.setStepMetrics(current);
+    }
+    long threadId = Thread.currentThread().getId();
+    long allocated = ALLOCATED_BYTES != null ? ALLOCATED_BYTES.applyAsLong(threadId) : -1;
+    long start = System.nanoTime();
+    try {
+      context.step();
+    } finally {
+      current.setWallNanos(System.nanoTime() - start);
+      if (allocated >= 0) {
+        current.setAllocatedBytes(ALLOCATED_BYTES.applyAsLong(threadId) - allocated);
+      }
+      if (instrumented != null) {
+        instrumented.setStepMetrics(null);
+      }
+    }
+    if (trackDisplacement) {
+      for (int i = 0; i < nodes.size(); i++) {
+        N node = nodes.get(i);
+        if (layoutModel.getGraph().nodes().contains(node)) {
+          Point p = layoutModel.apply(node);
+          double dx = p.x - xs[i];
+          double dy = p.y - ys[i];
+          current.addDisplacement(Math.sqrt(dx * dx + dy * dy));
+        }
+      }
+    }
+    record(current);
+    for (Listener listener : listeners) {
+      listener.stepped(current);
+    }
+  }
+
+  /** Saves the locations of the nodes, re-indexing them if the graph has changed size. */
+  private void capture() {
+    if (nodes.size() != layoutModel.getGraph().nodes().size()) {
+      while (true) {
+        try {
+          nodes = ImmutableList.copyOf(layoutModel.getGraph().nodes());
+          break;
+        } catch (ConcurrentModificationException cme) {
+        }
+      }
+      xs = new double[nodes.size()];
+      ys = new double[nodes.size()];
+    }
+    for (int i = 0; i < nodes.size(); i++) {
+      Point p = layoutModel.apply(nodes.get(i));
+      xs[i] = p.x;
+      ys[i] = p.y;
+    }
+  }
+
+  private synchronized void record(StepMetrics metrics) {
+    wallNanos[next] = metrics.getWallNanos();
+    for (StepMetrics.Phase phase : StepMetrics.Phase.values()) {
+      phaseNanos[phase.ordinal()][next] = metrics.getPhaseNanos(phase);
+    }
+    nodesMoved[next] = metrics.getNodesMoved();
+    totalDisplacement[next] = metrics.getTotalDisplacement();
+    maxDisplacement[next] = metrics.getMaxDisplacement();
+    allocatedBytes[next] = metrics.getAllocatedBytes();
+    if (!Double.isNaN(metrics.getEnergy())) {
+      lastEnergy = metrics.getEnergy();
+    }
+    next = (next + 1) % window;
+    size = Math.min(size + 1, window);
+  }
+
+  /**
+   * @return a summary of the most recent steps
+   */
+  public synchronized Summary getSummary() {
+    Summary summary = new Summary();
+    summary.steps = steps;
+    summary.window = size;
+    summary.lastEnergy = lastEnergy;
+    if (size == 0) {
+      return summary;
+    }
+    boolean allocationMeasured = true;
+    for (int i = 0; i < size; i++) {
+      summary.meanWallNanos += wallNanos[i] / (double) size;
+      summary.maxWallNanos = Math.max(summary.maxWallNanos, wallNanos[i]);
+      for (int p = 0; p < phaseNanos.length; p++) {
+        summary.meanPhaseNanos[p] += phaseNanos[p][i] / (double) size;
+      }
+      summary.meanNodesMoved += nodesMoved[i] / (double) size;
+      summary.meanTotalDisplacement += totalDisplacement[i] / size;
+      summary.maxDisplacement = Math.max(summary.maxDisplacement, maxDisplacement[i]);
+      summary.meanAllocatedBytes += allocatedBytes[i] / (double) size;
+      allocationMeasured &= allocatedBytes[i] >= 0;
+    }
+    if (!allocationMeasured) {
+      summary.meanAllocatedBytes = -1;
+    }
+    return summary;
+  }
+
+  /** A summary of the most recent steps of a relaxer. */
+  public static class Summary {
+    private long steps;
+    private int window;
+    private double meanWallNanos;
+    private long maxWallNanos;
+    private final double[] meanPhaseNanos = new double[StepMetrics.Phase.values().length];
+    private double meanNodesMoved;
+    private double meanTotalDisplacement;
+    private double maxDisplacement;
+    private double meanAllocatedBytes;
+    private double lastEnergy;
+
+    /**
+     * @return the number of steps measured in all
+     */
+    public long getSteps() {
+      return steps;
+    }
+
+    /**
+     * @return the number of most recent steps that this summary covers
+     */
+    public int getWindow() {
+      return window;
+    }
+
+    public double getMeanWallNanos() {
+      return meanWallNanos;
+    }
+
+    public long getMaxWallNanos() {
+      return maxWallNanos;
+    }
+
+    public double getMeanPhaseNanos(StepMetrics.Phase phase) {
+      return meanPhaseNanos[phase.ordinal()];
+    }
+
+    public double getMeanNodesMoved() {
+      return meanNodesMoved;
+    }
+
+    public double getMeanTotalDisplacement() {
+      return meanTotalDisplacement;
+    }
+
+    public double getMaxDisplacement() {
+      return maxDisplacement;
+    }
+
+    /**
+     * @return the mean bytes allocated per step, or -1 if they were not measured
+     */
+    public double getMeanAllocatedBytes() {
+      return meanAllocatedBytes;
+    }
+
+    /**
+     * @return the latest energy reported by the algorithm, or NaN if it reports none
+     */
+    public double getLastEnergy() {
+      return lastEnergy;
+    }
+
+    @Override
+    public String toString() {
+      return "Summary{"
+          + "steps="
+          + steps
+          + ", window="
+          + window
+          + ", meanWallNanos="
+          + meanWallNanos
+          + ", maxWallNanos="
+          + maxWallNanos
+          + ", meanRepulsionNanos="
+          + getMeanPhaseNanos(StepMetrics.Phase.REPULSION)
+          + ", meanAttractionNanos="
+          + getMeanPhaseNanos(StepMetrics.Phase.ATTRACTION)
+          + ", meanMoveNanos="
+          + getMeanPhaseNanos(StepMetrics.Phase.MOVE)
+          + ", meanNodesMoved="
+          + meanNodesMoved
+          + ", meanTotalDisplacement="
+          + meanTotalDisplacement
+          + ", maxDisplacement="
+          + maxDisplacement
+          + ", meanAllocatedBytes="
+          + meanAllocatedBytes
+          + ", lastEnergy="
+          + lastEnergy
+          + '}';
+    }
+  }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.layout.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.graph.Graph;
+import edu.uci.ics.jung.algorithms.util.Indexer;
+import edu.uci.ics.jung.layout.model.Point;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Provides node locations from a Pivot MDS embedding of the graph: the classical multidimensional
+ * scaling of the graph distances, approximated through the distances to a few pivot nodes. Used as
+ * the initializer of a LayoutModel, it starts an iterative layout from a placement that already
+ * reflects the structure of the graph, so that far fewer iterations are needed to reach a good
+ * layout than from random locations. Layouts that randomize their starting locations, such as
+ * {@code KKLayoutAlgorithm}, keep this placement only if {@code setKeepLocations(true)} has been
+ * called on them.
+ *
+ * <p>The pivots are chosen one at a time, each as far as possible from those chosen before, with a
+ * breadth-first search from each. The centered matrix C of squared distances from the nodes to the
+ * pivots is then formed, and the nodes are projected onto the two leading eigenvectors of the small
+ * matrix C<sup>T</sup>C, found by power iteration. The result is scaled to fit the layout area. The
+ * embedding takes O(k(n + m) + k<sup>2</sup>n) time for k pivots, and is computed on the first call
+ * to {@code apply}; nodes that were not in the graph then are placed at the center.
+ *
+ * <p>Nodes in different components are placed as though they were one step further apart than the
+ * farthest pair of nodes in the same component, and so may overlap.
+ *
+ * @see "Brandes and Pich, 'Eigensolver Methods for Progressive Multidimensional Scaling of Large
+ *     Data'"
+ * @param <N> the node type
+ */
+public class PivotMDSLocationTransformer<N> implements Function<N, Point> {
+
+  private static final int POWER_ITERATIONS = 200;
+  private static final double EPSILON = 1e-10;
+
+  private final Graph<N> graph;
+  private final double width;
+  private final double height;
+  private final Random random;
+  private int pivotCount = 50;
+  private Map<N, Point> locations;
+
+  /**
+   * Creates an instance for the specified graph and layout area, which uses the current time as the
+   * random seed.
+   *
+   * @param graph the graph whose nodes are placed
+   * @param width the width of the layout area
+   * @param height the height of the layout area
+   */
+  public PivotMDSLocationTransformer(Graph<N> graph, double width, double height) {
+    this(graph, width, height, System.currentTimeMillis());
+  }
+
+  /**
+   * Creates an instance for the specified graph and layout area and random seed.
+   *
+   * @param graph the graph whose nodes are placed
+   * @param width the width of the layout area
+   * @param height the height of the layout area
+   * @param seed the seed for the choice of the first pivot and the power iteration
+   */
+  public PivotMDSLocationTransformer(Graph<N> graph, double width, double height, long seed) {
+    this.graph = checkNotNull(graph);
+    this.width = width;
+    this.height = height;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * @param pivotCount the number of pivots; more pivots give a more accurate embedding
+   */
+  public void setPivotCount(int pivotCount) {
+    checkArgument(pivotCount >= 2, "pivotCount must be >= 2");
+    this.pivotCount = pivotCount;
+  }
+
+  @Override
+  public Point apply(N node) {
+    Point p = locations().get(node);
+    return p != null ? p : Point.of(width / 2, height / 2);
+  }
+
+  private synchronized Map<N, Point> locations() {
+    if (locations == null) {
+      locations = embed();
+    }
+    return locations;
+  }
+
+  private Map<N, Point> embed() {
+    ImmutableList<N> nodes = ImmutableList.copyOf(graph.nodes());
+    int n = nodes.size();
+    if (n == 0) {
+      return ImmutableMap.of();
+    }
+    BiMap<N, Integer> indices = Indexer.create(nodes);
+    int[] offsets = new int[n + 1];
+    for (int v = 0; v < n; v++) {
+      offsets[v + 1] = offsets[v] + graph.adjacentNodes(nodes.get(v)).size();
+    }
+    int[] neighbors = new int[offsets[n]];
+    for (int v = 0; v < n; v++) {
+      int e = offsets[v];
+      for (N w : graph.adjacentNodes(nodes.get(v))) {
+        neighbors[e++] = indices.get(w);
+      }
+    }
+
+    // choose each pivot as far as possible from the earlier ones, keeping its squared distances
+    int k = Math.min(pivotCount, n);
+    double[][] c = new double[k][];
+    int[] distance = new int[n];
+    int[] queue = new int[n];
+    int[] nearest = new int[n];
+    Arrays.fill(nearest, Integer.MAX_VALUE);
+    int pivot = random.nextInt(n);
+    for (int j = 0; j < k; j++) {
+      bfs(pivot, offsets, neighbors, distance, queue);
+      c[j] = new double[n];
+      int next = 0;
+      for (int v = 0; v < n; v++) {
+        c[j][v] = (double) distance[v] * distance[v];
+        nearest[v] = Math.min(nearest[v], distance[v]);
+        if (nearest[v] > nearest[next]) {
+          next = v;
+        }
+      }
+      pivot = next;
+    }
+
+    // double centering
+    double[] rowMeans = new double[n];
+    double[] columnMeans = new double[k];
+    double grandMean = 0;
+    for (int j = 0; j < k; j++) {
+      for (int v = 0; v < n; v++) {
+        rowMeans[v] += c[j][v] / k;
+        columnMeans[j] += c[j][v] / n;
+      }
+      grandMean += columnMeans[j] / k;
+    }
+    for (int j = 0; j < k; j++) {
+      for (int v = 0; v < n; v++) {
+        c[j][v] = -0.5 * (c[j][v] - rowMeans[v] - columnMeans[j] + grandMean);
+      }
+    }
+
+    double[][] b = new double[k][k];
+    IntStream.range(0, k)
+        .parallel()
+        .forEach(
+            i -> {
+              for (int j = i; j < k; j++) {
+                double sum = 0;
+                for (int v = 0; v < n; v++) {
+                  sum += c[i][v] * c[j][v];
+                }
+                b[i][j] = sum;
+              }
+            });
+    for (int i = 0; i < k; i++) {
+      for (int j = 0; j < i; j++) {
+        b[i][j] = b[j][i];
+      }
+    }
+    double[] first = eigenvector(b, null);
+    double[] second = eigenvector(b, first);
+
+    double[] x = new double[n];
+    double[] y = new double[n];
+    for (int j = 0; j < k; j++) {
+      for (int v = 0; v < n; v++) {
+        x[v] += c[j][v] * first[j];
+        y[v] += c[j][v] * second[j];
+      }
+    }
+    return fit(nodes, x, y);
+  }
+
+  /**
+   * Fills {@code distance} with the number of hops from {@code source}; nodes that cannot be
+   * reached are one hop further than the farthest node that can.
+   */
+  private static void bfs(int source, int[] offsets, int[] neighbors, int[] distance, int[] queue) {
+    Arrays.fill(distance, -1);
+    distance[source] = 0;
+    queue[0] = source;
+    int head = 0;
+    int tail = 1;
+    while (head < tail) {
+      int v = queue[head++];
+      for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+        int w = neighbors[e];
+        if (distance[w] < 0) {
+          distance[w] = distance[v] + 1;
+          queue[tail++] = w;
+        }
+      }
+    }
+    int unreachable = distance[queue[tail - 1]] + 1;
+    for (int v = 0; v < distance.length; v++) {
+      if (distance[v] < 0) {
+        distance[v] = unreachable;
+      }
+    }
+  }
+
+  /**
+   * Returns the unit eigenvector of the symmetric positive semidefinite matrix {@code b} with the
+   * largest eigenvalue, or with the largest eigenvalue orthogonal to {@code orthogonalTo}.
+   */
+  private double[] eigenvector(double[][] b, double[] orthogonalTo) {
+    int k = b.length;
+    double[] v = new double[k];
+    for (int i = 0; i < k; i++) {
+      v[i] = random.nextDouble() - 0.5;
+    }
+    double[] next = new double[k];
+    for (int iteration = 0; iteration < POWER_ITERATIONS; iteration++) {
+      if (orthogonalTo != null) {
+        double dot = 0;
+        for (int i = 0; i < k; i++) {
+          dot += v[i] * orthogonalTo[i];
+        }
+        for (int i = 0; i < k; i++) {
+          v[i] -= dot * orthogonalTo[i];
+        }
+      }
+      double norm = 0;
+      for (int i = 0; i < k; i++) {
+        double sum = 0;
+        for (int j = 0; j < k; j++) {
+          sum += b[i][j] * v[j];
+        }
+        next[i] = sum;
+        norm += sum * sum;
+      }
+      norm = Math.sqrt(norm);
+      if (norm < EPSILON) {
+        // no variance left in this direction
+        Arrays.fill(v, 0);
+        return v;
+      }
+      double change = 0;
+      for (int i = 0; i < k; i++) {
+        double value = next[i] / norm;
+        change += Math.abs(value - v[i]);
+        v[i] = value;
+      }
+      if (change < EPSILON * k) {
+        break;
+      }
+    }
+    return v;
+  }
+
+  /** Scales and centers the embedding, keeping its aspect ratio, to fit the layout area. */
+  private Map<N, Point> fit(ImmutableList<N> nodes, double[] x, double[] y) {
+    double minX = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (int v = 0; v < x.length; v++) {
+      minX = Math.min(minX, x[v]);
+      maxX = Math.max(maxX, x[v]);
+      minY = Math.min(minY, y[v]);
+      maxY = Math.max(maxY, y[v]);
+    }
+    double margin = Math.min(width, height) / 20;
+    double scaleX = maxX > minX ? (width - 2 * margin) / (maxX - minX) : Double.POSITIVE_INFINITY;
+    double scaleY = maxY > minY ? (height - 2 * margin) / (maxY - minY) : Double.POSITIVE_INFINITY;
+    double scale = Math.min(scaleX, scaleY);
+    if (Double.isInfinite(scale)) {
+      scale = 0;
+    }
+    double centerX = (minX + maxX) / 2;
+    double centerY = (minY + maxY) / 2;
+    ImmutableMap.Builder<N, Point> builder = ImmutableMap.builderWithExpectedSize(x.length);
+    for (int v = 0; v < x.length; v++) {
+      builder.put(
+          nodes.get(v),
+          Point.of(width / 2 + (x[v] - centerX) * scale, height / 2 + (y[v] - centerY) * scale));
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.layout.util;
+
+/**
+ * What one step of an iterative layout algorithm did. An instance is filled in by {@link
+ * LayoutMetrics} around each step of the relaxer, with the phase times and energy reported by the
+ * algorithm itself if it is an {@link
+ * edu.uci.ics.jung.layout.algorithms.InstrumentedLayoutAlgorithm}. The same instance is reused for
+ * every step, so listeners that keep it should keep a {@link #copy()}.
+ */
+public class StepMetrics {
+
+  /** The phases of a force-directed step. */
+  public enum Phase {
+    REPULSION,
+    ATTRACTION,
+    MOVE
+  }
+
+  private long step;
+  private long wallNanos;
+  private final long[] phaseNanos = new long[Phase.values().length];
+  private int nodesMoved;
+  private double totalDisplacement;
+  private double maxDisplacement;
+  private double energy = Double.NaN;
+  private long allocatedBytes = -1;
+
+  void reset(long step) {
+    this.step = step;
+    wallNanos = 0;
+    for (int i = 0; i < phaseNanos.length; i++) {
+      phaseNanos[i] = 0;
+    }
+    nodesMoved = 0;
+    totalDisplacement = 0;
+    maxDisplacement = 0;
+    energy = Double.NaN;
+    allocatedBytes = -1;
+  }
+
+  void setWallNanos(long wallNanos) {
+    this.wallNanos = wallNanos;
+  }
+
+  void setAllocatedBytes(long allocatedBytes) {
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  void addDisplacement(double displacement) {
+    if (displacement > 0) {
+      nodesMoved++;
+      totalDisplacement += displacement;
+      maxDisplacement = Math.max(maxDisplacement, displacement);
+    }
+  }
+
+  /**
+   * Adds to the time spent in a phase of this step.
+   *
+   * @param phase the phase
+   * @param nanos the time spent, in nanoseconds
+   */
+  public void addPhaseNanos(Phase phase, long nanos) {
+    phaseNanos[phase.ordinal()] += nanos;
+  }
+
+  /**
+   * Adds to the energy of the layout after this step.
+   *
+   * @param energy the energy to add
+   */
+  public void addEnergy(double energy) {
+    this.energy = Double.isNaN(this.energy) ? energy : this.energy + energy;
+  }
+
+  /**
+   * @param energy the energy of the layout after this step
+   */
+  public void setEnergy(double energy) {
+    this.energy = energy;
+  }
+
+  /**
+   * @return the number of steps that the relaxer took before this one
+   */
+  public long getStep() {
+    return step;
+  }
+
+  /**
+   * @return the time that the step took, in nanoseconds
+   */
+  public long getWallNanos() {
+    return wallNanos;
+  }
+
+  /**
+   * @param phase the phase
+   * @return the time that the step spent in the phase, in nanoseconds, or 0 if the algorithm does
+   *     not report it
+   */
+  public long getPhaseNanos(Phase phase) {
+    return phaseNanos[phase.ordinal()];
+  }
+
+  /**
+   * @return the number of nodes that the step moved
+   */
+  public int getNodesMoved() {
+    return nodesMoved;
+  }
+
+  /**
+   * @return the sum of the distances that the step moved the nodes
+   */
+  public double getTotalDisplacement() {
+    return totalDisplacement;
+  }
+
+  /**
+   * @return the longest distance that the step moved a node
+   */
+  public double getMaxDisplacement() {
+    return maxDisplacement;
+  }
+
+  /**
+   * @return the energy of the layout after the step, as the algorithm defines it, or NaN if it does
+   *     not report one
+   */
+  public double getEnergy() {
+    return energy;
+  }
+
+  /**
+   * @return the bytes that the relaxer thread allocated during the step, or -1 if this JVM does not
+   *     measure them
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * @return a copy of these metrics, which later steps do not change
+   */
+  public StepMetrics copy() {
+    StepMetrics copy = new StepMetrics();
+    copy.step = step;
+    copy.wallNanos = wallNanos;
+    System.arraycopy(phaseNanos, 0, copy.phaseNanos, 0, phaseNanos.length);
+    copy.nodesMoved = nodesMoved;
+    copy.totalDisplacement = totalDisplacement;
+    copy.maxDisplacement = maxDisplacement;
+    copy.energy = energy;
+    copy.allocatedBytes = allocatedBytes;
+    return copy;
+  }
+
+  @Override
+  public String toString() {
+    return "StepMetrics{"
+        + "step="
+        + step
+        + ", wallNanos="
+        + wallNanos
+        + ", repulsionNanos="
+        + getPhaseNanos(Phase.REPULSION)
+        + ", attractionNanos="
+        + getPhaseNanos(Phase.ATTRACTION)
+        + ", moveNanos="
+        + getPhaseNanos(Phase.MOVE)
+        + ", nodesMoved="
+        + nodesMoved
+        + ", totalDisplacement="
+        + totalDisplacement
+        + ", maxDisplacement="
+        + maxDisplacement
+        + ", energy="
+        + energy
+        + ", allocatedBytes="
+        + allocatedBytes
+        + '}';
+  }
+}
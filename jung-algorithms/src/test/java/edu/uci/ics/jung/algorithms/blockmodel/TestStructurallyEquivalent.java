@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2004, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.blockmodel;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+public class TestStructurallyEquivalent extends TestCase {
+
+  /**
+   * Creates a random graph in which some nodes are copies ("twins") of others, some adjacent to
+   * their originals and some not.
+   */
+  private static MutableGraph<Integer> createGraph(boolean directed, long seed) {
+    Random random = new Random(seed);
+    MutableGraph<Integer> graph =
+        (directed ? GraphBuilder.directed() : GraphBuilder.undirected())
+            .allowsSelfLoops(true)
+            .build();
+    int n = 60;
+    for (int i = 0; i < n; i++) {
+      graph.addNode(i);
+    }
+    for (int i = 0; i < 3 * n; i++) {
+      graph.putEdge(random.nextInt(n), random.nextInt(n));
+    }
+    int twin = n;
+    for (int i = 0; i < 20; i++) {
+      int original = random.nextInt(n);
+      graph.addNode(twin);
+      for (Integer p : ImmutableSet.copyOf(graph.predecessors(original))) {
+        graph.putEdge(p == original ? twin : p, twin);
+      }
+      for (Integer s : ImmutableSet.copyOf(graph.successors(original))) {
+        graph.putEdge(twin, s == original ? twin : s);
+      }
+      if (random.nextBoolean()) {
+        graph.putEdge(original, twin);
+        graph.putEdge(twin, original);
+      }
+      twin++;
+    }
+    return graph;
+  }
+
+  private static void assertSignaturesMatchPairwise(boolean directed) {
+    for (long seed = 0; seed < 10; seed++) {
+      MutableGraph<Integer> graph = createGraph(directed, seed);
+      Set<Set<Integer>> expected =
+          new HashSet<Set<Integer>>(
+              new StructurallyEquivalent<Integer>().apply(graph).getNodePartitions());
+      Set<Set<Integer>> actual =
+          new HashSet<Set<Integer>>(
+              new StructurallyEquivalent<Integer>(true).apply(graph).getNodePartitions());
+      assertEquals(expected, actual);
+      assertTrue(expected.size() < graph.nodes().size());
+    }
+  }
+
+  public void testDirected() {
+    assertSignaturesMatchPairwise(true);
+  }
+
+  public void testUndirected() {
+    assertSignaturesMatchPairwise(false);
+  }
+
+  public void testAdjacentAndNonAdjacentTwins() {
+    MutableGraph<Integer> graph = GraphBuilder.undirected().build();
+    // 1 and 2 share neighbors {0, 3} and are not adjacent; 4 and 5 are adjacent twins
+    graph.putEdge(0, 1);
+    graph.putEdge(0, 2);
+    graph.putEdge(3, 1);
+    graph.putEdge(3, 2);
+    graph.putEdge(3, 4);
+    graph.putEdge(3, 5);
+    graph.putEdge(4, 5);
+    Set<Set<Integer>> partitions =
+        new HashSet<Set<Integer>>(
+            new StructurallyEquivalent<Integer>(true).apply(graph).getNodePartitions());
+    assertTrue(partitions.contains(ImmutableSet.of(1, 2)));
+    assertTrue(partitions.contains(ImmutableSet.of(4, 5)));
+    assertEquals(4, partitions.size());
+  }
+}
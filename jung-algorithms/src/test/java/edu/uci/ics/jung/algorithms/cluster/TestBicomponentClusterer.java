@@ -9,6 +9,8 @@
  */
 package edu.uci.ics.jung.algorithms.cluster;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.graph.Graph;
 import com.google.common.graph.GraphBuilder;
 import com.google.common.graph.MutableGraph;
@@ -203,6 +205,62 @@ public class TestBicomponentClusterer extends TestCase {
     testComponents(graph, v, c);
   }
 
+  public void testDeepPath() {
+    // deep enough that a recursive depth-first search would overflow the stack
+    MutableGraph<Integer> graph = GraphBuilder.undirected().build();
+    int n = 200000;
+    for (int i = 1; i < n; i++) {
+      graph.putEdge(i - 1, i);
+    }
+    Bicomponents<Integer> bicomponents =
+        new BicomponentClusterer<Integer, Number>().findBicomponents(graph);
+
+    assertEquals(n - 1, bicomponents.getBicomponentCount());
+    assertEquals(n - 2, bicomponents.getArticulationPoints().size());
+    assertFalse(bicomponents.isArticulationPoint(0));
+    assertTrue(bicomponents.isArticulationPoint(1));
+    assertFalse(bicomponents.isArticulationPoint(n - 1));
+    assertEquals(2 * n - 3, bicomponents.getBlockCutTree().nodes().size());
+    assertEquals(2 * n - 4, bicomponents.getBlockCutTree().edges().size());
+  }
+
+  public void testArticulationPointsAndBlockCutTree() {
+    // two triangles sharing node 2, a pendant edge 4-5, and an isolated node 6, plus a self-loop
+    MutableGraph<Integer> graph = GraphBuilder.directed().allowsSelfLoops(true).build();
+    graph.putEdge(0, 1);
+    graph.putEdge(1, 2);
+    graph.putEdge(2, 0);
+    graph.putEdge(2, 3);
+    graph.putEdge(3, 4);
+    graph.putEdge(4, 2);
+    graph.putEdge(5, 4);
+    graph.putEdge(1, 1);
+    graph.addNode(6);
+    Bicomponents<Integer> bicomponents =
+        new BicomponentClusterer<Integer, Number>().findBicomponents(graph);
+
+    assertEquals(
+        ImmutableSet.of(
+            ImmutableSet.of(0, 1, 2),
+            ImmutableSet.of(2, 3, 4),
+            ImmutableSet.of(4, 5),
+            ImmutableSet.of(6)),
+        ImmutableSet.copyOf(bicomponents.getBicomponents()));
+    assertEquals(ImmutableList.of(2, 4), bicomponents.getArticulationPoints());
+
+    Graph<Integer> tree = bicomponents.getBlockCutTree();
+    assertEquals(6, tree.nodes().size());
+    assertEquals(4, tree.edges().size());
+    int cut2 = 4;
+    int cut4 = 5;
+    for (int b = 0; b < bicomponents.getBicomponentCount(); b++) {
+      Set<Integer> block = bicomponents.getBicomponent(b);
+      assertEquals(block.contains(2), tree.hasEdgeConnecting(b, cut2));
+      assertEquals(block.contains(4), tree.hasEdgeConnecting(b, cut4));
+    }
+    assertEquals(0, tree.degree(bicomponents.getBicomponents().indexOf(ImmutableSet.of(6))));
+  }
+
   public void testComponents(Graph<String> graph, String[] nodes, List<Set<String>> c) {
     BicomponentClusterer<String, Number> finder = new BicomponentClusterer<String, Number>();
     Set<Set<String>> bicomponents = finder.apply(graph);
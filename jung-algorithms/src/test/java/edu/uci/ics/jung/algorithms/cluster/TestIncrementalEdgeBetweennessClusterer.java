@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.cluster;
+
+import com.google.common.graph.MutableNetwork;
+import com.google.common.graph.Network;
+import com.google.common.graph.NetworkBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+public class TestIncrementalEdgeBetweennessClusterer extends TestCase {
+
+  private static MutableNetwork<Integer, Integer> createGraph(
+      NetworkBuilder<Object, Object> builder) {
+    MutableNetwork<Integer, Integer> graph = builder.build();
+    for (int i = 0; i < 10; i++) {
+      graph.addNode(i + 1);
+    }
+    int j = 0;
+    graph.addEdge(1, 2, j++);
+    graph.addEdge(1, 3, j++);
+    graph.addEdge(2, 3, j++);
+    graph.addEdge(5, 6, j++);
+    graph.addEdge(5, 7, j++);
+    graph.addEdge(6, 7, j++);
+    graph.addEdge(8, 10, j++);
+    graph.addEdge(7, 8, j++);
+    graph.addEdge(7, 10, j++);
+    graph.addEdge(3, 4, j++);
+    graph.addEdge(4, 6, j++);
+    graph.addEdge(4, 8, j++);
+    return graph;
+  }
+
+  private static void assertMatchesNonIncremental(Network<Integer, Integer> graph, int toRemove) {
+    EdgeBetweennessClusterer<Integer, Integer> expected =
+        new EdgeBetweennessClusterer<Integer, Integer>(toRemove);
+    IncrementalEdgeBetweennessClusterer<Integer, Integer> actual =
+        new IncrementalEdgeBetweennessClusterer<Integer, Integer>(toRemove);
+    assertEquals(expected.apply(graph), actual.apply(graph));
+    assertEquals(
+        new ArrayList<Integer>(expected.getEdgesRemoved()),
+        new ArrayList<Integer>(actual.getEdgesRemoved()));
+  }
+
+  public void testDirected() {
+    MutableNetwork<Integer, Integer> graph = createGraph(NetworkBuilder.directed());
+    for (int k = 0; k <= graph.edges().size(); k++) {
+      assertMatchesNonIncremental(graph, k);
+    }
+  }
+
+  public void testUndirected() {
+    MutableNetwork<Integer, Integer> graph = createGraph(NetworkBuilder.undirected());
+    for (int k = 0; k <= graph.edges().size(); k++) {
+      assertMatchesNonIncremental(graph, k);
+    }
+  }
+
+  public void testSplits() {
+    MutableNetwork<Integer, Integer> graph = createGraph(NetworkBuilder.undirected());
+    IncrementalEdgeBetweennessClusterer<Integer, Integer> clusterer =
+        new IncrementalEdgeBetweennessClusterer<Integer, Integer>(graph.edges().size());
+    List<IncrementalEdgeBetweennessClusterer.Split<Integer, Integer>> splits =
+        new ArrayList<IncrementalEdgeBetweennessClusterer.Split<Integer, Integer>>();
+    clusterer.setSplitListener(splits::add);
+    Set<Set<Integer>> clusters = clusterer.apply(graph);
+
+    // node 9 is isolated; the other component is split n - 2 times on its way to singletons
+    assertEquals(graph.nodes().size(), clusters.size());
+    assertEquals(graph.nodes().size() - 2, splits.size());
+    for (IncrementalEdgeBetweennessClusterer.Split<Integer, Integer> split : splits) {
+      assertTrue(split.getFirst().contains(graph.incidentNodes(split.getEdge()).nodeU()));
+      assertTrue(split.getSecond().contains(graph.incidentNodes(split.getEdge()).nodeV()));
+    }
+    assertEquals(
+        graph.nodes().size() - 1,
+        splits.get(0).getFirst().size() + splits.get(0).getSecond().size());
+  }
+
+  public void testSampled() {
+    MutableNetwork<Integer, Integer> graph = createGraph(NetworkBuilder.undirected());
+    IncrementalEdgeBetweennessClusterer<Integer, Integer> clusterer =
+        new IncrementalEdgeBetweennessClusterer<Integer, Integer>(3);
+    clusterer.setSampleSize(5);
+    clusterer.setRandom(new Random(1));
+    Set<Set<Integer>> clusters = clusterer.apply(graph);
+    assertEquals(3, clusterer.getEdgesRemoved().size());
+    int total = 0;
+    for (Set<Integer> cluster : clusters) {
+      total += cluster.size();
+    }
+    assertEquals(graph.nodes().size(), total);
+  }
+}
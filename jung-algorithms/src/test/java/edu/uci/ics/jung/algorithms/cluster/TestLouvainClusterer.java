@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.cluster;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.MutableNetwork;
+import com.google.common.graph.NetworkBuilder;
+import com.google.common.graph.ValueGraph;
+import edu.uci.ics.jung.algorithms.blockmodel.NodePartition;
+import edu.uci.ics.jung.algorithms.transformation.NodePartitionCollapser;
+import java.util.List;
+import java.util.Set;
+import junit.framework.TestCase;
+
+public class TestLouvainClusterer extends TestCase {
+  private static final int CLIQUES = 4;
+  private static final int CLIQUE_SIZE = 5;
+
+  private MutableNetwork<Integer, Integer> graph;
+
+  @Override
+  protected void setUp() {
+    // a ring of 5-cliques, each joined to the next by a single edge
+    graph = NetworkBuilder.undirected().allowsParallelEdges(true).build();
+    int edge = 0;
+    for (int c = 0; c < CLIQUES; c++) {
+      int offset = c * CLIQUE_SIZE;
+      for (int i = 0; i < CLIQUE_SIZE; i++) {
+        for (int j = i + 1; j < CLIQUE_SIZE; j++) {
+          graph.addEdge(offset + i, offset + j, edge++);
+        }
+      }
+      graph.addEdge(offset, ((c + 1) % CLIQUES) * CLIQUE_SIZE + 1, edge++);
+    }
+  }
+
+  private void assertFindsCliques(Set<Set<Integer>> communities) {
+    assertEquals(CLIQUES, communities.size());
+    for (int c = 0; c < CLIQUES; c++) {
+      int offset = c * CLIQUE_SIZE;
+      assertTrue(
+          communities.contains(
+              ImmutableSet.of(offset, offset + 1, offset + 2, offset + 3, offset + 4)));
+    }
+  }
+
+  public void testRingOfCliques() {
+    LouvainClusterer<Integer, Integer> clusterer = new LouvainClusterer<Integer, Integer>();
+    assertFindsCliques(clusterer.apply(graph));
+
+    List<Double> modularities = clusterer.getModularities();
+    assertEquals(clusterer.getLevels().size(), modularities.size());
+    for (int i = 1; i < modularities.size(); i++) {
+      assertTrue(modularities.get(i) >= modularities.get(i - 1));
+    }
+    // 4 communities, each with 10 of the 44 edges inside it and degree sum 22 of 88
+    double expected = CLIQUES * (10.0 / 44 - (22.0 / 88) * (22.0 / 88));
+    assertEquals(expected, modularities.get(modularities.size() - 1), 1e-9);
+  }
+
+  public void testParallel() {
+    LouvainClusterer<Integer, Integer> clusterer = new LouvainClusterer<Integer, Integer>();
+    clusterer.setParallel(true);
+    assertFindsCliques(clusterer.apply(graph));
+  }
+
+  public void testWeights() {
+    // densely join cliques 0 and 1 with edges of weight 0, which should be ignored
+    int edge = 1000;
+    for (int i = 0; i < CLIQUE_SIZE; i++) {
+      for (int j = CLIQUE_SIZE; j < 2 * CLIQUE_SIZE; j++) {
+        graph.addEdge(i, j, edge++);
+      }
+    }
+    assertFindsCliques(new LouvainClusterer<Integer, Integer>(e -> e >= 1000 ? 0 : 1).apply(graph));
+  }
+
+  public void testLevelsFeedCollapser() {
+    LouvainClusterer<Integer, Integer> clusterer = new LouvainClusterer<Integer, Integer>();
+    clusterer.apply(graph);
+    NodePartition<Integer> partition = clusterer.getLevels().get(clusterer.getLevels().size() - 1);
+    ValueGraph<Set<Integer>, Integer> collapsed =
+        NodePartitionCollapser.collapseNodePartitions(partition);
+    assertEquals(CLIQUES, collapsed.nodes().size());
+    assertEquals(CLIQUES, collapsed.edges().size());
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.cluster;
+
+import com.google.common.graph.MutableNetwork;
+import com.google.common.graph.NetworkBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import junit.framework.TestCase;
+
+public class TestVoltageClusterer extends TestCase {
+  private MutableNetwork<Integer, Integer> graph;
+
+  @Override
+  protected void setUp() {
+    // two 6-cliques joined by a single edge
+    graph = NetworkBuilder.undirected().build();
+    int edge = 0;
+    for (int offset = 0; offset <= 6; offset += 6) {
+      for (int i = 0; i < 6; i++) {
+        for (int j = i + 1; j < 6; j++) {
+          graph.addEdge(offset + i, offset + j, edge++);
+        }
+      }
+    }
+    graph.addEdge(0, 6, edge++);
+  }
+
+  private List<Set<Integer>> cluster(ExecutorService executor) {
+    VoltageClusterer<Integer, Integer> clusterer =
+        new VoltageClusterer<Integer, Integer>(graph, 20);
+    clusterer.setRandomSeed(7);
+    clusterer.setExecutor(executor);
+    return new ArrayList<Set<Integer>>(clusterer.cluster(2));
+  }
+
+  public void testParallelMatchesSequential() {
+    List<Set<Integer>> sequential = cluster(null);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      assertEquals(sequential, cluster(executor));
+    } finally {
+      executor.shutdown();
+    }
+
+    int total = 0;
+    for (Set<Integer> cluster : sequential) {
+      total += cluster.size();
+    }
+    assertEquals(graph.nodes().size(), total);
+  }
+}
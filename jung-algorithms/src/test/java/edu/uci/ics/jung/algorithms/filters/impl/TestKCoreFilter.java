@@ -0,0 +1,92 @@
+package edu.uci.ics.jung.algorithms.filters.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.Graph;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.Graphs;
+import com.google.common.graph.MutableGraph;
+import edu.uci.ics.jung.algorithms.filters.KCoreFilter;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+public class TestKCoreFilter extends TestCase {
+
+  public void testSmallGraph() {
+    // a 4-clique {0,1,2,3}, a triangle {3,4,5} hanging off it, a path 5-6-7, and an isolated node
+    MutableGraph<Integer> graph = GraphBuilder.directed().allowsSelfLoops(true).build();
+    for (int i = 0; i < 4; i++) {
+      for (int j = i + 1; j < 4; j++) {
+        graph.putEdge(i, j);
+      }
+    }
+    graph.putEdge(3, 4);
+    graph.putEdge(4, 5);
+    graph.putEdge(5, 3);
+    graph.putEdge(5, 6);
+    graph.putEdge(7, 6);
+    graph.putEdge(7, 7);
+    graph.addNode(8);
+
+    int[] expected = {3, 3, 3, 3, 2, 2, 1, 1, 0};
+    for (boolean parallel : new boolean[] {false, true}) {
+      Map<Integer, Integer> cores = KCoreFilter.coreNumbers(graph, parallel);
+      for (int i = 0; i < expected.length; i++) {
+        assertEquals(expected[i], cores.get(i).intValue());
+      }
+    }
+
+    Graph<Integer> core = KCoreFilter.coreView(graph, 2);
+    assertEquals(ImmutableSet.of(0, 1, 2, 3, 4, 5), core.nodes());
+    assertEquals(9, core.edges().size());
+    assertEquals(ImmutableSet.of(3), core.successors(5));
+    assertEquals(ImmutableSet.of(0, 1, 2, 3), KCoreFilter.coreView(graph, 3).nodes());
+    assertTrue(KCoreFilter.coreView(graph, 4).nodes().isEmpty());
+  }
+
+  public void testRandomGraph() {
+    Random random = new Random(17);
+    MutableGraph<Integer> graph = GraphBuilder.undirected().build();
+    for (int i = 0; i < 2000; i++) {
+      graph.addNode(i);
+    }
+    for (int i = 0; i < 8000; i++) {
+      // skew the endpoints towards low ids, so that the cores are nested several levels deep
+      int u = (int) (2000 * Math.pow(random.nextDouble(), 2));
+      int v = random.nextInt(2000);
+      if (u != v) {
+        graph.putEdge(u, v);
+      }
+    }
+    Map<Integer, Integer> sequential = KCoreFilter.coreNumbers(graph);
+    Map<Integer, Integer> parallel = KCoreFilter.coreNumbers(graph, true);
+    assertEquals(sequential, parallel);
+
+    int maxCore = 0;
+    for (int core : sequential.values()) {
+      maxCore = Math.max(maxCore, core);
+    }
+    assertTrue(maxCore > 3);
+    for (int k = 0; k <= maxCore + 1; k++) {
+      assertEquals(naiveCore(graph, k), KCoreFilter.coreView(graph, sequential, k).nodes());
+    }
+  }
+
+  /** Returns the nodes of the k-core, found by repeatedly deleting nodes of degree less than k. */
+  private static Set<Integer> naiveCore(Graph<Integer> graph, int k) {
+    MutableGraph<Integer> copy = Graphs.copyOf(graph);
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (Integer node : new HashSet<Integer>(copy.nodes())) {
+        if (copy.degree(node) < k) {
+          copy.removeNode(node);
+          changed = true;
+        }
+      }
+    }
+    return copy.nodes();
+  }
+}
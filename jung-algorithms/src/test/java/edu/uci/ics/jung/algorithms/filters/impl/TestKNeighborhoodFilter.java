@@ -1,18 +1,20 @@
 package edu.uci.ics.jung.algorithms.filters.impl;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.graph.Graph;
 import com.google.common.graph.GraphBuilder;
 import com.google.common.graph.ImmutableGraph;
 import com.google.common.graph.MutableGraph;
 import edu.uci.ics.jung.algorithms.filters.KNeighborhoodFilter;
+import java.util.List;
+import java.util.Set;
 import junit.framework.TestCase;
 
 public class TestKNeighborhoodFilter extends TestCase {
 
   MutableGraph<Number> graph;
 
-  // TODO: test multiple root nodes
   public void testDirected() {
     graph = GraphBuilder.directed().allowsSelfLoops(true).build();
     populateGraph(graph);
@@ -50,6 +52,51 @@ public class TestKNeighborhoodFilter extends TestCase {
     assertEquals(expected, filtered);
   }
 
+  public void testViews() {
+    for (boolean directed : new boolean[] {true, false}) {
+      graph =
+          (directed ? GraphBuilder.directed() : GraphBuilder.undirected())
+              .allowsSelfLoops(true)
+              .build();
+      populateGraph(graph);
+      List<Set<Number>> rootSets =
+          ImmutableList.<Set<Number>>of(
+              ImmutableSet.of(0), ImmutableSet.of(6), ImmutableSet.of(2, 5), ImmutableSet.of(8));
+      for (int radius = 1; radius <= 3; radius++) {
+        List<Graph<Number>> views =
+            KNeighborhoodFilter.neighborhoodViews(graph, rootSets, radius, Integer.MAX_VALUE);
+        for (int i = 0; i < rootSets.size(); i++) {
+          Graph<Number> expected = KNeighborhoodFilter.filterGraph(graph, rootSets.get(i), radius);
+          assertEquals(expected, views.get(i));
+          assertEquals(
+              expected, KNeighborhoodFilter.neighborhoodView(graph, rootSets.get(i), radius));
+        }
+      }
+    }
+  }
+
+  public void testNodeBudget() {
+    graph = GraphBuilder.directed().allowsSelfLoops(true).build();
+    populateGraph(graph);
+    Graph<Number> view = KNeighborhoodFilter.neighborhoodView(graph, ImmutableSet.of(0), 3, 4);
+    // 0, then its successors 1 and 2, then one of 2's successors 3 and 4
+    assertEquals(4, view.nodes().size());
+    assertTrue(view.nodes().containsAll(ImmutableSet.of(0, 1, 2)));
+    assertEquals(ImmutableSet.of(1, 2), view.successors(0));
+    assertEquals(ImmutableSet.of(0), view.predecessors(1));
+    assertEquals(1, view.successors(2).size());
+
+    List<Graph<Number>> views =
+        KNeighborhoodFilter.neighborhoodViews(
+            graph, ImmutableList.<Set<Number>>of(ImmutableSet.of(0), ImmutableSet.of(5)), 3, 3);
+    assertEquals(ImmutableSet.of(0, 1, 2), views.get(0).nodes());
+    assertEquals(ImmutableSet.of(5, 6, 0), views.get(1).nodes());
+
+    // views reflect changes to the edges of the original graph
+    graph.putEdge(1, 2);
+    assertEquals(ImmutableSet.of(2), views.get(0).successors(1));
+  }
+
   private void populateGraph(MutableGraph<Number> graph) {
     graph.putEdge(0, 1);
     graph.putEdge(0, 2);
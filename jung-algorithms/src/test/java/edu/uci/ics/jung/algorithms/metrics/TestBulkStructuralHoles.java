@@ -0,0 +1,50 @@
+package edu.uci.ics.jung.algorithms.metrics;
+
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import java.util.Random;
+import java.util.function.BiFunction;
+import junit.framework.TestCase;
+
+public class TestBulkStructuralHoles extends TestCase {
+
+  private static MutableGraph<Integer> createGraph(boolean directed, long seed) {
+    Random random = new Random(seed);
+    MutableGraph<Integer> graph =
+        (directed ? GraphBuilder.directed() : GraphBuilder.undirected())
+            .allowsSelfLoops(true)
+            .build();
+    for (int i = 0; i < 40; i++) {
+      graph.addNode(i);
+    }
+    for (int i = 0; i < 150; i++) {
+      graph.putEdge(random.nextInt(40), random.nextInt(40));
+    }
+    return graph;
+  }
+
+  private static void assertMatchesStructuralHoles(boolean directed) {
+    BiFunction<Integer, Integer, Double> weights = (u, v) -> 1.0 + (31 * u + 17 * v) % 5;
+    for (long seed = 0; seed < 5; seed++) {
+      MutableGraph<Integer> graph = createGraph(directed, seed);
+      StructuralHoles<Integer> expected = Metrics.structuralHoles(graph, weights);
+      BulkStructuralHoles<Integer> actual = Metrics.bulkStructuralHoles(graph, weights, true);
+      double[] effectiveSizes = actual.effectiveSizeArray();
+      for (Integer v : graph.nodes()) {
+        assertEquals(expected.effectiveSize(v), effectiveSizes[actual.indexOf(v)], 1e-9);
+        assertEquals(expected.efficiency(v), actual.efficiencies().get(v), 1e-9);
+        assertEquals(expected.constraint(v), actual.constraints().get(v), 1e-9);
+        assertEquals(expected.aggregateConstraint(v), actual.aggregateConstraints().get(v), 1e-9);
+        assertEquals(expected.hierarchy(v), actual.hierarchies().get(v), 1e-9);
+      }
+    }
+  }
+
+  public void testDirected() {
+    assertMatchesStructuralHoles(true);
+  }
+
+  public void testUndirected() {
+    assertMatchesStructuralHoles(false);
+  }
+}
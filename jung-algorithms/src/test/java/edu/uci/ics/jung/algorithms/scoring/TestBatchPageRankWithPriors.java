@@ -0,0 +1,101 @@
+package edu.uci.ics.jung.algorithms.scoring;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.MutableNetwork;
+import com.google.common.graph.NetworkBuilder;
+import edu.uci.ics.jung.algorithms.scoring.util.ScoringUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import junit.framework.TestCase;
+
+public class TestBatchPageRankWithPriors extends TestCase {
+  private static final double TOLERANCE = 1e-9;
+
+  private static MutableNetwork<Integer, Integer> createGraph(boolean directed) {
+    Random random = new Random(7);
+    MutableNetwork<Integer, Integer> graph =
+        (directed ? NetworkBuilder.directed() : NetworkBuilder.undirected())
+            .allowsParallelEdges(true)
+            .build();
+    for (int i = 0; i < 50; i++) {
+      graph.addNode(i);
+    }
+    for (int i = 0; i < 150; i++) {
+      int u = random.nextInt(50);
+      int v = random.nextInt(50);
+      if (u != v) {
+        graph.addEdge(u, v, i);
+      }
+    }
+    return graph;
+  }
+
+  private static List<Set<Integer>> createRootSets() {
+    Random random = new Random(11);
+    List<Set<Integer>> roots = new ArrayList<Set<Integer>>();
+    for (int i = 0; i < 10; i++) {
+      roots.add(ImmutableSet.of(random.nextInt(50), random.nextInt(50), random.nextInt(50)));
+    }
+    return roots;
+  }
+
+  private static void assertMatchesPageRankWithPriors(boolean directed) {
+    MutableNetwork<Integer, Integer> graph = createGraph(directed);
+    List<Set<Integer>> roots = createRootSets();
+    BatchPageRankWithPriors<Integer, Integer> batch =
+        new BatchPageRankWithPriors<Integer, Integer>(graph, 0.15);
+    batch.setTolerance(TOLERANCE);
+    batch.setMaxIterations(1000);
+    batch.setBatchSize(4);
+    double[][] scores = batch.evaluateRootSets(roots);
+
+    for (int i = 0; i < roots.size(); i++) {
+      PageRankWithPriors<Integer, Integer> pr =
+          new PageRankWithPriors<Integer, Integer>(
+              graph, ScoringUtils.getUniformRootPrior(roots.get(i)), 0.15);
+      pr.setTolerance(TOLERANCE);
+      pr.setMaxIterations(1000);
+      pr.evaluate();
+      for (Integer v : graph.nodes()) {
+        assertEquals(pr.getNodeScore(v), scores[i][batch.indexOf(v)], 1e-6);
+      }
+    }
+  }
+
+  public void testDirected() {
+    assertMatchesPageRankWithPriors(true);
+  }
+
+  public void testUndirected() {
+    assertMatchesPageRankWithPriors(false);
+  }
+
+  public void testApproximate() {
+    MutableNetwork<Integer, Integer> graph = createGraph(true);
+    List<Set<Integer>> roots = createRootSets();
+    List<Function<Integer, Double>> priors = new ArrayList<Function<Integer, Double>>();
+    for (Set<Integer> root_set : roots) {
+      priors.add(ScoringUtils.getUniformRootPrior(root_set));
+    }
+    BatchPageRankWithPriors<Integer, Integer> batch =
+        new BatchPageRankWithPriors<Integer, Integer>(graph, 0.15);
+    batch.setTolerance(TOLERANCE);
+    batch.setMaxIterations(1000);
+    double[][] exact = batch.evaluate(priors);
+    double epsilon = 1e-6;
+    double[][] approximate = batch.approximate(priors, epsilon);
+
+    double bound = epsilon * (graph.edges().size() + graph.nodes().size());
+    for (int i = 0; i < roots.size(); i++) {
+      double shortfall = 0;
+      for (int v = 0; v < exact[i].length; v++) {
+        assertTrue(approximate[i][v] <= exact[i][v] + 1e-6);
+        shortfall += exact[i][v] - approximate[i][v];
+      }
+      assertTrue(shortfall < bound + 1e-6);
+    }
+  }
+}
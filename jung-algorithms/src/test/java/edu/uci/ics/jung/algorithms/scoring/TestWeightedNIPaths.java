@@ -10,6 +10,8 @@
 package edu.uci.ics.jung.algorithms.scoring;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.ImmutableNetwork;
 import com.google.common.graph.MutableNetwork;
 import com.google.common.graph.NetworkBuilder;
 import java.util.HashSet;
@@ -53,8 +55,7 @@ public class TestWeightedNIPaths extends TestCase {
         };
   }
 
-  public void testRanker() {
-
+  private MutableNetwork<String, Number> createGraph() {
     MutableNetwork<String, Number> graph = NetworkBuilder.directed().build();
     for (int i = 0; i < 5; i++) {
       graph.addNode(nodeFactory.get());
@@ -73,6 +74,12 @@ public class TestWeightedNIPaths extends TestCase {
     graph.addEdge("D", "B", edgeFactory.get());
     graph.addEdge("D", "C", edgeFactory.get());
     graph.addEdge("D", "E", edgeFactory.get());
+    return graph;
+  }
+
+  public void testRanker() {
+    MutableNetwork<String, Number> graph = createGraph();
+    int edgeCount = graph.edges().size();
 
     Set<String> priors = new HashSet<String>();
     priors.add("A");
@@ -90,5 +97,19 @@ public class TestWeightedNIPaths extends TestCase {
     for (String node : graph.nodes()) {
       Assert.assertEquals(expectedScores.get(node), ranker.getNodeScore(node), 0.0001);
     }
+    Assert.assertEquals(5, graph.nodes().size());
+    Assert.assertEquals(edgeCount, graph.edges().size());
+  }
+
+  public void testParallelMatchesSequential() {
+    ImmutableNetwork<String, Number> graph = ImmutableNetwork.copyOf(createGraph());
+    Set<String> priors = ImmutableSet.of("A", "C", "E", "B");
+    for (int depth = 0; depth < 5; depth++) {
+      Map<String, Double> sequential =
+          new WeightedNIPaths<String, Number>(graph, 2.0, depth, priors).nodeScores();
+      Map<String, Double> parallel =
+          new WeightedNIPaths<String, Number>(graph, 2.0, depth, priors, true).nodeScores();
+      Assert.assertEquals(sequential, parallel);
+    }
   }
 }
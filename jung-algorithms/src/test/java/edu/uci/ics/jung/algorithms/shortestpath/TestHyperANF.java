@@ -0,0 +1,84 @@
+package edu.uci.ics.jung.algorithms.shortestpath;
+
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import java.util.Arrays;
+import junit.framework.TestCase;
+
+public class TestHyperANF extends TestCase {
+
+  /** Creates a rows x columns grid graph. */
+  private static MutableGraph<Integer> createGrid(int rows, int columns) {
+    MutableGraph<Integer> graph = GraphBuilder.undirected().build();
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        int v = i * columns + j;
+        graph.addNode(v);
+        if (i > 0) {
+          graph.putEdge(v, v - columns);
+        }
+        if (j > 0) {
+          graph.putEdge(v, v - 1);
+        }
+      }
+    }
+    return graph;
+  }
+
+  public void testGrid() {
+    MutableGraph<Integer> graph = createGrid(15, 20);
+    HyperANF<Integer> anf = DistanceStatistics.approximate(graph, 10);
+
+    UnweightedShortestPath<Integer> usp = new UnweightedShortestPath<Integer>(graph);
+    double pairs = 0;
+    double total = 0;
+    for (Integer v : graph.nodes()) {
+      double harmonic = 0;
+      for (Integer w : graph.nodes()) {
+        if (!v.equals(w)) {
+          int d = usp.getDistance(v, w).intValue();
+          total += d;
+          pairs++;
+          harmonic += 1.0 / d;
+        }
+      }
+      assertEquals(harmonic, anf.getHarmonicCentrality(v), 0.2 * harmonic);
+    }
+
+    assertEquals(33, anf.getIterations());
+    assertEquals(total / pairs, anf.getAverageDistance(), 0.1 * total / pairs);
+    double[] function = anf.getNeighbourhoodFunction();
+    assertEquals(300, function[0], 300 * 3 * anf.getRelativeStandardDeviation());
+    assertEquals(
+        300 * 300,
+        function[function.length - 1],
+        300 * 300 * 3 * anf.getRelativeStandardDeviation());
+    assertTrue(anf.getEffectiveDiameter() > 0.5 * 33);
+    assertTrue(anf.getEffectiveDiameter() <= 33);
+  }
+
+  public void testParallelMatchesSequential() {
+    MutableGraph<Integer> graph = GraphBuilder.directed().build();
+    for (int i = 0; i < 200; i++) {
+      graph.putEdge(i, (i * 7 + 3) % 200);
+      graph.putEdge(i, (i * 13 + 1) % 200);
+    }
+    HyperANF<Integer> parallel = new HyperANF<Integer>(graph, 6, true);
+    HyperANF<Integer> sequential = new HyperANF<Integer>(graph, 6, false);
+    assertTrue(
+        Arrays.equals(parallel.getNeighbourhoodFunction(), sequential.getNeighbourhoodFunction()));
+    assertEquals(parallel.getHarmonicCentralities(), sequential.getHarmonicCentralities());
+  }
+
+  public void testDisconnected() {
+    MutableGraph<Integer> graph = GraphBuilder.directed().build();
+    graph.addNode(0);
+    graph.putEdge(1, 2);
+    HyperANF<Integer> anf = DistanceStatistics.approximate(graph, 8);
+    assertEquals(1, anf.getIterations());
+    assertEquals(1.0, anf.getAverageDistance(), 0.01);
+    assertEquals(0.0, anf.getHarmonicCentrality(0), 0.0);
+    assertEquals(1.0, anf.getHarmonicCentrality(1), 0.01);
+    assertEquals(1.0, anf.getDistanceDistribution()[1], 0.01);
+  }
+}
@@ -1,8 +1,19 @@
 package edu.uci.ics.jung.algorithms.shortestpath;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.Graph;
 import com.google.common.graph.MutableNetwork;
+import com.google.common.graph.MutableValueGraph;
 import com.google.common.graph.Network;
 import com.google.common.graph.NetworkBuilder;
+import com.google.common.graph.ValueGraph;
+import com.google.common.graph.ValueGraphBuilder;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
 import junit.framework.TestCase;
 
 public class TestMinimumSpanningTree extends TestCase {
@@ -32,8 +43,119 @@ public class TestMinimumSpanningTree extends TestCase {
     assertEquals(graph.edges(), mst.edges());
   }
 
-  // TODO: add tests:
-  // - cycle
-  // - multiple components
-  // - self-loops
+  public void testCycleComponentsAndSelfLoops() {
+    MutableNetwork<String, Integer> graph =
+        NetworkBuilder.undirected().allowsSelfLoops(true).build();
+    graph.addEdge("A", "B", 3);
+    graph.addEdge("B", "C", 1);
+    graph.addEdge("C", "A", 2);
+    graph.addEdge("A", "A", 0);
+    graph.addEdge("D", "E", 4);
+    graph.addNode("F");
+
+    Network<String, Integer> mst = MinimumSpanningTree.extractFrom(graph, e -> (double) e);
+
+    assertEquals(graph.nodes(), mst.nodes());
+    assertEquals(ImmutableSet.of(1, 2, 4), mst.edges());
+    assertFalse(mst.isDirected());
+  }
+
+  public void testLargeRandomGraph() {
+    Random random = new Random(3);
+    int n = 2000;
+    MutableNetwork<Integer, Integer> graph =
+        NetworkBuilder.directed().allowsParallelEdges(true).allowsSelfLoops(true).build();
+    MutableValueGraph<Integer, Integer> valueGraph =
+        ValueGraphBuilder.undirected().allowsSelfLoops(true).build();
+    for (int i = 0; i < n; i++) {
+      graph.addNode(i);
+      valueGraph.addNode(i);
+    }
+    double[] weights = new double[5 * n];
+    for (int e = 0; e < weights.length; e++) {
+      int u = random.nextInt(n);
+      int v = random.nextInt(n);
+      // many ties, so that the tie-breaking must be consistent
+      weights[e] = random.nextInt(100);
+      graph.addEdge(u, v, e);
+      valueGraph.putEdgeValue(u, v, (int) weights[e]);
+    }
+
+    Network<Integer, Integer> mst = MinimumSpanningTree.extractFrom(graph, e -> weights[e]);
+    assertEquals(kruskal(graph, e -> weights[e]), totalWeight(mst.edges(), e -> weights[e]));
+    assertEquals(n - components(graph), mst.edges().size());
+
+    ValueGraph<Integer, Integer> valueMst = MinimumSpanningTree.extractFrom(valueGraph);
+    assertEquals(n - components(valueGraph.asGraph()), valueMst.edges().size());
+    double valueWeight = 0;
+    for (EndpointPair<Integer> edge : valueMst.edges()) {
+      valueWeight += valueMst.edgeValue(edge.nodeU(), edge.nodeV()).get();
+      // each node has at most one parent
+      assertTrue(valueMst.outDegree(edge.nodeU()) == 1);
+    }
+    MutableNetwork<Integer, EndpointPair<Integer>> valueNetwork =
+        NetworkBuilder.undirected().allowsSelfLoops(true).build();
+    for (EndpointPair<Integer> edge : valueGraph.edges()) {
+      valueNetwork.addEdge(edge.nodeU(), edge.nodeV(), edge);
+    }
+    assertEquals(
+        kruskal(valueNetwork, e -> (double) valueGraph.edgeValue(e.nodeU(), e.nodeV()).get()),
+        valueWeight);
+  }
+
+  private static <E> double totalWeight(Iterable<E> edges, Function<E, Double> weights) {
+    double total = 0;
+    for (E e : edges) {
+      total += weights.apply(e);
+    }
+    return total;
+  }
+
+  /** Returns the weight of a minimum spanning forest, computed by Kruskal's algorithm. */
+  private static <E> double kruskal(Network<Integer, E> graph, Function<E, Double> weights) {
+    List<E> edges = new ArrayList<E>(graph.edges());
+    edges.sort(Comparator.comparing(weights));
+    int[] parent = new int[graph.nodes().size()];
+    for (int i = 0; i < parent.length; i++) {
+      parent[i] = i;
+    }
+    double total = 0;
+    for (E e : edges) {
+      int u = find(parent, graph.incidentNodes(e).nodeU());
+      int v = find(parent, graph.incidentNodes(e).nodeV());
+      if (u != v) {
+        parent[u] = v;
+        total += weights.apply(e);
+      }
+    }
+    return total;
+  }
+
+  private static int find(int[] parent, int v) {
+    while (parent[v] != v) {
+      v = parent[v];
+    }
+    return v;
+  }
+
+  private static int components(Network<Integer, ?> graph) {
+    return components(graph.asGraph());
+  }
+
+  private static int components(Graph<Integer> graph) {
+    int[] parent = new int[graph.nodes().size()];
+    for (int i = 0; i < parent.length; i++) {
+      parent[i] = i;
+    }
+    int components = parent.length;
+    for (EndpointPair<Integer> edge : graph.edges()) {
+      int u = find(parent, edge.nodeU());
+      int v = find(parent, edge.nodeV());
+      if (u != v) {
+        parent[u] = v;
+        components--;
+      }
+    }
+    return components;
+  }
 }
@@ -0,0 +1,114 @@
+package edu.uci.ics.jung.algorithms.transformation;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.google.common.graph.MutableValueGraph;
+import com.google.common.graph.ValueGraph;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+public class TestFoldingTransformer extends TestCase {
+  private MutableGraph<Integer> graph;
+  private Set<Integer> users;
+
+  @Override
+  protected void setUp() {
+    // a random bipartite graph of 300 "users" (0..299) and 100 "items" (300..399)
+    Random random = new Random(5);
+    graph = GraphBuilder.undirected().build();
+    users = new HashSet<Integer>();
+    for (int u = 0; u < 300; u++) {
+      graph.addNode(u);
+      users.add(u);
+      for (int i = 0; i < 4; i++) {
+        graph.putEdge(u, 300 + random.nextInt(100));
+      }
+    }
+  }
+
+  public void testMatchesFoldToValueGraph() {
+    MutableValueGraph<Integer, Set<Integer>> expected =
+        FoldingTransformer.foldToValueGraph(graph, users);
+    MutableValueGraph<Integer, Double> counts =
+        FoldingTransformer.foldToWeightedGraph(graph, users, n -> 1);
+
+    assertEquals(users, counts.nodes());
+    assertEquals(expected.edges(), counts.edges());
+    for (EndpointPair<Integer> edge : expected.edges()) {
+      assertEquals(
+          (double) expected.edgeValue(edge.nodeU(), edge.nodeV()).get().size(),
+          counts.edgeValue(edge.nodeU(), edge.nodeV()).get());
+    }
+
+    ValueGraph<Integer, Double> weighted =
+        FoldingTransformer.foldToWeightedGraph(graph, users, n -> 1.0 / graph.degree(n));
+    for (EndpointPair<Integer> edge : expected.edges()) {
+      double sum = 0;
+      for (Integer item : expected.edgeValue(edge.nodeU(), edge.nodeV()).get()) {
+        sum += 1.0 / graph.degree(item);
+      }
+      assertEquals(sum, weighted.edgeValue(edge.nodeU(), edge.nodeV()).get(), 1e-12);
+    }
+  }
+
+  public void testPruning() {
+    MutableValueGraph<Integer, Double> all =
+        FoldingTransformer.foldToWeightedGraph(graph, users, n -> 1);
+    MutableValueGraph<Integer, Double> pruned =
+        FoldingTransformer.foldToWeightedGraph(graph, users, n -> 1, 2, 3, true);
+    MutableValueGraph<Integer, Double> sequential =
+        FoldingTransformer.foldToWeightedGraph(graph, users, n -> 1, 2, 3, false);
+
+    assertEquals(sequential, pruned);
+    assertTrue(pruned.edges().size() > 0);
+    for (Integer u : users) {
+      // edges kept for u: the 3 strongest among those of value >= 2
+      int strong = 0;
+      for (Integer v : all.adjacentNodes(u)) {
+        if (all.edgeValue(u, v).get() >= 2) {
+          strong++;
+        }
+      }
+      int keptForU = 0;
+      for (Integer v : pruned.adjacentNodes(u)) {
+        assertTrue(pruned.edgeValue(u, v).get() >= 2);
+        assertEquals(all.edgeValue(u, v).get(), pruned.edgeValue(u, v).get());
+      }
+      for (Integer v : pruned.adjacentNodes(u)) {
+        if (isKeptFor(all, u, v, 3)) {
+          keptForU++;
+        }
+      }
+      assertEquals(Math.min(3, strong), keptForU);
+    }
+
+    MutableGraph<Integer> small = GraphBuilder.directed().build();
+    small.putEdge(0, 10);
+    small.putEdge(1, 10);
+    small.putEdge(10, 2);
+    small.putEdge(10, 0);
+    MutableValueGraph<Integer, Double> folded =
+        FoldingTransformer.foldToWeightedGraph(small, ImmutableSet.of(0, 1, 2), n -> 1);
+    assertEquals(ImmutableSet.of(0, 1, 2), folded.nodes());
+    assertEquals(3, folded.edges().size());
+    assertTrue(folded.hasEdgeConnecting(1, 0));
+    assertFalse(folded.hasEdgeConnecting(2, 0));
+  }
+
+  /** Returns true if v is among the k strongest neighbors of u (ties broken by node order). */
+  private boolean isKeptFor(ValueGraph<Integer, Double> all, Integer u, Integer v, int k) {
+    double value = all.edgeValue(u, v).get();
+    int stronger = 0;
+    for (Integer w : all.adjacentNodes(u)) {
+      double other = all.edgeValue(u, w).get();
+      if (other > value || (other == value && w < v)) {
+        stronger++;
+      }
+    }
+    return value >= 2 && stronger < k;
+  }
+}
@@ -0,0 +1,116 @@
+package edu.uci.ics.jung.algorithms.transformation;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.google.common.graph.ValueGraph;
+import edu.uci.ics.jung.algorithms.blockmodel.NodePartition;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+public class TestNodePartitionCollapser extends TestCase {
+
+  private static NodePartition<Integer> createPartition(boolean directed) {
+    Random random = new Random(3);
+    MutableGraph<Integer> graph =
+        (directed ? GraphBuilder.directed() : GraphBuilder.undirected())
+            .allowsSelfLoops(true)
+            .build();
+    for (int i = 0; i < 500; i++) {
+      graph.addNode(i);
+    }
+    for (int i = 0; i < 3000; i++) {
+      graph.putEdge(random.nextInt(500), random.nextInt(500));
+    }
+    List<Set<Integer>> sets = new ArrayList<Set<Integer>>();
+    for (int p = 0; p < 40; p++) {
+      sets.add(new HashSet<Integer>());
+    }
+    for (int i = 0; i < 500; i++) {
+      sets.get(random.nextInt(40)).add(i);
+    }
+    return new NodePartition<Integer>(graph, sets);
+  }
+
+  private static void assertMatchesEdges(boolean directed) {
+    NodePartition<Integer> partition = createPartition(directed);
+    ValueGraph<Set<Integer>, Integer> collapsed =
+        NodePartitionCollapser.collapseNodePartitions(partition);
+    QuotientGraph<Integer> quotient =
+        NodePartitionCollapser.collapseToQuotientGraph(
+            partition, endpoints -> endpoints.nodeU() + endpoints.nodeV(), true);
+    ValueGraph<Integer, Double> weights = quotient.getGraph();
+
+    assertEquals(directed, weights.isDirected());
+    assertEquals(40, quotient.getPartitionCount());
+    assertEquals(40, collapsed.nodes().size());
+    assertEquals(collapsed.edges().size(), weights.edges().size());
+    int[] counts = new int[40 * 40];
+    double[] sums = new double[40 * 40];
+    for (EndpointPair<Integer> edge : partition.getGraph().edges()) {
+      int pu = quotient.getPartitionId(edge.nodeU());
+      int pv = quotient.getPartitionId(edge.nodeV());
+      assertTrue(quotient.getPartition(pu).contains(edge.nodeU()));
+      if (pu == pv) {
+        continue;
+      }
+      int key = directed ? pu * 40 + pv : Math.min(pu, pv) * 40 + Math.max(pu, pv);
+      counts[key]++;
+      sums[key] += edge.nodeU() + edge.nodeV();
+    }
+    for (int pu = 0; pu < 40; pu++) {
+      for (int pv = 0; pv < 40; pv++) {
+        int key = directed ? pu * 40 + pv : Math.min(pu, pv) * 40 + Math.max(pu, pv);
+        Set<Integer> setU = quotient.getPartition(pu);
+        Set<Integer> setV = quotient.getPartition(pv);
+        assertEquals(counts[key] > 0, weights.hasEdgeConnecting(pu, pv));
+        assertEquals(counts[key] > 0, collapsed.hasEdgeConnecting(setU, setV));
+        if (counts[key] > 0) {
+          assertEquals(counts[key], collapsed.edgeValue(setU, setV).get().intValue());
+          assertEquals(sums[key], weights.edgeValue(pu, pv).get(), 1e-9);
+        }
+      }
+      assertEquals(
+          collapsed.successors(quotient.getPartition(pu)).size(), weights.successors(pu).size());
+      assertEquals(
+          collapsed.predecessors(quotient.getPartition(pu)).size(),
+          weights.predecessors(pu).size());
+    }
+  }
+
+  public void testDirected() {
+    assertMatchesEdges(true);
+  }
+
+  public void testUndirected() {
+    assertMatchesEdges(false);
+  }
+
+  public void testParallelMatchesSequential() {
+    NodePartition<Integer> partition = createPartition(true);
+    QuotientGraph<Integer> sequential =
+        NodePartitionCollapser.collapseToQuotientGraph(partition, endpoints -> 0.1, false);
+    QuotientGraph<Integer> parallel =
+        NodePartitionCollapser.collapseToQuotientGraph(partition, endpoints -> 0.1, true);
+    assertEquals(sequential.getGraph(), parallel.getGraph());
+    assertEquals(sequential.getPartitions(), parallel.getPartitions());
+  }
+
+  public void testInvalidPartition() {
+    MutableGraph<Integer> graph = GraphBuilder.undirected().build();
+    graph.putEdge(0, 1);
+    graph.putEdge(1, 2);
+    NodePartition<Integer> partition =
+        new NodePartition<Integer>(graph, ImmutableSet.of(ImmutableSet.of(0, 1)));
+    try {
+      NodePartitionCollapser.collapseToQuotientGraph(partition, endpoints -> 1, false);
+      fail("node 2 is not in any partition");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
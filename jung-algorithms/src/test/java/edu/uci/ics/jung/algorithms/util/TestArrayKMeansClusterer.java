@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.algorithms.util;
+
+import edu.uci.ics.jung.algorithms.util.KMeansClusterer.NotEnoughClustersException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+public class TestArrayKMeansClusterer extends TestCase {
+  private static final double[][] CENTERS = {{0, 0}, {100, 0}, {0, 100}};
+  private static final int POINTS_PER_CENTER = 5000;
+
+  private double[] points;
+
+  @Override
+  protected void setUp() {
+    Random random = new Random(17);
+    points = new double[CENTERS.length * POINTS_PER_CENTER * 2];
+    int index = 0;
+    for (double[] center : CENTERS) {
+      for (int i = 0; i < POINTS_PER_CENTER; i++) {
+        points[index++] = center[0] + random.nextGaussian();
+        points[index++] = center[1] + random.nextGaussian();
+      }
+    }
+  }
+
+  private void assertSeparated(ArrayKMeansClusterer.Clustering clustering) {
+    assertEquals(CENTERS.length, clustering.getClusterCount());
+    boolean[] used = new boolean[CENTERS.length];
+    for (int c = 0; c < CENTERS.length; c++) {
+      int first = c * POINTS_PER_CENTER;
+      int cluster = clustering.getCluster(first);
+      assertFalse(used[cluster]);
+      used[cluster] = true;
+      for (int i = first; i < first + POINTS_PER_CENTER; i++) {
+        assertEquals(cluster, clustering.getCluster(i));
+      }
+      assertEquals(POINTS_PER_CENTER, clustering.getClusterSize(cluster));
+      double[] centroid = clustering.getCentroid(cluster);
+      assertEquals(CENTERS[c][0], centroid[0], 0.1);
+      assertEquals(CENTERS[c][1], centroid[1], 0.1);
+    }
+  }
+
+  public void testLloyd() {
+    ArrayKMeansClusterer kmc = new ArrayKMeansClusterer();
+    kmc.setRandom(new Random(1));
+    ArrayKMeansClusterer.Clustering clustering = kmc.cluster(points, 2, CENTERS.length);
+    assertSeparated(clustering);
+    assertTrue(clustering.getIterations() < kmc.getMaxIterations());
+  }
+
+  public void testParallelMatchesSequential() {
+    ArrayKMeansClusterer kmc = new ArrayKMeansClusterer();
+    kmc.setRandom(new Random(5));
+    kmc.setParallel(true);
+    ArrayKMeansClusterer.Clustering parallel = kmc.cluster(points, 2, 5);
+    kmc.setRandom(new Random(5));
+    kmc.setParallel(false);
+    ArrayKMeansClusterer.Clustering sequential = kmc.cluster(points, 2, 5);
+    assertTrue(Arrays.equals(parallel.getAssignments(), sequential.getAssignments()));
+    for (int c = 0; c < 5; c++) {
+      assertTrue(Arrays.equals(parallel.getCentroid(c), sequential.getCentroid(c)));
+    }
+  }
+
+  public void testMiniBatch() {
+    ArrayKMeansClusterer kmc = new ArrayKMeansClusterer(200, 0.0001);
+    kmc.setRandom(new Random(3));
+    kmc.setMiniBatchSize(500);
+    assertSeparated(kmc.cluster(points, 2, CENTERS.length));
+  }
+
+  public void testNotEnoughDistinctPoints() {
+    ArrayKMeansClusterer kmc = new ArrayKMeansClusterer();
+    try {
+      kmc.cluster(new double[] {1, 1, 1, 1, 2}, 1, 3);
+      fail("expected NotEnoughClustersException");
+    } catch (NotEnoughClustersException e) {
+      // expected
+    }
+  }
+
+  public void testKMeansClustererDelegation() {
+    Map<Integer, double[]> locations = new HashMap<Integer, double[]>();
+    for (int i = 0; i < 10; i++) {
+      locations.put(i, new double[] {i < 5 ? i : 100 + i});
+    }
+    KMeansClusterer<Integer> kmc = new KMeansClusterer<Integer>();
+    kmc.setRandom(new Random(2));
+    Collection<Map<Integer, double[]>> clusters = kmc.cluster(locations, 2);
+    assertEquals(2, clusters.size());
+    for (Map<Integer, double[]> cluster : clusters) {
+      assertEquals(5, cluster.size());
+      boolean low = cluster.containsKey(0);
+      for (Integer i : cluster.keySet()) {
+        assertEquals(low, i < 5);
+      }
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package edu.uci.ics.jung.layout.algorithms;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.layout.model.LoadingCacheLayoutModel;
+import edu.uci.ics.jung.layout.model.Point;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that an update to an FRLayoutAlgorithm places added nodes near their neighbors and relaxes
+ * only the region around the change, for a bounded number of steps.
+ */
+public class FRLayoutAlgorithmUpdateTest {
+
+  private MutableGraph<Integer> graph;
+  private LayoutModel<Integer> layoutModel;
+  private FRLayoutAlgorithm<Integer> algorithm;
+
+  @Before
+  public void setUp() {
+    // a long ring with a few chords, so that most nodes are far from any change
+    graph = GraphBuilder.undirected().build();
+    Random random = new Random(1);
+    for (int i = 0; i < 200; i++) {
+      graph.putEdge(i, (i + 1) % 200);
+    }
+    for (int i = 0; i < 20; i++) {
+      graph.putEdge(random.nextInt(200), random.nextInt(200));
+    }
+    layoutModel =
+        LoadingCacheLayoutModel.<Integer>builder().setGraph(graph).setSize(600, 600).build();
+    algorithm = new FRLayoutAlgorithm<>();
+    algorithm.setRandomSeed(1);
+    algorithm.setMaxIterations(100);
+    // visit directly, rather than accept, so that no relaxer thread is started
+    algorithm.visit(layoutModel);
+    relax();
+  }
+
+  private int relax() {
+    int steps = 0;
+    while (!algorithm.done()) {
+      algorithm.step();
+      steps++;
+    }
+    return steps;
+  }
+
+  private Map<Integer, Point> locations() {
+    return new HashMap<>(layoutModel.getLocations());
+  }
+
+  @Test
+  public void testAddedNodesArePlacedNearNeighbors() {
+    Map<Integer, Point> before = locations();
+    algorithm.setUpdateIterations(30);
+    algorithm.setUpdateRadius(1);
+    // a chain of two new nodes, hung from node 0
+    graph.putEdge(0, 1000);
+    graph.putEdge(1000, 1001);
+    algorithm.update(ImmutableSet.of(1000, 1001), ImmutableSet.of(0), ImmutableSet.of());
+
+    Point anchor = layoutModel.apply(0);
+    Assert.assertTrue(layoutModel.apply(1000).distance(anchor) < 100);
+    Assert.assertTrue(layoutModel.apply(1001).distance(layoutModel.apply(1000)) < 100);
+    Assert.assertFalse(algorithm.done());
+
+    Assert.assertEquals(30, relax());
+    ImmutableSet<Integer> region =
+        ImmutableSet.<Integer>builder()
+            .add(0, 1000, 1001)
+            .addAll(graph.adjacentNodes(0))
+            .addAll(graph.adjacentNodes(1000))
+            .addAll(graph.adjacentNodes(1001))
+            .build();
+    int moved = 0;
+    for (Integer node : before.keySet()) {
+      if (region.contains(node)) {
+        moved += before.get(node).equals(layoutModel.apply(node)) ? 0 : 1;
+      } else {
+        Assert.assertEquals(before.get(node), layoutModel.apply(node));
+      }
+    }
+    Assert.assertTrue(moved > 0);
+  }
+
+  @Test
+  public void testNodeWithoutNeighborsIsPlacedOnceConnected() {
+    graph.addNode(1000);
+    algorithm.update(ImmutableSet.of(1000), ImmutableSet.of(), ImmutableSet.of());
+    relax();
+    graph.putEdge(1000, 50);
+    graph.putEdge(1000, 150);
+    algorithm.update(ImmutableSet.of(), ImmutableSet.of(1000, 50, 150), ImmutableSet.of());
+
+    Point a = layoutModel.apply(50);
+    Point b = layoutModel.apply(150);
+    Point mid = Point.of((a.x + b.x) / 2, (a.y + b.y) / 2);
+    Assert.assertTrue(layoutModel.apply(1000).distance(mid) < 100);
+  }
+
+  @Test
+  public void testRemovedNodes() {
+    Map<Integer, Point> before = locations();
+    graph.removeNode(100);
+    algorithm.update(ImmutableSet.of(), ImmutableSet.of(99, 101), ImmutableSet.of(100));
+    Assert.assertEquals(50, relax());
+    int unmoved = 0;
+    for (Integer node : graph.nodes()) {
+      unmoved += before.get(node).equals(layoutModel.apply(node)) ? 1 : 0;
+    }
+    Assert.assertTrue(unmoved > 150);
+
+    // a full visit relaxes the whole graph again
+    before = locations();
+    algorithm.visit(layoutModel);
+    relax();
+    unmoved = 0;
+    for (Integer node : graph.nodes()) {
+      unmoved += before.get(node).equals(layoutModel.apply(node)) ? 1 : 0;
+    }
+    Assert.assertEquals(0, unmoved);
+  }
+}
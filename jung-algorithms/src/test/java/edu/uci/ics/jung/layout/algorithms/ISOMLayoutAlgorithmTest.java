@@ -0,0 +1,44 @@
+package edu.uci.ics.jung.layout.algorithms;
+
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.layout.model.LoadingCacheLayoutModel;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests that the ISOMLayoutAlgorithm is repeatable for a given random seed. */
+public class ISOMLayoutAlgorithmTest {
+
+  @Test
+  public void testISOMLayoutIsRepeatable() {
+    MutableGraph<Integer> graph = GraphBuilder.undirected().build();
+    for (int i = 0; i < 20; i++) {
+      for (int j = 0; j < 20; j++) {
+        if (i > 0) {
+          graph.putEdge(20 * i + j, 20 * (i - 1) + j);
+        }
+        if (j > 0) {
+          graph.putEdge(20 * i + j, 20 * i + j - 1);
+        }
+      }
+    }
+    LayoutModel<Integer> first = runISOM(graph);
+    LayoutModel<Integer> second = runISOM(graph);
+    for (Integer node : graph.nodes()) {
+      Assert.assertEquals(first.apply(node), second.apply(node));
+    }
+  }
+
+  private static LayoutModel<Integer> runISOM(MutableGraph<Integer> graph) {
+    LayoutModel<Integer> layoutModel =
+        LoadingCacheLayoutModel.<Integer>builder().setGraph(graph).setSize(500, 500).build();
+    ISOMLayoutAlgorithm<Integer> algorithm = new ISOMLayoutAlgorithm<>();
+    algorithm.setRandomSeed(3);
+    algorithm.visit(layoutModel);
+    while (!algorithm.done()) {
+      algorithm.step();
+    }
+    return layoutModel;
+  }
+}
@@ -0,0 +1,65 @@
+package edu.uci.ics.jung.layout.algorithms;
+
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.layout.model.LoadingCacheLayoutModel;
+import edu.uci.ics.jung.layout.model.Point;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that the cell list used by SpringLayoutAlgorithm to calculate repulsion gives the same
+ * result as comparing every pair of nodes, including for nodes outside the layout's bounds.
+ */
+public class SpringRepulsionTest {
+
+  @Test
+  public void testRepulsionMatchesAllPairs() {
+    Random random = new Random(2);
+    MutableGraph<Integer> graph = GraphBuilder.undirected().build();
+    int n = 400;
+    for (int i = 0; i < n; i++) {
+      graph.addNode(i);
+    }
+    LayoutModel<Integer> layoutModel =
+        LoadingCacheLayoutModel.<Integer>builder().setGraph(graph).setSize(500, 500).build();
+    for (int i = 0; i < n; i++) {
+      layoutModel.set(i, -100 + random.nextDouble() * 700, -100 + random.nextDouble() * 700);
+    }
+
+    for (int range : new int[] {1, 37, 100, 1000}) {
+      TestSpringLayoutAlgorithm algorithm = new TestSpringLayoutAlgorithm();
+      algorithm.setRepulsionRange(range);
+      algorithm.visit(layoutModel);
+      algorithm.calculateRepulsion();
+
+      for (int i = 0; i < n; i++) {
+        Point p = layoutModel.apply(i);
+        double dx = 0;
+        double dy = 0;
+        for (int j = 0; j < n; j++) {
+          Point p2 = layoutModel.apply(j);
+          double distanceSq = p.distanceSquared(p2);
+          if (i != j && distanceSq < range * range) {
+            dx += (p.x - p2.x) / distanceSq;
+            dy += (p.y - p2.y) / distanceSq;
+          }
+        }
+        double dlen = dx * dx + dy * dy;
+        double expectedX = dlen > 0 ? dx / (Math.sqrt(dlen) / 2) : 0;
+        double expectedY = dlen > 0 ? dy / (Math.sqrt(dlen) / 2) : 0;
+        Assert.assertEquals(expectedX, algorithm.repulsion(i).x, 1e-9);
+        Assert.assertEquals(expectedY, algorithm.repulsion(i).y, 1e-9);
+      }
+    }
+  }
+
+  private static class TestSpringLayoutAlgorithm extends SpringLayoutAlgorithm<Integer> {
+    Point repulsion(Integer node) {
+      SpringNodeData data = springNodeData.getUnchecked(node);
+      return Point.of(data.repulsiondx, data.repulsiondy);
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package edu.uci.ics.jung.layout.algorithms;
+
+import com.google.common.collect.Sets;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.Graph;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.layout.model.LoadingCacheLayoutModel;
+import edu.uci.ics.jung.layout.model.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that the SugiyamaLayoutAlgorithm places every edge pointing downwards with the nodes of
+ * each layer apart, that it untangles trees and straightens paths, and that it (and the level
+ * computation of DAGLayoutAlgorithm) handles graphs with many shared ancestors.
+ */
+public class SugiyamaLayoutAlgorithmTest {
+
+  private static final int DIST = SugiyamaLayoutAlgorithm.DEFAULT_DISTX;
+
+  private static LayoutModel<Integer> layout(
+      Graph<Integer> graph, SugiyamaLayoutAlgorithm<Integer> algorithm) {
+    LayoutModel<Integer> layoutModel =
+        LoadingCacheLayoutModel.<Integer>builder().setGraph(graph).setSize(600, 600).build();
+    layoutModel.accept(algorithm);
+    return layoutModel;
+  }
+
+  private static MutableGraph<Integer> randomDag(int n, int edges, long seed) {
+    Random random = new Random(seed);
+    MutableGraph<Integer> dag = GraphBuilder.directed().allowsSelfLoops(true).build();
+    for (int i = 0; i < n; i++) {
+      dag.addNode(i);
+    }
+    for (int i = 0; i < edges; i++) {
+      int u = random.nextInt(n - 1);
+      dag.putEdge(u, u + 1 + random.nextInt(Math.min(n - 1 - u, 30)));
+    }
+    return dag;
+  }
+
+  private static void assertLayered(Graph<Integer> graph, LayoutModel<Integer> layoutModel) {
+    for (EndpointPair<Integer> edge : graph.edges()) {
+      Assert.assertTrue(layoutModel.apply(edge.source()).y < layoutModel.apply(edge.target()).y);
+    }
+    Map<Double, List<Double>> rows = new HashMap<>();
+    for (Integer node : graph.nodes()) {
+      Point p = layoutModel.apply(node);
+      Assert.assertTrue(p.x >= DIST - 1e-6 && p.x <= layoutModel.getWidth());
+      Assert.assertTrue(p.y <= layoutModel.getHeight());
+      rows.computeIfAbsent(p.y, y -> new ArrayList<>()).add(p.x);
+    }
+    for (List<Double> row : rows.values()) {
+      Collections.sort(row);
+      for (int i = 1; i < row.size(); i++) {
+        Assert.assertTrue(row.get(i) - row.get(i - 1) >= DIST - 1e-6);
+      }
+    }
+  }
+
+  @Test
+  public void testRandomDag() {
+    MutableGraph<Integer> dag = randomDag(500, 1200, 1);
+    SugiyamaLayoutAlgorithm<Integer> unswept = new SugiyamaLayoutAlgorithm<>();
+    unswept.setMaxIterations(0);
+    layout(dag, unswept);
+    for (boolean parallel : new boolean[] {false, true}) {
+      SugiyamaLayoutAlgorithm<Integer> algorithm = new SugiyamaLayoutAlgorithm<>();
+      algorithm.setParallel(parallel);
+      LayoutModel<Integer> layoutModel = layout(dag, algorithm);
+      assertLayered(dag, layoutModel);
+      Assert.assertTrue(algorithm.getCrossingCount() < unswept.getCrossingCount());
+    }
+  }
+
+  @Test
+  public void testTreeHasNoCrossings() {
+    List<Integer> children = new ArrayList<>();
+    for (int i = 1; i < 255; i++) {
+      children.add(i);
+    }
+    Collections.shuffle(children, new Random(2));
+    MutableGraph<Integer> tree = GraphBuilder.directed().build();
+    for (int child : children) {
+      tree.putEdge((child - 1) / 2, child);
+    }
+    SugiyamaLayoutAlgorithm<Integer> algorithm = new SugiyamaLayoutAlgorithm<>();
+    LayoutModel<Integer> layoutModel = layout(tree, algorithm);
+    assertLayered(tree, layoutModel);
+    Assert.assertEquals(0, algorithm.getCrossingCount());
+  }
+
+  @Test
+  public void testPathIsStraight() {
+    MutableGraph<Integer> graph = GraphBuilder.directed().build();
+    for (int i = 1; i < 10; i++) {
+      graph.putEdge(i - 1, i);
+    }
+    Assert.assertEquals(1, columns(layout(graph, new SugiyamaLayoutAlgorithm<>()), 0, 10));
+    // a long edge beside the path, whose dummy nodes should not bend the inner part of the path
+    graph.putEdge(0, 9);
+    LayoutModel<Integer> layoutModel = layout(graph, new SugiyamaLayoutAlgorithm<>());
+    assertLayered(graph, layoutModel);
+    Assert.assertEquals(1, columns(layoutModel, 1, 9));
+  }
+
+  /** Returns the number of distinct x coordinates of the nodes in [from, to). */
+  private static int columns(LayoutModel<Integer> layoutModel, int from, int to) {
+    Set<Double> xs = Sets.newHashSet();
+    for (int node = from; node < to; node++) {
+      xs.add(layoutModel.apply(node).x);
+    }
+    return xs.size();
+  }
+
+  @Test
+  public void testCycles() {
+    MutableGraph<Integer> graph = randomDag(200, 400, 3);
+    graph.putEdge(150, 10);
+    graph.putEdge(199, 0);
+    graph.putEdge(5, 5);
+    LayoutModel<Integer> layoutModel = layout(graph, new SugiyamaLayoutAlgorithm<>());
+    Set<Point> locations = Sets.newHashSet();
+    for (Integer node : graph.nodes()) {
+      locations.add(layoutModel.apply(node));
+    }
+    Assert.assertEquals(graph.nodes().size(), locations.size());
+  }
+
+  /** A chain of diamonds, in which the number of paths doubles at each diamond. */
+  @Test
+  public void testDiamonds() {
+    MutableGraph<Integer> graph = GraphBuilder.directed().build();
+    int diamonds = 1000;
+    for (int i = 0; i < diamonds; i++) {
+      graph.putEdge(3 * i, 3 * i + 1);
+      graph.putEdge(3 * i, 3 * i + 2);
+      graph.putEdge(3 * i + 1, 3 * i + 3);
+      graph.putEdge(3 * i + 2, 3 * i + 3);
+    }
+    LayoutModel<Integer> layoutModel = layout(graph, new SugiyamaLayoutAlgorithm<>());
+    assertLayered(graph, layoutModel);
+
+    DAGLayoutAlgorithm<Integer> dag = new DAGLayoutAlgorithm<>();
+    dag.visit(LoadingCacheLayoutModel.<Integer>builder().setGraph(graph).setSize(600, 600).build());
+    Assert.assertEquals(2 * diamonds, DAGLayoutAlgorithm.graphHeight);
+  }
+
+  @Test(timeout = 10000)
+  public void testDagLevelsOnCycle() {
+    MutableGraph<Integer> graph = GraphBuilder.directed().build();
+    graph.putEdge(0, 1);
+    graph.putEdge(1, 2);
+    graph.putEdge(2, 0);
+    graph.putEdge(3, 0);
+    DAGLayoutAlgorithm<Integer> dag = new DAGLayoutAlgorithm<>();
+    dag.visit(LoadingCacheLayoutModel.<Integer>builder().setGraph(graph).setSize(600, 600).build());
+    DAGLayoutAlgorithm.graphHeight = 0;
+    dag.setRoot(2);
+    Assert.assertEquals(graph.nodes().size() - 1, DAGLayoutAlgorithm.graphHeight);
+  }
+}
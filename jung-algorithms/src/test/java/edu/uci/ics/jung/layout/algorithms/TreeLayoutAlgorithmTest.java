@@ -0,0 +1,203 @@
+package edu.uci.ics.jung.layout.algorithms;
+
+import com.google.common.graph.Graph;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.layout.model.LoadingCacheLayoutModel;
+import edu.uci.ics.jung.layout.model.Point;
+import edu.uci.ics.jung.layout.model.PolarPoint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that the tree layouts place the nodes of a tree as the recursive layout did, that the tidy
+ * layout keeps subtrees apart while centering parents over their children, that balloons nest, that
+ * the deprecated members of the recursive layouts are still maintained, and that a deep tree can be
+ * laid out without overflowing the stack.
+ */
+public class TreeLayoutAlgorithmTest {
+
+  private static final int DIST = TreeLayoutAlgorithm.DEFAULT_DISTX;
+
+  /** Returns a random tree in which the parent of each node i > 0 is a node less than i. */
+  private static MutableGraph<Integer> randomTree(int n, long seed) {
+    Random random = new Random(seed);
+    MutableGraph<Integer> tree = GraphBuilder.directed().build();
+    tree.addNode(0);
+    for (int i = 1; i < n; i++) {
+      // favor recent nodes, so that the tree is deep as well as bushy
+      tree.putEdge(Math.max(0, i - 1 - random.nextInt(Math.min(i, 20))), i);
+    }
+    return tree;
+  }
+
+  private static LayoutModel<Integer> layout(Graph<Integer> graph, LayoutAlgorithm<Integer> algo) {
+    LayoutModel<Integer> layoutModel =
+        LoadingCacheLayoutModel.<Integer>builder().setGraph(graph).setSize(600, 600).build();
+    layoutModel.accept(algo);
+    return layoutModel;
+  }
+
+  @Test
+  public void testMatchesRecursiveLayout() {
+    MutableGraph<Integer> tree = randomTree(500, 1);
+    LayoutModel<Integer> layoutModel = layout(tree, new TreeLayoutAlgorithm<>());
+
+    Map<Integer, Integer> widths = new HashMap<>();
+    width(tree, 0, widths);
+    Map<Integer, Point> expected = new HashMap<>();
+    place(tree, 0, widths.get(0) / 2 + DIST, 20 + DIST, widths, expected);
+    for (Integer node : tree.nodes()) {
+      Assert.assertEquals(expected.get(node), layoutModel.apply(node));
+    }
+  }
+
+  private static int width(Graph<Integer> tree, int node, Map<Integer, Integer> widths) {
+    int size = 0;
+    for (int child : tree.successors(node)) {
+      size += width(tree, child, widths) + DIST;
+    }
+    widths.put(node, Math.max(0, size - DIST));
+    return widths.get(node);
+  }
+
+  private static void place(
+      Graph<Integer> tree,
+      int node,
+      int x,
+      int y,
+      Map<Integer, Integer> widths,
+      Map<Integer, Point> locations) {
+    locations.put(node, Point.of(x, y));
+    int lastX = x - widths.get(node) / 2;
+    for (int child : tree.successors(node)) {
+      place(tree, child, lastX + widths.get(child) / 2, y + DIST, widths, locations);
+      lastX += widths.get(child) + DIST;
+    }
+  }
+
+  @Test
+  public void testTidyLayout() {
+    MutableGraph<Integer> tree = randomTree(3000, 2);
+    // a second, smaller tree, so that the roots are placed side by side
+    for (int i = 1; i < 20; i++) {
+      tree.putEdge(3000, 3000 + i);
+    }
+    TreeLayoutAlgorithm<Integer> tidy = new TreeLayoutAlgorithm<>();
+    tidy.setTidy(true);
+    LayoutModel<Integer> tidyModel = layout(tree, tidy);
+    LayoutModel<Integer> model = layout(tree, new TreeLayoutAlgorithm<>());
+    Assert.assertTrue(tidyModel.getWidth() < model.getWidth());
+
+    Map<Double, List<Integer>> rows = new HashMap<>();
+    double minX = Double.POSITIVE_INFINITY;
+    for (Integer node : tree.nodes()) {
+      Point p = tidyModel.apply(node);
+      rows.computeIfAbsent(p.y, y -> new ArrayList<>()).add(node);
+      minX = Math.min(minX, p.x);
+      Integer previous = null;
+      for (Integer child : tree.successors(node)) {
+        Point c = tidyModel.apply(child);
+        Assert.assertEquals(p.y + DIST, c.y, 0);
+        if (previous != null) {
+          Assert.assertTrue(tidyModel.apply(previous).x < c.x);
+        }
+        previous = child;
+      }
+      if (previous != null) {
+        double first = tidyModel.apply(tree.successors(node).iterator().next()).x;
+        Assert.assertEquals((first + tidyModel.apply(previous).x) / 2, p.x, 1e-6);
+      }
+    }
+    Assert.assertEquals(DIST, minX, 1e-6);
+    for (List<Integer> row : rows.values()) {
+      row.sort((a, b) -> Double.compare(tidyModel.apply(a).x, tidyModel.apply(b).x));
+      for (int i = 1; i < row.size(); i++) {
+        double gap = tidyModel.apply(row.get(i)).x - tidyModel.apply(row.get(i - 1)).x;
+        Assert.assertTrue(gap >= DIST - 1e-6);
+      }
+    }
+  }
+
+  @Test
+  public void testBalloonsNest() {
+    MutableGraph<Integer> tree = randomTree(1000, 3);
+    BalloonLayoutAlgorithm<Integer> balloon = new BalloonLayoutAlgorithm<>();
+    LayoutModel<Integer> layoutModel = layout(tree, balloon);
+    Map<Integer, Double> radii = balloon.getRadii();
+    Assert.assertEquals(tree.nodes().size() - 1, radii.size());
+    Assert.assertNull(radii.get(0));
+    Assert.assertEquals(Point.of(300, 300), layoutModel.apply(0));
+    for (Integer node : tree.nodes()) {
+      double radius = node == 0 ? 300 : radii.get(node);
+      for (Integer child : tree.successors(node)) {
+        double distance = layoutModel.apply(node).distance(layoutModel.apply(child));
+        Assert.assertTrue(distance + radii.get(child) <= radius + 1e-9);
+      }
+    }
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testDeprecatedMembers() {
+    MutableGraph<Integer> tree = randomTree(200, 4);
+    List<Integer> placed = new ArrayList<>();
+    TreeLayoutAlgorithm<Integer> algorithm =
+        new TreeLayoutAlgorithm<Integer>() {
+          @Override
+          protected void setCurrentPositionFor(LayoutModel<Integer> layoutModel, Integer node) {
+            placed.add(node);
+            super.setCurrentPositionFor(layoutModel, node);
+          }
+        };
+    LayoutModel<Integer> layoutModel = layout(tree, algorithm);
+    Assert.assertEquals(tree.nodes().size(), placed.size());
+    Assert.assertEquals(tree.nodes(), algorithm.alreadyDone);
+
+    // the recursive placement still reproduces the layout from the recorded subtree widths
+    LayoutModel<Integer> recursiveModel =
+        LoadingCacheLayoutModel.<Integer>builder()
+            .setGraph(tree)
+            .setSize(layoutModel.getWidth(), layoutModel.getHeight())
+            .build();
+    algorithm.alreadyDone.clear();
+    algorithm.buildTree(recursiveModel, 0, algorithm.basePositions.get(0) / 2 + DIST);
+    for (Integer node : tree.nodes()) {
+      Assert.assertEquals(layoutModel.apply(node), recursiveModel.apply(node));
+    }
+
+    BalloonLayoutAlgorithm<Integer> balloon = new BalloonLayoutAlgorithm<>();
+    LayoutModel<Integer> balloonModel = layout(tree, balloon);
+    for (Integer node : tree.nodes()) {
+      Point center = balloon.getCenter(balloonModel, node);
+      Point location = PolarPoint.polarToCartesian(balloon.polarLocations.getUnchecked(node));
+      Assert.assertEquals(balloonModel.apply(node).x, center.x + location.x, 1e-6);
+      Assert.assertEquals(balloonModel.apply(node).y, center.y + location.y, 1e-6);
+    }
+  }
+
+  @Test
+  public void testDeepTree() {
+    int n = 200000;
+    MutableGraph<Integer> path = GraphBuilder.directed().expectedNodeCount(n).build();
+    for (int i = 1; i < n; i++) {
+      path.putEdge(i - 1, i);
+    }
+    for (boolean tidy : new boolean[] {false, true}) {
+      TreeLayoutAlgorithm<Integer> algorithm = new TreeLayoutAlgorithm<>();
+      algorithm.setTidy(tidy);
+      LayoutModel<Integer> layoutModel = layout(path, algorithm);
+      Assert.assertEquals(Point.of(DIST, 20 + n * DIST), layoutModel.apply(n - 1));
+      Assert.assertTrue(layoutModel.getHeight() > 20 + n * DIST);
+    }
+    BalloonLayoutAlgorithm<Integer> balloon = new BalloonLayoutAlgorithm<>();
+    layout(path, balloon);
+    Assert.assertEquals(n - 1, balloon.getRadii().size());
+  }
+}
@@ -0,0 +1,60 @@
+package edu.uci.ics.jung.layout.spatial;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that a GridIndex finds the same nearest elements as a linear scan, as elements are added,
+ * moved (including outside the grid's bounds) and removed.
+ */
+public class GridIndexTest {
+
+  @Test
+  public void testNearestMatchesLinearScan() {
+    Random random = new Random(1);
+    int n = 500;
+    GridIndex grid = GridIndex.withCapacity(new Rectangle(0, 0, 400, 200), n);
+    double[] xs = new double[n];
+    double[] ys = new double[n];
+    boolean[] present = new boolean[n];
+    for (int round = 0; round < 5000; round++) {
+      int element = random.nextInt(n);
+      if (random.nextInt(10) == 0) {
+        grid.remove(element);
+        present[element] = false;
+      } else {
+        // some locations lie outside the grid
+        xs[element] = -50 + random.nextDouble() * 500;
+        ys[element] = -50 + random.nextDouble() * 300;
+        grid.put(element, xs[element], ys[element]);
+        present[element] = true;
+      }
+
+      double x = -100 + random.nextDouble() * 600;
+      double y = -100 + random.nextDouble() * 400;
+      int expected = -1;
+      double best = Double.POSITIVE_INFINITY;
+      int count = 0;
+      for (int e = 0; e < n; e++) {
+        if (present[e]) {
+          count++;
+          double d = (xs[e] - x) * (xs[e] - x) + (ys[e] - y) * (ys[e] - y);
+          if (d < best) {
+            best = d;
+            expected = e;
+          }
+        }
+      }
+      Assert.assertEquals(count, grid.size());
+      int nearest = grid.nearest(x, y);
+      if (expected < 0) {
+        Assert.assertEquals(-1, nearest);
+      } else {
+        double dx = grid.getX(nearest) - x;
+        double dy = grid.getY(nearest) - y;
+        Assert.assertEquals(best, dx * dx + dy * dy, 0);
+      }
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package edu.uci.ics.jung.layout.util;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import edu.uci.ics.jung.layout.algorithms.CircleLayoutAlgorithm;
+import edu.uci.ics.jung.layout.algorithms.FRLayoutAlgorithm;
+import edu.uci.ics.jung.layout.algorithms.KKLayoutAlgorithm;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.layout.model.LoadingCacheLayoutModel;
+import edu.uci.ics.jung.layout.model.Point;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that a LayoutCache restores the layout of an unchanged graph, warm-starts a slightly
+ * changed one by relaxing only its changes (or, for a non-incremental algorithm, by starting it
+ * from the cached locations), and ignores a different one.
+ */
+public class LayoutCacheTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path directory;
+  private LayoutCache<Integer> cache;
+
+  @Before
+  public void setUp() {
+    directory = folder.getRoot().toPath();
+    cache = new LayoutCache<>(directory, String::valueOf);
+  }
+
+  private static MutableGraph<Integer> ring(int n, int first) {
+    MutableGraph<Integer> graph = GraphBuilder.undirected().build();
+    for (int i = 0; i < n; i++) {
+      graph.putEdge(first + i, first + (i + 1) % n);
+    }
+    return graph;
+  }
+
+  private static LayoutModel<Integer> model(MutableGraph<Integer> graph) {
+    return LoadingCacheLayoutModel.<Integer>builder().setGraph(graph).setSize(600, 600).build();
+  }
+
+  @Test
+  public void testFingerprint() {
+    MutableGraph<Integer> graph = ring(100, 0);
+    MutableGraph<Integer> reversed = GraphBuilder.undirected().build();
+    for (int i = 99; i >= 0; i--) {
+      reversed.putEdge((i + 1) % 100, i);
+    }
+    Assert.assertEquals(cache.fingerprint(graph), cache.fingerprint(reversed));
+    reversed.removeEdge(0, 1);
+    reversed.putEdge(0, 2);
+    Assert.assertNotEquals(cache.fingerprint(graph), cache.fingerprint(reversed));
+  }
+
+  @Test
+  public void testExact() throws Exception {
+    MutableGraph<Integer> graph = ring(100, 0);
+    LayoutModel<Integer> original = model(graph);
+    original.accept(new CircleLayoutAlgorithm<>());
+    cache.save(original);
+
+    LayoutModel<Integer> reopened = model(ring(100, 0));
+    Assert.assertEquals(
+        LayoutCache.Start.EXACT, cache.warmStart(reopened, new FRLayoutAlgorithm<Integer>()));
+    Assert.assertFalse(reopened.isRelaxing());
+    for (Integer node : graph.nodes()) {
+      Assert.assertEquals(0, original.apply(node).distance(reopened.apply(node)), 1e-3);
+    }
+  }
+
+  @Test
+  public void testWarm() throws Exception {
+    MutableGraph<Integer> graph = ring(100, 0);
+    LayoutModel<Integer> original = model(graph);
+    original.accept(new CircleLayoutAlgorithm<>());
+    cache.save(original);
+
+    MutableGraph<Integer> changed = ring(100, 0);
+    changed.putEdge(0, 100);
+    changed.removeEdge(50, 51);
+    changed.putEdge(50, 52);
+    Optional<LayoutCache.CachedLayout<Integer>> cached = cache.load(changed);
+    Assert.assertTrue(cached.isPresent());
+    Assert.assertFalse(cached.get().isExact());
+    Assert.assertEquals(100, cached.get().getLocations().size());
+    Assert.assertEquals(ImmutableSet.of(100), cached.get().getAdded());
+    Assert.assertEquals(ImmutableSet.of(0, 50, 51, 52), cached.get().getChanged());
+
+    LayoutModel<Integer> reopened = model(changed);
+    FRLayoutAlgorithm<Integer> algorithm = new FRLayoutAlgorithm<>();
+    algorithm.setUpdateRadius(1);
+    algorithm.setRandomSeed(7);
+    Assert.assertEquals(LayoutCache.Start.WARM, cache.warmStart(reopened, algorithm));
+    reopened.getTheFuture().get();
+    Assert.assertTrue(algorithm.done());
+    // only the new node and the neighborhoods of the changed nodes have moved
+    for (int node = 2; node < 99; node++) {
+      if (node < 49 || node > 53) {
+        Assert.assertEquals(0, original.apply(node).distance(reopened.apply(node)), 1e-3);
+      }
+    }
+    Assert.assertTrue(original.apply(51).distance(reopened.apply(51)) > 0);
+    Assert.assertTrue(reopened.apply(100).distance(reopened.apply(0)) < 100);
+  }
+
+  @Test
+  public void testWarmKK() throws Exception {
+    MutableGraph<Integer> graph = ring(100, 0);
+    LayoutModel<Integer> original = model(graph);
+    original.accept(new CircleLayoutAlgorithm<>());
+    cache.save(original);
+
+    MutableGraph<Integer> changed = ring(100, 0);
+    changed.putEdge(0, 100);
+    LayoutModel<Integer> reopened = model(changed);
+    Map<Integer, Point> start = new HashMap<>();
+    KKLayoutAlgorithm<Integer> algorithm =
+        new KKLayoutAlgorithm<Integer>() {
+          @Override
+          public void initialize() {
+            super.initialize();
+            for (Integer node : changed.nodes()) {
+              start.put(node, reopened.apply(node));
+            }
+          }
+        };
+    algorithm.setMaxIterations(50);
+    Assert.assertEquals(LayoutCache.Start.WARM, cache.warmStart(reopened, algorithm));
+    reopened.getTheFuture().get();
+    // the layout started from the cached locations, and the algorithm's setting is restored
+    for (Integer node : graph.nodes()) {
+      Assert.assertEquals(0, original.apply(node).distance(start.get(node)), 1e-3);
+    }
+    Assert.assertFalse(algorithm.isKeepLocations());
+  }
+
+  @Test
+  public void testCold() throws Exception {
+    LayoutModel<Integer> original = model(ring(100, 0));
+    original.accept(new CircleLayoutAlgorithm<>());
+    cache.save(original);
+
+    MutableGraph<Integer> other = ring(100, 1000);
+    Assert.assertFalse(cache.load(other).isPresent());
+    Assert.assertEquals(
+        LayoutCache.Start.COLD, cache.warmStart(model(other), new CircleLayoutAlgorithm<>()));
+  }
+}
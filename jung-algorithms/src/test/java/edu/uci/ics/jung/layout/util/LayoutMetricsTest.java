@@ -0,0 +1,105 @@
+package edu.uci.ics.jung.layout.util;
+
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import edu.uci.ics.jung.algorithms.util.IterativeContext;
+import edu.uci.ics.jung.layout.algorithms.FRLayoutAlgorithm;
+import edu.uci.ics.jung.layout.algorithms.KKLayoutAlgorithm;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.layout.model.LoadingCacheLayoutModel;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that LayoutMetrics reports each step of a layout algorithm to its listeners, with the phase
+ * times and energy of instrumented algorithms, and summarizes the latest steps.
+ */
+public class LayoutMetricsTest {
+
+  private MutableGraph<Integer> graph;
+  private LayoutModel<Integer> layoutModel;
+
+  @Before
+  public void setUp() {
+    graph = GraphBuilder.undirected().build();
+    for (int i = 0; i < 50; i++) {
+      graph.putEdge(i, (i + 1) % 50);
+      if ((i * 7) % 50 != i) {
+        graph.putEdge(i, (i * 7) % 50);
+      }
+    }
+    layoutModel =
+        LoadingCacheLayoutModel.<Integer>builder().setGraph(graph).setSize(600, 600).build();
+    layoutModel.setInitializer(new RandomLocationTransformer<>(600, 600, 1));
+  }
+
+  @Test
+  public void testSteps() {
+    LayoutMetrics<Integer> metrics = new LayoutMetrics<>(layoutModel, 10);
+    List<StepMetrics> steps = new ArrayList<>();
+    metrics.addListener(stepMetrics -> steps.add(stepMetrics.copy()));
+    FRLayoutAlgorithm<Integer> algorithm = new FRLayoutAlgorithm<>();
+    algorithm.setMaxIterations(30);
+    algorithm.visit(layoutModel);
+    IterativeContext instrumented = metrics.instrument(algorithm);
+    while (!instrumented.done()) {
+      instrumented.step();
+    }
+
+    Assert.assertTrue(steps.size() > 10);
+    for (int i = 0; i < steps.size(); i++) {
+      StepMetrics step = steps.get(i);
+      Assert.assertEquals(i, step.getStep());
+      long phases = 0;
+      for (StepMetrics.Phase phase : StepMetrics.Phase.values()) {
+        Assert.assertTrue(step.getPhaseNanos(phase) >= 0);
+        phases += step.getPhaseNanos(phase);
+      }
+      Assert.assertTrue(phases <= step.getWallNanos());
+      Assert.assertTrue(step.getEnergy() > 0);
+      Assert.assertTrue(step.getNodesMoved() <= graph.nodes().size());
+      Assert.assertTrue(step.getMaxDisplacement() <= step.getTotalDisplacement());
+    }
+    // the first steps move every node; the layout cools as it goes
+    Assert.assertEquals(graph.nodes().size(), steps.get(0).getNodesMoved());
+    Assert.assertTrue(
+        steps.get(steps.size() - 1).getTotalDisplacement() < steps.get(0).getTotalDisplacement());
+
+    LayoutMetrics.Summary summary = metrics.getSummary();
+    Assert.assertEquals(steps.size(), summary.getSteps());
+    Assert.assertEquals(10, summary.getWindow());
+    Assert.assertEquals(steps.get(steps.size() - 1).getEnergy(), summary.getLastEnergy(), 0);
+    double max = 0;
+    for (StepMetrics step : steps.subList(steps.size() - 10, steps.size())) {
+      max = Math.max(max, step.getMaxDisplacement());
+    }
+    Assert.assertEquals(max, summary.getMaxDisplacement(), 0);
+    // measuring stops with the step
+    algorithm.step();
+    Assert.assertEquals(steps.size(), metrics.getSummary().getSteps());
+  }
+
+  @Test
+  public void testRelaxer() throws Exception {
+    LayoutMetrics<Integer> metrics = new LayoutMetrics<>(layoutModel);
+    int[] steps = new int[1];
+    metrics.addListener(stepMetrics -> steps[0]++);
+    layoutModel.setLayoutMetrics(metrics);
+    KKLayoutAlgorithm<Integer> algorithm = new KKLayoutAlgorithm<>();
+    algorithm.setMaxIterations(20);
+    // visit without the pre-relax phase, whose steps are not measured
+    algorithm.visit(layoutModel);
+    layoutModel.resumeRelaxer(algorithm);
+    layoutModel.getTheFuture().get();
+
+    LayoutMetrics.Summary summary = metrics.getSummary();
+    Assert.assertEquals(steps[0], summary.getSteps());
+    Assert.assertTrue(summary.getSteps() > 0);
+    Assert.assertTrue(summary.getLastEnergy() > 0);
+    Assert.assertTrue(summary.getMeanWallNanos() > 0);
+    Assert.assertEquals(0, summary.getMeanPhaseNanos(StepMetrics.Phase.REPULSION), 0);
+  }
+}
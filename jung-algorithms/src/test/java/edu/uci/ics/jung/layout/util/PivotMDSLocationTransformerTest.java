@@ -0,0 +1,146 @@
+package edu.uci.ics.jung.layout.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import edu.uci.ics.jung.layout.algorithms.AbstractIterativeLayoutAlgorithm;
+import edu.uci.ics.jung.layout.algorithms.FRLayoutAlgorithm;
+import edu.uci.ics.jung.layout.algorithms.KKLayoutAlgorithm;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.layout.model.LoadingCacheLayoutModel;
+import edu.uci.ics.jung.layout.model.Point;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that a Pivot MDS placement of a grid reproduces the grid, that iterative layouts start from
+ * it (so that FR finishes sooner than from random locations), and that graphs with several
+ * components or very few nodes are placed inside the layout area.
+ */
+public class PivotMDSLocationTransformerTest {
+
+  private static final int SIDE = 30;
+
+  private static MutableGraph<Integer> grid() {
+    MutableGraph<Integer> grid = GraphBuilder.undirected().build();
+    for (int r = 0; r < SIDE; r++) {
+      for (int c = 0; c < SIDE; c++) {
+        if (c + 1 < SIDE) {
+          grid.putEdge(r * SIDE + c, r * SIDE + c + 1);
+        }
+        if (r + 1 < SIDE) {
+          grid.putEdge(r * SIDE + c, (r + 1) * SIDE + c);
+        }
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * @return the correlation of the distances between a sample of the nodes in the layout and in the
+   *     grid
+   */
+  private static double correlation(MutableGraph<Integer> grid, LayoutModel<Integer> layoutModel) {
+    int count = 0;
+    double sumG = 0, sumE = 0, sumGG = 0, sumEE = 0, sumGE = 0;
+    for (int a = 0; a < grid.nodes().size(); a += 7) {
+      for (int b = a + 1; b < grid.nodes().size(); b += 13) {
+        double g = Math.abs(a / SIDE - b / SIDE) + Math.abs(a % SIDE - b % SIDE);
+        double e = layoutModel.apply(a).distance(layoutModel.apply(b));
+        count++;
+        sumG += g;
+        sumE += e;
+        sumGG += g * g;
+        sumEE += e * e;
+        sumGE += g * e;
+      }
+    }
+    double covariance = sumGE / count - sumG / count * sumE / count;
+    return covariance
+        / Math.sqrt(
+            (sumGG / count - Math.pow(sumG / count, 2))
+                * (sumEE / count - Math.pow(sumE / count, 2)));
+  }
+
+  @Test
+  public void testGrid() {
+    MutableGraph<Integer> grid = grid();
+    LayoutModel<Integer> layoutModel =
+        LoadingCacheLayoutModel.<Integer>builder().setGraph(grid).setSize(600, 600).build();
+    layoutModel.setInitializer(new PivotMDSLocationTransformer<>(grid, 600, 600, 1));
+
+    // the distances between the nodes should be close to proportional to those in the graph
+    Assert.assertTrue(correlation(grid, layoutModel) > 0.95);
+    // the grid fills the layout area
+    Assert.assertTrue(layoutModel.apply(0).distance(layoutModel.apply(SIDE * SIDE - 1)) > 400);
+  }
+
+  @Test
+  public void testIterativeLayoutsStartFromPlacement() {
+    MutableGraph<Integer> grid = grid();
+    PivotMDSLocationTransformer<Integer> transformer =
+        new PivotMDSLocationTransformer<>(grid, 600, 600, 1);
+    for (AbstractIterativeLayoutAlgorithm<Integer> algorithm :
+        ImmutableList.<AbstractIterativeLayoutAlgorithm<Integer>>of(
+            new KKLayoutAlgorithm<>(), new FRLayoutAlgorithm<>())) {
+      LayoutModel<Integer> layoutModel =
+          LoadingCacheLayoutModel.<Integer>builder().setGraph(grid).setSize(600, 600).build();
+      layoutModel.setInitializer(transformer);
+      algorithm.setKeepLocations(true);
+      algorithm.visit(layoutModel);
+      for (Integer node : grid.nodes()) {
+        Assert.assertEquals(transformer.apply(node), layoutModel.apply(node));
+      }
+    }
+  }
+
+  @Test
+  public void testSeededFRFinishesSooner() {
+    MutableGraph<Integer> grid = grid();
+    int[] steps = new int[2];
+    for (int seeded = 0; seeded < 2; seeded++) {
+      LayoutModel<Integer> layoutModel =
+          LoadingCacheLayoutModel.<Integer>builder().setGraph(grid).setSize(600, 600).build();
+      FRLayoutAlgorithm<Integer> algorithm = new FRLayoutAlgorithm<>();
+      if (seeded == 1) {
+        layoutModel.setInitializer(new PivotMDSLocationTransformer<>(grid, 600, 600, 1));
+        algorithm.setKeepLocations(true);
+      } else {
+        layoutModel.setInitializer(new RandomLocationTransformer<>(600, 600, 1));
+      }
+      algorithm.visit(layoutModel);
+      while (!algorithm.done()) {
+        algorithm.step();
+        steps[seeded]++;
+      }
+      if (seeded == 1) {
+        Assert.assertTrue(correlation(grid, layoutModel) > 0.9);
+      }
+    }
+    Assert.assertTrue(steps[1] * 2 < steps[0]);
+  }
+
+  @Test
+  public void testComponentsAndSmallGraphs() {
+    MutableGraph<Integer> graph = grid();
+    for (int i = 0; i < 10; i++) {
+      graph.putEdge(1000 + i, 1000 + (i + 1) % 10);
+    }
+    graph.addNode(2000);
+    PivotMDSLocationTransformer<Integer> transformer =
+        new PivotMDSLocationTransformer<>(graph, 600, 400, 2);
+    for (Integer node : graph.nodes()) {
+      Point p = transformer.apply(node);
+      Assert.assertTrue(p.x >= 0 && p.x <= 600 && p.y >= 0 && p.y <= 400);
+    }
+    Assert.assertEquals(Point.of(300, 200), transformer.apply(-1));
+
+    MutableGraph<Integer> single = GraphBuilder.undirected().build();
+    single.addNode(0);
+    Assert.assertEquals(
+        Point.of(300, 200), new PivotMDSLocationTransformer<>(single, 600, 400).apply(0));
+    single.putEdge(0, 1);
+    PivotMDSLocationTransformer<Integer> pair = new PivotMDSLocationTransformer<>(single, 600, 400);
+    Assert.assertTrue(pair.apply(0).distance(pair.apply(1)) > 100);
+  }
+}
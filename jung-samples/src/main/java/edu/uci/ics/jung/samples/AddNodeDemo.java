@@ -21,6 +21,7 @@ import edu.uci.ics.jung.layout.model.LayoutModel;
 import edu.uci.ics.jung.visualization.VisualizationModel;
 import edu.uci.ics.jung.visualization.VisualizationViewer;
 import edu.uci.ics.jung.visualization.control.DefaultModalGraphMouse;
+import edu.uci.ics.jung.visualization.layout.IncrementalLayoutUpdater;
 import edu.uci.ics.jung.visualization.layout.LayoutAlgorithmTransition;
 import edu.uci.ics.jung.visualization.renderers.Renderer;
 import java.awt.*;
@@ -87,6 +88,9 @@ public class AddNodeDemo extends JPanel {
 
     this.add(vv);
 
+    // update the layout around each change to the graph, rather than starting it over
+    og.addGraphEventListener(new IncrementalLayoutUpdater<>(vv.getModel()));
+
     // add listener to change layout size and restart layoutalgorithm when
     // the view is resized
     vv.addComponentListener(
@@ -165,9 +169,6 @@ public class AddNodeDemo extends JPanel {
 
         v_prev = v1;
 
-        // accept the algorithm again so that it will turn off the old relaxer and start a new one
-        vv.getModel().getLayoutModel().accept(layoutAlgorithm);
-
         vv.repaint();
 
       } else {
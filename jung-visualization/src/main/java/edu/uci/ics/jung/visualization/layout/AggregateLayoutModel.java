@@ -12,10 +12,11 @@ package edu.uci.ics.jung.visualization.layout;
 
 import com.google.common.collect.Maps;
 import com.google.common.graph.Graph;
+import edu.uci.ics.jung.layout.algorithms.IterativeLayoutAlgorithm;
 import edu.uci.ics.jung.layout.algorithms.LayoutAlgorithm;
 import edu.uci.ics.jung.layout.model.LayoutModel;
 import edu.uci.ics.jung.layout.model.Point;
-import java.awt.geom.AffineTransform;
+import edu.uci.ics.jung.layout.util.LayoutMetrics;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
@@ -26,6 +27,11 @@ import org.slf4j.LoggerFactory;
  * A {@code Layout} implementation that combines multiple other layouts so that they may be
  * manipulated as one layout. The relaxer thread will step each layout in sequence.
  *
+ * <p>Each node is placed by at most one sublayout, found through an index from nodes to sublayouts
+ * that is updated as sublayouts are put and removed, so that looking up a location takes constant
+ * time however many sublayouts there are. The index reflects the nodes of each sublayout's graph at
+ * the time the sublayout was put.
+ *
  * @author Tom Nelson
  * @param <N> the node type
  */
@@ -33,7 +39,12 @@ public class AggregateLayoutModel<N> implements LayoutModel<N> {
 
   private static final Logger log = LoggerFactory.getLogger(AggregateLayoutModel.class);
   protected final LayoutModel<N> delegate;
-  protected Map<LayoutModel<N>, Point> layouts = Maps.newHashMap();
+  protected Map<LayoutModel<N>, Point> layouts = Maps.newLinkedHashMap();
+  /**
+   * The sublayout that places each node, if any: the most recently added sublayout whose graph
+   * contained the node when it was added.
+   */
+  protected Map<N, LayoutModel<N>> sublayouts = Maps.newHashMap();
 
   /**
    * Creates an instance backed by the specified {@code delegate}.
@@ -56,6 +67,9 @@ public class AggregateLayoutModel<N> implements LayoutModel<N> {
       log.trace("put layout: {} at {}", layoutModel, center);
     }
     layouts.put(layoutModel, center);
+    for (N node : layoutModel.getGraph().nodes()) {
+      sublayouts.put(node, layoutModel);
+    }
     connectListeners(layoutModel);
   }
 
@@ -109,6 +123,16 @@ public class AggregateLayoutModel<N> implements LayoutModel<N> {
     }
   }
 
+  @Override
+  public void resumeRelaxer(IterativeLayoutAlgorithm<N> layoutAlgorithm) {
+    delegate.resumeRelaxer(layoutAlgorithm);
+  }
+
+  @Override
+  public void setLayoutMetrics(LayoutMetrics<N> layoutMetrics) {
+    delegate.setLayoutMetrics(layoutMetrics);
+  }
+
   @Override
   public void setRelaxing(boolean relaxing) {
     delegate.setRelaxing(relaxing);
@@ -155,12 +179,32 @@ public class AggregateLayoutModel<N> implements LayoutModel<N> {
    * @param layout the layout to remove
    */
   public void remove(LayoutModel<N> layout) {
-    layouts.remove(layout);
+    if (layouts.remove(layout) == null) {
+      return;
+    }
+    boolean placed = false;
+    for (N node : layout.getGraph().nodes()) {
+      if (sublayouts.get(node) == layout) {
+        sublayouts.remove(node);
+        placed = true;
+      }
+    }
+    // hand the nodes over to any other sublayouts that also contain them; the latest one wins
+    if (placed) {
+      for (LayoutModel<N> layoutModel : layouts.keySet()) {
+        for (N node : layoutModel.getGraph().nodes()) {
+          if (layout.getGraph().nodes().contains(node)) {
+            sublayouts.put(node, layoutModel);
+          }
+        }
+      }
+    }
   }
 
   /** Removes all layouts from this instance. */
   public void removeAll() {
     layouts.clear();
+    sublayouts.clear();
   }
 
   @Override
@@ -178,25 +222,23 @@ public class AggregateLayoutModel<N> implements LayoutModel<N> {
    * @return true if v is locked in any of the layouts, and false otherwise
    */
   public boolean isLocked(N node) {
-    for (LayoutModel<N> layoutModel : layouts.keySet()) {
-      if (layoutModel.isLocked(node)) {
-        return true;
-      }
+    LayoutModel<N> layoutModel = sublayouts.get(node);
+    if (layoutModel != null && layoutModel.isLocked(node)) {
+      return true;
     }
     return delegate.isLocked(node);
   }
 
   /**
-   * Locks this node in the main layout and in any sublayouts whose graph contains this node.
+   * Locks this node in the main layout and in the sublayout that places it, if any.
    *
    * @param node the node whose locked state is to be set
    * @param state {@code true} if the node is to be locked, and {@code false} if unlocked
    */
   public void lock(N node, boolean state) {
-    for (LayoutModel<N> layoutModel : layouts.keySet()) {
-      if (layoutModel.getGraph().nodes().contains(node)) {
-        layoutModel.lock(node, state);
-      }
+    LayoutModel<N> layoutModel = sublayouts.get(node);
+    if (layoutModel != null) {
+      layoutModel.lock(node, state);
     }
     delegate.lock(node, state);
   }
@@ -235,23 +277,16 @@ public class AggregateLayoutModel<N> implements LayoutModel<N> {
    * @return the location of the node
    */
   public Point apply(N node) {
-    for (LayoutModel<N> layoutModel : layouts.keySet()) {
-      if (layoutModel.getGraph().nodes().contains(node)) {
-        Point center = layouts.get(layoutModel);
-        // transform by the layout itself, but offset to the
-        // center of the sublayout
-        int width = layoutModel.getWidth();
-        int height = layoutModel.getHeight();
-        AffineTransform at =
-            AffineTransform.getTranslateInstance(center.x - width / 2, center.y - height / 2);
-        Point nodeCenter = layoutModel.apply(node);
-        log.trace("sublayout center is {}", nodeCenter);
-        double[] srcPoints = new double[] {nodeCenter.x, nodeCenter.y};
-        double[] destPoints = new double[2];
-        at.transform(srcPoints, 0, destPoints, 0, 1);
-        return Point.of(destPoints[0], destPoints[1]);
-      }
+    LayoutModel<N> layoutModel = sublayouts.get(node);
+    if (layoutModel == null) {
+      return delegate.apply(node);
     }
-    return delegate.apply(node);
+    Point center = layouts.get(layoutModel);
+    // offset the location in the sublayout by the center of the sublayout
+    int width = layoutModel.getWidth();
+    int height = layoutModel.getHeight();
+    Point nodeCenter = layoutModel.apply(node);
+    log.trace("sublayout center is {}", nodeCenter);
+    return Point.of(nodeCenter.x + center.x - width / 2, nodeCenter.y + center.y - height / 2);
   }
 }
@@ -1,16 +1,33 @@
 package edu.uci.ics.jung.visualization.layout;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import edu.uci.ics.jung.algorithms.util.IterativeContext;
 import edu.uci.ics.jung.layout.algorithms.AbstractIterativeLayoutAlgorithm;
+import edu.uci.ics.jung.layout.algorithms.IterativeLayoutAlgorithm;
 import edu.uci.ics.jung.layout.algorithms.LayoutAlgorithm;
 import edu.uci.ics.jung.layout.model.LayoutModel;
 import edu.uci.ics.jung.layout.model.LoadingCacheLayoutModel;
 import edu.uci.ics.jung.layout.model.Point;
 import edu.uci.ics.jung.visualization.VisualizationServer;
+import java.util.function.DoubleUnaryOperator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Animates the transition from the current node locations to those of another LayoutAlgorithm,
+ * which then takes over the layout model.
+ *
+ * <p>The start and end locations are captured into arrays, and each frame (each step) places every
+ * node on the line between them, at the fraction of the way given by the easing function of the
+ * elapsed fraction of the frames. Events are suppressed while a frame is written, and a single
+ * change event is fired once it is complete.
+ *
+ * <p>The end LayoutAlgorithm runs in a separate layout model. If it is iterative, it is stepped
+ * along with the animation, and the end locations are recaptured each frame, so that the nodes move
+ * towards its intermediate states; in streaming mode, the animation starts at once, rather than
+ * after the end algorithm's pre-relax phase.
+ *
  * @author Tom Nelson
  */
 public class AnimationLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorithm<N>
@@ -18,15 +35,32 @@ public class AnimationLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorith
 
   private static final Logger log = LoggerFactory.getLogger(AnimationLayoutAlgorithm.class);
 
+  /** Moves each node at a constant speed. */
+  public static final DoubleUnaryOperator LINEAR = t -> t;
+
+  /** Accelerates each node from rest, and decelerates it to rest at the end. */
+  public static final DoubleUnaryOperator EASE_IN_OUT = t -> t * t * (3 - 2 * t);
+
   protected boolean done = false;
   protected int count = 20;
   protected int counter = 0;
+  protected DoubleUnaryOperator easing = LINEAR;
+  protected int endStepsPerFrame = 1;
+  protected boolean streaming = false;
 
   LayoutModel<N> transitionLayoutModel;
   VisualizationServer<N, ?> visualizationServer;
   LayoutAlgorithm<N> endLayoutAlgorithm;
   LayoutModel<N> layoutModel;
 
+  private ImmutableList<N> nodes = ImmutableList.of();
+  private double[] startX;
+  private double[] startY;
+  private double[] endX;
+  private double[] endY;
+  // the end algorithm, while it has steps left to take
+  private IterativeContext endContext;
+
   public AnimationLayoutAlgorithm(
       VisualizationServer<N, ?> visualizationServer, LayoutAlgorithm<N> endLayoutAlgorithm) {
     this.visualizationServer = visualizationServer;
@@ -34,37 +68,117 @@ public class AnimationLayoutAlgorithm<N> extends AbstractIterativeLayoutAlgorith
     this.shouldPreRelax = false;
   }
 
+  /**
+   * @param count the number of frames in the animation
+   */
+  public void setFrameCount(int count) {
+    Preconditions.checkArgument(count > 0, "count must be > 0");
+    this.count = count;
+  }
+
+  /**
+   * @param easing maps the elapsed fraction of the frames to the fraction of the way that the nodes
+   *     have moved; both range from 0 to 1
+   */
+  public void setEasing(DoubleUnaryOperator easing) {
+    this.easing = Preconditions.checkNotNull(easing);
+  }
+
+  /**
+   * @param endStepsPerFrame the number of steps the end algorithm takes per frame, if it is
+   *     iterative
+   */
+  public void setEndStepsPerFrame(int endStepsPerFrame) {
+    Preconditions.checkArgument(endStepsPerFrame >= 0, "endStepsPerFrame must be >= 0");
+    this.endStepsPerFrame = endStepsPerFrame;
+  }
+
+  /**
+   * @param streaming if {@code true}, the animation starts without waiting for the end algorithm's
+   *     pre-relax phase
+   */
+  public void setStreaming(boolean streaming) {
+    this.streaming = streaming;
+  }
+
   public void visit(LayoutModel<N> layoutModel) {
     // save off the existing layoutModel
     this.layoutModel = layoutModel;
+    this.done = false;
+    this.counter = 0;
     // create a LayoutModel to hold points for the transition
     this.transitionLayoutModel =
         LoadingCacheLayoutModel.<N>builder()
-            .setGraph(visualizationServer.getModel().getNetwork().asGraph())
+            .setGraph(layoutModel.getGraph())
             .setLayoutModel(layoutModel)
             .setInitializer(layoutModel)
             .build();
-    // start off the transitionLayoutModel with the endLayoutAlgorithm
-    transitionLayoutModel.accept(endLayoutAlgorithm);
+
+    nodes = ImmutableList.copyOf(layoutModel.getGraph().nodes());
+    int n = nodes.size();
+    startX = new double[n];
+    startY = new double[n];
+    endX = new double[n];
+    endY = new double[n];
+    for (int i = 0; i < n; i++) {
+      Point p = layoutModel.apply(nodes.get(i));
+      startX[i] = p.x;
+      startY[i] = p.y;
+    }
+
+    // run the endLayoutAlgorithm in the transitionLayoutModel, stepping it here if it's iterative
+    endLayoutAlgorithm.visit(transitionLayoutModel);
+    endContext = null;
+    if (endLayoutAlgorithm instanceof IterativeLayoutAlgorithm) {
+      IterativeLayoutAlgorithm<N> iterative = (IterativeLayoutAlgorithm<N>) endLayoutAlgorithm;
+      if (!streaming) {
+        iterative.preRelax();
+      }
+      endContext = iterative;
+    }
+    captureEnd();
   }
 
-  /**
-   * each step of the animation moves every pouit 1/count of the distance from its old location to
-   * its new location
-   */
+  private void captureEnd() {
+    for (int i = 0; i < nodes.size(); i++) {
+      Point p = transitionLayoutModel.apply(nodes.get(i));
+      endX[i] = p.x;
+      endY[i] = p.y;
+    }
+  }
+
+  /** Advances the animation by one frame. */
   public void step() {
-    for (N v : layoutModel.getGraph().nodes()) {
-      Point tp = layoutModel.apply(v);
-      Point fp = transitionLayoutModel.apply(v);
-      double dx = (fp.x - tp.x) / (count - counter);
-      double dy = (fp.y - tp.y) / (count - counter);
-      log.trace("dx:{},dy:{}", dx, dy);
-      layoutModel.set(v, tp.x + dx, tp.y + dy);
+    if (done) {
+      return;
+    }
+    if (endContext != null) {
+      for (int k = 0; k < endStepsPerFrame && !endContext.done(); k++) {
+        endContext.step();
+      }
+      captureEnd();
     }
     counter++;
+    double t = easing.applyAsDouble(Math.min(1.0, (double) counter / count));
+    log.trace("frame {} of {} at {}", counter, count, t);
+
+    LayoutModel.ChangeSupport changeSupport = layoutModel.getChangeSupport();
+    boolean fireEvents = changeSupport.isFireEvents();
+    changeSupport.setFireEvents(false);
+    try {
+      for (int i = 0; i < nodes.size(); i++) {
+        layoutModel.set(
+            nodes.get(i),
+            startX[i] + (endX[i] - startX[i]) * t,
+            startY[i] + (endY[i] - startY[i]) * t);
+      }
+    } finally {
+      // turning events back on fires a single change event for the frame
+      changeSupport.setFireEvents(fireEvents);
+    }
+
     if (counter >= count) {
       done = true;
-      this.transitionLayoutModel.stopRelaxer();
       this.visualizationServer.getModel().setLayoutAlgorithm(endLayoutAlgorithm);
     }
   }
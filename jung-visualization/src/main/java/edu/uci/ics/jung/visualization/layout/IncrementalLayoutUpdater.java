@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2003, The JUNG Authors
+ *
+ * All rights reserved.
+ *
+ * This software is open-source under the BSD license; see either
+ * "license.txt" or
+ * https://github.com/jrtom/jung/blob/master/LICENSE for a description.
+ */
+package edu.uci.ics.jung.visualization.layout;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.Network;
+import edu.uci.ics.jung.graph.event.NetworkEvent;
+import edu.uci.ics.jung.graph.event.NetworkEventListener;
+import edu.uci.ics.jung.layout.algorithms.IncrementalLayoutAlgorithm;
+import edu.uci.ics.jung.layout.algorithms.LayoutAlgorithm;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.visualization.VisualizationModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the layout of a VisualizationModel up to date as its network changes. Add it as a listener
+ * to the ObservableNetwork behind the model. If the model's LayoutAlgorithm is an {@link
+ * IncrementalLayoutAlgorithm}, each event updates the layout around the changed nodes and resumes
+ * the relaxer; otherwise the LayoutAlgorithm is applied again from the start.
+ *
+ * <p>A removed edge carries no endpoints once it has been removed, so its endpoints are not
+ * re-heated.
+ *
+ * @param <N> the node type
+ * @param <E> the edge type
+ */
+public class IncrementalLayoutUpdater<N, E> implements NetworkEventListener<N, E> {
+
+  private static final Logger log = LoggerFactory.getLogger(IncrementalLayoutUpdater.class);
+
+  private final VisualizationModel<N, E> model;
+
+  public IncrementalLayoutUpdater(VisualizationModel<N, E> model) {
+    this.model = checkNotNull(model);
+  }
+
+  @Override
+  public void handleGraphEvent(NetworkEvent<N, E> evt) {
+    log.trace("handling {}", evt);
+    LayoutAlgorithm<N> layoutAlgorithm = model.getLayoutAlgorithm();
+    LayoutModel<N> layoutModel = model.getLayoutModel();
+    if (!(layoutAlgorithm instanceof IncrementalLayoutAlgorithm)) {
+      layoutModel.accept(layoutAlgorithm);
+      return;
+    }
+    IncrementalLayoutAlgorithm<N> incremental = (IncrementalLayoutAlgorithm<N>) layoutAlgorithm;
+    switch (evt.getType()) {
+      case NODE_ADDED:
+        N added = ((NetworkEvent.Node<N, E>) evt).getNode();
+        incremental.update(ImmutableSet.of(added), ImmutableSet.of(), ImmutableSet.of());
+        break;
+      case NODE_REMOVED:
+        N removed = ((NetworkEvent.Node<N, E>) evt).getNode();
+        incremental.update(ImmutableSet.of(), ImmutableSet.of(), ImmutableSet.of(removed));
+        break;
+      case EDGE_ADDED:
+        E edge = ((NetworkEvent.Edge<N, E>) evt).getEdge();
+        Network<N, E> network = evt.getSource();
+        if (!network.edges().contains(edge)) {
+          return;
+        }
+        EndpointPair<N> endpoints = network.incidentNodes(edge);
+        incremental.update(
+            ImmutableSet.of(),
+            ImmutableSet.of(endpoints.nodeU(), endpoints.nodeV()),
+            ImmutableSet.of());
+        break;
+      default:
+        return;
+    }
+    layoutModel.resumeRelaxer(incremental);
+  }
+}
@@ -2,10 +2,19 @@ package edu.uci.ics.jung.visualization;
 
 import com.google.common.graph.GraphBuilder;
 import com.google.common.graph.MutableGraph;
+import com.google.common.graph.MutableNetwork;
+import com.google.common.graph.NetworkBuilder;
+import edu.uci.ics.jung.layout.algorithms.CircleLayoutAlgorithm;
 import edu.uci.ics.jung.layout.algorithms.LayoutAlgorithm;
 import edu.uci.ics.jung.layout.algorithms.StaticLayoutAlgorithm;
 import edu.uci.ics.jung.layout.model.LayoutModel;
 import edu.uci.ics.jung.layout.model.LoadingCacheLayoutModel;
+import edu.uci.ics.jung.layout.model.Point;
+import edu.uci.ics.jung.visualization.layout.AnimationLayoutAlgorithm;
+import java.awt.Dimension;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class LayoutAlgorithmTransitionTest {
@@ -20,4 +29,52 @@ public class LayoutAlgorithmTransitionTest {
     model.set("A", 0, 0);
     LayoutAlgorithm newLayoutAlgorithm = new StaticLayoutAlgorithm();
   }
+
+  @Test
+  public void testAnimationFrames() {
+    MutableNetwork<Integer, Integer> network = NetworkBuilder.undirected().build();
+    for (int i = 0; i < 10; i++) {
+      network.addEdge(i, (i + 1) % 10, i);
+    }
+    VisualizationServer<Integer, Integer> server =
+        new BasicVisualizationServer<>(
+            network, new StaticLayoutAlgorithm<>(), new Dimension(600, 600));
+    LayoutModel<Integer> layoutModel = server.getModel().getLayoutModel();
+    Map<Integer, Point> start = new HashMap<>();
+    for (int i = 0; i < 10; i++) {
+      layoutModel.set(i, 20 * i, 10 * i);
+      start.put(i, Point.of(20 * i, 10 * i));
+    }
+    // the locations that the end algorithm will produce
+    LayoutModel<Integer> endModel =
+        LoadingCacheLayoutModel.<Integer>builder()
+            .setGraph(network.asGraph())
+            .setSize(600, 600)
+            .build();
+    endModel.accept(new CircleLayoutAlgorithm<>());
+
+    AnimationLayoutAlgorithm<Integer> animation =
+        new AnimationLayoutAlgorithm<>(server, new CircleLayoutAlgorithm<>());
+    animation.setFrameCount(4);
+    animation.setEasing(AnimationLayoutAlgorithm.EASE_IN_OUT);
+    animation.visit(layoutModel);
+    int[] changes = new int[1];
+    layoutModel.getChangeSupport().addChangeListener(() -> changes[0]++);
+    for (int frame = 1; frame <= 4; frame++) {
+      animation.step();
+      double t = AnimationLayoutAlgorithm.EASE_IN_OUT.applyAsDouble(frame / 4.0);
+      if (frame < 4) {
+        // the last frame also hands the layout model over to the end algorithm, which fires more
+        Assert.assertEquals(frame, changes[0]);
+      }
+      for (int i = 0; i < 10; i++) {
+        Point from = start.get(i);
+        Point to = endModel.apply(i);
+        Point p = layoutModel.apply(i);
+        Assert.assertEquals(from.x + (to.x - from.x) * t, p.x, 1e-9);
+        Assert.assertEquals(from.y + (to.y - from.y) * t, p.y, 1e-9);
+      }
+      Assert.assertEquals(frame == 4, animation.done());
+    }
+  }
 }
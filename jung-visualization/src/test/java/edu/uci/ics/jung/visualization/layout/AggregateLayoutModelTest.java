@@ -0,0 +1,68 @@
+package edu.uci.ics.jung.visualization.layout;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.Graphs;
+import com.google.common.graph.MutableGraph;
+import edu.uci.ics.jung.layout.model.LayoutModel;
+import edu.uci.ics.jung.layout.model.LoadingCacheLayoutModel;
+import edu.uci.ics.jung.layout.model.Point;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that an AggregateLayoutModel finds the sublayout of each node through its index, as
+ * sublayouts (including overlapping ones) are put and removed.
+ */
+public class AggregateLayoutModelTest {
+
+  @Test
+  public void testSublayoutIndex() {
+    MutableGraph<Integer> graph = GraphBuilder.undirected().build();
+    for (int i = 0; i < 10; i++) {
+      graph.putEdge(i, (i + 1) % 10);
+    }
+    LayoutModel<Integer> delegate =
+        LoadingCacheLayoutModel.<Integer>builder().setGraph(graph).setSize(500, 500).build();
+    for (int i = 0; i < 10; i++) {
+      delegate.set(i, 10 * i, 20 * i);
+    }
+    AggregateLayoutModel<Integer> model = new AggregateLayoutModel<>(delegate);
+
+    LayoutModel<Integer> first = sublayout(graph, ImmutableSet.of(1, 2, 3));
+    LayoutModel<Integer> second = sublayout(graph, ImmutableSet.of(3, 4));
+    model.put(first, Point.of(200, 200));
+    model.put(second, Point.of(300, 100));
+
+    // a sublayout's locations are offset so that its center is at the specified point
+    Assert.assertEquals(Point.of(200 - 50 + 1, 200 - 50 + 2), model.apply(1));
+    Assert.assertEquals(Point.of(300 - 50 + 3, 100 - 50 + 6), model.apply(3));
+    Assert.assertEquals(Point.of(50, 100), model.apply(5));
+
+    model.lock(2, true);
+    Assert.assertTrue(first.isLocked(2));
+    Assert.assertTrue(model.isLocked(2));
+    Assert.assertFalse(model.isLocked(1));
+
+    // node 3 is handed back to the first sublayout, and node 4 to the delegate
+    model.remove(second);
+    Assert.assertEquals(Point.of(200 - 50 + 3, 200 - 50 + 6), model.apply(3));
+    Assert.assertEquals(Point.of(40, 80), model.apply(4));
+
+    model.removeAll();
+    Assert.assertEquals(Point.of(10, 20), model.apply(1));
+  }
+
+  private static LayoutModel<Integer> sublayout(
+      MutableGraph<Integer> graph, ImmutableSet<Integer> nodes) {
+    LayoutModel<Integer> layoutModel =
+        LoadingCacheLayoutModel.<Integer>builder()
+            .setGraph(Graphs.inducedSubgraph(graph, nodes))
+            .setSize(100, 100)
+            .build();
+    for (Integer node : nodes) {
+      layoutModel.set(node, node, 2 * node);
+    }
+    return layoutModel;
+  }
+}